@@ -20,6 +20,8 @@ import com.badlogic.gdx.ai.GdxAI;
 import com.badlogic.gdx.ai.Timepiece;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.Pool;
 import com.badlogic.gdx.utils.reflect.ClassReflection;
 
@@ -30,6 +32,9 @@ public class MessageDispatcher implements Telegraph {
 
 	private static final String LOG_TAG = MessageDispatcher.class.getSimpleName();
 
+	/** The handle returned by the {@code dispatchMessage} methods when the telegram has not been queued. */
+	public static final long NO_HANDLE = 0;
+
 	private static final Pool<Telegram> POOL_GLOBAL = new Pool<Telegram>(16) {
 		@Override
 		protected Telegram newObject () {
@@ -39,10 +44,25 @@ public class MessageDispatcher implements Telegraph {
 
 	private final Pool<Telegram> pool;
 
-	private PriorityQueue<Telegram> queue;
+	private TelegramQueue queue;
+
+	/** The pending delayed telegrams by handle. */
+	private LongMap<Telegram> pendingTelegrams;
+
+	/** The most recently queued pending telegram of each receiver, heading the list of its pending telegrams. */
+	private ObjectMap<Telegraph, Telegram> pendingByReceiver;
+
+	private long lastHandle;
+
+	private TelegramIngress ingress;
 
 	private IntMap<Array<Telegraph>> msgListeners;
 
+	/** The listeners of the message codes in the range [0, denseListeners.length), indexed by message code, or {@code null} if
+	 * all the listeners are in {@link #msgListeners}. Arrays are never modified once stored: they are replaced by updated copies,
+	 * so that a broadcast in progress keeps iterating its own snapshot. */
+	private Telegraph[][] denseListeners;
+
 	private IntMap<Array<TelegramProvider>> msgProviders;
 
 	private boolean debugEnabled;
@@ -52,15 +72,87 @@ public class MessageDispatcher implements Telegraph {
 		this(POOL_GLOBAL);
 	}
 
+	/** Creates a {@code MessageDispatcher} using the given pool of telegrams and a {@link PriorityTelegramQueue} for delayed
+	 * telegrams.
+	 * @param pool the pool of telegrams */
 	public MessageDispatcher (Pool<Telegram> pool) {
+		this(pool, new PriorityTelegramQueue());
+	}
+
+	/** Creates a {@code MessageDispatcher} using the given queue for delayed telegrams.
+	 * @param queue the queue of delayed telegrams, for instance a {@link TimingWheelTelegramQueue} when many delayed telegrams are
+	 *           pending at the same time */
+	public MessageDispatcher (TelegramQueue queue) {
+		this(POOL_GLOBAL, queue);
+	}
+
+	/** Creates a {@code MessageDispatcher} using the given pool of telegrams and the given queue for delayed telegrams.
+	 * @param pool the pool of telegrams
+	 * @param queue the queue of delayed telegrams */
+	public MessageDispatcher (Pool<Telegram> pool, TelegramQueue queue) {
 		if (pool == null)
 			throw new IllegalArgumentException("pool cannot be null");
+		if (queue == null)
+			throw new IllegalArgumentException("queue cannot be null");
 		this.pool = pool;
-		this.queue = new PriorityQueue<Telegram>();
+		this.queue = queue;
+		this.pendingTelegrams = new LongMap<Telegram>();
+		this.pendingByReceiver = new ObjectMap<Telegraph, Telegram>();
 		this.msgListeners = new IntMap<Array<Telegraph>>();
 		this.msgProviders = new IntMap<Array<TelegramProvider>>();
 	}
 
+	/** Returns the ingress other threads can post messages to, or {@code null} if there's none. */
+	public TelegramIngress getIngress () {
+		return ingress;
+	}
+
+	/** Sets the ingress other threads can post messages to. Its messages are drained at the beginning of each
+	 * {@link #update() update}. This method should be called before the other threads start posting messages.
+	 * @param ingress the ingress; it can be {@code null} */
+	public void setIngress (TelegramIngress ingress) {
+		this.ingress = ingress;
+	}
+
+	/** Returns the number of message codes whose listeners are stored in a table indexed by message code, or 0 if all the
+	 * listeners are stored in a hash map. */
+	public int getDenseMessageCodes () {
+		return denseListeners == null ? 0 : denseListeners.length;
+	}
+
+	/** Stores the listeners of the message codes in the range [0, count) in a table indexed by message code, so that broadcasting
+	 * these messages needs no hash lookup. Also, the listeners of these message codes are copied on write: listeners can be
+	 * added or removed while a message is being broadcasted, which then reaches the listeners registered when it started. The
+	 * listeners already registered are kept.
+	 * @param count the number of dense message codes, typically the number of constants of the enumeration of the message codes;
+	 *           0 to store all the listeners in a hash map
+	 * @throws IllegalArgumentException if the count is negative */
+	public void setDenseMessageCodes (int count) {
+		if (count < 0) throw new IllegalArgumentException("count cannot be negative: " + count);
+		Telegraph[][] oldListeners = denseListeners;
+		denseListeners = count == 0 ? null : new Telegraph[count][];
+
+		// Move the listeners of the dense codes out of the hash map
+		for (int msg = 0; msg < count; msg++) {
+			Array<Telegraph> listeners = msgListeners.remove(msg);
+			if (listeners != null) {
+				for (int i = 0; i < listeners.size; i++)
+					storeListener(listeners.get(i), msg);
+			}
+		}
+
+		// Move the listeners of the previous dense codes to their new place
+		if (oldListeners != null) {
+			for (int msg = 0; msg < oldListeners.length; msg++) {
+				Telegraph[] listeners = oldListeners[msg];
+				if (listeners != null) {
+					for (int i = 0; i < listeners.length; i++)
+						storeListener(listeners[i], msg);
+				}
+			}
+		}
+	}
+
 	/** Returns true if debug mode is on; false otherwise. */
 	public boolean isDebugEnabled () {
 		return debugEnabled;
@@ -76,13 +168,7 @@ public class MessageDispatcher implements Telegraph {
 	 * @param listener the listener to add
 	 * @param msg the message code */
 	public void addListener (Telegraph listener, int msg) {
-		Array<Telegraph> listeners = msgListeners.get(msg);
-		if (listeners == null) {
-			// Associate an empty unordered array with the message code
-			listeners = new Array<Telegraph>(false, 16);
-			msgListeners.put(msg, listeners);
-		}
-		listeners.add(listener);
+		storeListener(listener, msg);
 
 		// Dispatch messages from registered providers
 		Array<TelegramProvider> providers = msgProviders.get(msg);
@@ -98,6 +184,30 @@ public class MessageDispatcher implements Telegraph {
 		}
 	}
 
+	private void storeListener (Telegraph listener, int msg) {
+		if (isDense(msg)) {
+			// Replace the array with a copy including the new listener
+			Telegraph[] listeners = denseListeners[msg];
+			int n = listeners == null ? 0 : listeners.length;
+			Telegraph[] newListeners = new Telegraph[n + 1];
+			if (n > 0) System.arraycopy(listeners, 0, newListeners, 0, n);
+			newListeners[n] = listener;
+			denseListeners[msg] = newListeners;
+			return;
+		}
+		Array<Telegraph> listeners = msgListeners.get(msg);
+		if (listeners == null) {
+			// Associate an empty unordered array with the message code
+			listeners = new Array<Telegraph>(false, 16);
+			msgListeners.put(msg, listeners);
+		}
+		listeners.add(listener);
+	}
+
+	private boolean isDense (int msg) {
+		return denseListeners != null && msg >= 0 && msg < denseListeners.length;
+	}
+
 	/** Registers a listener for a selection of message types. Messages without an explicit receiver are broadcasted to all its
 	 * registered listeners.
 	 * 
@@ -133,6 +243,25 @@ public class MessageDispatcher implements Telegraph {
 	 * @param listener the listener to remove
 	 * @param msg the message code */
 	public void removeListener (Telegraph listener, int msg) {
+		if (isDense(msg)) {
+			Telegraph[] listeners = denseListeners[msg];
+			if (listeners == null) return;
+			for (int i = 0, n = listeners.length; i < n; i++) {
+				if (listeners[i] == listener) {
+					// Replace the array with a copy excluding the listener
+					if (n == 1) {
+						denseListeners[msg] = null;
+					} else {
+						Telegraph[] newListeners = new Telegraph[n - 1];
+						System.arraycopy(listeners, 0, newListeners, 0, i);
+						System.arraycopy(listeners, i + 1, newListeners, i, n - i - 1);
+						denseListeners[msg] = newListeners;
+					}
+					return;
+				}
+			}
+			return;
+		}
 		Array<Telegraph> listeners = msgListeners.get(msg);
 		if (listeners != null) {
 			listeners.removeValue(listener, true);
@@ -151,7 +280,10 @@ public class MessageDispatcher implements Telegraph {
 	/** Unregisters all the listeners for the specified message code.
 	 * @param msg the message code */
 	public void clearListeners (int msg) {
-		msgListeners.remove(msg);
+		if (isDense(msg))
+			denseListeners[msg] = null;
+		else
+			msgListeners.remove(msg);
 	}
 
 	/** Unregisters all the listeners for the given message codes.
@@ -165,6 +297,10 @@ public class MessageDispatcher implements Telegraph {
 	/** Removes all the registered listeners for all the message codes. */
 	public void clearListeners () {
 		msgListeners.clear();
+		if (denseListeners != null) {
+			for (int i = 0; i < denseListeners.length; i++)
+				denseListeners[i] = null;
+		}
 	}
 
 	/** Unregisters all the providers for the specified message code.
@@ -186,12 +322,14 @@ public class MessageDispatcher implements Telegraph {
 		msgProviders.clear();
 	}
 
-	/** Removes all the telegrams from the queue and releases them to the internal pool. */
+	/** Removes all the telegrams from the queue and releases them to the internal pool. Their handles are no longer valid. */
 	public void clearQueue () {
 		for (int i = 0; i < queue.size(); i++) {
 			pool.free(queue.get(i));
 		}
 		queue.clear();
+		pendingTelegrams.clear();
+		pendingByReceiver.clear();
 	}
 
 	/** Removes all the telegrams from the queue and the registered listeners for all the messages. */
@@ -340,9 +478,11 @@ public class MessageDispatcher implements Telegraph {
 	 * dispatchMessage(delay, null, null, msg, null, null)}
 	 * 
 	 * @param delay the delay in seconds
-	 * @param msg the message code */
-	public void dispatchMessage (float delay, int msg) {
-		dispatchMessage(delay, null, null, msg, null, false);
+	 * @param msg the message code
+	 * @return the handle of the delayed telegram, which can be used to {@link #cancel(long) cancel} it, or {@link #NO_HANDLE} if
+	 *         there's no delay or the telegram has been rejected by the queue */
+	public long dispatchMessage (float delay, int msg) {
+		return dispatchMessage(delay, null, null, msg, null, false);
 	}
 
 	/** Sends a message to all registered listeners, with the specified delay but no extra info.
@@ -352,9 +492,11 @@ public class MessageDispatcher implements Telegraph {
 	 * 
 	 * @param delay the delay in seconds
 	 * @param sender the sender of the telegram
-	 * @param msg the message code */
-	public void dispatchMessage (float delay, Telegraph sender, int msg) {
-		dispatchMessage(delay, sender, null, msg, null, false);
+	 * @param msg the message code
+	 * @return the handle of the delayed telegram, which can be used to {@link #cancel(long) cancel} it, or {@link #NO_HANDLE} if
+	 *         there's no delay or the telegram has been rejected by the queue */
+	public long dispatchMessage (float delay, Telegraph sender, int msg) {
+		return dispatchMessage(delay, sender, null, msg, null, false);
 	}
 
 	/** Sends a message to all registered listeners, with the specified delay but no extra info.
@@ -366,9 +508,11 @@ public class MessageDispatcher implements Telegraph {
 	 * @param sender the sender of the telegram
 	 * @param msg the message code
 	 * @param needsReturnReceipt whether the return receipt is needed or not
+	 * @return the handle of the delayed telegram, which can be used to {@link #cancel(long) cancel} it, or {@link #NO_HANDLE} if
+	 *         there's no delay or the telegram has been rejected by the queue
 	 * @throws IllegalArgumentException if the sender is {@code null} and the return receipt is needed */
-	public void dispatchMessage (float delay, Telegraph sender, int msg, boolean needsReturnReceipt) {
-		dispatchMessage(delay, sender, null, msg, null, needsReturnReceipt);
+	public long dispatchMessage (float delay, Telegraph sender, int msg, boolean needsReturnReceipt) {
+		return dispatchMessage(delay, sender, null, msg, null, needsReturnReceipt);
 	}
 
 	/** Sends a message to all registered listeners, with the specified delay and extra info.
@@ -378,9 +522,11 @@ public class MessageDispatcher implements Telegraph {
 	 * 
 	 * @param delay the delay in seconds
 	 * @param msg the message code
-	 * @param extraInfo an optional object */
-	public void dispatchMessage (float delay, int msg, Object extraInfo) {
-		dispatchMessage(delay, null, null, msg, extraInfo, false);
+	 * @param extraInfo an optional object
+	 * @return the handle of the delayed telegram, which can be used to {@link #cancel(long) cancel} it, or {@link #NO_HANDLE} if
+	 *         there's no delay or the telegram has been rejected by the queue */
+	public long dispatchMessage (float delay, int msg, Object extraInfo) {
+		return dispatchMessage(delay, null, null, msg, extraInfo, false);
 	}
 
 	/** Sends a message to all registered listeners, with the specified delay and extra info.
@@ -391,9 +537,11 @@ public class MessageDispatcher implements Telegraph {
 	 * @param delay the delay in seconds
 	 * @param sender the sender of the telegram
 	 * @param msg the message code
-	 * @param extraInfo an optional object */
-	public void dispatchMessage (float delay, Telegraph sender, int msg, Object extraInfo) {
-		dispatchMessage(delay, sender, null, msg, extraInfo, false);
+	 * @param extraInfo an optional object
+	 * @return the handle of the delayed telegram, which can be used to {@link #cancel(long) cancel} it, or {@link #NO_HANDLE} if
+	 *         there's no delay or the telegram has been rejected by the queue */
+	public long dispatchMessage (float delay, Telegraph sender, int msg, Object extraInfo) {
+		return dispatchMessage(delay, sender, null, msg, extraInfo, false);
 	}
 
 	/** Sends a message to all registered listeners, with the specified delay and extra info.
@@ -406,9 +554,11 @@ public class MessageDispatcher implements Telegraph {
 	 * @param msg the message code
 	 * @param extraInfo an optional object
 	 * @param needsReturnReceipt whether the return receipt is needed or not
+	 * @return the handle of the delayed telegram, which can be used to {@link #cancel(long) cancel} it, or {@link #NO_HANDLE} if
+	 *         there's no delay or the telegram has been rejected by the queue
 	 * @throws IllegalArgumentException if the sender is {@code null} and the return receipt is needed */
-	public void dispatchMessage (float delay, Telegraph sender, int msg, Object extraInfo, boolean needsReturnReceipt) {
-		dispatchMessage(delay, sender, null, msg, extraInfo, needsReturnReceipt);
+	public long dispatchMessage (float delay, Telegraph sender, int msg, Object extraInfo, boolean needsReturnReceipt) {
+		return dispatchMessage(delay, sender, null, msg, extraInfo, needsReturnReceipt);
 	}
 
 	/** Sends a message to the specified receiver, with the specified delay but no extra info. The receiver doesn't need to be a
@@ -421,9 +571,11 @@ public class MessageDispatcher implements Telegraph {
 	 * @param sender the sender of the telegram
 	 * @param receiver the receiver of the telegram; if it's {@code null} the telegram is broadcasted to all the receivers
 	 *           registered for the specified message code
-	 * @param msg the message code */
-	public void dispatchMessage (float delay, Telegraph sender, Telegraph receiver, int msg) {
-		dispatchMessage(delay, sender, receiver, msg, null, false);
+	 * @param msg the message code
+	 * @return the handle of the delayed telegram, which can be used to {@link #cancel(long) cancel} it, or {@link #NO_HANDLE} if
+	 *         there's no delay or the telegram has been rejected by the queue */
+	public long dispatchMessage (float delay, Telegraph sender, Telegraph receiver, int msg) {
+		return dispatchMessage(delay, sender, receiver, msg, null, false);
 	}
 
 	/** Sends a message to the specified receiver, with the specified delay but no extra info. The receiver doesn't need to be a
@@ -438,9 +590,11 @@ public class MessageDispatcher implements Telegraph {
 	 *           registered for the specified message code
 	 * @param msg the message code
 	 * @param needsReturnReceipt whether the return receipt is needed or not
+	 * @return the handle of the delayed telegram, which can be used to {@link #cancel(long) cancel} it, or {@link #NO_HANDLE} if
+	 *         there's no delay or the telegram has been rejected by the queue
 	 * @throws IllegalArgumentException if the sender is {@code null} and the return receipt is needed */
-	public void dispatchMessage (float delay, Telegraph sender, Telegraph receiver, int msg, boolean needsReturnReceipt) {
-		dispatchMessage(delay, sender, receiver, msg, null, needsReturnReceipt);
+	public long dispatchMessage (float delay, Telegraph sender, Telegraph receiver, int msg, boolean needsReturnReceipt) {
+		return dispatchMessage(delay, sender, receiver, msg, null, needsReturnReceipt);
 	}
 
 	/** Sends a message to the specified receiver, with the specified delay but no extra info. The receiver doesn't need to be a
@@ -454,9 +608,11 @@ public class MessageDispatcher implements Telegraph {
 	 * @param receiver the receiver of the telegram; if it's {@code null} the telegram is broadcasted to all the receivers
 	 *           registered for the specified message code
 	 * @param msg the message code
-	 * @param extraInfo an optional object */
-	public void dispatchMessage (float delay, Telegraph sender, Telegraph receiver, int msg, Object extraInfo) {
-		dispatchMessage(delay, sender, receiver, msg, extraInfo, false);
+	 * @param extraInfo an optional object
+	 * @return the handle of the delayed telegram, which can be used to {@link #cancel(long) cancel} it, or {@link #NO_HANDLE} if
+	 *         there's no delay or the telegram has been rejected by the queue */
+	public long dispatchMessage (float delay, Telegraph sender, Telegraph receiver, int msg, Object extraInfo) {
+		return dispatchMessage(delay, sender, receiver, msg, extraInfo, false);
 	}
 
 	/** Given a message, a receiver, a sender and any time delay, this method routes the message to the correct agents (if no delay)
@@ -468,8 +624,10 @@ public class MessageDispatcher implements Telegraph {
 	 * @param msg the message code
 	 * @param extraInfo an optional object
 	 * @param needsReturnReceipt whether the return receipt is needed or not
+	 * @return the handle of the delayed telegram, which can be used to {@link #cancel(long) cancel} it, or {@link #NO_HANDLE} if
+	 *         there's no delay or the telegram has been rejected by the queue
 	 * @throws IllegalArgumentException if the sender is {@code null} and the return receipt is needed */
-	public void dispatchMessage (float delay, Telegraph sender, Telegraph receiver, int msg, Object extraInfo,
+	public long dispatchMessage (float delay, Telegraph sender, Telegraph receiver, int msg, Object extraInfo,
 		boolean needsReturnReceipt) {
 		if (sender == null && needsReturnReceipt)
 			throw new IllegalArgumentException("Sender cannot be null when a return receipt is needed");
@@ -498,6 +656,7 @@ public class MessageDispatcher implements Telegraph {
 
 			// Send the telegram to the recipient
 			discharge(telegram);
+			return NO_HANDLE;
 		} else {
 			float currentTime = GdxAI.getTimepiece().getTime();
 
@@ -507,8 +666,12 @@ public class MessageDispatcher implements Telegraph {
 			// Put the telegram in the queue
 			boolean added = queue.add(telegram);
 
-			// Return it to the pool if has been rejected
-			if (!added) pool.free(telegram);
+			// Track it for cancellation if it has been accepted, otherwise return it to the pool
+			long handle = NO_HANDLE;
+			if (added)
+				handle = track(telegram);
+			else
+				pool.free(telegram);
 
 			if (debugEnabled) {
 				if (added)
@@ -520,10 +683,79 @@ public class MessageDispatcher implements Telegraph {
 					GdxAI.getLogger().info(LOG_TAG,
 						"Delayed telegram from " + sender + " for " + receiver + " rejected by the queue. Message code is " + msg);
 			}
+			return handle;
+		}
+	}
+
+	/** Cancels the pending delayed telegram with the given handle, removing it from the queue and releasing it to the pool.
+	 * @param handle the handle returned by one of the {@code dispatchMessage} methods
+	 * @return {@code true} if the telegram has been cancelled; {@code false} if it has already been dispatched or cancelled. */
+	public boolean cancel (long handle) {
+		if (handle == NO_HANDLE) return false;
+		Telegram telegram = pendingTelegrams.remove(handle);
+		if (telegram == null) return false;
+		queue.remove(telegram);
+		unlinkPending(telegram);
+		pool.free(telegram);
+		return true;
+	}
+
+	/** Cancels all the pending delayed telegrams for the given receiver, removing them from the queue and releasing them to the
+	 * pool. This takes time proportional to the number of telegrams cancelled, regardless of the size of the queue. Broadcasted
+	 * telegrams are not affected.
+	 * @param receiver the receiver
+	 * @return the number of telegrams cancelled
+	 * @throws IllegalArgumentException if the receiver is {@code null} */
+	public int cancelAllFor (Telegraph receiver) {
+		if (receiver == null) throw new IllegalArgumentException("Receiver cannot be null");
+		Telegram telegram = pendingByReceiver.remove(receiver);
+		int count = 0;
+		while (telegram != null) {
+			Telegram next = telegram.nextPending;
+			pendingTelegrams.remove(telegram.handle);
+			queue.remove(telegram);
+			pool.free(telegram);
+			telegram = next;
+			count++;
 		}
+		return count;
 	}
 
-	/** Dispatches any delayed telegrams with a timestamp that has expired. Dispatched telegrams are removed from the queue.
+	/** Assigns a handle to the given telegram just added to the queue and links it to the pending telegrams of its receiver.
+	 * @return the handle */
+	private long track (Telegram telegram) {
+		long handle = ++lastHandle;
+		telegram.handle = handle;
+		pendingTelegrams.put(handle, telegram);
+		if (telegram.receiver != null) {
+			Telegram head = pendingByReceiver.put(telegram.receiver, telegram);
+			if (head != null) {
+				telegram.nextPending = head;
+				head.prevPending = telegram;
+			}
+		}
+		return handle;
+	}
+
+	/** Unlinks the given telegram, just removed from the queue, from the pending telegrams of its receiver. */
+	private void unlinkPending (Telegram telegram) {
+		telegram.handle = NO_HANDLE;
+		if (telegram.receiver == null) return;
+		Telegram prev = telegram.prevPending;
+		Telegram next = telegram.nextPending;
+		if (next != null) next.prevPending = prev;
+		if (prev != null)
+			prev.nextPending = next;
+		else if (next != null)
+			pendingByReceiver.put(telegram.receiver, next);
+		else
+			pendingByReceiver.remove(telegram.receiver);
+		telegram.prevPending = null;
+		telegram.nextPending = null;
+	}
+
+	/** Dispatches the messages posted to the {@link #getIngress() ingress} and then any delayed telegrams with a timestamp that
+	 * has expired. Dispatched telegrams are removed from the queue.
 	 * <p>
 	 * This method must be called regularly from inside the main game loop to facilitate the correct and timely dispatch of any
 	 * delayed messages. Notice that the message dispatcher internally calls {@link Timepiece#getTime()
@@ -533,16 +765,16 @@ public class MessageDispatcher implements Telegraph {
 	 * <li>ideally the timepiece should be updated before the message dispatcher.</li>
 	 * </ul> */
 	public void update () {
+		// Dispatch the messages posted by other threads
+		if (ingress != null) ingress.drain(this);
+
 		float currentTime = GdxAI.getTimepiece().getTime();
 
-		// Peek at the queue to see if any telegrams need dispatching.
-		// Remove all telegrams from the front of the queue that have gone
-		// past their time stamp.
+		// Remove from the queue all the telegrams that have gone past their time stamp.
 		Telegram telegram;
-		while ((telegram = queue.peek()) != null) {
-
-			// Exit loop if the telegram is in the future
-			if (telegram.getTimestamp() > currentTime) break;
+		while ((telegram = queue.poll(currentTime)) != null) {
+			pendingTelegrams.remove(telegram.handle);
+			unlinkPending(telegram);
 
 			if (debugEnabled) {
 				GdxAI.getLogger().info(LOG_TAG,
@@ -551,9 +783,6 @@ public class MessageDispatcher implements Telegraph {
 
 			// Send the telegram to the recipient
 			discharge(telegram);
-
-			// Remove it from the queue
-			queue.poll();
 		}
 
 	}
@@ -587,11 +816,23 @@ public class MessageDispatcher implements Telegraph {
 		} else {
 			// Dispatch the telegram to all the registered receivers
 			int handledCount = 0;
-			Array<Telegraph> listeners = msgListeners.get(telegram.message);
-			if (listeners != null) {
-				for (int i = 0; i < listeners.size; i++) {
-					if (listeners.get(i).handleMessage(telegram)) {
-						handledCount++;
+			if (isDense(telegram.message)) {
+				// Iterate a snapshot, which is never modified even if listeners are added or removed meanwhile
+				Telegraph[] listeners = denseListeners[telegram.message];
+				if (listeners != null) {
+					for (int i = 0; i < listeners.length; i++) {
+						if (listeners[i].handleMessage(telegram)) {
+							handledCount++;
+						}
+					}
+				}
+			} else {
+				Array<Telegraph> listeners = msgListeners.get(telegram.message);
+				if (listeners != null) {
+					for (int i = 0; i < listeners.size; i++) {
+						if (listeners.get(i).handleMessage(telegram)) {
+							handledCount++;
+						}
 					}
 				}
 			}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.msg;
+
+import com.badlogic.gdx.ai.utils.LongHashSet;
+
+/** A {@link TelegramQueue} backed by a binary heap, which dispatches telegrams in exact time stamp order at the cost of O(log(n))
+ * time per insertion and removal. This is the default queue of the {@link MessageDispatcher}.
+ * <p>
+ * Each telegram keeps track of its position in the heap, so that it can be removed without searching it.
+ * <p>
+ * Duplicate telegrams can be coalesced by {@link #setKeyExtractor(KeyExtractor) setting} a function returning a primitive key, for
+ * instance packing the id of the receiver and the message code: a telegram whose key is already pending is rejected, so the
+ * {@link MessageDispatcher} releases it to the pool without queuing it. */
+public class PriorityTelegramQueue implements TelegramQueue {
+
+	private static final int DEFAULT_INITIAL_CAPACITY = 11;
+
+	/** The heap: the two children of heap[n] are heap[2*n+1] and heap[2*(n+1)]; heap[0] is the telegram with the lowest time
+	 * stamp. */
+	private Telegram[] heap;
+
+	private int size;
+
+	private KeyExtractor keyExtractor;
+
+	/** The keys of the pending telegrams, if a key extractor is set. */
+	private LongHashSet keys;
+
+	/** Creates a {@code PriorityTelegramQueue} with the default initial capacity. */
+	public PriorityTelegramQueue () {
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/** Creates a {@code PriorityTelegramQueue} with the specified initial capacity.
+	 * @param initialCapacity the initial capacity of the queue */
+	public PriorityTelegramQueue (int initialCapacity) {
+		this.heap = new Telegram[Math.max(1, initialCapacity)];
+	}
+
+	/** Returns the function returning the key used to coalesce duplicate telegrams, or {@code null} if telegrams are never
+	 * rejected. */
+	public KeyExtractor getKeyExtractor () {
+		return keyExtractor;
+	}
+
+	/** Sets the function returning the key used to coalesce duplicate telegrams: a telegram is rejected if a pending telegram has
+	 * the same key. This method should be called while the queue is empty.
+	 * @param keyExtractor the key extractor; it can be {@code null} to accept all telegrams */
+	public void setKeyExtractor (KeyExtractor keyExtractor) {
+		this.keyExtractor = keyExtractor;
+		if (keyExtractor != null && keys == null) keys = new LongHashSet();
+	}
+
+	@Override
+	public boolean add (Telegram telegram) {
+		if (telegram == null) throw new IllegalArgumentException("Telegram cannot be null.");
+		if (keyExtractor != null && !keys.add(keyExtractor.getKey(telegram))) return false;
+		if (size == heap.length) {
+			Telegram[] newHeap = new Telegram[heap.length < 64 ? (heap.length + 1) * 2 : heap.length + (heap.length >> 1)];
+			System.arraycopy(heap, 0, newHeap, 0, size);
+			heap = newHeap;
+		}
+		siftUp(size++, telegram);
+		return true;
+	}
+
+	@Override
+	public Telegram poll (float currentTime) {
+		if (size == 0) return null;
+		Telegram telegram = heap[0];
+		if (telegram.getTimestamp() > currentTime) return null;
+		removeAt(0);
+		return telegram;
+	}
+
+	@Override
+	public boolean remove (Telegram telegram) {
+		int index = telegram.queueIndex;
+		if (index < 0 || index >= size || heap[index] != telegram) return false;
+		removeAt(index);
+		return true;
+	}
+
+	@Override
+	public int size () {
+		return size;
+	}
+
+	@Override
+	public Telegram get (int index) {
+		return index >= size ? null : heap[index];
+	}
+
+	@Override
+	public void clear () {
+		for (int i = 0; i < size; i++) {
+			heap[i].queueIndex = -1;
+			heap[i] = null;
+		}
+		size = 0;
+		if (keys != null) keys.clear();
+	}
+
+	private void removeAt (int index) {
+		Telegram removed = heap[index];
+		removed.queueIndex = -1;
+		if (keyExtractor != null) keys.remove(keyExtractor.getKey(removed));
+		Telegram last = heap[--size];
+		heap[size] = null;
+		if (index == size) return;
+		if (last.getTimestamp() < removed.getTimestamp())
+			siftUp(index, last);
+		else
+			siftDown(index, last);
+	}
+
+	private void siftUp (int index, Telegram telegram) {
+		float timestamp = telegram.getTimestamp();
+		while (index > 0) {
+			int parentIndex = (index - 1) >>> 1;
+			Telegram parent = heap[parentIndex];
+			if (timestamp >= parent.getTimestamp()) break;
+			heap[index] = parent;
+			parent.queueIndex = index;
+			index = parentIndex;
+		}
+		heap[index] = telegram;
+		telegram.queueIndex = index;
+	}
+
+	private void siftDown (int index, Telegram telegram) {
+		float timestamp = telegram.getTimestamp();
+		int half = size >>> 1;
+		while (index < half) {
+			int childIndex = (index << 1) + 1;
+			Telegram child = heap[childIndex];
+			int rightIndex = childIndex + 1;
+			if (rightIndex < size && heap[rightIndex].getTimestamp() < child.getTimestamp()) child = heap[childIndex = rightIndex];
+			if (timestamp <= child.getTimestamp()) break;
+			heap[index] = child;
+			child.queueIndex = index;
+			index = childIndex;
+		}
+		heap[index] = telegram;
+		telegram.queueIndex = index;
+	}
+
+	/** A {@code KeyExtractor} returns a primitive key identifying a telegram with respect to the coalescing of duplicate telegrams
+	 * by a {@link PriorityTelegramQueue}. */
+	public interface KeyExtractor {
+
+		/** Returns the key of the given telegram. Telegrams that must not be pending together have to return the same key.
+		 * @param telegram the telegram */
+		public long getKey (Telegram telegram);
+	}
+}
@@ -51,10 +51,26 @@ public class Telegram implements Comparable<Telegram>, Poolable {
 	/** Any additional information that may accompany the message */
 	public Object extraInfo;
 
+	/** The handle of this telegram while it's pending in the queue of a {@link MessageDispatcher}; 0 otherwise. */
+	long handle;
+
+	/** The position of this telegram in the {@link TelegramQueue} holding it, used for constant time removal. */
+	int queueIndex = -1;
+
+	/** The previous and next pending telegrams with the same receiver. */
+	Telegram prevPending;
+	Telegram nextPending;
+
 	/** Creates an empty {@code Telegram}. */
 	public Telegram () {
 	}
 
+	/** Returns the handle of this telegram if it's a delayed telegram still pending in the queue of a {@link MessageDispatcher};
+	 * {@link MessageDispatcher#NO_HANDLE} otherwise. */
+	public long getHandle () {
+		return handle;
+	}
+
 	/** Returns the time stamp of this telegram. */
 	public float getTimestamp () {
 		return timestamp;
@@ -73,6 +89,10 @@ public class Telegram implements Comparable<Telegram>, Poolable {
 		this.returnReceiptStatus = RETURN_RECEIPT_UNNEEDED;
 		this.extraInfo = null;
 		this.timestamp = 0;
+		this.handle = 0;
+		this.queueIndex = -1;
+		this.prevPending = null;
+		this.nextPending = null;
 	}
 
 	@Override
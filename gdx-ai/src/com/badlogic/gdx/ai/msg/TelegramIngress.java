@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.msg;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/** A {@code TelegramIngress} lets any thread post messages to a {@link MessageDispatcher}, which is otherwise single-threaded.
+ * Once {@link MessageDispatcher#setIngress(TelegramIngress) set} to a dispatcher, the posted messages are dispatched on the thread
+ * owning the dispatcher at the beginning of its next {@link MessageDispatcher#update() update}, in the order they have been posted.
+ * <p>
+ * The ingress is a bounded lock-free multi-producer single-consumer ring buffer. Producers claim a slot with a single
+ * compare-and-set on a shared counter and publish the message through the sequence number of the slot, so they never block and
+ * never allocate: the slots are preallocated and recycled. When the ring is full {@link #post(float, Telegraph, Telegraph, int,
+ * Object, boolean) post} fails immediately, leaving the producer free to retry, drop the message or fall back on something else.
+ * <p>
+ * Notice that the delay of a posted message starts when it's drained by the dispatcher, since the {@link com.badlogic.gdx.ai.Timepiece
+ * timepiece} is owned by the game thread. */
+public class TelegramIngress {
+
+	private final Slot[] slots;
+	private final int mask;
+
+	/** The position of the next slot to be claimed by a producer. */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** The position of the next slot to be drained by the consumer. */
+	private long head;
+
+	/** Creates a {@code TelegramIngress}.
+	 * @param capacity the maximum number of messages waiting to be drained, rounded up to the next power of two
+	 * @throws IllegalArgumentException if the capacity is not positive */
+	public TelegramIngress (int capacity) {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		capacity = MathUtils.nextPowerOfTwo(capacity);
+		this.slots = new Slot[capacity];
+		this.mask = capacity - 1;
+		for (int i = 0; i < capacity; i++)
+			slots[i] = new Slot(i);
+	}
+
+	/** Returns the maximum number of messages waiting to be drained. */
+	public int getCapacity () {
+		return slots.length;
+	}
+
+	/** Returns the approximate number of messages waiting to be drained. */
+	public int size () {
+		return (int)Math.max(0, Math.min(tail.get() - head, slots.length));
+	}
+
+	/** Posts an immediate message to the specified receiver with no extra info. This method can be called by any thread.
+	 * @param sender the sender of the telegram
+	 * @param receiver the receiver of the telegram; if it's {@code null} the telegram is broadcasted to all the receivers
+	 *           registered for the specified message code
+	 * @param msg the message code
+	 * @return {@code true} if the message has been posted; {@code false} if the ingress is full. */
+	public boolean post (Telegraph sender, Telegraph receiver, int msg) {
+		return post(0f, sender, receiver, msg, null, false);
+	}
+
+	/** Posts an immediate message to the specified receiver with extra info. This method can be called by any thread.
+	 * @param sender the sender of the telegram
+	 * @param receiver the receiver of the telegram; if it's {@code null} the telegram is broadcasted to all the receivers
+	 *           registered for the specified message code
+	 * @param msg the message code
+	 * @param extraInfo an optional object
+	 * @return {@code true} if the message has been posted; {@code false} if the ingress is full. */
+	public boolean post (Telegraph sender, Telegraph receiver, int msg, Object extraInfo) {
+		return post(0f, sender, receiver, msg, extraInfo, false);
+	}
+
+	/** Posts a message to be dispatched like {@link MessageDispatcher#dispatchMessage(float, Telegraph, Telegraph, int, Object,
+	 * boolean)} does. This method can be called by any thread and never blocks.
+	 * @param delay the delay in seconds, counted from the moment the message is drained by the dispatcher
+	 * @param sender the sender of the telegram
+	 * @param receiver the receiver of the telegram; if it's {@code null} the telegram is broadcasted to all the receivers
+	 *           registered for the specified message code
+	 * @param msg the message code
+	 * @param extraInfo an optional object
+	 * @param needsReturnReceipt whether the return receipt is needed or not
+	 * @return {@code true} if the message has been posted; {@code false} if the ingress is full.
+	 * @throws IllegalArgumentException if the sender is {@code null} and the return receipt is needed */
+	public boolean post (float delay, Telegraph sender, Telegraph receiver, int msg, Object extraInfo, boolean needsReturnReceipt) {
+		if (sender == null && needsReturnReceipt)
+			throw new IllegalArgumentException("Sender cannot be null when a return receipt is needed");
+
+		// Claim a slot
+		Slot slot;
+		long position = tail.get();
+		while (true) {
+			slot = slots[(int)position & mask];
+			long difference = slot.sequence - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) break;
+				position = tail.get();
+			} else if (difference < 0) {
+				// The slot still holds the message posted one lap before
+				return false;
+			} else {
+				// Another producer claimed the slot
+				position = tail.get();
+			}
+		}
+
+		// Fill the slot and publish it to the consumer
+		slot.delay = delay;
+		slot.sender = sender;
+		slot.receiver = receiver;
+		slot.message = msg;
+		slot.extraInfo = extraInfo;
+		slot.needsReturnReceipt = needsReturnReceipt;
+		slot.sequence = position + 1;
+		return true;
+	}
+
+	/** Dispatches the posted messages through the given dispatcher. This method must be called by a single thread, typically the
+	 * one owning the dispatcher; it's called by {@link MessageDispatcher#update()} for the ingress set to the dispatcher. To
+	 * bound the time spent, at most {@link #getCapacity()} messages are drained at once.
+	 * @param dispatcher the dispatcher
+	 * @return the number of messages drained */
+	public int drain (MessageDispatcher dispatcher) {
+		int count = 0;
+		for (int n = slots.length; count < n; count++) {
+			Slot slot = slots[(int)head & mask];
+			if (slot.sequence != head + 1) break;
+
+			float delay = slot.delay;
+			Telegraph sender = slot.sender;
+			Telegraph receiver = slot.receiver;
+			int message = slot.message;
+			Object extraInfo = slot.extraInfo;
+			boolean needsReturnReceipt = slot.needsReturnReceipt;
+
+			// Release the slot to the producers before dispatching, since receivers may post new messages
+			slot.sender = null;
+			slot.receiver = null;
+			slot.extraInfo = null;
+			slot.sequence = head + slots.length;
+			head++;
+
+			dispatcher.dispatchMessage(delay, sender, receiver, message, extraInfo, needsReturnReceipt);
+		}
+		return count;
+	}
+
+	static class Slot {
+		/** The position this slot can be claimed at by a producer, or that position + 1 once the message has been published. */
+		volatile long sequence;
+
+		float delay;
+		Telegraph sender;
+		Telegraph receiver;
+		int message;
+		Object extraInfo;
+		boolean needsReturnReceipt;
+
+		Slot (long sequence) {
+			this.sequence = sequence;
+		}
+	}
+}
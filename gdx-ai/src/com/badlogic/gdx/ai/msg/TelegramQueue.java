@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.msg;
+
+/** A {@code TelegramQueue} holds the delayed telegrams of a {@link MessageDispatcher} until their time stamp expires. */
+public interface TelegramQueue {
+
+	/** Inserts the specified telegram into this queue.
+	 * @param telegram the telegram to add, whose time stamp has already been set
+	 * @return {@code true} if the telegram was added to this queue; {@code false} if it has been rejected. */
+	public boolean add (Telegram telegram);
+
+	/** Retrieves and removes the next telegram whose time stamp is not greater than the given time.
+	 * @param currentTime the current AI time
+	 * @return the next expired telegram, or {@code null} if no telegram has expired. */
+	public Telegram poll (float currentTime);
+
+	/** Removes the specified telegram from this queue.
+	 * @param telegram the telegram to remove
+	 * @return {@code true} if the telegram was in this queue; {@code false} otherwise. */
+	public boolean remove (Telegram telegram);
+
+	/** Returns the number of telegrams in this queue. */
+	public int size ();
+
+	/** Retrieves the telegram at the specified index, or {@code null} if such a telegram doesn't exist. Iterating the queue by
+	 * index is <em>not</em> guaranteed to traverse the telegrams in any particular order.
+	 * @param index the index of the telegram */
+	public Telegram get (int index);
+
+	/** Removes all the telegrams from this queue. */
+	public void clear ();
+}
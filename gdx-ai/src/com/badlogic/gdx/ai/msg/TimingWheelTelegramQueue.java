@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.msg;
+
+import com.badlogic.gdx.utils.Array;
+
+/** A {@link TelegramQueue} implemented as a hierarchical timing wheel, which schedules and expires telegrams in constant time
+ * regardless of the number of pending telegrams.
+ * <p>
+ * Time is divided into ticks of a configurable duration. The wheel has a number of levels of 64 slots each: the slots of level 0
+ * span one tick, the slots of level 1 span 64 ticks, those of level 2 span 4096 ticks and so on. A telegram is linked to the slot
+ * of the lowest level that can hold its expiry tick and is moved down one or more levels (cascaded) when the wheel turns to its
+ * slot, so that it's touched at most once per level. Telegrams beyond the range of the top level wait in an overflow list that
+ * is cascaded each time the top level completes a revolution. Runs of empty ticks are skipped, so a long pause between two
+ * updates costs no more than a short one.
+ * <p>
+ * Telegrams are never dispatched before their time stamp and are dispatched at the first update at or after it, exactly like
+ * the {@link PriorityTelegramQueue}. However, telegrams expiring within the same tick are dispatched in scheduling order rather
+ * than in time stamp order: the tick duration is the resolution of the ordering, so it should be chosen according to how
+ * precisely the delayed messages of the game need to be ordered, typically a fraction of the frame time.
+ * <p>
+ * Each pending telegram is tracked by an internal entry, which is recycled once the telegram has been dispatched or removed. */
+public class TimingWheelTelegramQueue implements TelegramQueue {
+
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+
+	/** The default number of levels, which covers 2^24 ticks, about 4.6 hours with a tick duration of 1 ms. */
+	public static final int DEFAULT_LEVELS = 4;
+
+	private final float tickDuration;
+	private final int levels;
+
+	/** The first and last entry of each slot, indexed by {@code level * 64 + slot}; the last list is the overflow list. */
+	private final Entry[] heads;
+	private final Entry[] tails;
+
+	/** The number of entries per level; the last element is the size of the overflow list. */
+	private final int[] levelSizes;
+
+	/** All the pending entries, in no particular order, so that they can be accessed by index. */
+	private final Array<Entry> entries;
+
+	/** The expired entries not polled yet, in dispatch order, starting from {@link #expiredIndex}. */
+	private final Array<Entry> expired;
+	private int expiredIndex;
+
+	/** The tick the wheel has turned to: all the ticks before it have been fully expired. */
+	private long currentTick;
+
+	/** The head of the singly linked list of recycled entries. */
+	private Entry freeEntries;
+
+	/** Creates a {@code TimingWheelTelegramQueue} with {@link #DEFAULT_LEVELS} levels.
+	 * @param tickDuration the duration of a tick in seconds
+	 * @throws IllegalArgumentException if the tick duration is not positive */
+	public TimingWheelTelegramQueue (float tickDuration) {
+		this(tickDuration, DEFAULT_LEVELS);
+	}
+
+	/** Creates a {@code TimingWheelTelegramQueue}.
+	 * @param tickDuration the duration of a tick in seconds
+	 * @param levels the number of levels of the wheel in the range [1, 10]. Each level multiplies by 64 the time range that can be
+	 *           scheduled without resorting to the overflow list.
+	 * @throws IllegalArgumentException if the tick duration is not positive or the number of levels is out of range */
+	public TimingWheelTelegramQueue (float tickDuration, int levels) {
+		if (!(tickDuration > 0)) throw new IllegalArgumentException("tickDuration must be positive: " + tickDuration);
+		if (levels < 1 || levels > 10) throw new IllegalArgumentException("levels must be in the range [1, 10]: " + levels);
+		this.tickDuration = tickDuration;
+		this.levels = levels;
+		this.heads = new Entry[levels * SLOTS + 1];
+		this.tails = new Entry[levels * SLOTS + 1];
+		this.levelSizes = new int[levels + 1];
+		this.entries = new Array<Entry>(false, 16);
+		this.expired = new Array<Entry>();
+	}
+
+	/** Returns the duration of a tick in seconds. */
+	public float getTickDuration () {
+		return tickDuration;
+	}
+
+	/** Returns the number of levels of the wheel. */
+	public int getLevels () {
+		return levels;
+	}
+
+	@Override
+	public boolean add (Telegram telegram) {
+		if (telegram == null) throw new IllegalArgumentException("Telegram cannot be null.");
+		Entry entry = freeEntries;
+		if (entry == null)
+			entry = new Entry();
+		else
+			freeEntries = entry.next;
+		entry.telegram = telegram;
+		entry.tick = (long)(telegram.getTimestamp() / tickDuration);
+		entry.entryIndex = entries.size;
+		telegram.queueIndex = entries.size;
+		entries.add(entry);
+		schedule(entry);
+		return true;
+	}
+
+	@Override
+	public Telegram poll (float currentTime) {
+		while (true) {
+			if (expiredIndex == expired.size) {
+				expired.clear();
+				expiredIndex = 0;
+				expire(currentTime);
+				if (expired.size == 0) return null;
+			}
+			Entry entry = expired.get(expiredIndex);
+			expired.set(expiredIndex++, null);
+			Telegram telegram = entry.telegram;
+			// Skip the entries removed after expiring
+			if (telegram != null) removeEntry(entry);
+			recycle(entry);
+			if (telegram != null) return telegram;
+		}
+	}
+
+	@Override
+	public boolean remove (Telegram telegram) {
+		int index = telegram.queueIndex;
+		if (index < 0 || index >= entries.size) return false;
+		Entry entry = entries.get(index);
+		if (entry.telegram != telegram) return false;
+		removeEntry(entry);
+		if (entry.list >= 0) {
+			unlink(entry);
+			recycle(entry);
+		} else {
+			// The entry is in the expired list: it will be recycled when polled
+			entry.telegram = null;
+		}
+		return true;
+	}
+
+	@Override
+	public int size () {
+		return entries.size;
+	}
+
+	@Override
+	public Telegram get (int index) {
+		return index >= entries.size ? null : entries.get(index).telegram;
+	}
+
+	@Override
+	public void clear () {
+		for (int i = 0; i < entries.size; i++) {
+			Entry entry = entries.get(i);
+			entry.telegram.queueIndex = -1;
+			if (entry.list >= 0) recycle(entry);
+		}
+		entries.clear();
+		// Expired entries are not linked to any slot but they may have been removed from the pending entries already
+		for (int i = expiredIndex; i < expired.size; i++)
+			recycle(expired.get(i));
+		expired.clear();
+		expiredIndex = 0;
+		for (int i = 0; i < heads.length; i++) {
+			heads[i] = null;
+			tails[i] = null;
+		}
+		for (int i = 0; i < levelSizes.length; i++)
+			levelSizes[i] = 0;
+	}
+
+	/** Turns the wheel up to the given time, moving the entries whose time stamp is not greater than it to the expired list. */
+	private void expire (float currentTime) {
+		long targetTick = (long)(currentTime / tickDuration);
+		while (currentTick < targetTick) {
+			if (levelSizes[0] > 0) {
+				expireSlot((int)currentTick & SLOT_MASK, currentTime, true);
+				currentTick++;
+			} else {
+				// Nothing can expire before the next revolution of the lowest non-empty level
+				int level = 1;
+				while (level <= levels && levelSizes[level] == 0)
+					level++;
+				if (level > levels) {
+					currentTick = targetTick;
+					break;
+				}
+				int shift = SLOT_BITS * level;
+				currentTick = Math.min(((currentTick >>> shift) + 1) << shift, targetTick);
+			}
+			cascade();
+		}
+
+		// The current tick has not elapsed yet, so only part of its entries may have expired
+		if (levelSizes[0] > 0) expireSlot((int)currentTick & SLOT_MASK, currentTime, false);
+	}
+
+	/** Moves the entries of the given slot of level 0 to the expired list.
+	 * @param slot the slot
+	 * @param currentTime the current time
+	 * @param all whether all the entries have expired or their time stamp has to be checked */
+	private void expireSlot (int slot, float currentTime, boolean all) {
+		Entry entry = heads[slot];
+		while (entry != null) {
+			Entry next = entry.next;
+			if (all || entry.telegram.getTimestamp() <= currentTime) {
+				unlink(entry);
+				entry.list = -1;
+				expired.add(entry);
+			}
+			entry = next;
+		}
+	}
+
+	/** Moves down the entries of the slots the wheel has just turned to at every level whose lower levels have completed a
+	 * revolution. */
+	private void cascade () {
+		for (int level = 1; level <= levels; level++) {
+			int shift = SLOT_BITS * level;
+			if ((currentTick & ((1L << shift) - 1)) != 0) return;
+			int list = level == levels ? levels * SLOTS : level * SLOTS + ((int)(currentTick >>> shift) & SLOT_MASK);
+			// Detach the whole list first, since entries of the overflow list may be linked to it again
+			Entry entry = heads[list];
+			heads[list] = null;
+			tails[list] = null;
+			while (entry != null) {
+				Entry next = entry.next;
+				levelSizes[level]--;
+				schedule(entry);
+				entry = next;
+			}
+		}
+	}
+
+	/** Links the given entry to the slot of the lowest level that can hold its tick. Overdue entries go to the current tick. */
+	private void schedule (Entry entry) {
+		long tick = Math.max(entry.tick, currentTick);
+		int level = 0;
+		while (level < levels && (tick >>> (SLOT_BITS * (level + 1))) != (currentTick >>> (SLOT_BITS * (level + 1))))
+			level++;
+		int list = level == levels ? levels * SLOTS : level * SLOTS + ((int)(tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+		entry.list = list;
+		entry.next = null;
+		entry.prev = tails[list];
+		if (entry.prev == null)
+			heads[list] = entry;
+		else
+			entry.prev.next = entry;
+		tails[list] = entry;
+		levelSizes[level]++;
+	}
+
+	private void unlink (Entry entry) {
+		int list = entry.list;
+		if (entry.prev == null)
+			heads[list] = entry.next;
+		else
+			entry.prev.next = entry.next;
+		if (entry.next == null)
+			tails[list] = entry.prev;
+		else
+			entry.next.prev = entry.prev;
+		entry.prev = null;
+		entry.next = null;
+		levelSizes[list / SLOTS]--;
+	}
+
+	/** Removes the given entry from the pending entries. */
+	private void removeEntry (Entry entry) {
+		entry.telegram.queueIndex = -1;
+		Entry last = entries.pop();
+		if (last != entry) {
+			entries.set(entry.entryIndex, last);
+			last.entryIndex = entry.entryIndex;
+			last.telegram.queueIndex = entry.entryIndex;
+		}
+	}
+
+	private void recycle (Entry entry) {
+		entry.telegram = null;
+		entry.prev = null;
+		entry.next = freeEntries;
+		freeEntries = entry;
+	}
+
+	static class Entry {
+		Telegram telegram;
+		long tick;
+		int list;
+		int entryIndex;
+		Entry prev;
+		Entry next;
+	}
+}
@@ -0,0 +1,377 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/** A {@code CachingPathFinder} is a {@link PathFinder} decorator that caches the paths found by another path finder, so that
+ * agents requesting the same path, for instance many units ordered to the same rally point, don't run the same search again.
+ * <p>
+ * Paths are cached by start node, end node and heuristic, using {@code equals} and {@code hashCode}. Since most heuristics don't
+ * override these methods, the same heuristic instance should be used for all the requests. Failed searches are cached too. The
+ * number of cached paths is bounded; when the cache is full the least recently used path is evicted.
+ * <p>
+ * When the cache has no path for the requested start node, it looks for a cached path to the same end node passing through the
+ * start node, found with the same heuristic, and returns its tail. The tail of an optimal path is an optimal path too, so this
+ * suffix reuse never degrades the quality of the paths returned by an optimal path finder.
+ * <p>
+ * The cache can't know when the graph changes, so {@link #incrementGraphVersion()} must be called whenever connections or costs
+ * change; the paths cached for previous versions of the graph will never be returned again. Hit and miss counters are available
+ * to tune the capacity of the cache.
+ *
+ * @param <N> Type of node */
+public class CachingPathFinder<N> implements PathFinder<N> {
+
+	PathFinder<N> pathFinder;
+	int capacity;
+	int graphVersion;
+
+	final ObjectMap<Entry<N>, Entry<N>> entries;
+
+	/** The head of the most recently used entries. */
+	Entry<N> head;
+
+	/** The tail of the most recently used entries. */
+	Entry<N> tail;
+
+	/** The most recently added entry for each end node; entries with the same end node are linked together. */
+	final ObjectMap<N, Entry<N>> entriesByEnd;
+
+	/** The key used for lookups. */
+	private final Entry<N> lookupKey = new Entry<N>();
+
+	/** The path used to collect the connections found by the decorated path finder. */
+	private final DefaultGraphPath<Connection<N>> connectionPath = new DefaultGraphPath<Connection<N>>();
+
+	/** The request being searched by the decorated path finder, if any. */
+	private PathFinderRequest<N> pendingRequest;
+
+	/** The number of searches satisfied by a cached path with the same start node. */
+	public int hits;
+
+	/** The number of searches satisfied by the tail of a cached path passing through the start node. */
+	public int suffixHits;
+
+	/** The number of searches delegated to the decorated path finder. */
+	public int misses;
+
+	/** The number of paths evicted to make room for new ones. */
+	public int evictions;
+
+	/** Creates a {@code CachingPathFinder} decorating the given path finder.
+	 * @param pathFinder the decorated path finder
+	 * @param capacity the maximum number of cached paths */
+	public CachingPathFinder (PathFinder<N> pathFinder, int capacity) {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+		this.pathFinder = pathFinder;
+		this.capacity = capacity;
+		this.entries = new ObjectMap<Entry<N>, Entry<N>>(capacity);
+		this.entriesByEnd = new ObjectMap<N, Entry<N>>();
+	}
+
+	/** Returns the decorated path finder. */
+	public PathFinder<N> getPathFinder () {
+		return pathFinder;
+	}
+
+	/** Returns the maximum number of cached paths. */
+	public int getCapacity () {
+		return capacity;
+	}
+
+	/** Returns the number of cached paths, including the ones cached for previous versions of the graph that have not been
+	 * evicted yet. */
+	public int size () {
+		return entries.size;
+	}
+
+	/** Returns the current version of the graph. */
+	public int getGraphVersion () {
+		return graphVersion;
+	}
+
+	/** Invalidates all the cached paths. This method must be called whenever the graph changes. */
+	public void incrementGraphVersion () {
+		graphVersion++;
+	}
+
+	/** Removes all the cached paths. */
+	public void clear () {
+		entries.clear();
+		entriesByEnd.clear();
+		head = tail = null;
+	}
+
+	/** Resets the hit and miss counters. */
+	public void resetStatistics () {
+		hits = suffixHits = misses = evictions = 0;
+	}
+
+	@Override
+	public boolean searchConnectionPath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<Connection<N>> outPath) {
+		Entry<N> entry = lookup(startNode, endNode, heuristic);
+		// A path found by a node path search has no connections, while a failure is served whatever the kind of the search
+		if (entry != null && (!entry.found || entry.connections != null)) {
+			hits++;
+			if (entry.found) addAll(entry.connections, 0, outPath);
+			return entry.found;
+		}
+
+		entry = lookupSuffix(startNode, endNode, heuristic, true);
+		if (entry != null) {
+			suffixHits++;
+			addAll(entry.connections, entry.nodes.indexOf(startNode, false), outPath);
+			return true;
+		}
+
+		misses++;
+		connectionPath.clear();
+		boolean found = pathFinder.searchConnectionPath(startNode, endNode, heuristic, connectionPath);
+		entry = store(startNode, endNode, heuristic, found);
+		if (found) {
+			entry.connections = new Array<Connection<N>>(connectionPath.getCount());
+			entry.nodes.add(startNode);
+			for (int i = 0; i < connectionPath.getCount(); i++) {
+				Connection<N> connection = connectionPath.get(i);
+				entry.connections.add(connection);
+				entry.nodes.add(connection.getToNode());
+				outPath.add(connection);
+			}
+		}
+		connectionPath.clear();
+		return found;
+	}
+
+	@Override
+	public boolean searchNodePath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<N> outPath) {
+		Entry<N> entry = lookup(startNode, endNode, heuristic);
+		if (entry != null) {
+			hits++;
+			if (entry.found) addAll(entry.nodes, 0, outPath);
+			return entry.found;
+		}
+
+		entry = lookupSuffix(startNode, endNode, heuristic, false);
+		if (entry != null) {
+			suffixHits++;
+			addAll(entry.nodes, entry.nodes.indexOf(startNode, false), outPath);
+			return true;
+		}
+
+		misses++;
+		int start = outPath.getCount();
+		boolean found = pathFinder.searchNodePath(startNode, endNode, heuristic, outPath);
+		entry = store(startNode, endNode, heuristic, found);
+		if (found) {
+			for (int i = start; i < outPath.getCount(); i++)
+				entry.nodes.add(outPath.get(i));
+		}
+		return found;
+	}
+
+	@Override
+	public boolean search (PathFinderRequest<N> request, long timeToRun) {
+		if (request.statusChanged) {
+			Entry<N> entry = lookup(request.startNode, request.endNode, request.heuristic);
+			if (entry != null) {
+				hits++;
+			} else {
+				entry = lookupSuffix(request.startNode, request.endNode, request.heuristic, false);
+				if (entry != null) suffixHits++;
+			}
+			if (entry != null) {
+				request.statusChanged = false;
+				request.pathFound = entry.found;
+				if (entry.found) addAll(entry.nodes, entry.nodes.indexOf(request.startNode, false), request.resultPath);
+				return true;
+			}
+			misses++;
+			pendingRequest = request;
+		}
+
+		if (!pathFinder.search(request, timeToRun)) return false;
+
+		// Cache the result of the search
+		if (pendingRequest == request) {
+			Entry<N> entry = store(request.startNode, request.endNode, request.heuristic, request.pathFound);
+			if (request.pathFound) {
+				for (int i = 0; i < request.resultPath.getCount(); i++)
+					entry.nodes.add(request.resultPath.get(i));
+			}
+			pendingRequest = null;
+		}
+		return true;
+	}
+
+	/** Returns the valid entry with the given key, if any, and marks it as the most recently used. */
+	Entry<N> lookup (N startNode, N endNode, Heuristic<N> heuristic) {
+		lookupKey.set(startNode, endNode, heuristic);
+		Entry<N> entry = entries.get(lookupKey);
+		lookupKey.set(null, null, null);
+		if (entry == null) return null;
+		if (entry.graphVersion != graphVersion) {
+			remove(entry);
+			return null;
+		}
+		moveToHead(entry);
+		return entry;
+	}
+
+	/** Returns a valid entry whose path leads to the given end node through the given start node and has been found with the given
+	 * heuristic, if any, and marks it as the most recently used. */
+	Entry<N> lookupSuffix (N startNode, N endNode, Heuristic<N> heuristic, boolean needsConnections) {
+		Entry<N> entry = entriesByEnd.get(endNode);
+		while (entry != null) {
+			Entry<N> next = entry.nextByEnd;
+			if (entry.graphVersion != graphVersion) {
+				remove(entry);
+			} else if (entry.found && (!needsConnections || entry.connections != null) && entry.hasHeuristic(heuristic)
+				&& entry.nodes.indexOf(startNode, false) >= 0) {
+				moveToHead(entry);
+				return entry;
+			}
+			entry = next;
+		}
+		return null;
+	}
+
+	/** Creates a new entry for the given key, replacing the existing one if any and evicting the least recently used entry if the
+	 * cache is full. */
+	Entry<N> store (N startNode, N endNode, Heuristic<N> heuristic, boolean found) {
+		lookupKey.set(startNode, endNode, heuristic);
+		Entry<N> old = entries.get(lookupKey);
+		lookupKey.set(null, null, null);
+		if (old != null) remove(old);
+		if (entries.size >= capacity) {
+			remove(tail);
+			evictions++;
+		}
+
+		Entry<N> entry = new Entry<N>();
+		entry.set(startNode, endNode, heuristic);
+		entry.graphVersion = graphVersion;
+		entry.found = found;
+		entry.nodes = new Array<N>();
+		entries.put(entry, entry);
+
+		// Link the entry at the head of the most recently used entries
+		entry.next = head;
+		if (head != null) head.prev = entry;
+		head = entry;
+		if (tail == null) tail = entry;
+
+		// Link the entry to the other entries with the same end node
+		Entry<N> first = entriesByEnd.get(endNode);
+		entry.nextByEnd = first;
+		if (first != null) first.prevByEnd = entry;
+		entriesByEnd.put(endNode, entry);
+
+		return entry;
+	}
+
+	void remove (Entry<N> entry) {
+		entries.remove(entry);
+
+		if (entry.prev != null)
+			entry.prev.next = entry.next;
+		else
+			head = entry.next;
+		if (entry.next != null)
+			entry.next.prev = entry.prev;
+		else
+			tail = entry.prev;
+
+		if (entry.nextByEnd != null) entry.nextByEnd.prevByEnd = entry.prevByEnd;
+		if (entry.prevByEnd != null)
+			entry.prevByEnd.nextByEnd = entry.nextByEnd;
+		else if (entry.nextByEnd != null)
+			entriesByEnd.put(entry.endNode, entry.nextByEnd);
+		else
+			entriesByEnd.remove(entry.endNode);
+
+		entry.prev = entry.next = entry.prevByEnd = entry.nextByEnd = null;
+	}
+
+	void moveToHead (Entry<N> entry) {
+		if (entry == head) return;
+		entry.prev.next = entry.next;
+		if (entry.next != null)
+			entry.next.prev = entry.prev;
+		else
+			tail = entry.prev;
+		entry.prev = null;
+		entry.next = head;
+		head.prev = entry;
+		head = entry;
+	}
+
+	private static <T> void addAll (Array<T> items, int start, GraphPath<T> outPath) {
+		for (int i = start; i < items.size; i++)
+			outPath.add(items.get(i));
+	}
+
+	/** A cached path, which is also its own key.
+	 *
+	 * @param <N> Type of node */
+	static class Entry<N> {
+		N startNode;
+		N endNode;
+		Heuristic<N> heuristic;
+		int graphVersion;
+		boolean found;
+
+		/** The nodes of the path, from the start node to the end node. */
+		Array<N> nodes;
+
+		/** The connections of the path or {@code null} if only the nodes are known. */
+		Array<Connection<N>> connections;
+
+		/** The neighbors in the list of the entries sorted by recent use. */
+		Entry<N> prev, next;
+
+		/** The neighbors in the list of the entries with the same end node. */
+		Entry<N> prevByEnd, nextByEnd;
+
+		void set (N startNode, N endNode, Heuristic<N> heuristic) {
+			this.startNode = startNode;
+			this.endNode = endNode;
+			this.heuristic = heuristic;
+		}
+
+		/** Returns {@code true} if the path of this entry has been found with the given heuristic, compared like the keys. */
+		boolean hasHeuristic (Heuristic<?> heuristic) {
+			return this.heuristic == null ? heuristic == null : this.heuristic.equals(heuristic);
+		}
+
+		@Override
+		public int hashCode () {
+			int result = startNode.hashCode();
+			result = 31 * result + endNode.hashCode();
+			result = 31 * result + (heuristic == null ? 0 : heuristic.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals (Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof Entry)) return false;
+			Entry<?> other = (Entry<?>)obj;
+			return startNode.equals(other.startNode) && endNode.equals(other.endNode) && hasHeuristic(other.heuristic);
+		}
+	}
+}
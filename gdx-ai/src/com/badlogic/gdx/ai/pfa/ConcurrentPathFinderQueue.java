@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa;
+
+import com.badlogic.gdx.ai.GdxAI;
+import com.badlogic.gdx.ai.msg.MessageDispatcher;
+import com.badlogic.gdx.ai.msg.MessageManager;
+import com.badlogic.gdx.ai.msg.Telegram;
+import com.badlogic.gdx.ai.msg.Telegraph;
+import com.badlogic.gdx.ai.sched.Schedulable;
+import com.badlogic.gdx.ai.utils.CircularBuffer;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncTask;
+
+/** A {@code ConcurrentPathFinderQueue} is a variant of the {@link PathFinderQueue} that runs the searches on a pool of worker
+ * threads, so that pathfinding throughput scales with the number of available cores instead of being bounded by the time budget
+ * of the game thread.
+ * <p>
+ * Each worker owns one of the {@link PathFinder} instances given at construction time, so the number of path finders is the
+ * parallelism of this queue. Path finders are usually not thread-safe, but they can share the same graph as long as the graph
+ * is not modified while searches are running.
+ * <p>
+ * Requests can be submitted from any thread through {@link #submit(PathFinderRequest)}, or from the game thread through a
+ * {@link Telegram} like the {@link PathFinderQueue}. Then, like the {@link PathFinderQueue}, this queue must be
+ * {@link #run(long) run} on the game thread, typically by a scheduler; only the {@link PathFinderRequest#search(PathFinder, long)
+ * search} phase of each request is executed by the workers, while {@link PathFinderRequest#initializeSearch(long)
+ * initializeSearch}, {@link PathFinderRequest#finalizeSearch(long) finalizeSearch} and the delivery of the response to the client
+ * through the {@link MessageDispatcher} of the request always take place on the game thread.
+ * <p>
+ * Requests are served in the order they were submitted: the {@link PathFinderRequest#priority priority} and the
+ * {@link PathFinderRequest#deadline deadline} of the requests are ignored. {@link PathFinderRequest#cancel() Cancelled} requests
+ * are dropped on the game thread without sending any response to the client; a search already running on a worker is completed
+ * anyway, and its result discarded.
+ * <p>
+ * Call {@link #dispose()} to shut down the worker threads when this queue is no longer needed.
+ *
+ * @param <N> Type of node */
+public class ConcurrentPathFinderQueue<N> implements Schedulable, Telegraph, Disposable {
+
+	private static final String TAG = "ConcurrentPathFinderQueue";
+
+	final AsyncExecutor executor;
+
+	/** The requests waiting to be initialized on the game thread, guarded by this queue. */
+	final CircularBuffer<PathFinderRequest<N>> requestQueue;
+
+	/** The initialized requests waiting for a worker, guarded by this queue. */
+	final CircularBuffer<PathFinderRequest<N>> readyQueue;
+
+	/** The requests whose search has been completed by a worker, guarded by this queue. */
+	final CircularBuffer<PathFinderRequest<N>> completedQueue;
+
+	/** The tasks that are not running on a worker, guarded by this queue. */
+	final Array<SearchTask<N>> idleTasks;
+
+	final int parallelism;
+
+	/** The request being initialized on the game thread, possibly across multiple frames. */
+	PathFinderRequest<N> initializingRequest;
+
+	/** The request being finalized on the game thread, possibly across multiple frames, guarded by this queue. */
+	PathFinderRequest<N> finalizingRequest;
+
+	/** Whether the request being finalized has been submitted again, guarded by this queue. */
+	boolean finalizingRequestRenewed;
+
+	/** Creates a {@code ConcurrentPathFinderQueue} running searches in parallel with the given path finders.
+	 * @param pathFinders the path finders, one per worker thread; they must be distinct instances. */
+	public ConcurrentPathFinderQueue (Array<PathFinder<N>> pathFinders) {
+		if (pathFinders.size == 0) throw new IllegalArgumentException("At least one path finder is required");
+		this.parallelism = pathFinders.size;
+		this.executor = new AsyncExecutor(parallelism, TAG);
+		this.requestQueue = new CircularBuffer<PathFinderRequest<N>>(16);
+		this.readyQueue = new CircularBuffer<PathFinderRequest<N>>(16);
+		this.completedQueue = new CircularBuffer<PathFinderRequest<N>>(16);
+		this.idleTasks = new Array<SearchTask<N>>(parallelism);
+		for (int i = 0; i < parallelism; i++)
+			idleTasks.add(new SearchTask<N>(this, pathFinders.get(i)));
+	}
+
+	/** Returns the number of worker threads, i.e. the maximum number of searches running at the same time. */
+	public int getParallelism () {
+		return parallelism;
+	}
+
+	/** Adds the given request to this queue. This method can be called by any thread. The request is reset and its client will be
+	 * notified on the game thread once the request has completed.
+	 * @param request the request; its {@link PathFinderRequest#client client} should be already set. */
+	public void submit (PathFinderRequest<N> request) {
+		synchronized (this) {
+			reset(request);
+			// The request being finalized is queued again once its response has been sent, rather than queued twice
+			if (request == finalizingRequest)
+				finalizingRequestRenewed = true;
+			else
+				requestQueue.store(request);
+		}
+	}
+
+	private static void reset (PathFinderRequest<?> request) {
+		request.status = PathFinderRequest.SEARCH_NEW; // Reset status
+		request.statusChanged = true; // Status has just changed
+		request.executionFrames = 0; // Reset execution frames counter
+		request.cancelled = false;
+	}
+
+	@Override
+	public boolean handleMessage (Telegram telegram) {
+		@SuppressWarnings("unchecked")
+		PathFinderRequest<N> pfr = (PathFinderRequest<N>)telegram.extraInfo;
+		pfr.client = telegram.sender; // set the client to be notified once the request has completed
+		submit(pfr);
+		return true;
+	}
+
+	/** Delivers the completed requests to their clients and hands the pending requests over to the idle workers. This method must
+	 * be called on the game thread.
+	 * @param timeToRun the maximum time in nanoseconds this method is allowed to take */
+	@Override
+	public void run (long timeToRun) {
+		long lastTime = TimeUtils.nanoTime();
+
+		// Finalize the completed requests and send the results to their clients
+		while (true) {
+			if (finalizingRequest == null) {
+				synchronized (this) {
+					finalizingRequest = completedQueue.read();
+					while (finalizingRequest != null && finalizingRequest.cancelled)
+						finalizingRequest = completedQueue.read();
+				}
+				if (finalizingRequest == null) break;
+				finalizingRequest.executionFrames++;
+			}
+
+			long currentTime = TimeUtils.nanoTime();
+			timeToRun -= currentTime - lastTime;
+			if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return;
+			lastTime = currentTime;
+
+			PathFinderRequest<N> request = finalizingRequest;
+			if (!request.finalizeSearch(timeToRun)) return;
+			request.changeStatus(PathFinderRequest.SEARCH_FINALIZED);
+
+			MessageDispatcher dispatcher = request.dispatcher != null ? request.dispatcher : MessageManager.getInstance();
+			dispatcher.dispatchMessage(this, request.client, request.responseMessageCode, request);
+
+			// The client may have renewed the request, typically while handling the response
+			synchronized (this) {
+				boolean renewed = finalizingRequestRenewed
+					|| (request.statusChanged && request.status == PathFinderRequest.SEARCH_NEW);
+				finalizingRequest = null;
+				finalizingRequestRenewed = false;
+				if (renewed) {
+					reset(request);
+					requestQueue.store(request);
+				}
+			}
+		}
+
+		// Initialize the pending requests and hand them over to the workers
+		while (true) {
+			if (initializingRequest == null) {
+				synchronized (this) {
+					initializingRequest = requestQueue.read();
+				}
+				if (initializingRequest == null) return;
+				if (initializingRequest.cancelled) {
+					initializingRequest = null;
+					continue;
+				}
+				initializingRequest.executionFrames++;
+			}
+
+			long currentTime = TimeUtils.nanoTime();
+			timeToRun -= currentTime - lastTime;
+			if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return;
+			lastTime = currentTime;
+
+			PathFinderRequest<N> request = initializingRequest;
+			if (!request.initializeSearch(timeToRun)) return;
+			request.changeStatus(PathFinderRequest.SEARCH_INITIALIZED);
+			initializingRequest = null;
+
+			// Wake up an idle worker, if any; busy workers take the next ready request by themselves
+			SearchTask<N> task = null;
+			synchronized (this) {
+				readyQueue.store(request);
+				if (idleTasks.size > 0) task = idleTasks.pop();
+			}
+			if (task != null) executor.submit(task);
+		}
+	}
+
+	/** Returns the number of requests waiting for a worker. */
+	public synchronized int size () {
+		return requestQueue.size() + readyQueue.size() + (initializingRequest != null ? 1 : 0);
+	}
+
+	/** Returns the number of workers currently running searches. */
+	public synchronized int getBusyWorkers () {
+		return parallelism - idleTasks.size;
+	}
+
+	/** Returns the number of requests whose search has completed but whose client has not been notified yet. */
+	public synchronized int getCompletedSearches () {
+		return completedQueue.size() + (finalizingRequest != null ? 1 : 0);
+	}
+
+	/** Shuts down the worker threads. Running searches are completed but their results are never delivered. */
+	@Override
+	public void dispose () {
+		executor.dispose();
+	}
+
+	/** Returns the next initialized request or {@code null} if there is none, in which case the given task becomes idle. */
+	synchronized PathFinderRequest<N> nextRequest (SearchTask<N> task) {
+		PathFinderRequest<N> request = readyQueue.read();
+		if (request == null) idleTasks.add(task);
+		return request;
+	}
+
+	synchronized void searchCompleted (PathFinderRequest<N> request) {
+		completedQueue.store(request);
+	}
+
+	/** A task running on a worker thread that searches the ready requests with its own path finder until there are no more.
+	 *
+	 * @param <N> Type of node */
+	static class SearchTask<N> implements AsyncTask<Void> {
+		final ConcurrentPathFinderQueue<N> queue;
+		final PathFinder<N> pathFinder;
+
+		SearchTask (ConcurrentPathFinderQueue<N> queue, PathFinder<N> pathFinder) {
+			this.queue = queue;
+			this.pathFinder = pathFinder;
+		}
+
+		@Override
+		public Void call () throws Exception {
+			PathFinderRequest<N> request;
+			while ((request = queue.nextRequest(this)) != null) {
+				try {
+					while (!request.search(pathFinder, Long.MAX_VALUE)) {
+					}
+				} catch (RuntimeException e) {
+					request.pathFound = false;
+					GdxAI.getLogger().error(TAG, "Search failed", e);
+				}
+				request.changeStatus(PathFinderRequest.SEARCH_DONE);
+				queue.searchCompleted(request);
+			}
+			return null;
+		}
+	}
+}
@@ -30,6 +30,14 @@ import com.badlogic.gdx.utils.TimeUtils;
  * hierarchical graph then act as if the graph was just a simple, non-hierarchical graph at that level. This way, the level path
  * finder has no way of telling that it is working with a hierarchical graph and it doesn't need to, meaning that you can use any
  * path finder implementation for the level path finder.
+ * <p>
+ * The paths found at each level above 0 are kept in a small cache, whose least recently used path is replaced when it's full.
+ * When level path reuse is enabled, a search whose start and end nodes convert to the same nodes at a given level as a cached
+ * path, e.g. an agent moving inside the same cluster toward the same goal, reuses that path instead of searching it again, so
+ * only the level 0 leg is refined. Since there is a path per pair of start and end nodes, the agents served one after another,
+ * for instance by a {@link PathFinderQueue}, don't evict each other's paths as long as the cache is large enough. Heuristics are
+ * compared with {@code equals}, so the same heuristic instance should be used for all the searches unless the heuristic
+ * overrides this method. The cached paths must be discarded by {@link #clearLevelPaths()} whenever the graph changes.
  * 
  * @param <N> Type of node
  * 
@@ -39,65 +47,120 @@ public class HierarchicalPathFinder<N> implements PathFinder<N> {
 
 	public static boolean DEBUG = false;
 
+	/** The default maximum number of paths cached at each level above 0. */
+	public static final int DEFAULT_LEVEL_PATH_CAPACITY = 16;
+
 	HierarchicalGraph<N> graph;
 	PathFinder<N> levelPathFinder;
 	LevelPathFinderRequest<N> levelRequest;
 	PathFinderRequestControl<N> levelRequestControl;
 
+	/** Whether the paths found at the levels above 0 are reused by later searches. */
+	boolean reuseLevelPaths;
+
+	/** The maximum number of paths cached at each level above 0. */
+	int levelPathCapacity;
+
+	/** The paths found at each level above 0, indexed by level and sorted from the most recently used. */
+	LevelPath<N>[][] levelPaths;
+
 	public HierarchicalPathFinder (HierarchicalGraph<N> graph, PathFinder<N> levelPathFinder) {
+		this(graph, levelPathFinder, false);
+	}
+
+	/** Creates a {@code HierarchicalPathFinder}.
+	 * @param graph the hierarchical graph
+	 * @param levelPathFinder the path finder used on each level
+	 * @param reuseLevelPaths whether the paths found at the levels above 0 are reused by later searches with the same start and
+	 *           end nodes at those levels */
+	public HierarchicalPathFinder (HierarchicalGraph<N> graph, PathFinder<N> levelPathFinder, boolean reuseLevelPaths) {
+		this(graph, levelPathFinder, reuseLevelPaths, DEFAULT_LEVEL_PATH_CAPACITY);
+	}
+
+	/** Creates a {@code HierarchicalPathFinder}.
+	 * @param graph the hierarchical graph
+	 * @param levelPathFinder the path finder used on each level
+	 * @param reuseLevelPaths whether the paths found at the levels above 0 are reused by later searches with the same start and
+	 *           end nodes at those levels
+	 * @param levelPathCapacity the maximum number of paths cached at each level above 0 */
+	@SuppressWarnings("unchecked")
+	public HierarchicalPathFinder (HierarchicalGraph<N> graph, PathFinder<N> levelPathFinder, boolean reuseLevelPaths,
+		int levelPathCapacity) {
+		if (levelPathCapacity <= 0) throw new IllegalArgumentException("levelPathCapacity must be positive");
 		this.graph = graph;
 		this.levelPathFinder = levelPathFinder;
 		this.levelRequest = null;
 		this.levelRequestControl = null;
+		this.reuseLevelPaths = reuseLevelPaths;
+		this.levelPathCapacity = levelPathCapacity;
+		this.levelPaths = new LevelPath[graph.getLevelCount()][];
+		for (int i = 1; i < levelPaths.length; i++) {
+			levelPaths[i] = new LevelPath[levelPathCapacity];
+			for (int j = 0; j < levelPathCapacity; j++)
+				levelPaths[i][j] = new LevelPath<N>();
+		}
 	}
 
-	@Override
-	public boolean searchNodePath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<N> outPath) {
-		// Check if we have no path to find
-		if (startNode == endNode) return true;
+	/** Returns whether the paths found at the levels above 0 are reused by later searches. */
+	public boolean isReuseLevelPaths () {
+		return reuseLevelPaths;
+	}
 
-		// Set up our initial pair of nodes
-		N currentStartNode = startNode;
-		N currentEndNode = endNode;
-		int levelOfNodes = 0;
+	/** Sets whether the paths found at the levels above 0 are reused by later searches. */
+	public void setReuseLevelPaths (boolean reuseLevelPaths) {
+		this.reuseLevelPaths = reuseLevelPaths;
+	}
 
-		// Descend through levels of the graph
-		int currentLevel = graph.getLevelCount() - 1;
-		while (currentLevel >= 0) {
-			// Find the start node at current level
-			currentStartNode = graph.convertNodeBetweenLevels(0, startNode, currentLevel);
+	/** Returns the maximum number of paths cached at each level above 0. */
+	public int getLevelPathCapacity () {
+		return levelPathCapacity;
+	}
 
-			// Find the end node at current level
-			// Note that if we're examining level 0 and the current end node, the end node and the
-			// start node have the same parent at level 1 then we can use the end node directly.
-			currentEndNode = graph.convertNodeBetweenLevels(levelOfNodes, currentEndNode, currentLevel);
-			if (currentLevel == 0) {
-				N currentEndNodeParent = graph.convertNodeBetweenLevels(0, currentEndNode, 1);
-				if (currentEndNodeParent == graph.convertNodeBetweenLevels(0, endNode, 1)
-					&& currentEndNodeParent == graph.convertNodeBetweenLevels(0, startNode, 1)) {
-					currentEndNode = endNode;
-				}
-			}
+	/** Discards the paths found at the levels above 0. This method must be called whenever the graph changes. */
+	public void clearLevelPaths () {
+		for (int i = 1; i < levelPaths.length; i++)
+			for (int j = 0; j < levelPaths[i].length; j++)
+				levelPaths[i][j].invalidate();
+	}
 
-			// Decrease current level and skip it if start and end node are the same
-			levelOfNodes = currentLevel;
-			currentLevel--;
-			if (currentStartNode == currentEndNode) continue;
+	/** Returns the path found at the given level for the given search, if any, and marks it as the most recently used. */
+	LevelPath<N> findLevelPath (int level, N startNode, N endNode, Heuristic<N> heuristic) {
+		LevelPath<N>[] paths = levelPaths[level];
+		for (int i = 0; i < paths.length; i++)
+			if (paths[i].matches(startNode, endNode, heuristic)) return moveToFront(paths, i);
+		return null;
+	}
 
-			// Otherwise we can perform the plan
-			graph.setLevel(levelOfNodes);
-			outPath.clear();
-			boolean pathFound = levelPathFinder.searchNodePath(currentStartNode, currentEndNode, heuristic, outPath);
+	/** Returns the least recently used path of the given level, emptied and prepared for the given search, and marks it as the
+	 * most recently used. */
+	LevelPath<N> newLevelPath (int level, N startNode, N endNode, Heuristic<N> heuristic) {
+		LevelPath<N>[] paths = levelPaths[level];
+		LevelPath<N> path = moveToFront(paths, paths.length - 1);
+		path.clear();
+		path.set(startNode, endNode, heuristic);
+		return path;
+	}
 
-			if (!pathFound) return false;
+	private static <N> LevelPath<N> moveToFront (LevelPath<N>[] paths, int index) {
+		LevelPath<N> path = paths[index];
+		System.arraycopy(paths, 0, paths, 1, index);
+		paths[0] = path;
+		return path;
+	}
 
-			// Now take the first move of this plan and use it for the next run through
-			currentEndNode = outPath.get(1);
-		}
+	@Override
+	public boolean searchNodePath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<N> outPath) {
+		// Check if we have no path to find
+		if (startNode == endNode) return true;
 
-		// Return success.
-		// Note that outPath contains the last path we considered which is at level zero
-		return true;
+		// Plan at the higher levels to find where the level 0 leg ends
+		N levelEndNode = planHigherLevels(startNode, endNode, heuristic);
+		if (levelEndNode == null) return false;
+
+		// Refine the first move at level 0
+		graph.setLevel(0);
+		outPath.clear();
+		return levelPathFinder.searchNodePath(startNode, levelEndNode, heuristic, outPath);
 	}
 
 	@Override
@@ -105,48 +168,72 @@ public class HierarchicalPathFinder<N> implements PathFinder<N> {
 		// Check if we have no path to find
 		if (startNode == endNode) return true;
 
-		// Set up our initial pair of nodes
-		N currentStartNode = startNode;
+		// Plan at the higher levels to find where the level 0 leg ends
+		N levelEndNode = planHigherLevels(startNode, endNode, heuristic);
+		if (levelEndNode == null) return false;
+
+		// Refine the first move at level 0
+		graph.setLevel(0);
+		outPath.clear();
+		return levelPathFinder.searchConnectionPath(startNode, levelEndNode, heuristic, outPath);
+	}
+
+	/** Descends through the levels above 0, searching or reusing the path at each level and taking its first move as the end node
+	 * of the next level.
+	 * @return the end node of the level 0 leg or {@code null} if no path has been found at some level. */
+	N planHigherLevels (N startNode, N endNode, Heuristic<N> heuristic) {
 		N currentEndNode = endNode;
 		int levelOfNodes = 0;
+		for (int currentLevel = graph.getLevelCount() - 1; currentLevel > 0; currentLevel--) {
+			// Find the start and end nodes at current level
+			N currentStartNode = graph.convertNodeBetweenLevels(0, startNode, currentLevel);
+			currentEndNode = graph.convertNodeBetweenLevels(levelOfNodes, currentEndNode, currentLevel);
+			levelOfNodes = currentLevel;
 
-		// Descend through levels of the graph
-		int currentLevel = graph.getLevelCount() - 1;
-		while (currentLevel >= 0) {
-			// Find the start node at current level
-			currentStartNode = graph.convertNodeBetweenLevels(0, startNode, currentLevel);
+			// Skip current level if start and end node are the same
+			if (currentStartNode == currentEndNode) continue;
 
-			// Find the end node at current level
-			// Note that if we're examining level 0 and the current end node, the end node and the
-			// start node have the same parent at level 1 then we can use the end node directly.
-			currentEndNode = graph.convertNodeBetweenLevels(levelOfNodes, currentEndNode, currentLevel);
-			if (currentLevel == 0) {
-				N currentEndNodeParent = graph.convertNodeBetweenLevels(0, currentEndNode, 1);
-				if (currentEndNodeParent == graph.convertNodeBetweenLevels(0, endNode, 1)
-					&& currentEndNodeParent == graph.convertNodeBetweenLevels(0, startNode, 1)) {
-					currentEndNode = endNode;
-				}
+			// Otherwise we can perform the plan, unless it's already known
+			LevelPath<N> levelPath = reuseLevelPaths ? findLevelPath(currentLevel, currentStartNode, currentEndNode, heuristic)
+				: null;
+			if (levelPath == null) {
+				graph.setLevel(currentLevel);
+				levelPath = newLevelPath(currentLevel, currentStartNode, currentEndNode, heuristic);
+				levelPath.found = levelPathFinder.searchNodePath(currentStartNode, currentEndNode, heuristic, levelPath);
+				if (!levelPath.found) return null;
 			}
 
-			// Decrease current level and skip it if start and end node are the same
-			levelOfNodes = currentLevel;
-			currentLevel--;
-			if (currentStartNode == currentEndNode) continue;
+			// Now take the first move of this plan and use it for the next run through
+			currentEndNode = firstMove(levelPath, startNode, currentLevel);
+		}
+		return levelZeroEndNode(startNode, endNode, currentEndNode, levelOfNodes);
+	}
 
-			// Otherwise we can perform the plan
-			graph.setLevel(levelOfNodes);
-			outPath.clear();
-			boolean pathFound = levelPathFinder.searchConnectionPath(currentStartNode, currentEndNode, heuristic, outPath);
+	/** Returns the first node of the given path that doesn't convert to the start node at the level below. */
+	N firstMove (GraphPath<N> levelPath, N startNode, int level) {
+		N lowerStartNode = graph.convertNodeBetweenLevels(0, startNode, level - 1);
+		int last = levelPath.getCount() - 1;
+		for (int i = 1; i < last; i++) {
+			N node = levelPath.get(i);
+			if (graph.convertNodeBetweenLevels(level, node, level - 1) != lowerStartNode) return node;
+		}
+		return levelPath.get(last);
+	}
 
-			if (!pathFound) return false;
+	/** Returns the end node of the level 0 leg given the first move at the lowest level planned. */
+	N levelZeroEndNode (N startNode, N endNode, N currentEndNode, int levelOfNodes) {
+		N levelEndNode = graph.convertNodeBetweenLevels(levelOfNodes, currentEndNode, 0);
 
-			// Now take the first move of this plan and use it for the next run through
-			currentEndNode = outPath.get(0).getToNode();
+		// If the current end node, the end node and the start node have the same parent at level 1 then we can use the end node
+		// directly.
+		if (graph.getLevelCount() > 1) {
+			N levelEndNodeParent = graph.convertNodeBetweenLevels(0, levelEndNode, 1);
+			if (levelEndNodeParent == graph.convertNodeBetweenLevels(0, endNode, 1)
+				&& levelEndNodeParent == graph.convertNodeBetweenLevels(0, startNode, 1)) return endNode;
 		}
 
-		// Return success.
-		// Note that outPath contains the last path we considered which is at level zero
-		return true;
+		// Never return an empty leg
+		return levelEndNode == startNode ? endNode : levelEndNode;
 	}
 
 	@Override
@@ -164,7 +251,11 @@ public class HierarchicalPathFinder<N> implements PathFinder<N> {
 			if (DEBUG) GdxAI.getLogger().debug(TAG, "-- statusChanged");
 
 			// Check if we have no path to find
-			if (request.startNode == request.endNode) return true;
+			if (request.startNode == request.endNode) {
+				request.statusChanged = false;
+				request.pathFound = true;
+				return true;
+			}
 
 			// Prepare the the level request control
 			levelRequestControl.lastTime = TimeUtils.nanoTime(); // Keep track of the current time
@@ -179,32 +270,27 @@ public class HierarchicalPathFinder<N> implements PathFinder<N> {
 			levelRequest.status = PathFinderRequest.SEARCH_NEW;
 			levelRequest.statusChanged = true;
 			levelRequest.heuristic = request.heuristic;
-			levelRequest.resultPath = request.resultPath;
-			levelRequest.startNode = request.startNode;
-			levelRequest.endNode = request.endNode;
+			levelRequest.currentEndNode = request.endNode;
 			levelRequest.levelOfNodes = 0;
 			levelRequest.currentLevel = graph.getLevelCount() - 1;
+			request.statusChanged = false;
+		} else {
+			// Resume the search with the time of this frame
+			levelRequestControl.lastTime = TimeUtils.nanoTime();
+			levelRequestControl.timeToRun = timeToRun;
 		}
 
-		while (levelRequest.currentLevel >= 0) {
-//			if (DEBUG) GdxAI.getLogger().debug(TAG, "currentLevel = "+levelRequest.currentLevel);
-
+		while (true) {
 			boolean finished = levelRequestControl.execute(levelRequest);
-//			if (DEBUG) GdxAI.getLogger().debug(TAG, "finished = "+finished);
-//			if (DEBUG) GdxAI.getLogger().debug(TAG, "pathFound = "+levelRequest.pathFound);
+			if (!finished) return false;
 
-//			if (finished && !levelRequest.pathFound) return true;
-			if (!finished) {
-				return false;
-			}
-			else {
-				levelRequest.executionFrames = 0;
-//				levelRequest.pathFound = false;
-				levelRequest.status = PathFinderRequest.SEARCH_NEW;
-				levelRequest.statusChanged = true;
+			// Stop if no path has been found or the level 0 leg is done
+			if (!levelRequest.pathFound || levelRequest.currentLevel < 0) break;
 
-				if (!levelRequest.pathFound) return true;
-			}
+			// Otherwise go down one level
+			levelRequest.executionFrames = 0;
+			levelRequest.status = PathFinderRequest.SEARCH_NEW;
+			levelRequest.statusChanged = true;
 		}
 
 		if (DEBUG) GdxAI.getLogger().debug(TAG, "-- before exit");
@@ -212,11 +298,42 @@ public class HierarchicalPathFinder<N> implements PathFinder<N> {
 		return true;
 	}
 
+	/** The path found at a level above 0 along with the arguments of the search.
+	 *
+	 * @param <N> Type of node */
+	static class LevelPath<N> extends DefaultGraphPath<N> {
+		N startNode;
+		N endNode;
+		Heuristic<N> heuristic;
+		boolean found;
+
+		void set (N startNode, N endNode, Heuristic<N> heuristic) {
+			this.startNode = startNode;
+			this.endNode = endNode;
+			this.heuristic = heuristic;
+			this.found = false;
+		}
+
+		boolean matches (N startNode, N endNode, Heuristic<N> heuristic) {
+			return found && this.startNode == startNode && this.endNode == endNode
+				&& (this.heuristic == null ? heuristic == null : this.heuristic.equals(heuristic));
+		}
+
+		void invalidate () {
+			set(null, null, null);
+		}
+	}
+
 	static class LevelPathFinderRequest<N> extends PathFinderRequest<N> {
 		HierarchicalPathFinder<N> hpf;
 		PathFinderRequest<N> hpfRequest;
 
+		/** The first move planned at the lowest level processed so far. */
+		N currentEndNode;
+
 		int levelOfNodes;
+
+		/** The level of the current search; it's {@code -1} once the level 0 leg is done. */
 		int currentLevel;
 
 		@Override
@@ -230,34 +347,40 @@ public class HierarchicalPathFinder<N> implements PathFinder<N> {
 			this.status = SEARCH_NEW;
 			this.statusChanged = false;
 
-			do {
-				// Find the start node at current level
-				startNode = hpf.graph.convertNodeBetweenLevels(0, hpfRequest.startNode, currentLevel);
-
-				// Find the end node at current level
-				// Note that if we're examining level 0 and the current end node, the end node and the
-				// start node have the same parent at level 1 then we can use the end node directly.
-				endNode = hpf.graph.convertNodeBetweenLevels(levelOfNodes, endNode, currentLevel);
-				if (currentLevel == 0) {
-					N currentEndNodeParent = hpf.graph.convertNodeBetweenLevels(0, endNode, 1);
-					if (currentEndNodeParent == hpf.graph.convertNodeBetweenLevels(0, hpfRequest.endNode, 1)
-						&& currentEndNodeParent == hpf.graph.convertNodeBetweenLevels(0, hpfRequest.startNode, 1)) {
-						endNode = hpfRequest.endNode;
+			// Descend through the levels whose plan is trivial or already known
+			while (currentLevel > 0) {
+				// Find the start and end nodes at current level
+				N currentStartNode = hpf.graph.convertNodeBetweenLevels(0, hpfRequest.startNode, currentLevel);
+				currentEndNode = hpf.graph.convertNodeBetweenLevels(levelOfNodes, currentEndNode, currentLevel);
+				levelOfNodes = currentLevel;
+
+				if (currentStartNode != currentEndNode) {
+					LevelPath<N> levelPath = hpf.reuseLevelPaths
+						? hpf.findLevelPath(currentLevel, currentStartNode, currentEndNode, heuristic) : null;
+					if (levelPath == null) {
+						// We have to perform the plan at this level
+						if (DEBUG) GdxAI.getLogger().debug(TAG, "LevelPathFinder initializeSearch; level " + currentLevel);
+						levelPath = hpf.newLevelPath(currentLevel, currentStartNode, currentEndNode, heuristic);
+						startNode = currentStartNode;
+						endNode = currentEndNode;
+						resultPath = levelPath;
+						hpf.graph.setLevel(currentLevel);
+						return true;
 					}
-				}
 
-				// Decrease current level and skip it if start and end node are the same
-				// FIXME the break below is wrong
-				if (DEBUG) GdxAI.getLogger().debug(TAG, "LevelPathFinder initializeSearch");
-				levelOfNodes = currentLevel;
+					// Reuse the known plan
+					currentEndNode = hpf.firstMove(levelPath, hpfRequest.startNode, currentLevel);
+				}
 				currentLevel--;
-				if (startNode != endNode) break;
-
-			} while (currentLevel >= 0);
+			}
 
-			// Otherwise we can perform the plan
-			hpf.graph.setLevel(levelOfNodes);
+			// Refine the first move at level 0
+			if (DEBUG) GdxAI.getLogger().debug(TAG, "LevelPathFinder initializeSearch; level 0");
+			startNode = hpfRequest.startNode;
+			endNode = hpf.levelZeroEndNode(hpfRequest.startNode, hpfRequest.endNode, currentEndNode, levelOfNodes);
+			resultPath = hpfRequest.resultPath;
 			resultPath.clear();
+			hpf.graph.setLevel(0);
 			return true;
 		}
 
@@ -270,9 +393,16 @@ public class HierarchicalPathFinder<N> implements PathFinder<N> {
 		@Override
 		public boolean finalizeSearch (long timeToRun) {
 			hpfRequest.pathFound = pathFound;
-			if (pathFound) {
-				// Take the first move of this plan and use it for the next run through
-				endNode = resultPath.get(1);
+			if (currentLevel > 0) {
+				LevelPath<N> levelPath = (LevelPath<N>)resultPath;
+				levelPath.found = pathFound;
+				if (pathFound) {
+					// Take the first move of this plan and use it for the next run through
+					currentEndNode = hpf.firstMove(levelPath, hpfRequest.startNode, currentLevel);
+					currentLevel--;
+				}
+			} else {
+				currentLevel = -1;
 			}
 			if (DEBUG) GdxAI.getLogger().debug(TAG, "LevelPathFinder finalizeSearch; status: " + status);
 			return true;
@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa;
+
+/** A {@code LineOfSight} tells whether an agent can move in a straight line between two nodes that are not necessarily adjacent,
+ * and how much such a move costs. It's what any-angle path finders use to shortcut the connections of the graph.
+ * <p>
+ * The cost returned by {@link #getDistance(Object, Object)} must be consistent with the costs of the connections of the graph,
+ * i.e. moving straight to an adjacent node must cost the same as the connection to that node, and with the heuristic used by
+ * the search, which is typically the same euclidean distance.
+ * 
+ * @param <N> Type of node */
+public interface LineOfSight<N> {
+
+	/** Returns {@code true} if an agent can move in a straight line from the given node to the other given node; {@code false}
+	 * otherwise.
+	 * @param fromNode the node the move starts from
+	 * @param toNode the node the move ends to */
+	public boolean hasLineOfSight (N fromNode, N toNode);
+
+	/** Returns the cost of moving in a straight line from the given node to the other given node.
+	 * @param fromNode the node the move starts from
+	 * @param toNode the node the move ends to */
+	public float getDistance (N fromNode, N toNode);
+}
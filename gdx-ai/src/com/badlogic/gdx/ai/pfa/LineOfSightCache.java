@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/** A bounded cache of line of sight tests between pairs of nodes, typically shared by the {@link PathSmoother} instances of many
+ * agents, since agents moving through the same corridors keep testing the same pairs of nodes.
+ * <p>
+ * The cache is a 4-way set associative hash table with a fixed number of slots, each holding the result of the test from a node
+ * to another node. A new result replaces the least recently used one of its set, so the cache never grows nor allocates after
+ * creation. The key is the ordered pair of nodes, compared by reference: since the positions of the nodes of a path don't change,
+ * the nodes themselves are the quantization of the tested segments.
+ * <p>
+ * All the cached results are discarded by {@link #incrementGraphVersion()}, which must be called whenever the obstacles change.
+ * The slots are emptied at once, so that the cache doesn't keep references to nodes that may have been removed from the graph.
+ * 
+ * @param <N> Type of node */
+public class LineOfSightCache<N> {
+
+	/** The result of {@link #get(Object, Object)} for a pair of nodes that is not in the cache. */
+	public static final int UNKNOWN = 0;
+
+	/** The result of {@link #get(Object, Object)} for a pair of nodes in line of sight. */
+	public static final int CLEAR = 1;
+
+	/** The result of {@link #get(Object, Object)} for a pair of nodes not in line of sight. */
+	public static final int BLOCKED = 2;
+
+	final Object[] fromNodes;
+	final Object[] toNodes;
+	final boolean[] clear;
+
+	/** The version of the graph each slot has been filled for; slots of older versions are empty. */
+	final int[] versions;
+
+	/** The time of the last use of each slot. */
+	final int[] lastUses;
+
+	final int setMask;
+	int graphVersion = 1;
+	int time;
+
+	private static final int WAYS = 4;
+
+	/** The number of lookups satisfied by the cache. */
+	public int hits;
+
+	/** The number of lookups not satisfied by the cache. */
+	public int misses;
+
+	/** The number of results replaced by the result of a different pair of nodes. */
+	public int evictions;
+
+	/** Creates a {@code LineOfSightCache}.
+	 * @param capacity the maximum number of cached results, rounded up to the next power of two not lower than 4 */
+	public LineOfSightCache (int capacity) {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+		capacity = MathUtils.nextPowerOfTwo(Math.max(capacity, WAYS));
+		this.fromNodes = new Object[capacity];
+		this.toNodes = new Object[capacity];
+		this.clear = new boolean[capacity];
+		this.versions = new int[capacity];
+		this.lastUses = new int[capacity];
+		this.setMask = capacity / WAYS - 1;
+	}
+
+	/** Returns the maximum number of cached results. */
+	public int getCapacity () {
+		return versions.length;
+	}
+
+	/** Returns the current version of the graph. */
+	public int getGraphVersion () {
+		return graphVersion;
+	}
+
+	/** Removes all the cached results and increments the version of the graph. This method must be called whenever the obstacles
+	 * change. */
+	public void incrementGraphVersion () {
+		// Skip 0, which marks the empty slots
+		if (++graphVersion == 0) graphVersion = 1;
+		clear();
+	}
+
+	/** Removes all the cached results. */
+	public void clear () {
+		for (int i = 0; i < versions.length; i++) {
+			fromNodes[i] = null;
+			toNodes[i] = null;
+			versions[i] = 0;
+		}
+	}
+
+	/** Resets the hit, miss and eviction counters. */
+	public void resetStatistics () {
+		hits = misses = evictions = 0;
+	}
+
+	/** Returns the cached result of the line of sight test from the given node to the other given node.
+	 * @return {@link #CLEAR}, {@link #BLOCKED} or {@link #UNKNOWN} if the result is not in the cache. */
+	public int get (N fromNode, N toNode) {
+		int slot = find(fromNode, toNode, set(fromNode, toNode));
+		if (slot >= 0) {
+			hits++;
+			lastUses[slot] = ++time;
+			return clear[slot] ? CLEAR : BLOCKED;
+		}
+		misses++;
+		return UNKNOWN;
+	}
+
+	/** Caches the result of the line of sight test from the given node to the other given node.
+	 * @param fromNode the node the test starts from
+	 * @param toNode the node the test ends to
+	 * @param clear whether the nodes are in line of sight */
+	public void put (N fromNode, N toNode, boolean clear) {
+		int set = set(fromNode, toNode);
+		int slot = find(fromNode, toNode, set);
+		if (slot < 0) {
+			// Replace an empty slot or the least recently used one
+			slot = set;
+			for (int i = set + 1; i < set + WAYS && versions[slot] == graphVersion; i++)
+				if (versions[i] != graphVersion || lastUses[i] - lastUses[slot] < 0) slot = i;
+			if (versions[slot] == graphVersion) evictions++;
+			fromNodes[slot] = fromNode;
+			toNodes[slot] = toNode;
+			versions[slot] = graphVersion;
+		}
+		this.clear[slot] = clear;
+		lastUses[slot] = ++time;
+	}
+
+	private int find (N fromNode, N toNode, int set) {
+		for (int i = set; i < set + WAYS; i++)
+			if (versions[i] == graphVersion && fromNodes[i] == fromNode && toNodes[i] == toNode) return i;
+		return -1;
+	}
+
+	/** Returns the first slot of the set of the given pair of nodes. */
+	private int set (N fromNode, N toNode) {
+		int h = fromNode.hashCode() * 31 + toNode.hashCode();
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		return (h & setMask) * WAYS;
+	}
+}
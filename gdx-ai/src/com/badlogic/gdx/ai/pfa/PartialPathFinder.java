@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa;
+
+/** A {@link PathFinder} whose interruptible searches can produce a partial path before completing, which lets a
+ * {@link PathFinderQueue} answer a request whose deadline has expired with the best path found so far instead of no path at all.
+ *
+ * @param <N> Type of node */
+public interface PartialPathFinder<N> extends PathFinder<N> {
+
+	/** Fills the result path of the given request, whose interruptible search has been started but not completed, with the path
+	 * from the start node to the node closest to the end node met so far, according to the heuristic of the request.
+	 * @param request the pathfinding request
+	 * @return {@code true} if a partial path has been generated; {@code false} otherwise. */
+	public boolean generatePartialPath (PathFinderRequest<N> request);
+}
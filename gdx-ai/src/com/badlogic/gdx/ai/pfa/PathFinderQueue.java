@@ -19,17 +19,34 @@ package com.badlogic.gdx.ai.pfa;
 import com.badlogic.gdx.ai.msg.Telegram;
 import com.badlogic.gdx.ai.msg.Telegraph;
 import com.badlogic.gdx.ai.sched.Schedulable;
-import com.badlogic.gdx.ai.utils.CircularBuffer;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.TimeUtils;
 
-/** @param <N> Type of node
+/** A {@code PathFinderQueue} serves the {@link PathFinderRequest pathfinding requests} received through {@link Telegram telegrams}
+ * by running interruptible searches within the time given to each {@link #run(long) run}.
+ * <p>
+ * Requests are served in order of {@link PathFinderRequest#priority priority}, and in the order they were received when they have
+ * the same priority, so that for instance the units visible to the player can be served before the others. A request can be
+ * {@link #cancel(PathFinderRequest) cancelled}, for instance when its agent dies or changes target, and can have a
+ * {@link PathFinderRequest#deadline deadline} after which it's no longer worth searching: an expired request is answered with no
+ * path or, if the path finder is a {@link PartialPathFinder} and the request allows it, with the best path found so far. This way
+ * stale requests don't waste the time budget under load.
+ * <p>
+ * The public counters report how many requests have been served, cancelled and expired, and how long they waited in the queue
+ * before being served.
+ * <p>
+ * A request received again while queued is moved according to its new priority. A request received again while being served,
+ * for instance by the client handling its response, is not queued twice: its search restarts from scratch right away.
+ *
+ * @param <N> Type of node
  * 
  * @author davebaol */
 public class PathFinderQueue<N> implements Schedulable, Telegraph {
 
 	public static final long TIME_TOLERANCE = 100L;
 
-	CircularBuffer<PathFinderRequest<N>> requestQueue;
+	/** The queued requests as a binary heap ordered by priority and arrival. */
+	Array<PathFinderRequest<N>> requestQueue;
 
 	PathFinder<N> pathFinder;
 
@@ -37,9 +54,27 @@ public class PathFinderQueue<N> implements Schedulable, Telegraph {
 
 	PathFinderRequestControl<N> requestControl;
 
+	/** The arrival order of the next request. */
+	long nextSequence;
+
+	/** The number of requests taken from the queue to be served. */
+	public int servedRequests;
+
+	/** The number of requests dropped because they were cancelled. */
+	public int cancelledRequests;
+
+	/** The number of requests that expired before their search completed. */
+	public int expiredRequests;
+
+	/** The total time in nanoseconds the served requests waited in the queue. */
+	public long totalWaitTime;
+
+	/** The longest time in nanoseconds a served request waited in the queue. */
+	public long maxWaitTime;
+
 	public PathFinderQueue (PathFinder<N> pathFinder) {
 		this.pathFinder = pathFinder;
-		this.requestQueue = new CircularBuffer<PathFinderRequest<N>>(16);
+		this.requestQueue = new Array<PathFinderRequest<N>>(16);
 		this.currentRequest = null;
 		this.requestControl = new PathFinderRequestControl<N>();
 	}
@@ -55,16 +90,26 @@ public class PathFinderQueue<N> implements Schedulable, Telegraph {
 		requestControl.server = this;
 
 		// If no search in progress, take the next from the queue
-		if (currentRequest == null) currentRequest = requestQueue.read();
+		if (currentRequest == null) currentRequest = poll();
 
 		while (currentRequest != null) {
 
+			// Drop the request if it has been cancelled
+			if (currentRequest.cancelled) {
+				cancelledRequests++;
+				currentRequest = poll();
+				continue;
+			}
+
+			// Stop searching if the request has expired
+			if (currentRequest.status <= PathFinderRequest.SEARCH_INITIALIZED && isExpired(currentRequest)) expire(currentRequest);
+
 			boolean finished = requestControl.execute(currentRequest);
 
 			if (!finished) return;
 
 			// Read next request from the queue
-			currentRequest = requestQueue.read();
+			currentRequest = poll();
 		}
 	}
 
@@ -76,11 +121,149 @@ public class PathFinderQueue<N> implements Schedulable, Telegraph {
 		pfr.status = PathFinderRequest.SEARCH_NEW; // Reset status
 		pfr.statusChanged = true; // Status has just changed
 		pfr.executionFrames = 0; // Reset execution frames counter
-		requestQueue.store(pfr);
+		pfr.cancelled = false;
+		pfr.deadlineExpired = false;
+		if (pfr == currentRequest) return true; // The request being served restarts from scratch instead of being queued twice
+		if (isQueued(pfr)) remove(pfr.queueIndex); // The request is queued again with its new priority
+		pfr.enqueueTime = TimeUtils.nanoTime();
+		pfr.sequence = nextSequence++;
+		add(pfr);
 		return true;
 	}
 
+	/** Cancels the given request, which is dropped without sending any response to the client.
+	 * @param request the request
+	 * @return {@code true} if the request was queued or being served by this queue; {@code false} otherwise. */
+	public boolean cancel (PathFinderRequest<N> request) {
+		request.cancel();
+		if (isQueued(request)) {
+			remove(request.queueIndex);
+			cancelledRequests++;
+			return true;
+		}
+		if (request == currentRequest) {
+			currentRequest = null;
+			cancelledRequests++;
+			return true;
+		}
+		return false;
+	}
+
+	/** Returns the number of queued requests, excluding the one being served. */
 	public int size () {
-		return requestQueue.size();
+		return requestQueue.size;
+	}
+
+	/** Returns the average time in nanoseconds the served requests waited in the queue. */
+	public long getAverageWaitTime () {
+		return servedRequests == 0 ? 0 : totalWaitTime / servedRequests;
+	}
+
+	/** Resets the counters of this queue. */
+	public void resetStatistics () {
+		servedRequests = cancelledRequests = expiredRequests = 0;
+		totalWaitTime = maxWaitTime = 0;
+	}
+
+	private boolean isExpired (PathFinderRequest<N> request) {
+		return request.deadline != PathFinderRequest.NO_DEADLINE && TimeUtils.nanoTime() - request.deadline > 0;
+	}
+
+	/** Completes the given expired request, generating the best path found so far if allowed. The response is then sent to the
+	 * client as usual. */
+	@SuppressWarnings("unchecked")
+	private void expire (PathFinderRequest<N> request) {
+		expiredRequests++;
+		request.deadlineExpired = true;
+
+		// The search has started if the path finder has consumed the status change
+		boolean searching = request.status == PathFinderRequest.SEARCH_INITIALIZED && !request.statusChanged;
+		request.pathFound = searching && request.partialPathAllowed && pathFinder instanceof PartialPathFinder
+			&& ((PartialPathFinder<N>)pathFinder).generatePartialPath(request);
+		request.changeStatus(PathFinderRequest.SEARCH_DONE);
+	}
+
+	/** Removes and returns the next request to serve, skipping the cancelled ones, or {@code null} if the queue is empty. */
+	private PathFinderRequest<N> poll () {
+		while (requestQueue.size > 0) {
+			PathFinderRequest<N> request = remove(0);
+			if (request.cancelled) {
+				cancelledRequests++;
+				continue;
+			}
+			long waitTime = TimeUtils.nanoTime() - request.enqueueTime;
+			servedRequests++;
+			totalWaitTime += waitTime;
+			if (waitTime > maxWaitTime) maxWaitTime = waitTime;
+			return request;
+		}
+		return null;
+	}
+
+	private boolean isQueued (PathFinderRequest<N> request) {
+		int index = request.queueIndex;
+		return index >= 0 && index < requestQueue.size && requestQueue.get(index) == request;
+	}
+
+	/** Returns {@code true} if the first request must be served before the second one. */
+	private static boolean precedes (PathFinderRequest<?> a, PathFinderRequest<?> b) {
+		return a.priority > b.priority || (a.priority == b.priority && a.sequence < b.sequence);
+	}
+
+	private void add (PathFinderRequest<N> request) {
+		requestQueue.add(request);
+		up(requestQueue.size - 1, request);
+	}
+
+	private PathFinderRequest<N> remove (int index) {
+		Array<PathFinderRequest<N>> queue = requestQueue;
+		PathFinderRequest<N> removed = queue.get(index);
+		removed.queueIndex = -1;
+		PathFinderRequest<N> last = queue.pop();
+		if (index < queue.size) {
+			if (precedes(last, removed))
+				up(index, last);
+			else
+				down(index, last);
+		}
+		return removed;
+	}
+
+	private void up (int index, PathFinderRequest<N> request) {
+		Array<PathFinderRequest<N>> queue = requestQueue;
+		while (index > 0) {
+			int parentIndex = (index - 1) >> 1;
+			PathFinderRequest<N> parent = queue.get(parentIndex);
+			if (!precedes(request, parent)) break;
+			queue.set(index, parent);
+			parent.queueIndex = index;
+			index = parentIndex;
+		}
+		queue.set(index, request);
+		request.queueIndex = index;
+	}
+
+	private void down (int index, PathFinderRequest<N> request) {
+		Array<PathFinderRequest<N>> queue = requestQueue;
+		int size = queue.size;
+		while (true) {
+			int childIndex = 1 + (index << 1);
+			if (childIndex >= size) break;
+			PathFinderRequest<N> child = queue.get(childIndex);
+			int rightIndex = childIndex + 1;
+			if (rightIndex < size) {
+				PathFinderRequest<N> right = queue.get(rightIndex);
+				if (precedes(right, child)) {
+					childIndex = rightIndex;
+					child = right;
+				}
+			}
+			if (!precedes(child, request)) break;
+			queue.set(index, child);
+			child.queueIndex = index;
+			index = childIndex;
+		}
+		queue.set(index, request);
+		request.queueIndex = index;
 	}
 }
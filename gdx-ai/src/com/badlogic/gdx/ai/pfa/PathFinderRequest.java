@@ -33,6 +33,9 @@ public class PathFinderRequest<N> {
 	public static final int SEARCH_DONE = 2;
 	public static final int SEARCH_FINALIZED = 3;
 
+	/** The {@link #deadline} of a request that never expires. */
+	public static final long NO_DEADLINE = Long.MAX_VALUE;
+
 	public N startNode;
 	public N endNode;
 	public Heuristic<N> heuristic;
@@ -45,6 +48,41 @@ public class PathFinderRequest<N> {
 	public int responseMessageCode;
 	public MessageDispatcher dispatcher;
 
+	/** The priority of this request: a {@link PathFinderQueue} serves the requests with higher priority first and the requests with
+	 * the same priority in the order they were received. Defaults to 0.
+	 * <p>
+	 * Only honored by {@link PathFinderQueue}: a {@link ConcurrentPathFinderQueue} serves the requests in the order they were
+	 * submitted. */
+	public int priority;
+
+	/** The time in nanoseconds, as given by {@link com.badlogic.gdx.utils.TimeUtils#nanoTime()}, after which this request expires.
+	 * A {@link PathFinderQueue} doesn't search the path of an expired request: the client is sent the response with
+	 * {@link #deadlineExpired} set and, unless a partial path has been generated, {@link #pathFound} cleared. Defaults to
+	 * {@link #NO_DEADLINE}.
+	 * <p>
+	 * Only honored by {@link PathFinderQueue}: a {@link ConcurrentPathFinderQueue} runs every search to completion. */
+	public long deadline = NO_DEADLINE;
+
+	/** Whether the best path found so far is generated when this request expires while searching, provided that the path finder is a
+	 * {@link PartialPathFinder}. In that case {@link #pathFound} is set along with {@link #deadlineExpired}. */
+	public boolean partialPathAllowed;
+
+	/** Whether this request has expired before its search completed. */
+	public boolean deadlineExpired;
+
+	/** Whether this request has been cancelled. A cancelled request is dropped without sending any response to the client, by both
+	 * {@link PathFinderQueue} and {@link ConcurrentPathFinderQueue}. */
+	public boolean cancelled;
+
+	/** The time in nanoseconds this request has been received by a {@link PathFinderQueue}. */
+	long enqueueTime;
+
+	/** The order in which this request has been received by a {@link PathFinderQueue}. */
+	long sequence;
+
+	/** The position of this request in the queue of a {@link PathFinderQueue} or {@code -1} if it's not queued. */
+	int queueIndex = -1;
+
 	/** Creates an empty {@code PathFinderRequest} */
 	public PathFinderRequest () {
 	}
@@ -69,6 +107,12 @@ public class PathFinderRequest<N> {
 		this.statusChanged = false;
 	}
 
+	/** Cancels this request. The {@link PathFinderQueue} serving it drops it as soon as possible without sending any response to
+	 * the client. Use {@link PathFinderQueue#cancel(PathFinderRequest)} to remove it from the queue immediately. */
+	public void cancel () {
+		cancelled = true;
+	}
+
 	public void changeStatus (int newStatus) {
 		this.status = newStatus;
 		this.statusChanged = true;
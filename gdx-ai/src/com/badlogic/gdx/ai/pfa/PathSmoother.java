@@ -16,9 +16,11 @@
 
 package com.badlogic.gdx.ai.pfa;
 
+import com.badlogic.gdx.ai.utils.BatchRaycastCollisionDetector;
 import com.badlogic.gdx.ai.utils.Ray;
 import com.badlogic.gdx.ai.utils.RaycastCollisionDetector;
 import com.badlogic.gdx.math.Vector;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.TimeUtils;
 
 /** A {@code PathSmoother} takes a {@link SmoothableGraphPath} and transforms it by linking directly the nodes that are in line of
@@ -37,6 +39,12 @@ import com.badlogic.gdx.utils.TimeUtils;
  * The algorithm assumes that there is a clear route between any two adjacent nodes in the given path. Although this algorithm
  * produces a smooth path, it doesn't search all possible smoothed paths to find the best one, but the final result is usually
  * much more satisfactory than the original path.
+ * <p>
+ * The results of the ray casts can be cached by a {@link LineOfSightCache}, possibly shared by the path smoothers of many agents,
+ * so that the segments already tested while smoothing previous paths are not cast again. Also, when the collision detector is a
+ * {@link BatchRaycastCollisionDetector}, the rays from the last node of the smoothed path to the next {@link #getBatchSize()
+ * batch size} nodes of the input path are cast in a single call. The smoothed path is always the same, only the number of rays
+ * cast and the way they are cast change.
  * 
  * @param <N> Type of node
  * @param <V> Type of vector, either 2D or 3D, implementing the {@link Vector} interface
@@ -47,10 +55,78 @@ public class PathSmoother<N, V extends Vector<V>> {
 	RaycastCollisionDetector<V> raycastCollisionDetector;
 	Ray<V> ray;
 
+	/** The collision detector as a {@link BatchRaycastCollisionDetector} or {@code null} if it's not. */
+	BatchRaycastCollisionDetector<V> batchCollisionDetector;
+	int batchSize;
+
+	/** The rays cast in the current batch. */
+	Array<Ray<V>> batchRays;
+
+	/** The rays allocated so far for the batches. */
+	Array<Ray<V>> rayPool;
+
+	/** Whether the node at each position of the current batch is known to be in line of sight. */
+	boolean[] batchCached;
+
+	/** The results of the ray casts of the current batch. */
+	boolean[] batchCollisions;
+
+	/** The cached results of the ray casts; can be {@code null}. */
+	LineOfSightCache<N> lineOfSightCache;
+
 	/** Creates a {@code PathSmoother} using the given {@link RaycastCollisionDetector}
 	 * @param raycastCollisionDetector the raycast collision detector */
 	public PathSmoother (RaycastCollisionDetector<V> raycastCollisionDetector) {
+		this(raycastCollisionDetector, null);
+	}
+
+	/** Creates a {@code PathSmoother} using the given {@link RaycastCollisionDetector} and {@link LineOfSightCache}. Rays are
+	 * cast in batches of 8 if the detector is a {@link BatchRaycastCollisionDetector}.
+	 * @param raycastCollisionDetector the raycast collision detector
+	 * @param lineOfSightCache the cache of the ray cast results; can be {@code null} */
+	@SuppressWarnings("unchecked")
+	public PathSmoother (RaycastCollisionDetector<V> raycastCollisionDetector, LineOfSightCache<N> lineOfSightCache) {
 		this.raycastCollisionDetector = raycastCollisionDetector;
+		this.lineOfSightCache = lineOfSightCache;
+		if (raycastCollisionDetector instanceof BatchRaycastCollisionDetector) {
+			this.batchCollisionDetector = (BatchRaycastCollisionDetector<V>)raycastCollisionDetector;
+			setBatchSize(8);
+		} else {
+			this.batchSize = 1;
+		}
+	}
+
+	/** Returns the cache of the ray cast results; can be {@code null}. */
+	public LineOfSightCache<N> getLineOfSightCache () {
+		return lineOfSightCache;
+	}
+
+	/** Sets the cache of the ray cast results.
+	 * @param lineOfSightCache the cache; can be {@code null} */
+	public void setLineOfSightCache (LineOfSightCache<N> lineOfSightCache) {
+		this.lineOfSightCache = lineOfSightCache;
+	}
+
+	/** Returns the maximum number of rays cast in a single call; it's always 1 unless the collision detector is a
+	 * {@link BatchRaycastCollisionDetector}. */
+	public int getBatchSize () {
+		return batchSize;
+	}
+
+	/** Sets the maximum number of rays cast in a single call. Larger batches amortize the broadphase work better, but the rays
+	 * beyond the first collision are wasted.
+	 * @param batchSize the batch size
+	 * @throws IllegalStateException if the collision detector is not a {@link BatchRaycastCollisionDetector}
+	 * @throws IllegalArgumentException if the batch size is not positive */
+	public void setBatchSize (int batchSize) {
+		if (batchCollisionDetector == null)
+			throw new IllegalStateException("The collision detector is not a BatchRaycastCollisionDetector");
+		if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive");
+		this.batchSize = batchSize;
+		this.batchRays = new Array<Ray<V>>(batchSize);
+		if (rayPool == null) rayPool = new Array<Ray<V>>(batchSize);
+		this.batchCached = new boolean[batchSize];
+		this.batchCollisions = new boolean[batchSize];
 	}
 
 	/** Smoothes the given path in place.
@@ -79,21 +155,18 @@ public class PathSmoother<N, V extends Vector<V>> {
 
 		// Loop until we find the last item in the input
 		while (inputIndex < inputPathLength) {
-			// Set the ray
-			ray.start.set(path.getNodePosition(outputIndex - 1));
-			ray.end.set(path.getNodePosition(inputIndex));
+			// Do the ray casts up to the first collision
+			int endIndex = Math.min(inputIndex + batchSize, inputPathLength);
+			inputIndex = findFirstCollision(path, outputIndex - 1, inputIndex, endIndex);
 
-			// Do the ray cast
-			boolean collides = raycastCollisionDetector.collides(ray);
-
-			if (collides) {
+			if (inputIndex < endIndex) {
 				// The ray test failed, swap nodes and consider the next output node
 				path.swapNodes(outputIndex, inputIndex - 1);
 				outputIndex++;
-			}
 
-			// Consider the next input node
-			inputIndex++;
+				// Consider the next input node
+				inputIndex++;
+			}
 		}
 
 		// Reached the last input node, always add it to the smoothed path.
@@ -146,21 +219,18 @@ public class PathSmoother<N, V extends Vector<V>> {
 			timeToRun -= currentTime - lastTime;
 			if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return false;
 
-			// Set the ray
-			ray.start.set(path.getNodePosition(request.outputIndex - 1));
-			ray.end.set(path.getNodePosition(request.inputIndex));
-
-			// Do the ray cast
-			boolean collided = raycastCollisionDetector.collides(ray);
+			// Do the ray casts up to the first collision
+			int endIndex = Math.min(request.inputIndex + batchSize, inputPathLength);
+			request.inputIndex = findFirstCollision(path, request.outputIndex - 1, request.inputIndex, endIndex);
 
-			if (collided) {
+			if (request.inputIndex < endIndex) {
 				// The ray test failed, swap nodes and consider the next output node
 				path.swapNodes(request.outputIndex, request.inputIndex - 1);
 				request.outputIndex++;
-			}
 
-			// Consider the next input node
-			request.inputIndex++;
+				// Consider the next input node
+				request.inputIndex++;
+			}
 
 			// Store the current time
 			lastTime = currentTime;
@@ -174,4 +244,61 @@ public class PathSmoother<N, V extends Vector<V>> {
 		return true;
 	}
 
+	/** Casts the rays from the node at the given index to the nodes in the given range of the path, in order, and stops at the
+	 * first collision. Cached results are used when available and new results are cached.
+	 * @param path the path
+	 * @param fromIndex the index of the node the rays start from
+	 * @param startIndex the index of the first node in the range, inclusive
+	 * @param endIndex the index of the last node in the range, exclusive
+	 * @return the index of the first node whose ray collides, or {@code endIndex} if no ray collides. */
+	int findFirstCollision (SmoothableGraphPath<N, V> path, int fromIndex, int startIndex, int endIndex) {
+		N fromNode = path.get(fromIndex);
+
+		// Look up the cached results, stopping at the first cached collision
+		int rayCount = 0;
+		int lastIndex = startIndex;
+		for (; lastIndex < endIndex; lastIndex++) {
+			int cached = lineOfSightCache == null ? LineOfSightCache.UNKNOWN : lineOfSightCache.get(fromNode, path.get(lastIndex));
+			if (cached == LineOfSightCache.BLOCKED) break;
+			if (cached == LineOfSightCache.UNKNOWN) rayCount++;
+			if (batchCollisionDetector != null) batchCached[lastIndex - startIndex] = cached == LineOfSightCache.CLEAR;
+		}
+		if (rayCount == 0) return lastIndex;
+
+		if (batchCollisionDetector == null) {
+			// Cast a single ray, to the only uncached node since the batch size is 1
+			ray.start.set(path.getNodePosition(fromIndex));
+			ray.end.set(path.getNodePosition(startIndex));
+			boolean collides = raycastCollisionDetector.collides(ray);
+			if (lineOfSightCache != null) lineOfSightCache.put(fromNode, path.get(startIndex), !collides);
+			return collides ? startIndex : startIndex + 1;
+		}
+
+		// Collect the rays to the uncached nodes before the first cached collision
+		batchRays.size = 0;
+		for (int index = startIndex; index < lastIndex; index++) {
+			if (batchCached[index - startIndex]) continue;
+			if (rayPool.size == batchRays.size) {
+				V vec = path.getNodePosition(index);
+				rayPool.add(new Ray<V>(vec.cpy(), vec.cpy()));
+			}
+			Ray<V> batchRay = rayPool.get(batchRays.size);
+			batchRay.start.set(path.getNodePosition(fromIndex));
+			batchRay.end.set(path.getNodePosition(index));
+			batchRays.add(batchRay);
+		}
+
+		// Cast them all at once
+		batchCollisionDetector.collides(batchRays, batchCollisions);
+
+		// Cache the results and find the first collision
+		int rayIndex = 0;
+		for (int index = startIndex; index < lastIndex; index++) {
+			if (batchCached[index - startIndex]) continue;
+			boolean collides = batchCollisions[rayIndex++];
+			if (lineOfSightCache != null) lineOfSightCache.put(fromNode, path.get(index), !collides);
+			if (collides) return index;
+		}
+		return lastIndex;
+	}
 }
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.grid;
+
+import com.badlogic.gdx.ai.pfa.indexed.ClusterAssigner;
+
+/** A {@link ClusterAssigner} splitting a {@link GridGraph} into rectangular clusters of fixed size, which is the classic
+ * clustering of HPA*.
+ *
+ * @param <N> Type of node */
+public class GridClusterAssigner<N> implements ClusterAssigner<N> {
+	GridGraph<N> grid;
+	int clusterWidth;
+	int clusterHeight;
+	int clustersPerRow;
+
+	/** Creates a {@code GridClusterAssigner} for the given grid.
+	 * @param grid the grid
+	 * @param clusterWidth the number of columns of each cluster
+	 * @param clusterHeight the number of rows of each cluster */
+	public GridClusterAssigner (GridGraph<N> grid, int clusterWidth, int clusterHeight) {
+		if (clusterWidth <= 0 || clusterHeight <= 0) throw new IllegalArgumentException("The cluster size must be positive");
+		this.grid = grid;
+		this.clusterWidth = clusterWidth;
+		this.clusterHeight = clusterHeight;
+		this.clustersPerRow = (grid.getWidth() + clusterWidth - 1) / clusterWidth;
+	}
+
+	@Override
+	public int getCluster (N node) {
+		return grid.getY(node) / clusterHeight * clustersPerRow + grid.getX(node) / clusterWidth;
+	}
+}
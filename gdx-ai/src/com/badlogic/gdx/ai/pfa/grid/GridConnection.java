@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.grid;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+
+/** A {@link Connection} between two adjacent cells of a {@link GridGraph}.
+ *
+ * @param <N> Type of node */
+public class GridConnection<N> implements Connection<N> {
+
+	protected N fromNode;
+	protected N toNode;
+	protected float cost;
+
+	public GridConnection (N fromNode, N toNode, float cost) {
+		this.fromNode = fromNode;
+		this.toNode = toNode;
+		this.cost = cost;
+	}
+
+	@Override
+	public float getCost () {
+		return cost;
+	}
+
+	@Override
+	public N getFromNode () {
+		return fromNode;
+	}
+
+	@Override
+	public N getToNode () {
+		return toNode;
+	}
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.grid;
+
+/** A {@code GridGraph} is a small adapter exposing a tile map as a uniform-cost grid to the {@link JumpPointSearchPathFinder}.
+ * <p>
+ * Each cell of the grid is identified by its integer coordinates {@code (x, y)}, with {@code 0 <= x < width} and
+ * {@code 0 <= y < height}, and is mapped to a node of type {@code N}. Moving to an adjacent cell costs 1 horizontally or
+ * vertically and {@code sqrt(2)} diagonally, so the actual costs of the connections of the underlying graph, if any, are
+ * ignored.
+ *
+ * @param <N> Type of node */
+public interface GridGraph<N> {
+
+	/** Returns the number of columns of the grid. */
+	public int getWidth ();
+
+	/** Returns the number of rows of the grid. */
+	public int getHeight ();
+
+	/** Returns {@code true} if the cell at the given coordinates can be walked through; {@code false} otherwise. The coordinates
+	 * are always inside the grid. */
+	public boolean isWalkable (int x, int y);
+
+	/** Returns the node of the cell at the given coordinates. The coordinates are always inside the grid. */
+	public N getNode (int x, int y);
+
+	/** Returns the x-coordinate of the cell of the given node. */
+	public int getX (N node);
+
+	/** Returns the y-coordinate of the cell of the given node. */
+	public int getY (N node);
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.grid;
+
+import com.badlogic.gdx.ai.pfa.LineOfSight;
+
+/** A {@link LineOfSight} for the cells of a {@link GridGraph}, whose nodes are the centers of the cells.
+ * <p>
+ * The segment between two cells is traced by a Bresenham-like integer walk that visits every cell the segment crosses, not just
+ * one cell per column or row, so that thin diagonal walls can't be crossed. When the segment passes exactly through a corner,
+ * both the cells sharing that corner must be walkable, which matches the no corner cutting rule of the
+ * {@link JumpPointSearchPathFinder}. No floating point arithmetic nor allocation is involved.
+ * <p>
+ * The distance between two cells is the euclidean distance of their centers, which is consistent with grids whose straight
+ * moves cost 1 and whose diagonal moves cost {@code sqrt(2)}.
+ *
+ * @param <N> Type of node */
+public class GridLineOfSight<N> implements LineOfSight<N> {
+
+	protected GridGraph<N> graph;
+
+	public GridLineOfSight (GridGraph<N> graph) {
+		this.graph = graph;
+	}
+
+	@Override
+	public boolean hasLineOfSight (N fromNode, N toNode) {
+		return hasLineOfSight(graph.getX(fromNode), graph.getY(fromNode), graph.getX(toNode), graph.getY(toNode));
+	}
+
+	/** Returns {@code true} if the segment between the centers of the given cells only crosses walkable cells; {@code false}
+	 * otherwise. */
+	public boolean hasLineOfSight (int x0, int y0, int x1, int y1) {
+		int dx = Math.abs(x1 - x0);
+		int dy = Math.abs(y1 - y0);
+		int sx = x1 > x0 ? 1 : -1;
+		int sy = y1 > y0 ? 1 : -1;
+		int x = x0;
+		int y = y0;
+
+		// The error is kept doubled so that the segment, which joins the centers of the cells, is traced in integers
+		int error = dx - dy;
+		dx <<= 1;
+		dy <<= 1;
+		for (int n = (dx + dy) >> 1; n > 0; n--) {
+			if (!graph.isWalkable(x, y)) return false;
+			if (error > 0) { // Next cell is horizontal
+				x += sx;
+				error -= dy;
+			} else if (error < 0) { // Next cell is vertical
+				y += sy;
+				error += dx;
+			} else { // The segment passes through a corner, so both the cells touching it must be walkable
+				if (!graph.isWalkable(x + sx, y) || !graph.isWalkable(x, y + sy)) return false;
+				x += sx;
+				y += sy;
+				error += dx - dy;
+				n--;
+			}
+		}
+		return graph.isWalkable(x1, y1);
+	}
+
+	@Override
+	public float getDistance (N fromNode, N toNode) {
+		int dx = graph.getX(toNode) - graph.getX(fromNode);
+		int dy = graph.getY(toNode) - graph.getY(fromNode);
+		return (float)Math.sqrt(dx * dx + dy * dy);
+	}
+}
@@ -0,0 +1,474 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.grid;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder.Metrics;
+import com.badlogic.gdx.ai.utils.IntBinaryHeap;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** A {@link PathFinder} implementing the Jump Point Search (JPS) algorithm on uniform-cost grids described by a
+ * {@link GridGraph}.
+ * <p>
+ * JPS is an A* variant that exploits the symmetry of paths on uniform-cost grids: rather than adding every neighbor to the open
+ * list, it scans the grid along straight and diagonal lines and only adds the jump points, i.e. the cells where the optimal path
+ * might change direction because of a nearby obstacle. The resulting paths are optimal like A* ones, while the nodes added to the
+ * open list are often orders of magnitude fewer than A* on open maps, as you can see through {@link Metrics}.
+ * <p>
+ * The grid can be either 8-connected, in which case diagonal moves cost {@code sqrt(2)} and are allowed only if both the
+ * adjacent orthogonal cells are walkable (no corner cutting), or 4-connected. The heuristic must be admissible for the chosen
+ * connectivity, e.g. the octile or the euclidean distance for 8-connected grids and the manhattan distance for 4-connected grids.
+ * <p>
+ * Node paths include every cell traversed, not just the jump points, so they look exactly like the paths returned by the
+ * {@link IndexedAStarPathFinder}. Connection paths are made of {@link GridConnection} instances created on demand. This path
+ * finder can also be used by a {@link PathFinderQueue} to run time-sliced searches.
+ *
+ * @param <N> Type of node */
+public class JumpPointSearchPathFinder<N> implements PathFinder<N> {
+
+	private static final float SQRT2 = 1.4142135f;
+
+	private static final byte UNVISITED = 0;
+	private static final byte OPEN = 1;
+	private static final byte CLOSED = 2;
+
+	GridGraph<N> graph;
+	boolean diagonalMovement;
+	int width;
+	int height;
+
+	/** The actual cost from the start cell, indexed by cell. */
+	float[] costSoFar;
+
+	/** The estimated total cost, indexed by cell. */
+	float[] estimatedTotalCost;
+
+	/** The parent jump point or {@code -1} for the start cell, indexed by cell. */
+	int[] parent;
+
+	/** The cell category: {@link #UNVISITED}, {@link #OPEN} or {@link #CLOSED}, indexed by cell. */
+	byte[] category;
+
+	/** The ID of the search that last touched the cell, indexed by cell. */
+	int[] searchIds;
+
+	IntBinaryHeap openList;
+	int current;
+	int goalX;
+	int goalY;
+
+	/** The neighbors of the current cell after pruning. */
+	private final int[] neighbors = new int[8];
+	private int neighborCount;
+
+	public Metrics metrics;
+
+	/** The unique ID for each search run. Used to mark cells. */
+	private int searchId;
+
+	/** Creates a {@code JumpPointSearchPathFinder} for the given 8-connected grid. */
+	public JumpPointSearchPathFinder (GridGraph<N> graph) {
+		this(graph, true, false);
+	}
+
+	/** Creates a {@code JumpPointSearchPathFinder} for the given grid, whose size must not change afterwards.
+	 * @param graph the grid
+	 * @param diagonalMovement whether the grid is 8-connected or 4-connected
+	 * @param calculateMetrics whether search metrics should be calculated */
+	public JumpPointSearchPathFinder (GridGraph<N> graph, boolean diagonalMovement, boolean calculateMetrics) {
+		this.graph = graph;
+		this.diagonalMovement = diagonalMovement;
+		this.width = graph.getWidth();
+		this.height = graph.getHeight();
+		int cellCount = width * height;
+		this.costSoFar = new float[cellCount];
+		this.estimatedTotalCost = new float[cellCount];
+		this.parent = new int[cellCount];
+		this.category = new byte[cellCount];
+		this.searchIds = new int[cellCount];
+		this.openList = new IntBinaryHeap(cellCount);
+		if (calculateMetrics) this.metrics = new Metrics();
+	}
+
+	@Override
+	public boolean searchConnectionPath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<Connection<N>> outPath) {
+
+		// Perform JPS
+		boolean found = search(startNode, endNode, heuristic);
+
+		if (found) {
+			// Create a path made of connections
+			generateConnectionPath(outPath);
+		}
+
+		return found;
+	}
+
+	@Override
+	public boolean searchNodePath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<N> outPath) {
+
+		// Perform JPS
+		boolean found = search(startNode, endNode, heuristic);
+
+		if (found) {
+			// Create a path made of nodes
+			generateNodePath(startNode, outPath);
+		}
+
+		return found;
+	}
+
+	protected boolean search (N startNode, N endNode, Heuristic<N> heuristic) {
+
+		initSearch(startNode, endNode, heuristic);
+
+		// Iterate through processing each jump point
+		do {
+			// Retrieve the jump point with smallest estimated total cost from the open list
+			current = openList.pop();
+			category[current] = CLOSED;
+
+			// Terminate if we reached the goal
+			if (isGoal(current)) return true;
+
+			visitChildren(endNode, heuristic);
+
+		} while (openList.size > 0);
+
+		// We've run out of jump points without finding the goal, so there's no solution
+		return false;
+	}
+
+	@Override
+	public boolean search (PathFinderRequest<N> request, long timeToRun) {
+
+		long lastTime = TimeUtils.nanoTime();
+
+		// We have to initialize the search if the status has just changed
+		if (request.statusChanged) {
+			initSearch(request.startNode, request.endNode, request.heuristic);
+			request.statusChanged = false;
+		}
+
+		// Iterate through processing each jump point
+		do {
+
+			// Check the available time
+			long currentTime = TimeUtils.nanoTime();
+			timeToRun -= currentTime - lastTime;
+			if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return false;
+
+			// Retrieve the jump point with smallest estimated total cost from the open list
+			current = openList.pop();
+			category[current] = CLOSED;
+
+			// Terminate if we reached the goal; we've found a path.
+			if (isGoal(current)) {
+				request.pathFound = true;
+
+				generateNodePath(request.startNode, request.resultPath);
+
+				return true;
+			}
+
+			// Visit current jump point's successors
+			visitChildren(request.endNode, request.heuristic);
+
+			// Store the current time
+			lastTime = currentTime;
+
+		} while (openList.size > 0);
+
+		// The open list is empty and we've not found a path.
+		request.pathFound = false;
+		return true;
+	}
+
+	protected void initSearch (N startNode, N endNode, Heuristic<N> heuristic) {
+		if (metrics != null) metrics.reset();
+
+		// Increment the search id
+		if (++searchId < 0) searchId = 1;
+
+		// Initialize the open list
+		openList.clear();
+
+		goalX = graph.getX(endNode);
+		goalY = graph.getY(endNode);
+
+		// Initialize the start cell and add it to the open list
+		int start = touchCell(graph.getY(startNode) * width + graph.getX(startNode));
+		parent[start] = -1;
+		costSoFar[start] = 0;
+		addToOpenList(start, heuristic.estimate(startNode, endNode));
+
+		current = -1;
+	}
+
+	protected void visitChildren (N endNode, Heuristic<N> heuristic) {
+		findNeighbors(current);
+
+		int x = current % width;
+		int y = current / width;
+		float currentCostSoFar = costSoFar[current];
+
+		for (int i = 0; i < neighborCount; i++) {
+			int neighbor = neighbors[i];
+			int nx = neighbor % width;
+			int ny = neighbor / width;
+
+			// Look for a jump point in the direction of the neighbor
+			int jumpPoint = jump(nx, ny, nx - x, ny - y);
+			if (jumpPoint < 0) continue;
+
+			if (metrics != null) metrics.visitedNodes++;
+
+			int jx = jumpPoint % width;
+			int jy = jumpPoint / width;
+			float nodeCost = currentCostSoFar + distance(jx - x, jy - y);
+
+			float nodeHeuristic;
+			touchCell(jumpPoint);
+			byte cellCategory = category[jumpPoint];
+			if (cellCategory == CLOSED) { // The jump point is closed
+
+				// If we didn't find a shorter route, skip
+				if (costSoFar[jumpPoint] <= nodeCost) continue;
+
+				// We can use the old cost values to calculate its heuristic
+				nodeHeuristic = estimatedTotalCost[jumpPoint] - costSoFar[jumpPoint];
+			} else if (cellCategory == OPEN) { // The jump point is open
+
+				// If our route is no better, then skip
+				if (costSoFar[jumpPoint] <= nodeCost) continue;
+
+				// Remove it from the open list (it will be re-added with the new cost)
+				openList.remove(jumpPoint);
+
+				// We can use the old cost values to calculate its heuristic
+				nodeHeuristic = estimatedTotalCost[jumpPoint] - costSoFar[jumpPoint];
+			} else { // the jump point is unvisited
+				nodeHeuristic = heuristic.estimate(graph.getNode(jx, jy), endNode);
+			}
+
+			// Update jump point's cost and parent
+			costSoFar[jumpPoint] = nodeCost;
+			parent[jumpPoint] = current;
+
+			// Add it to the open list with the estimated total cost
+			addToOpenList(jumpPoint, nodeCost + nodeHeuristic);
+		}
+	}
+
+	/** Collects the neighbors of the given cell that have to be explored according to the direction of the move from its parent
+	 * to the cell itself. */
+	private void findNeighbors (int cell) {
+		neighborCount = 0;
+		int x = cell % width;
+		int y = cell / width;
+
+		// The start cell has no parent, so all its neighbors must be explored
+		if (parent[cell] < 0) {
+			boolean north = isWalkable(x, y + 1), south = isWalkable(x, y - 1);
+			boolean east = isWalkable(x + 1, y), west = isWalkable(x - 1, y);
+			if (north) addNeighbor(x, y + 1);
+			if (south) addNeighbor(x, y - 1);
+			if (east) addNeighbor(x + 1, y);
+			if (west) addNeighbor(x - 1, y);
+			if (diagonalMovement) {
+				if (north && east && isWalkable(x + 1, y + 1)) addNeighbor(x + 1, y + 1);
+				if (north && west && isWalkable(x - 1, y + 1)) addNeighbor(x - 1, y + 1);
+				if (south && east && isWalkable(x + 1, y - 1)) addNeighbor(x + 1, y - 1);
+				if (south && west && isWalkable(x - 1, y - 1)) addNeighbor(x - 1, y - 1);
+			}
+			return;
+		}
+
+		// Get the normalized direction of travel
+		int px = parent[cell] % width;
+		int py = parent[cell] / width;
+		int dx = Integer.signum(x - px);
+		int dy = Integer.signum(y - py);
+
+		if (dx != 0 && dy != 0) { // Diagonal move (8-connected grids only)
+			boolean vertical = isWalkable(x, y + dy), horizontal = isWalkable(x + dx, y);
+			if (vertical) addNeighbor(x, y + dy);
+			if (horizontal) addNeighbor(x + dx, y);
+			if (vertical && horizontal && isWalkable(x + dx, y + dy)) addNeighbor(x + dx, y + dy);
+		} else if (dx != 0) { // Horizontal move
+			boolean next = isWalkable(x + dx, y);
+			boolean north = isWalkable(x, y + 1), south = isWalkable(x, y - 1);
+			if (next) {
+				addNeighbor(x + dx, y);
+				if (diagonalMovement) {
+					if (north && isWalkable(x + dx, y + 1)) addNeighbor(x + dx, y + 1);
+					if (south && isWalkable(x + dx, y - 1)) addNeighbor(x + dx, y - 1);
+				}
+			}
+			if (north) addNeighbor(x, y + 1);
+			if (south) addNeighbor(x, y - 1);
+		} else { // Vertical move
+			boolean next = isWalkable(x, y + dy);
+			boolean east = isWalkable(x + 1, y), west = isWalkable(x - 1, y);
+			if (next) {
+				addNeighbor(x, y + dy);
+				if (diagonalMovement) {
+					if (east && isWalkable(x + 1, y + dy)) addNeighbor(x + 1, y + dy);
+					if (west && isWalkable(x - 1, y + dy)) addNeighbor(x - 1, y + dy);
+				}
+			}
+			if (east) addNeighbor(x + 1, y);
+			if (west) addNeighbor(x - 1, y);
+		}
+	}
+
+	private void addNeighbor (int x, int y) {
+		neighbors[neighborCount++] = y * width + x;
+	}
+
+	/** Scans the grid from the given cell in the given direction.
+	 * @return the first jump point met or {@code -1} if there is none. */
+	private int jump (int x, int y, int dx, int dy) {
+		return dx != 0 && dy != 0 ? jumpDiagonally(x, y, dx, dy) : jumpStraight(x, y, dx, dy);
+	}
+
+	private int jumpStraight (int x, int y, int dx, int dy) {
+		while (isWalkable(x, y)) {
+			if (x == goalX && y == goalY) return y * width + x;
+
+			// Check for forced neighbors
+			if (dx != 0) {
+				if ((isWalkable(x, y - 1) && !isWalkable(x - dx, y - 1)) || (isWalkable(x, y + 1) && !isWalkable(x - dx, y + 1)))
+					return y * width + x;
+			} else {
+				if ((isWalkable(x - 1, y) && !isWalkable(x - 1, y - dy)) || (isWalkable(x + 1, y) && !isWalkable(x + 1, y - dy)))
+					return y * width + x;
+
+				// On 4-connected grids, vertical moves must look for horizontal jump points
+				if (!diagonalMovement && (jumpStraight(x + 1, y, 1, 0) >= 0 || jumpStraight(x - 1, y, -1, 0) >= 0))
+					return y * width + x;
+			}
+
+			x += dx;
+			y += dy;
+		}
+		return -1;
+	}
+
+	private int jumpDiagonally (int x, int y, int dx, int dy) {
+		while (isWalkable(x, y)) {
+			if (x == goalX && y == goalY) return y * width + x;
+
+			// Look for horizontal and vertical jump points
+			if (jumpStraight(x + dx, y, dx, 0) >= 0 || jumpStraight(x, y + dy, 0, dy) >= 0) return y * width + x;
+
+			// Corner cutting is not allowed
+			if (!isWalkable(x + dx, y) || !isWalkable(x, y + dy)) break;
+
+			x += dx;
+			y += dy;
+		}
+		return -1;
+	}
+
+	private boolean isWalkable (int x, int y) {
+		return x >= 0 && y >= 0 && x < width && y < height && graph.isWalkable(x, y);
+	}
+
+	private boolean isGoal (int cell) {
+		return cell == goalY * width + goalX;
+	}
+
+	private static float distance (int dx, int dy) {
+		if (dx < 0) dx = -dx;
+		if (dy < 0) dy = -dy;
+		// Octile distance: diagonal steps first, then straight ones
+		return dx < dy ? dx * SQRT2 + (dy - dx) : dy * SQRT2 + (dx - dy);
+	}
+
+	protected void generateConnectionPath (GraphPath<Connection<N>> outPath) {
+
+		// Work back along the path, expanding the segments between consecutive jump points
+		// outPath.clear();
+		while (parent[current] >= 0) {
+			int p = parent[current];
+			int x = current % width, y = current / width;
+			int px = p % width, py = p / width;
+			int sx = Integer.signum(px - x), sy = Integer.signum(py - y);
+			float cost = sx != 0 && sy != 0 ? SQRT2 : 1;
+			while (x != px || y != py) {
+				N toNode = graph.getNode(x, y);
+				x += sx;
+				y += sy;
+				outPath.add(new GridConnection<N>(graph.getNode(x, y), toNode, cost));
+			}
+			current = p;
+		}
+
+		// Reverse the path
+		outPath.reverse();
+	}
+
+	protected void generateNodePath (N startNode, GraphPath<N> outPath) {
+
+		// Work back along the path, expanding the segments between consecutive jump points
+		// outPath.clear();
+		while (parent[current] >= 0) {
+			int p = parent[current];
+			int x = current % width, y = current / width;
+			int px = p % width, py = p / width;
+			int sx = Integer.signum(px - x), sy = Integer.signum(py - y);
+			while (x != px || y != py) {
+				outPath.add(graph.getNode(x, y));
+				x += sx;
+				y += sy;
+			}
+			current = p;
+		}
+		outPath.add(startNode);
+
+		// Reverse the path
+		outPath.reverse();
+	}
+
+	protected void addToOpenList (int cell, float estimatedTotalCost) {
+		openList.add(cell, estimatedTotalCost);
+		this.estimatedTotalCost[cell] = estimatedTotalCost;
+		category[cell] = OPEN;
+		if (metrics != null) {
+			metrics.openListAdditions++;
+			metrics.openListPeak = Math.max(metrics.openListPeak, openList.size);
+		}
+	}
+
+	/** Resets the state of the given cell if it has not been touched by the current search yet.
+	 * @param cell the cell
+	 * @return the cell */
+	protected int touchCell (int cell) {
+		if (searchIds[cell] != searchId) {
+			category[cell] = UNVISITED;
+			searchIds[cell] = searchId;
+		}
+		return cell;
+	}
+}
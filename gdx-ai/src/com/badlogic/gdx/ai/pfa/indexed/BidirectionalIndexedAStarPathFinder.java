@@ -0,0 +1,441 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder.Metrics;
+import com.badlogic.gdx.ai.utils.IntBinaryHeap;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** A {@link PathFinder} performing a bidirectional A* search: a forward search expands from the start node and a backward search
+ * expands from the end node at the same time, until the best path through the two frontiers can no longer be improved. On long
+ * queries the two frontiers together are usually much smaller than the frontier of a unidirectional search, so fewer nodes are
+ * expanded and interruptible requests complete in fewer frames.
+ * <p>
+ * The backward search needs the incoming connections of each node, which are provided by a reverse graph built once per graph
+ * through {@link CsrIndexedGraph#reverse()}, for instance:
+ *
+ * <pre>
+ * CsrIndexedGraph&lt;MyNode&gt; reverseGraph = new CsrIndexedGraph&lt;MyNode&gt;(graph, nodes).reverse();
+ * </pre>
+ *
+ * The same heuristic is used in both directions: the forward search estimates the cost from a node to the end node as usual,
+ * while the backward search estimates the cost from the start node to a node. The heuristic must be admissible.
+ * <p>
+ * The returned paths are optimal but, when several optimal paths exist, they may differ from the ones returned by the
+ * {@link IndexedAStarPathFinder}. Like the {@link CompactIndexedAStarPathFinder}, the search state is kept in primitive arrays
+ * and the forward search reads the edges of an {@link EdgeIndexedGraph} directly.
+ *
+ * @param <N> Type of node */
+public class BidirectionalIndexedAStarPathFinder<N> implements PathFinder<N> {
+
+	private static final byte UNVISITED = 0;
+	private static final byte OPEN = 1;
+	private static final byte CLOSED = 2;
+
+	IndexedGraph<N> graph;
+
+	/** The graph as an {@link EdgeIndexedGraph} or {@code null} if it's not. */
+	EdgeIndexedGraph<N> edgeGraph;
+
+	/** The graph whose outgoing connections are the incoming connections of {@link #graph}. */
+	CsrIndexedGraph<N> reverseGraph;
+
+	/** The search state of the forward search, from the start node. */
+	Frontier forward;
+
+	/** The search state of the backward search, from the end node. */
+	Frontier backward;
+
+	/** The nodes met so far, indexed by node index. */
+	N[] nodes;
+
+	N startNode;
+	N endNode;
+	Heuristic<N> heuristic;
+
+	/** The cost of the best path found so far. */
+	float bestCost;
+
+	/** The index of the node where the forward and backward parts of the best path meet or {@code -1} if no path has been found. */
+	int meetingNode;
+
+	public Metrics metrics;
+
+	/** The unique ID for each search run. Used to mark nodes. */
+	private int searchId;
+
+	/** Creates a {@code BidirectionalIndexedAStarPathFinder} for the given graph, whose reverse graph is built by this constructor. */
+	public BidirectionalIndexedAStarPathFinder (CsrIndexedGraph<N> graph) {
+		this(graph, graph.reverse(), false);
+	}
+
+	/** Creates a {@code BidirectionalIndexedAStarPathFinder}.
+	 * @param graph the graph
+	 * @param reverseGraph the reverse of the given graph, see {@link CsrIndexedGraph#reverse()}
+	 * @param calculateMetrics whether search metrics should be calculated */
+	@SuppressWarnings("unchecked")
+	public BidirectionalIndexedAStarPathFinder (IndexedGraph<N> graph, CsrIndexedGraph<N> reverseGraph, boolean calculateMetrics) {
+		this.graph = graph;
+		this.edgeGraph = graph instanceof EdgeIndexedGraph ? (EdgeIndexedGraph<N>)graph : null;
+		this.reverseGraph = reverseGraph;
+		int nodeCount = graph.getNodeCount();
+		this.forward = new Frontier(nodeCount);
+		this.backward = new Frontier(nodeCount);
+		this.nodes = (N[])new Object[nodeCount];
+		if (calculateMetrics) this.metrics = new Metrics();
+	}
+
+	@Override
+	public boolean searchConnectionPath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<Connection<N>> outPath) {
+
+		// Perform bidirectional AStar
+		boolean found = search(startNode, endNode, heuristic);
+
+		if (found) {
+			// Create a path made of connections
+			generateConnectionPath(outPath);
+		}
+
+		return found;
+	}
+
+	@Override
+	public boolean searchNodePath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<N> outPath) {
+
+		// Perform bidirectional AStar
+		boolean found = search(startNode, endNode, heuristic);
+
+		if (found) {
+			// Create a path made of nodes
+			generateNodePath(outPath);
+		}
+
+		return found;
+	}
+
+	protected boolean search (N startNode, N endNode, Heuristic<N> heuristic) {
+
+		initSearch(startNode, endNode, heuristic);
+
+		// Expand one node at a time until the best path can't be improved
+		while (!step()) {
+		}
+
+		return meetingNode >= 0;
+	}
+
+	@Override
+	public boolean search (PathFinderRequest<N> request, long timeToRun) {
+
+		long lastTime = TimeUtils.nanoTime();
+
+		// We have to initialize the search if the status has just changed
+		if (request.statusChanged) {
+			initSearch(request.startNode, request.endNode, request.heuristic);
+			request.statusChanged = false;
+		}
+
+		while (true) {
+
+			// Check the available time
+			long currentTime = TimeUtils.nanoTime();
+			timeToRun -= currentTime - lastTime;
+			if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return false;
+
+			// Expand one node; terminate if the best path can't be improved
+			if (step()) {
+				request.pathFound = meetingNode >= 0;
+				if (request.pathFound) generateNodePath(request.resultPath);
+				return true;
+			}
+
+			// Store the current time
+			lastTime = currentTime;
+		}
+	}
+
+	protected void initSearch (N startNode, N endNode, Heuristic<N> heuristic) {
+		if (metrics != null) metrics.reset();
+
+		// Increment the search id
+		if (++searchId < 0) searchId = 1;
+
+		this.startNode = startNode;
+		this.endNode = endNode;
+		this.heuristic = heuristic;
+		this.bestCost = Float.POSITIVE_INFINITY;
+		this.meetingNode = -1;
+
+		// Initialize the open lists
+		forward.openList.clear();
+		backward.openList.clear();
+
+		// Add the start node to the forward open list and the end node to the backward open list
+		int startIndex = touchNode(forward, graph.getIndex(startNode), startNode);
+		forward.parent[startIndex] = -1;
+		forward.costSoFar[startIndex] = 0;
+		addToOpenList(forward, startIndex, heuristic.estimate(startNode, endNode));
+
+		int endIndex = touchNode(backward, graph.getIndex(endNode), endNode);
+		backward.parent[endIndex] = -1;
+		backward.costSoFar[endIndex] = 0;
+		addToOpenList(backward, endIndex, heuristic.estimate(startNode, endNode));
+
+		// The path is trivial if the start node is the end node
+		if (startIndex == endIndex) {
+			bestCost = 0;
+			meetingNode = startIndex;
+		}
+	}
+
+	/** Expands the most promising node of the smaller frontier.
+	 * @return {@code true} if the search is over; {@code false} otherwise. */
+	protected boolean step () {
+		IntBinaryHeap forwardOpenList = forward.openList;
+		IntBinaryHeap backwardOpenList = backward.openList;
+
+		// If either side has run out of nodes, no other path exists
+		if (forwardOpenList.size == 0 || backwardOpenList.size == 0) return true;
+
+		// The smallest estimated total cost of each side is a lower bound on the cost of any path not found yet
+		if (forwardOpenList.getValue(forwardOpenList.peek()) >= bestCost
+			|| backwardOpenList.getValue(backwardOpenList.peek()) >= bestCost) return true;
+
+		if (forwardOpenList.size <= backwardOpenList.size)
+			expandForward();
+		else
+			expandBackward();
+		return false;
+	}
+
+	protected void expandForward () {
+		Frontier forward = this.forward;
+		int current = forward.openList.pop();
+		forward.category[current] = CLOSED;
+
+		EdgeIndexedGraph<N> edgeGraph = this.edgeGraph;
+		if (edgeGraph != null) {
+			for (int edge = edgeGraph.getEdgeStart(current), end = edgeGraph.getEdgeEnd(current); edge < end; edge++) {
+				int nodeIndex = edgeGraph.getEdgeTarget(edge);
+				// Nodes are kept across searches, so a graph creating its nodes on demand is asked each node once
+				N node = nodes[nodeIndex] != null ? nodes[nodeIndex] : edgeGraph.getNode(nodeIndex);
+				relax(forward, backward, current, nodeIndex, node, edge, edgeGraph.getEdgeCost(edge));
+			}
+		} else {
+			Array<Connection<N>> connections = graph.getConnections(nodes[current]);
+			for (int i = 0; i < connections.size; i++) {
+				Connection<N> connection = connections.get(i);
+				N node = connection.getToNode();
+				relax(forward, backward, current, graph.getIndex(node), node, i, connection.getCost());
+			}
+		}
+	}
+
+	protected void expandBackward () {
+		Frontier backward = this.backward;
+		int current = backward.openList.pop();
+		backward.category[current] = CLOSED;
+
+		CsrIndexedGraph<N> reverseGraph = this.reverseGraph;
+		int[] edgeTargets = reverseGraph.edgeTargets;
+		float[] edgeCosts = reverseGraph.edgeCosts;
+		for (int edge = reverseGraph.edgeOffsets[current], end = reverseGraph.edgeOffsets[current + 1]; edge < end; edge++) {
+			int nodeIndex = edgeTargets[edge];
+			relax(backward, forward, current, nodeIndex, reverseGraph.nodes[nodeIndex], edge, edgeCosts[edge]);
+		}
+	}
+
+	/** Relaxes the connection from the current node to the given node on the given side of the search and updates the best path
+	 * if the node has already been reached by the other side. */
+	private void relax (Frontier side, Frontier otherSide, int current, int nodeIndex, N node, int connection, float cost) {
+		if (metrics != null) metrics.visitedNodes++;
+
+		float nodeCost = side.costSoFar[current] + cost;
+
+		float nodeHeuristic;
+		touchNode(side, nodeIndex, node);
+		byte nodeCategory = side.category[nodeIndex];
+		if (nodeCategory == CLOSED) { // The node is closed
+
+			// If we didn't find a shorter route, skip
+			if (side.costSoFar[nodeIndex] <= nodeCost) return;
+
+			// We can use the node's old cost values to calculate its heuristic
+			nodeHeuristic = side.estimatedTotalCost[nodeIndex] - side.costSoFar[nodeIndex];
+		} else if (nodeCategory == OPEN) { // The node is open
+
+			// If our route is no better, then skip
+			if (side.costSoFar[nodeIndex] <= nodeCost) return;
+
+			// Remove it from the open list (it will be re-added with the new cost)
+			side.openList.remove(nodeIndex);
+
+			// We can use the node's old cost values to calculate its heuristic
+			nodeHeuristic = side.estimatedTotalCost[nodeIndex] - side.costSoFar[nodeIndex];
+		} else { // the node is unvisited
+			nodeHeuristic = side == forward ? heuristic.estimate(node, endNode) : heuristic.estimate(startNode, node);
+		}
+
+		// Update node's cost and parent
+		side.costSoFar[nodeIndex] = nodeCost;
+		side.parent[nodeIndex] = current;
+		side.parentConnection[nodeIndex] = connection;
+
+		// Add it to the open list with the estimated total cost
+		addToOpenList(side, nodeIndex, nodeCost + nodeHeuristic);
+
+		// Check whether the two frontiers meet at this node with a better path
+		if (otherSide.searchIds[nodeIndex] == searchId) {
+			float pathCost = nodeCost + otherSide.costSoFar[nodeIndex];
+			if (pathCost < bestCost) {
+				bestCost = pathCost;
+				meetingNode = nodeIndex;
+			}
+		}
+	}
+
+	protected void generateConnectionPath (GraphPath<Connection<N>> outPath) {
+
+		// Work back along the forward part of the path, accumulating connections
+		// outPath.clear();
+		int current = meetingNode;
+		while (forward.parent[current] >= 0) {
+			int parentIndex = forward.parent[current];
+			if (edgeGraph != null)
+				outPath.add(edgeGraph.newConnection(parentIndex, forward.parentConnection[current]));
+			else
+				outPath.add(graph.getConnections(nodes[parentIndex]).get(forward.parentConnection[current]));
+			current = parentIndex;
+		}
+
+		// Reverse the forward part
+		outPath.reverse();
+
+		// Follow the backward part of the path, looking up the connections in the graph
+		current = meetingNode;
+		while (backward.parent[current] >= 0) {
+			int nextIndex = backward.parent[current];
+			outPath.add(findConnection(current, nextIndex, reverseGraph.edgeCosts[backward.parentConnection[current]]));
+			current = nextIndex;
+		}
+	}
+
+	/** Returns the connection of the graph from the given node to the given node with the given cost. */
+	private Connection<N> findConnection (int fromIndex, int toIndex, float cost) {
+		if (edgeGraph != null) {
+			for (int edge = edgeGraph.getEdgeStart(fromIndex), end = edgeGraph.getEdgeEnd(fromIndex); edge < end; edge++) {
+				if (edgeGraph.getEdgeTarget(edge) == toIndex && edgeGraph.getEdgeCost(edge) == cost)
+					return edgeGraph.newConnection(fromIndex, edge);
+			}
+		} else {
+			Array<Connection<N>> connections = graph.getConnections(nodes[fromIndex]);
+			for (int i = 0; i < connections.size; i++) {
+				Connection<N> connection = connections.get(i);
+				if (connection.getToNode() == nodes[toIndex] && connection.getCost() == cost) return connection;
+			}
+		}
+		throw new IllegalStateException("The reverse graph doesn't match the graph");
+	}
+
+	protected void generateNodePath (GraphPath<N> outPath) {
+
+		// Work back along the forward part of the path, accumulating nodes
+		// outPath.clear();
+		int current = meetingNode;
+		while (forward.parent[current] >= 0) {
+			outPath.add(nodes[current]);
+			current = forward.parent[current];
+		}
+		outPath.add(nodes[current]);
+
+		// Reverse the forward part
+		outPath.reverse();
+
+		// Follow the backward part of the path
+		current = meetingNode;
+		while (backward.parent[current] >= 0) {
+			current = backward.parent[current];
+			outPath.add(nodes[current]);
+		}
+	}
+
+	protected void addToOpenList (Frontier side, int nodeIndex, float estimatedTotalCost) {
+		side.openList.add(nodeIndex, estimatedTotalCost);
+		side.estimatedTotalCost[nodeIndex] = estimatedTotalCost;
+		side.category[nodeIndex] = OPEN;
+		if (metrics != null) {
+			metrics.openListAdditions++;
+			metrics.openListPeak = Math.max(metrics.openListPeak, forward.openList.size + backward.openList.size);
+		}
+	}
+
+	/** Resets the state of the node with the given index on the given side if it has not been touched by the current search yet.
+	 * @param side the side of the search
+	 * @param nodeIndex the node index
+	 * @param node the node
+	 * @return the node index */
+	protected int touchNode (Frontier side, int nodeIndex, N node) {
+		if (side.searchIds[nodeIndex] != searchId) {
+			side.category[nodeIndex] = UNVISITED;
+			side.searchIds[nodeIndex] = searchId;
+			if (nodes[nodeIndex] == null) nodes[nodeIndex] = node;
+		}
+		return nodeIndex;
+	}
+
+	/** The search state of one side of a bidirectional search, kept in arrays indexed by node index. */
+	static class Frontier {
+
+		/** The actual cost from the root of this side. */
+		final float[] costSoFar;
+
+		/** The estimated total cost. */
+		final float[] estimatedTotalCost;
+
+		/** The index of the parent node on this side or {@code -1} for the root. */
+		final int[] parent;
+
+		/** The connection from the parent node: its position in the connection array of the parent node or, for a
+		 * {@link EdgeIndexedGraph}, its edge. */
+		final int[] parentConnection;
+
+		/** The node category: {@link #UNVISITED}, {@link #OPEN} or {@link #CLOSED}. */
+		final byte[] category;
+
+		/** The ID of the search that last touched the node on this side. */
+		final int[] searchIds;
+
+		final IntBinaryHeap openList;
+
+		Frontier (int nodeCount) {
+			this.costSoFar = new float[nodeCount];
+			this.estimatedTotalCost = new float[nodeCount];
+			this.parent = new int[nodeCount];
+			this.parentConnection = new int[nodeCount];
+			this.category = new byte[nodeCount];
+			this.searchIds = new int[nodeCount];
+			this.openList = new IntBinaryHeap(nodeCount);
+		}
+	}
+}
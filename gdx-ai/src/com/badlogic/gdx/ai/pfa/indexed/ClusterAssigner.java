@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+/** A {@code ClusterAssigner} partitions the nodes of a graph into the clusters of an {@link HpaGraph}.
+ *
+ * @param <N> Type of node */
+public interface ClusterAssigner<N> {
+
+	/** Returns the cluster of the given node. Clusters are identified by any non-negative integer; they don't need to be
+	 * consecutive. */
+	public int getCluster (N node);
+}
@@ -0,0 +1,421 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder.EqualsByReferenceStopCondition;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder.Metrics;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder.StopCondition;
+import com.badlogic.gdx.ai.utils.IntBinaryHeap;
+import com.badlogic.gdx.ai.utils.IntBucketQueue;
+import com.badlogic.gdx.ai.utils.IntPriorityQueue;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** A fully implemented {@link PathFinder} that performs the same indexed A* search of the {@link IndexedAStarPathFinder} and
+ * returns the same paths, but keeps the search state in a struct-of-arrays layout.
+ * <p>
+ * The {@link IndexedAStarPathFinder} holds a {@code NodeRecord} instance for each node of the graph. On very large graphs these
+ * records take a lot of memory and accessing them means following a reference for every visited node. This implementation
+ * stores the cost so far, the estimated total cost, the parent, the category and the search id of each node in parallel
+ * primitive arrays indexed by {@link IndexedGraph#getIndex(Object) node index}, and uses an {@link IntBinaryHeap} of node
+ * indices as open list. The only per-node references kept are the nodes themselves, which are owned by the graph anyway.
+ * <p>
+ * The incoming connection of a node is not stored; its position in the connection array of the parent node is recorded instead
+ * and the {@link Connection} is looked up again only when a connection path is generated. Therefore, the graph is expected to
+ * return the connections of a node in the same order for the whole duration of the search.
+ * <p>
+ * When the graph is an {@link EdgeIndexedGraph}, like a {@link CsrIndexedGraph} or a {@link MappedIndexedGraph}, the neighbors
+ * of a node are read directly from its edges, so no {@link Connection} is touched during the search; connections are only
+ * created on demand by {@link #searchConnectionPath(Object, Object, Heuristic, GraphPath) searchConnectionPath} to build the
+ * resulting path.
+ * <p>
+ * The open list can be replaced by any other {@link IntPriorityQueue}. For instance, an {@link IntBucketQueue} performs better
+ * than the default {@link IntBinaryHeap} on large graphs whose costs and heuristic values are small integers.
+ *
+ * @param <N> Type of node */
+public class CompactIndexedAStarPathFinder<N> implements PathFinder<N> {
+	IndexedGraph<N> graph;
+
+	/** The graph as an {@link EdgeIndexedGraph} or {@code null} if it's not. */
+	EdgeIndexedGraph<N> edgeGraph;
+
+	/** The actual cost from the start node, indexed by node index. */
+	float[] costSoFar;
+
+	/** The estimated total cost, indexed by node index. */
+	float[] estimatedTotalCost;
+
+	/** The index of the parent node or {@code -1} for the start node, indexed by node index. */
+	int[] parent;
+
+	/** The position of the incoming connection in the connection array of the parent node, indexed by node index. For a
+	 * {@link EdgeIndexedGraph} this is the edge itself. */
+	int[] parentConnection;
+
+	/** The node category: {@link #UNVISITED}, {@link #OPEN} or {@link #CLOSED}, indexed by node index. */
+	byte[] category;
+
+	/** The ID of the search that last touched the node, indexed by node index. */
+	int[] searchIds;
+
+	/** The nodes met so far, indexed by node index. */
+	N[] nodes;
+
+	IntPriorityQueue openList;
+	int current;
+
+	/** A {@link StopCondition} with the same node type as this path finder; defaults to a {@link EqualsByReferenceStopCondition}
+	 * if unspecified. */
+	public StopCondition<N> stopCondition;
+	public Metrics metrics;
+
+	/** An optional {@link ReachabilityIndex} consulted before each search to fail immediately when the end node can't be
+	 * reached. It assumes the search stops at the end node, so don't use it with a custom {@link #stopCondition}. */
+	public ReachabilityIndex<N> reachabilityIndex;
+
+	/** The unique ID for each search run. Used to mark nodes. */
+	private int searchId;
+
+	private static final byte UNVISITED = 0;
+	private static final byte OPEN = 1;
+	private static final byte CLOSED = 2;
+
+	public CompactIndexedAStarPathFinder (IndexedGraph<N> graph) {
+		this(graph, false);
+	}
+
+	public CompactIndexedAStarPathFinder (IndexedGraph<N> graph, boolean calculateMetrics) {
+		this(graph, calculateMetrics, new EqualsByReferenceStopCondition<N>());
+	}
+
+	public CompactIndexedAStarPathFinder (IndexedGraph<N> graph, boolean calculateMetrics, StopCondition<N> stopCondition) {
+		this(graph, calculateMetrics, stopCondition, new IntBinaryHeap(graph.getNodeCount()));
+	}
+
+	/** Creates a {@code CompactIndexedAStarPathFinder} using the given open list.
+	 * @param graph the graph
+	 * @param calculateMetrics whether metrics are calculated
+	 * @param stopCondition the stop condition
+	 * @param openList the open list; its capacity is extended to the number of nodes of the graph if needed. */
+	@SuppressWarnings("unchecked")
+	public CompactIndexedAStarPathFinder (IndexedGraph<N> graph, boolean calculateMetrics, StopCondition<N> stopCondition,
+		IntPriorityQueue openList) {
+		this.graph = graph;
+		this.edgeGraph = graph instanceof EdgeIndexedGraph ? (EdgeIndexedGraph<N>)graph : null;
+		int nodeCount = graph.getNodeCount();
+		this.costSoFar = new float[nodeCount];
+		this.estimatedTotalCost = new float[nodeCount];
+		this.parent = new int[nodeCount];
+		this.parentConnection = new int[nodeCount];
+		this.category = new byte[nodeCount];
+		this.searchIds = new int[nodeCount];
+		this.nodes = (N[])new Object[nodeCount];
+		this.openList = openList;
+		openList.ensureCapacity(nodeCount);
+		this.stopCondition = stopCondition;
+		if (calculateMetrics) this.metrics = new Metrics();
+	}
+
+	@Override
+	public boolean searchConnectionPath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<Connection<N>> outPath) {
+
+		// Perform AStar
+		boolean found = search(startNode, endNode, heuristic);
+
+		if (found) {
+			// Create a path made of connections
+			generateConnectionPath(outPath);
+		}
+
+		return found;
+	}
+
+	@Override
+	public boolean searchNodePath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<N> outPath) {
+
+		// Perform AStar
+		boolean found = search(startNode, endNode, heuristic);
+
+		if (found) {
+			// Create a path made of nodes
+			generateNodePath(startNode, outPath);
+		}
+
+		return found;
+	}
+
+	protected boolean search (N startNode, N endNode, Heuristic<N> heuristic) {
+
+		// Fail fast if the end node can't be reached
+		if (isUnreachable(startNode, endNode)) return false;
+
+		initSearch(startNode, endNode, heuristic);
+
+		// Iterate through processing each node
+		do {
+			// Retrieve the node with smallest estimated total cost from the open list
+			current = openList.pop();
+			category[current] = CLOSED;
+
+			// Terminate if we reached the stop condition
+			if (stopCondition.shouldStopSearch(nodes[current], endNode)) return true;
+
+			visitChildren(endNode, heuristic);
+
+		} while (!openList.isEmpty());
+
+		// We've run out of nodes without finding the goal, so there's no solution
+		return false;
+	}
+
+	@Override
+	public boolean search (PathFinderRequest<N> request, long timeToRun) {
+
+		long lastTime = TimeUtils.nanoTime();
+
+		// We have to initialize the search if the status has just changed
+		if (request.statusChanged) {
+			request.statusChanged = false;
+
+			// Fail fast if the end node can't be reached
+			if (isUnreachable(request.startNode, request.endNode)) {
+				request.pathFound = false;
+				return true;
+			}
+
+			initSearch(request.startNode, request.endNode, request.heuristic);
+		}
+
+		// Iterate through processing each node
+		do {
+
+			// Check the available time
+			long currentTime = TimeUtils.nanoTime();
+			timeToRun -= currentTime - lastTime;
+			if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return false;
+
+			// Retrieve the node with smallest estimated total cost from the open list
+			current = openList.pop();
+			category[current] = CLOSED;
+
+			// Terminate if we reached the stop condition; we've found a path.
+			if (stopCondition.shouldStopSearch(nodes[current], request.endNode)) {
+				request.pathFound = true;
+
+				generateNodePath(request.startNode, request.resultPath);
+
+				return true;
+			}
+
+			// Visit current node's children
+			visitChildren(request.endNode, request.heuristic);
+
+			// Store the current time
+			lastTime = currentTime;
+
+		} while (!openList.isEmpty());
+
+		// The open list is empty and we've not found a path.
+		request.pathFound = false;
+		return true;
+	}
+
+	/** Returns {@code true} if the {@link #reachabilityIndex} proves that there's no path from the start node to the end node;
+	 * {@code false} otherwise. */
+	protected boolean isUnreachable (N startNode, N endNode) {
+		if (reachabilityIndex == null || reachabilityIndex.isReachable(startNode, endNode)) return false;
+		if (metrics != null) metrics.reset();
+		return true;
+	}
+
+	protected void initSearch (N startNode, N endNode, Heuristic<N> heuristic) {
+		if (metrics != null) metrics.reset();
+
+		// Increment the search id
+		if (++searchId < 0) searchId = 1;
+
+		// Initialize the open list
+		openList.clear();
+
+		// Initialize the start node and add it to the open list
+		int startIndex = touchNode(graph.getIndex(startNode), startNode);
+		nodes[startIndex] = startNode;
+		parent[startIndex] = -1;
+		costSoFar[startIndex] = 0;
+		addToOpenList(startIndex, heuristic.estimate(startNode, endNode));
+
+		current = -1;
+	}
+
+	protected void visitChildren (N endNode, Heuristic<N> heuristic) {
+		if (edgeGraph != null) {
+			visitEdges(endNode, heuristic);
+			return;
+		}
+
+		// Get current node's outgoing connections
+		Array<Connection<N>> connections = graph.getConnections(nodes[current]);
+		float currentCostSoFar = costSoFar[current];
+
+		// Loop through each connection in turn
+		for (int i = 0; i < connections.size; i++) {
+			if (metrics != null) metrics.visitedNodes++;
+
+			Connection<N> connection = connections.get(i);
+
+			// Get the cost estimate for the node
+			N node = connection.getToNode();
+			float nodeCost = currentCostSoFar + connection.getCost();
+
+			float nodeHeuristic;
+			int nodeIndex = touchNode(graph.getIndex(node), node);
+			byte nodeCategory = category[nodeIndex];
+			if (nodeCategory == CLOSED) { // The node is closed
+
+				// If we didn't find a shorter route, skip
+				if (costSoFar[nodeIndex] <= nodeCost) continue;
+
+				// We can use the node's old cost values to calculate its heuristic
+				// without calling the possibly expensive heuristic function
+				nodeHeuristic = estimatedTotalCost[nodeIndex] - costSoFar[nodeIndex];
+			} else if (nodeCategory == OPEN) { // The node is open
+
+				// If our route is no better, then skip
+				if (costSoFar[nodeIndex] <= nodeCost) continue;
+
+				// Remove it from the open list (it will be re-added with the new cost)
+				openList.remove(nodeIndex);
+
+				// We can use the node's old cost values to calculate its heuristic
+				// without calling the possibly expensive heuristic function
+				nodeHeuristic = estimatedTotalCost[nodeIndex] - costSoFar[nodeIndex];
+			} else { // the node is unvisited
+
+				// We'll need to calculate the heuristic value using the function,
+				// since we don't have a previously calculated value
+				nodeHeuristic = heuristic.estimate(node, endNode);
+			}
+
+			// Update node's cost and parent
+			costSoFar[nodeIndex] = nodeCost;
+			parent[nodeIndex] = current;
+			parentConnection[nodeIndex] = i;
+
+			// Add it to the open list with the estimated total cost
+			addToOpenList(nodeIndex, nodeCost + nodeHeuristic);
+		}
+
+	}
+
+	/** Same as {@link #visitChildren(Object, Heuristic)} but reads the outgoing edges of the current node directly from the
+	 * {@link EdgeIndexedGraph}. */
+	private void visitEdges (N endNode, Heuristic<N> heuristic) {
+		EdgeIndexedGraph<N> edgeGraph = this.edgeGraph;
+		int start = edgeGraph.getEdgeStart(current);
+		int end = edgeGraph.getEdgeEnd(current);
+		float currentCostSoFar = costSoFar[current];
+
+		for (int edge = start; edge < end; edge++) {
+			if (metrics != null) metrics.visitedNodes++;
+
+			int nodeIndex = edgeGraph.getEdgeTarget(edge);
+			float nodeCost = currentCostSoFar + edgeGraph.getEdgeCost(edge);
+
+			float nodeHeuristic;
+			// Nodes are kept across searches, so a graph creating its nodes on demand is asked each node once
+			if (nodes[nodeIndex] == null) nodes[nodeIndex] = edgeGraph.getNode(nodeIndex);
+			touchNode(nodeIndex, nodes[nodeIndex]);
+			byte nodeCategory = category[nodeIndex];
+			if (nodeCategory == CLOSED) {
+				if (costSoFar[nodeIndex] <= nodeCost) continue;
+				nodeHeuristic = estimatedTotalCost[nodeIndex] - costSoFar[nodeIndex];
+			} else if (nodeCategory == OPEN) {
+				if (costSoFar[nodeIndex] <= nodeCost) continue;
+				openList.remove(nodeIndex);
+				nodeHeuristic = estimatedTotalCost[nodeIndex] - costSoFar[nodeIndex];
+			} else {
+				nodeHeuristic = heuristic.estimate(nodes[nodeIndex], endNode);
+			}
+
+			costSoFar[nodeIndex] = nodeCost;
+			parent[nodeIndex] = current;
+			parentConnection[nodeIndex] = edge;
+
+			addToOpenList(nodeIndex, nodeCost + nodeHeuristic);
+		}
+	}
+
+	protected void generateConnectionPath (GraphPath<Connection<N>> outPath) {
+
+		// Work back along the path, accumulating connections
+		// outPath.clear();
+		while (parent[current] >= 0) {
+			int parentIndex = parent[current];
+			if (edgeGraph != null)
+				outPath.add(edgeGraph.newConnection(parentIndex, parentConnection[current]));
+			else
+				outPath.add(graph.getConnections(nodes[parentIndex]).get(parentConnection[current]));
+			current = parentIndex;
+		}
+
+		// Reverse the path
+		outPath.reverse();
+	}
+
+	protected void generateNodePath (N startNode, GraphPath<N> outPath) {
+
+		// Work back along the path, accumulating nodes
+		// outPath.clear();
+		while (parent[current] >= 0) {
+			outPath.add(nodes[current]);
+			current = parent[current];
+		}
+		outPath.add(startNode);
+
+		// Reverse the path
+		outPath.reverse();
+	}
+
+	protected void addToOpenList (int nodeIndex, float estimatedTotalCost) {
+		openList.add(nodeIndex, estimatedTotalCost);
+		this.estimatedTotalCost[nodeIndex] = estimatedTotalCost;
+		category[nodeIndex] = OPEN;
+		if (metrics != null) {
+			metrics.openListAdditions++;
+			metrics.openListPeak = Math.max(metrics.openListPeak, openList.size());
+		}
+	}
+
+	/** Resets the state of the node with the given index if it has not been touched by the current search yet.
+	 * @param nodeIndex the node index
+	 * @param node the node
+	 * @return the node index */
+	protected int touchNode (int nodeIndex, N node) {
+		if (searchIds[nodeIndex] != searchId) {
+			category[nodeIndex] = UNVISITED;
+			searchIds[nodeIndex] = searchId;
+			if (nodes[nodeIndex] == null) nodes[nodeIndex] = node;
+		}
+		return nodeIndex;
+	}
+}
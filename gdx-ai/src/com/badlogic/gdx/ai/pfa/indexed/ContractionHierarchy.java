@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.SerializationException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/** A {@code ContractionHierarchy} is the result of the preprocessing of a static {@link IndexedGraph} by a
+ * {@link ContractionHierarchyBuilder}, queried by a {@link ContractionHierarchyPathFinder}.
+ * <p>
+ * Each node has a rank, i.e. the order in which it has been contracted. The hierarchy stores the upward edges of each node, which
+ * lead to nodes of higher rank, and its downward edges, which come from nodes of higher rank and are stored reversed, i.e. their
+ * target is the node they come from. An edge is either a connection of the graph or a shortcut standing for the two edges through
+ * its middle node, which always has a lower rank than both ends.
+ * <p>
+ * The hierarchy is stored in a compact binary format, so that it can be built offline, saved through {@link #write(FileHandle)}
+ * and loaded at startup by {@link #map(FileHandle)} without any copy. The hierarchy can also be written to and read from any
+ * {@link ByteBuffer}, for instance to store it in a file along with other data.
+ * <p>
+ * The format is a header of five big-endian ints (the magic number {@code 0x47444348}, the format version, the number of nodes,
+ * the number of upward edges and the number of downward edges) followed by the ranks, then the edge offsets, targets, costs and
+ * middle nodes of the upward edges, then the same arrays for the downward edges. */
+public class ContractionHierarchy {
+
+	/** The magic number at the beginning of the binary format, i.e. "GDCH". */
+	public static final int MAGIC = 0x47444348;
+
+	/** The version of the binary format. */
+	public static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 5 * 4;
+
+	final int nodeCount;
+	final ByteBuffer buffer;
+
+	/** The rank of each node, indexed by node index. */
+	final IntBuffer ranks;
+
+	final IntBuffer upOffsets;
+	final IntBuffer upTargets;
+	final FloatBuffer upCosts;
+	final IntBuffer upMiddles;
+
+	final IntBuffer downOffsets;
+	final IntBuffer downTargets;
+	final FloatBuffer downCosts;
+	final IntBuffer downMiddles;
+
+	/** Creates a {@code ContractionHierarchy} backed by the given buffer, which is not copied and must not be modified afterwards.
+	 * @param buffer the buffer holding the hierarchy in binary format from its current position
+	 * @throws SerializationException if the buffer doesn't hold a hierarchy in a supported format */
+	public ContractionHierarchy (ByteBuffer buffer) {
+		ByteBuffer data = buffer.slice();
+		data.order(ByteOrder.BIG_ENDIAN);
+		if (data.remaining() < HEADER_SIZE || data.getInt(0) != MAGIC)
+			throw new SerializationException("Not a contraction hierarchy");
+		if (data.getInt(4) != VERSION) throw new SerializationException("Unsupported format version: " + data.getInt(4));
+		this.nodeCount = data.getInt(8);
+		int upEdgeCount = data.getInt(12);
+		int downEdgeCount = data.getInt(16);
+		if (nodeCount < 0 || upEdgeCount < 0 || downEdgeCount < 0)
+			throw new SerializationException("Corrupted contraction hierarchy");
+		if (data.remaining() < getSizeInBytes(nodeCount, upEdgeCount, downEdgeCount))
+			throw new SerializationException("Truncated contraction hierarchy");
+		this.buffer = data;
+
+		int position = HEADER_SIZE;
+		ranks = intView(data, position, nodeCount);
+		position += nodeCount * 4;
+		upOffsets = intView(data, position, nodeCount + 1);
+		position += (nodeCount + 1) * 4;
+		upTargets = intView(data, position, upEdgeCount);
+		position += upEdgeCount * 4;
+		upCosts = floatView(data, position, upEdgeCount);
+		position += upEdgeCount * 4;
+		upMiddles = intView(data, position, upEdgeCount);
+		position += upEdgeCount * 4;
+		downOffsets = intView(data, position, nodeCount + 1);
+		position += (nodeCount + 1) * 4;
+		downTargets = intView(data, position, downEdgeCount);
+		position += downEdgeCount * 4;
+		downCosts = floatView(data, position, downEdgeCount);
+		position += downEdgeCount * 4;
+		downMiddles = intView(data, position, downEdgeCount);
+	}
+
+	private static IntBuffer intView (ByteBuffer data, int position, int length) {
+		data.limit(position + length * 4).position(position);
+		IntBuffer view = data.slice().order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+		data.clear();
+		return view;
+	}
+
+	private static FloatBuffer floatView (ByteBuffer data, int position, int length) {
+		data.limit(position + length * 4).position(position);
+		FloatBuffer view = data.slice().order(ByteOrder.BIG_ENDIAN).asFloatBuffer();
+		data.clear();
+		return view;
+	}
+
+	/** Returns the number of bytes of a hierarchy with the given number of nodes and edges in binary format. The size is computed
+	 * in {@code long}, so that the counts read from a corrupted header can't overflow it. */
+	static long getSizeInBytes (int nodeCount, int upEdgeCount, int downEdgeCount) {
+		return HEADER_SIZE + 4L * (3L * nodeCount + 2 + 3L * upEdgeCount + 3L * downEdgeCount);
+	}
+
+	/** Returns the number of bytes of this hierarchy in binary format. */
+	public int getSizeInBytes () {
+		return (int)getSizeInBytes(nodeCount, getUpEdgeCount(), getDownEdgeCount());
+	}
+
+	/** Maps the given hierarchy file in memory.
+	 * @param file the hierarchy file
+	 * @throws SerializationException if the file doesn't hold a hierarchy in a supported format
+	 * @throws com.badlogic.gdx.utils.GdxRuntimeException if the file can't be mapped, for instance on platforms not supporting
+	 *            memory-mapped files */
+	public static ContractionHierarchy map (FileHandle file) {
+		return new ContractionHierarchy(file.map());
+	}
+
+	/** Writes this hierarchy in binary format to the given buffer, starting at its current position, which is advanced.
+	 * @param out the buffer, which must have at least {@link #getSizeInBytes()} bytes remaining */
+	public void write (ByteBuffer out) {
+		out.put(bytes());
+	}
+
+	/** Writes this hierarchy to the given file in binary format.
+	 * @param file the file
+	 * @throws SerializationException if an I/O error occurs. */
+	public void write (FileHandle file) {
+		write(file.write(false));
+	}
+
+	/** Writes this hierarchy to the given stream in binary format. The stream is closed by this method.
+	 * @param output the stream
+	 * @throws SerializationException if an I/O error occurs. */
+	public void write (OutputStream output) {
+		try {
+			ByteBuffer data = bytes();
+			byte[] chunk = new byte[Math.min(data.remaining(), 8192)];
+			while (data.hasRemaining()) {
+				int length = Math.min(data.remaining(), chunk.length);
+				data.get(chunk, 0, length);
+				output.write(chunk, 0, length);
+			}
+			output.flush();
+		} catch (IOException ex) {
+			throw new SerializationException(ex);
+		} finally {
+			StreamUtils.closeQuietly(output);
+		}
+	}
+
+	/** Returns a view of the bytes of this hierarchy in binary format. */
+	private ByteBuffer bytes () {
+		ByteBuffer data = buffer.duplicate();
+		data.limit(getSizeInBytes()).position(0);
+		return data;
+	}
+
+	/** Returns the number of nodes. */
+	public int getNodeCount () {
+		return nodeCount;
+	}
+
+	/** Returns the rank of the node with the given index, i.e. the order in which it has been contracted. */
+	public int getRank (int nodeIndex) {
+		return ranks.get(nodeIndex);
+	}
+
+	/** Returns the total number of upward edges. */
+	public int getUpEdgeCount () {
+		return upTargets.capacity();
+	}
+
+	/** Returns the first upward edge of the node with the given index. */
+	public int getUpEdgeStart (int nodeIndex) {
+		return upOffsets.get(nodeIndex);
+	}
+
+	/** Returns the upward edge following the last upward edge of the node with the given index. */
+	public int getUpEdgeEnd (int nodeIndex) {
+		return upOffsets.get(nodeIndex + 1);
+	}
+
+	/** Returns the index of the higher ranked node the given upward edge leads to. */
+	public int getUpEdgeTarget (int edge) {
+		return upTargets.get(edge);
+	}
+
+	/** Returns the cost of the given upward edge. */
+	public float getUpEdgeCost (int edge) {
+		return upCosts.get(edge);
+	}
+
+	/** Returns the index of the middle node of the given upward edge or {@code -1} if the edge is a connection of the graph. */
+	public int getUpEdgeMiddle (int edge) {
+		return upMiddles.get(edge);
+	}
+
+	/** Returns the total number of downward edges. */
+	public int getDownEdgeCount () {
+		return downTargets.capacity();
+	}
+
+	/** Returns the first downward edge of the node with the given index. */
+	public int getDownEdgeStart (int nodeIndex) {
+		return downOffsets.get(nodeIndex);
+	}
+
+	/** Returns the downward edge following the last downward edge of the node with the given index. */
+	public int getDownEdgeEnd (int nodeIndex) {
+		return downOffsets.get(nodeIndex + 1);
+	}
+
+	/** Returns the index of the higher ranked node the given downward edge comes from. */
+	public int getDownEdgeTarget (int edge) {
+		return downTargets.get(edge);
+	}
+
+	/** Returns the cost of the given downward edge. */
+	public float getDownEdgeCost (int edge) {
+		return downCosts.get(edge);
+	}
+
+	/** Returns the index of the middle node of the given downward edge or {@code -1} if the edge is a connection of the graph. */
+	public int getDownEdgeMiddle (int edge) {
+		return downMiddles.get(edge);
+	}
+
+	/** Returns the upward edge from the node with the given index to the given higher ranked node or {@code -1} if there's no such
+	 * an edge. */
+	public int findUpEdge (int fromIndex, int toIndex) {
+		for (int edge = getUpEdgeStart(fromIndex), end = getUpEdgeEnd(fromIndex); edge < end; edge++)
+			if (upTargets.get(edge) == toIndex) return edge;
+		return -1;
+	}
+
+	/** Returns the downward edge from the given higher ranked node to the node with the given index or {@code -1} if there's no such
+	 * an edge. */
+	public int findDownEdge (int fromIndex, int toIndex) {
+		for (int edge = getDownEdgeStart(toIndex), end = getDownEdgeEnd(toIndex); edge < end; edge++)
+			if (downTargets.get(edge) == fromIndex) return edge;
+		return -1;
+	}
+}
@@ -0,0 +1,359 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.ai.utils.IntBinaryHeap;
+import com.badlogic.gdx.utils.Array;
+
+/** A {@code ContractionHierarchyBuilder} preprocesses a static {@link IndexedGraph} into a {@link ContractionHierarchy}, which lets
+ * a {@link ContractionHierarchyPathFinder} answer queries on large graphs, such as road or waypoint networks, orders of magnitude
+ * faster than A*.
+ * <p>
+ * The nodes are contracted one at a time, from the least important to the most important one. Contracting a node removes it from
+ * the graph and adds a shortcut between two of its neighbors whenever the path through the node is the only shortest path between
+ * them, which is checked by a local witness search. The importance of a node is its edge difference, i.e. the number of shortcuts
+ * its contraction would add minus the number of its edges, plus the number of its neighbors already contracted, which spreads the
+ * contraction uniformly over the graph. Priorities are updated lazily and for the neighbors of each contracted node.
+ * <p>
+ * Building the hierarchy is meant to be done offline, since it takes from seconds to minutes on large graphs: the result can be
+ * saved in binary format through {@link ContractionHierarchy#write(ByteBuffer)} and loaded at startup. The hierarchy is only
+ * valid as long as the graph doesn't change.
+ *
+ * @param <N> Type of node */
+public class ContractionHierarchyBuilder<N> {
+
+	CsrIndexedGraph<N> graph;
+	int witnessSearchLimit = 500;
+
+	/** The number of shortcuts added by the last build. */
+	public int shortcutCount;
+
+	/** The outgoing edges of each node not contracted yet and, once the node is contracted, its upward edges. */
+	EdgeList[] outEdges;
+
+	/** The incoming edges of each node not contracted yet and, once the node is contracted, its downward edges. */
+	EdgeList[] inEdges;
+
+	/** Whether the node has been contracted, indexed by node index. */
+	boolean[] contracted;
+
+	/** The number of neighbors already contracted, indexed by node index. */
+	int[] contractedNeighbors;
+
+	/** The cost from the source of the current witness search, indexed by node index. */
+	float[] witnessCost;
+
+	/** The ID of the witness search that last touched the node, indexed by node index. */
+	int[] witnessIds;
+
+	IntBinaryHeap witnessOpenList;
+	int witnessId;
+
+	/** Creates a {@code ContractionHierarchyBuilder} for the given graph, whose connections are copied.
+	 * @param graph the graph
+	 * @param nodes the nodes of the graph in any order; nodes not included here have no outgoing connections */
+	public ContractionHierarchyBuilder (IndexedGraph<N> graph, Array<N> nodes) {
+		this(new CsrIndexedGraph<N>(graph, nodes));
+	}
+
+	/** Creates a {@code ContractionHierarchyBuilder} for the given graph. */
+	public ContractionHierarchyBuilder (CsrIndexedGraph<N> graph) {
+		this.graph = graph;
+	}
+
+	/** Returns the maximum number of nodes settled by each witness search. */
+	public int getWitnessSearchLimit () {
+		return witnessSearchLimit;
+	}
+
+	/** Sets the maximum number of nodes settled by each witness search. Lower limits make the build faster but may add superfluous
+	 * shortcuts, which make queries slower; the hierarchy is correct anyway. The default is 500.
+	 * @param witnessSearchLimit the limit */
+	public void setWitnessSearchLimit (int witnessSearchLimit) {
+		if (witnessSearchLimit <= 0) throw new IllegalArgumentException("witnessSearchLimit must be positive");
+		this.witnessSearchLimit = witnessSearchLimit;
+	}
+
+	/** Builds the contraction hierarchy of the graph. */
+	public ContractionHierarchy build () {
+		int nodeCount = graph.getNodeCount();
+		initBuild(nodeCount);
+
+		// Compute the initial priority of each node
+		IntBinaryHeap queue = new IntBinaryHeap(nodeCount);
+		for (int i = 0; i < nodeCount; i++)
+			queue.add(i, priority(i));
+
+		// Contract the nodes from the least important one
+		int[] ranks = new int[nodeCount];
+		int rank = 0;
+		while (queue.size > 0) {
+			int node = queue.pop();
+
+			// Lazy update: put the node back if it's no longer the least important one
+			float priority = priority(node);
+			if (queue.size > 0 && priority > queue.getValue(queue.peek())) {
+				queue.add(node, priority);
+				continue;
+			}
+
+			contract(node);
+			ranks[node] = rank++;
+
+			// Update the priority of the neighbors
+			EdgeList edges = inEdges[node];
+			for (int i = 0; i < edges.size; i++) {
+				int neighbor = edges.targets[i];
+				if (queue.contains(neighbor)) queue.setValue(neighbor, priority(neighbor));
+			}
+			edges = outEdges[node];
+			for (int i = 0; i < edges.size; i++) {
+				int neighbor = edges.targets[i];
+				if (queue.contains(neighbor)) queue.setValue(neighbor, priority(neighbor));
+			}
+		}
+
+		ContractionHierarchy hierarchy = createHierarchy(ranks);
+
+		// Release the memory used by the build
+		outEdges = inEdges = null;
+		contracted = null;
+		contractedNeighbors = witnessIds = null;
+		witnessCost = null;
+		witnessOpenList = null;
+
+		return hierarchy;
+	}
+
+	private void initBuild (int nodeCount) {
+		shortcutCount = 0;
+		outEdges = new EdgeList[nodeCount];
+		inEdges = new EdgeList[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			outEdges[i] = new EdgeList();
+			inEdges[i] = new EdgeList();
+		}
+		contracted = new boolean[nodeCount];
+		contractedNeighbors = new int[nodeCount];
+		witnessCost = new float[nodeCount];
+		witnessIds = new int[nodeCount];
+		witnessOpenList = new IntBinaryHeap(nodeCount);
+		witnessId = 0;
+
+		// Copy the edges keeping the cheapest of the parallel ones and skipping the loops
+		for (int from = 0; from < nodeCount; from++) {
+			for (int edge = graph.getEdgeStart(from), end = graph.getEdgeEnd(from); edge < end; edge++) {
+				int to = graph.getEdgeTarget(edge);
+				if (to != from) addEdge(from, to, graph.getEdgeCost(edge), -1);
+			}
+		}
+	}
+
+	/** Adds the given edge or lowers the cost of the existing edge between the same nodes. */
+	private boolean addEdge (int from, int to, float cost, int middle) {
+		EdgeList out = outEdges[from];
+		int i = out.indexOf(to);
+		if (i >= 0) {
+			if (out.costs[i] <= cost) return false;
+			out.costs[i] = cost;
+			out.middles[i] = middle;
+			EdgeList in = inEdges[to];
+			i = in.indexOf(from);
+			in.costs[i] = cost;
+			in.middles[i] = middle;
+		} else {
+			out.add(to, cost, middle);
+			inEdges[to].add(from, cost, middle);
+		}
+		return true;
+	}
+
+	/** Returns the importance of the given node: the lower, the sooner the node is contracted. */
+	private float priority (int node) {
+		int edgeDifference = processShortcuts(node, false) - inEdges[node].size - outEdges[node].size;
+		return edgeDifference + contractedNeighbors[node];
+	}
+
+	/** Contracts the given node: adds the shortcuts replacing it and removes it from its neighbors' edges. Its own edges are kept
+	 * since they're the upward and downward edges of the node. */
+	private void contract (int node) {
+		shortcutCount += processShortcuts(node, true);
+		contracted[node] = true;
+		EdgeList edges = inEdges[node];
+		for (int i = 0; i < edges.size; i++) {
+			int neighbor = edges.targets[i];
+			outEdges[neighbor].remove(node);
+			contractedNeighbors[neighbor]++;
+		}
+		edges = outEdges[node];
+		for (int i = 0; i < edges.size; i++) {
+			int neighbor = edges.targets[i];
+			inEdges[neighbor].remove(node);
+			contractedNeighbors[neighbor]++;
+		}
+	}
+
+	/** Finds the shortcuts needed to contract the given node.
+	 * @param node the node
+	 * @param add whether the shortcuts are added to the graph or just counted
+	 * @return the number of shortcuts. */
+	private int processShortcuts (int node, boolean add) {
+		EdgeList in = inEdges[node];
+		EdgeList out = outEdges[node];
+		if (in.size == 0 || out.size == 0) return 0;
+		float maxOutCost = 0;
+		for (int j = 0; j < out.size; j++)
+			maxOutCost = Math.max(maxOutCost, out.costs[j]);
+
+		int shortcuts = 0;
+		for (int i = 0; i < in.size; i++) {
+			int from = in.targets[i];
+			float inCost = in.costs[i];
+
+			// Look for paths avoiding the node that are not longer than the paths through the node
+			witnessSearch(from, node, inCost + maxOutCost);
+			for (int j = 0; j < out.size; j++) {
+				int to = out.targets[j];
+				if (to == from) continue;
+				float cost = inCost + out.costs[j];
+				if (witnessIds[to] == witnessId && witnessCost[to] <= cost) continue;
+				if (add) {
+					if (addEdge(from, to, cost, node)) shortcuts++;
+				} else {
+					shortcuts++;
+				}
+			}
+		}
+		return shortcuts;
+	}
+
+	/** Runs a Dijkstra search from the given source avoiding the given node, bounded by the given cost and by the witness search
+	 * limit. */
+	private void witnessSearch (int source, int avoidedNode, float maxCost) {
+		if (++witnessId < 0) witnessId = 1;
+		IntBinaryHeap openList = witnessOpenList;
+		openList.clear();
+		witnessIds[source] = witnessId;
+		witnessCost[source] = 0;
+		openList.add(source, 0);
+		int settled = 0;
+		while (openList.size > 0 && settled++ < witnessSearchLimit) {
+			int current = openList.pop();
+			float currentCost = witnessCost[current];
+			if (currentCost > maxCost) break;
+			EdgeList edges = outEdges[current];
+			for (int i = 0; i < edges.size; i++) {
+				int target = edges.targets[i];
+				if (target == avoidedNode) continue;
+				float cost = currentCost + edges.costs[i];
+				if (witnessIds[target] != witnessId) {
+					witnessIds[target] = witnessId;
+					witnessCost[target] = cost;
+					openList.add(target, cost);
+				} else if (cost < witnessCost[target] && openList.contains(target)) {
+					witnessCost[target] = cost;
+					openList.setValue(target, cost);
+				}
+			}
+		}
+	}
+
+	/** Packs the upward and downward edges of the contracted nodes into a hierarchy in binary format. */
+	private ContractionHierarchy createHierarchy (int[] ranks) {
+		int nodeCount = ranks.length;
+		int upEdgeCount = 0, downEdgeCount = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			upEdgeCount += outEdges[i].size;
+			downEdgeCount += inEdges[i].size;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate((int)ContractionHierarchy.getSizeInBytes(nodeCount, upEdgeCount, downEdgeCount));
+		buffer.putInt(ContractionHierarchy.MAGIC);
+		buffer.putInt(ContractionHierarchy.VERSION);
+		buffer.putInt(nodeCount);
+		buffer.putInt(upEdgeCount);
+		buffer.putInt(downEdgeCount);
+		for (int i = 0; i < nodeCount; i++)
+			buffer.putInt(ranks[i]);
+		putEdges(buffer, outEdges);
+		putEdges(buffer, inEdges);
+		buffer.flip();
+		return new ContractionHierarchy(buffer);
+	}
+
+	private static void putEdges (ByteBuffer buffer, EdgeList[] edges) {
+		int offset = 0;
+		for (int i = 0; i < edges.length; i++) {
+			buffer.putInt(offset);
+			offset += edges[i].size;
+		}
+		buffer.putInt(offset);
+		for (int i = 0; i < edges.length; i++)
+			for (int j = 0; j < edges[i].size; j++)
+				buffer.putInt(edges[i].targets[j]);
+		for (int i = 0; i < edges.length; i++)
+			for (int j = 0; j < edges[i].size; j++)
+				buffer.putFloat(edges[i].costs[j]);
+		for (int i = 0; i < edges.length; i++)
+			for (int j = 0; j < edges[i].size; j++)
+				buffer.putInt(edges[i].middles[j]);
+	}
+
+	/** The edges of a node during the build, kept in parallel arrays. */
+	static class EdgeList {
+		int[] targets = new int[4];
+		float[] costs = new float[4];
+		int[] middles = new int[4];
+		int size;
+
+		int indexOf (int target) {
+			for (int i = 0; i < size; i++)
+				if (targets[i] == target) return i;
+			return -1;
+		}
+
+		void add (int target, float cost, int middle) {
+			if (size == targets.length) {
+				int capacity = size << 1;
+				int[] newTargets = new int[capacity];
+				float[] newCosts = new float[capacity];
+				int[] newMiddles = new int[capacity];
+				System.arraycopy(targets, 0, newTargets, 0, size);
+				System.arraycopy(costs, 0, newCosts, 0, size);
+				System.arraycopy(middles, 0, newMiddles, 0, size);
+				targets = newTargets;
+				costs = newCosts;
+				middles = newMiddles;
+			}
+			targets[size] = target;
+			costs[size] = cost;
+			middles[size] = middle;
+			size++;
+		}
+
+		void remove (int target) {
+			int i = indexOf(target);
+			if (i < 0) return;
+			size--;
+			targets[i] = targets[size];
+			costs[i] = costs[size];
+			middles[i] = middles[size];
+		}
+	}
+}
@@ -0,0 +1,407 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder.Metrics;
+import com.badlogic.gdx.ai.utils.IntBinaryHeap;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** A {@link PathFinder} answering queries on a static graph through its {@link ContractionHierarchy}.
+ * <p>
+ * A forward Dijkstra search from the start node only follows the upward edges of the hierarchy, while a backward Dijkstra search
+ * from the end node only follows the downward edges in reverse; the shortest path is the best one through a node reached by both
+ * searches. Since both searches only climb the hierarchy, they settle a few hundred nodes even on graphs with millions of nodes.
+ * Nodes whose cost is proved not to be optimal by a higher ranked neighbor are not expanded (stall-on-demand). Finally, the
+ * shortcuts of the path are recursively unpacked into the connections of the graph, which is any {@link EdgeIndexedGraph}, for
+ * instance a {@link MappedIndexedGraph} loaded along with a mapped hierarchy.
+ * <p>
+ * The heuristic passed to the search methods is ignored. The returned paths are optimal but, when several optimal paths exist,
+ * they may differ from the ones returned by the {@link IndexedAStarPathFinder}.
+ *
+ * @param <N> Type of node */
+public class ContractionHierarchyPathFinder<N> implements PathFinder<N> {
+
+	private static final byte UNVISITED = 0;
+	private static final byte OPEN = 1;
+	private static final byte CLOSED = 2;
+
+	EdgeIndexedGraph<N> graph;
+	ContractionHierarchy hierarchy;
+
+	/** The search state of the forward search, from the start node. */
+	Frontier forward;
+
+	/** The search state of the backward search, from the end node. */
+	Frontier backward;
+
+	/** The cost of the best path found so far. */
+	float bestCost;
+
+	/** The index of the node where the forward and backward parts of the best path meet or {@code -1} if no path has been found. */
+	int meetingNode;
+
+	/** The indices of the nodes of the unpacked path. */
+	final IntArray pathNodes;
+
+	/** The pending edges of the path to unpack, as triples of from node, to node and middle node. */
+	final IntArray unpackStack;
+
+	public Metrics metrics;
+
+	/** The unique ID for each search run. Used to mark nodes. */
+	private int searchId;
+
+	/** Creates a {@code ContractionHierarchyPathFinder} that doesn't calculate metrics.
+	 * @param graph the graph the hierarchy has been built for
+	 * @param hierarchy the hierarchy */
+	public ContractionHierarchyPathFinder (EdgeIndexedGraph<N> graph, ContractionHierarchy hierarchy) {
+		this(graph, hierarchy, false);
+	}
+
+	/** Creates a {@code ContractionHierarchyPathFinder}.
+	 * @param graph the graph the hierarchy has been built for
+	 * @param hierarchy the hierarchy
+	 * @param calculateMetrics whether search metrics should be calculated
+	 * @throws IllegalArgumentException if the hierarchy has not the same number of nodes as the graph */
+	public ContractionHierarchyPathFinder (EdgeIndexedGraph<N> graph, ContractionHierarchy hierarchy, boolean calculateMetrics) {
+		int nodeCount = graph.getNodeCount();
+		if (hierarchy.getNodeCount() != nodeCount)
+			throw new IllegalArgumentException("The hierarchy doesn't match the graph: " + hierarchy.getNodeCount() + " nodes");
+		this.graph = graph;
+		this.hierarchy = hierarchy;
+		this.forward = new Frontier(nodeCount);
+		this.backward = new Frontier(nodeCount);
+		this.pathNodes = new IntArray();
+		this.unpackStack = new IntArray();
+		if (calculateMetrics) this.metrics = new Metrics();
+	}
+
+	@Override
+	public boolean searchConnectionPath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<Connection<N>> outPath) {
+
+		// Perform the hierarchy query
+		boolean found = search(startNode, endNode);
+
+		if (found) {
+			// Create a path made of connections
+			generateConnectionPath(outPath);
+		}
+
+		return found;
+	}
+
+	@Override
+	public boolean searchNodePath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<N> outPath) {
+
+		// Perform the hierarchy query
+		boolean found = search(startNode, endNode);
+
+		if (found) {
+			// Create a path made of nodes
+			generateNodePath(outPath);
+		}
+
+		return found;
+	}
+
+	protected boolean search (N startNode, N endNode) {
+
+		initSearch(startNode, endNode);
+
+		// Expand nodes until the best path can't be improved
+		while (!step()) {
+		}
+
+		return meetingNode >= 0;
+	}
+
+	@Override
+	public boolean search (PathFinderRequest<N> request, long timeToRun) {
+
+		long lastTime = TimeUtils.nanoTime();
+
+		// We have to initialize the search if the status has just changed
+		if (request.statusChanged) {
+			initSearch(request.startNode, request.endNode);
+			request.statusChanged = false;
+		}
+
+		while (true) {
+
+			// Check the available time
+			long currentTime = TimeUtils.nanoTime();
+			timeToRun -= currentTime - lastTime;
+			if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return false;
+
+			// Expand one node; terminate if the best path can't be improved
+			if (step()) {
+				request.pathFound = meetingNode >= 0;
+				if (request.pathFound) generateNodePath(request.resultPath);
+				return true;
+			}
+
+			// Store the current time
+			lastTime = currentTime;
+		}
+	}
+
+	protected void initSearch (N startNode, N endNode) {
+		if (metrics != null) metrics.reset();
+
+		// Increment the search id
+		if (++searchId < 0) searchId = 1;
+
+		this.bestCost = Float.POSITIVE_INFINITY;
+		this.meetingNode = -1;
+
+		// Initialize the open lists
+		forward.openList.clear();
+		backward.openList.clear();
+
+		// Add the start node to the forward open list and the end node to the backward open list
+		int startIndex = graph.getIndex(startNode);
+		touchNode(forward, startIndex);
+		forward.parent[startIndex] = -1;
+		forward.costSoFar[startIndex] = 0;
+		addToOpenList(forward, startIndex, 0);
+
+		int endIndex = graph.getIndex(endNode);
+		touchNode(backward, endIndex);
+		backward.parent[endIndex] = -1;
+		backward.costSoFar[endIndex] = 0;
+		addToOpenList(backward, endIndex, 0);
+
+		// The path is trivial if the start node is the end node
+		if (startIndex == endIndex) {
+			bestCost = 0;
+			meetingNode = startIndex;
+		}
+	}
+
+	/** Expands the node with the lowest cost among the sides that can still improve the best path.
+	 * @return {@code true} if the search is over; {@code false} otherwise. */
+	protected boolean step () {
+		IntBinaryHeap forwardOpenList = forward.openList;
+		IntBinaryHeap backwardOpenList = backward.openList;
+
+		// Unlike plain bidirectional Dijkstra, each side has to go on until its own lowest cost reaches the best path
+		float forwardCost = forwardOpenList.size > 0 ? forwardOpenList.getValue(forwardOpenList.peek()) : Float.POSITIVE_INFINITY;
+		float backwardCost = backwardOpenList.size > 0 ? backwardOpenList.getValue(backwardOpenList.peek())
+			: Float.POSITIVE_INFINITY;
+		boolean forwardDone = forwardCost >= bestCost;
+		boolean backwardDone = backwardCost >= bestCost;
+		if (forwardDone && backwardDone) return true;
+
+		if (!forwardDone && (backwardDone || forwardCost <= backwardCost))
+			expand(forward, backward, true);
+		else
+			expand(backward, forward, false);
+		return false;
+	}
+
+	/** Expands the node with the lowest cost on the given side, following the upward edges for the forward side and the downward
+	 * edges in reverse for the backward side. */
+	private void expand (Frontier side, Frontier otherSide, boolean upward) {
+		ContractionHierarchy hierarchy = this.hierarchy;
+		int current = side.openList.pop();
+		side.category[current] = CLOSED;
+		float currentCost = side.costSoFar[current];
+
+		// Stall the node if a higher ranked node reached by this side proves that its cost is not optimal
+		if (upward) {
+			for (int edge = hierarchy.getDownEdgeStart(current), end = hierarchy.getDownEdgeEnd(current); edge < end; edge++)
+				if (isStalling(side, hierarchy.getDownEdgeTarget(edge), hierarchy.getDownEdgeCost(edge), currentCost)) return;
+			for (int edge = hierarchy.getUpEdgeStart(current), end = hierarchy.getUpEdgeEnd(current); edge < end; edge++)
+				relax(side, otherSide, current, hierarchy.getUpEdgeTarget(edge), edge, currentCost + hierarchy.getUpEdgeCost(edge));
+		} else {
+			for (int edge = hierarchy.getUpEdgeStart(current), end = hierarchy.getUpEdgeEnd(current); edge < end; edge++)
+				if (isStalling(side, hierarchy.getUpEdgeTarget(edge), hierarchy.getUpEdgeCost(edge), currentCost)) return;
+			for (int edge = hierarchy.getDownEdgeStart(current), end = hierarchy.getDownEdgeEnd(current); edge < end; edge++)
+				relax(side, otherSide, current, hierarchy.getDownEdgeTarget(edge), edge,
+					currentCost + hierarchy.getDownEdgeCost(edge));
+		}
+	}
+
+	private boolean isStalling (Frontier side, int nodeIndex, float edgeCost, float currentCost) {
+		return side.searchIds[nodeIndex] == searchId && side.costSoFar[nodeIndex] + edgeCost < currentCost;
+	}
+
+	/** Relaxes the edge from the current node to the given node on the given side and updates the best path if the node has already
+	 * been reached by the other side. */
+	private void relax (Frontier side, Frontier otherSide, int current, int nodeIndex, int edge, float nodeCost) {
+		if (metrics != null) metrics.visitedNodes++;
+
+		touchNode(side, nodeIndex);
+		byte nodeCategory = side.category[nodeIndex];
+		if (nodeCategory == CLOSED) return;
+		if (nodeCategory == OPEN) {
+			// If our route is no better, then skip
+			if (side.costSoFar[nodeIndex] <= nodeCost) return;
+			side.openList.setValue(nodeIndex, nodeCost);
+		} else {
+			addToOpenList(side, nodeIndex, nodeCost);
+		}
+
+		// Update node's cost and parent
+		side.costSoFar[nodeIndex] = nodeCost;
+		side.parent[nodeIndex] = current;
+		side.parentEdge[nodeIndex] = edge;
+
+		// Check whether the two sides meet at this node with a better path
+		if (otherSide.searchIds[nodeIndex] == searchId) {
+			float pathCost = nodeCost + otherSide.costSoFar[nodeIndex];
+			if (pathCost < bestCost) {
+				bestCost = pathCost;
+				meetingNode = nodeIndex;
+			}
+		}
+	}
+
+	/** Fills {@link #pathNodes} with the indices of the nodes of the best path, unpacking its shortcuts. */
+	protected void unpackPath () {
+		IntArray pathNodes = this.pathNodes;
+		IntArray stack = this.unpackStack;
+		pathNodes.clear();
+		stack.clear();
+
+		// Push the edges of the backward part so that the one nearest to the end node is at the bottom of the stack
+		int current = meetingNode;
+		while (backward.parent[current] >= 0) {
+			int next = backward.parent[current];
+			pushEdge(current, next, hierarchy.getDownEdgeMiddle(backward.parentEdge[current]));
+			current = next;
+		}
+		int[] items = stack.items;
+		for (int i = 0, j = stack.size - 3; i < j; i += 3, j -= 3) {
+			for (int k = 0; k < 3; k++) {
+				int item = items[i + k];
+				items[i + k] = items[j + k];
+				items[j + k] = item;
+			}
+		}
+
+		// Push the edges of the forward part, from the meeting node to the start node
+		current = meetingNode;
+		while (forward.parent[current] >= 0) {
+			int parent = forward.parent[current];
+			pushEdge(parent, current, hierarchy.getUpEdgeMiddle(forward.parentEdge[current]));
+			current = parent;
+		}
+
+		// Unpack the edges in path order
+		pathNodes.add(current);
+		while (stack.size > 0) {
+			int middle = stack.pop();
+			int to = stack.pop();
+			int from = stack.pop();
+			if (middle < 0) {
+				pathNodes.add(to);
+			} else {
+				// The middle node has a lower rank than both ends
+				pushEdge(middle, to, hierarchy.getUpEdgeMiddle(hierarchy.findUpEdge(middle, to)));
+				pushEdge(from, middle, hierarchy.getDownEdgeMiddle(hierarchy.findDownEdge(from, middle)));
+			}
+		}
+	}
+
+	private void pushEdge (int from, int to, int middle) {
+		unpackStack.add(from);
+		unpackStack.add(to);
+		unpackStack.add(middle);
+	}
+
+	protected void generateConnectionPath (GraphPath<Connection<N>> outPath) {
+		unpackPath();
+
+		// Pick the cheapest connection between each pair of consecutive nodes
+		// outPath.clear();
+		EdgeIndexedGraph<N> graph = this.graph;
+		for (int i = 1; i < pathNodes.size; i++) {
+			int from = pathNodes.get(i - 1);
+			int to = pathNodes.get(i);
+			int bestEdge = -1;
+			for (int edge = graph.getEdgeStart(from), end = graph.getEdgeEnd(from); edge < end; edge++) {
+				if (graph.getEdgeTarget(edge) == to && (bestEdge < 0 || graph.getEdgeCost(edge) < graph.getEdgeCost(bestEdge)))
+					bestEdge = edge;
+			}
+			if (bestEdge < 0) throw new IllegalStateException("The hierarchy doesn't match the graph");
+			outPath.add(graph.newConnection(from, bestEdge));
+		}
+	}
+
+	protected void generateNodePath (GraphPath<N> outPath) {
+		unpackPath();
+
+		// outPath.clear();
+		for (int i = 0; i < pathNodes.size; i++)
+			outPath.add(graph.getNode(pathNodes.get(i)));
+	}
+
+	protected void addToOpenList (Frontier side, int nodeIndex, float cost) {
+		side.openList.add(nodeIndex, cost);
+		side.category[nodeIndex] = OPEN;
+		if (metrics != null) {
+			metrics.openListAdditions++;
+			metrics.openListPeak = Math.max(metrics.openListPeak, forward.openList.size + backward.openList.size);
+		}
+	}
+
+	/** Resets the state of the node with the given index on the given side if it has not been touched by the current search yet. */
+	protected void touchNode (Frontier side, int nodeIndex) {
+		if (side.searchIds[nodeIndex] != searchId) {
+			side.category[nodeIndex] = UNVISITED;
+			side.searchIds[nodeIndex] = searchId;
+		}
+	}
+
+	/** The search state of one side of the query, kept in arrays indexed by node index. */
+	static class Frontier {
+
+		/** The actual cost from the root of this side. */
+		final float[] costSoFar;
+
+		/** The index of the parent node on this side or {@code -1} for the root. */
+		final int[] parent;
+
+		/** The edge of the hierarchy from the parent node. */
+		final int[] parentEdge;
+
+		/** The node category: {@link #UNVISITED}, {@link #OPEN} or {@link #CLOSED}. */
+		final byte[] category;
+
+		/** The ID of the search that last touched the node. */
+		final int[] searchIds;
+
+		final IntBinaryHeap openList;
+
+		Frontier (int nodeCount) {
+			this.costSoFar = new float[nodeCount];
+			this.parent = new int[nodeCount];
+			this.parentEdge = new int[nodeCount];
+			this.category = new byte[nodeCount];
+			this.searchIds = new int[nodeCount];
+			this.openList = new IntBinaryHeap(nodeCount);
+		}
+	}
+}
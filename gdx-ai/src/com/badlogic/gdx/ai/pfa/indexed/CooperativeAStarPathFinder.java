@@ -0,0 +1,506 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder.Metrics;
+import com.badlogic.gdx.ai.utils.IntBinaryHeap;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** A {@link PathFinder} implementing Windowed Hierarchical Cooperative A* (WHCA*) on an {@link IndexedGraph}, which lets many
+ * agents find paths that don't collide with each other.
+ * <p>
+ * The agents plan their paths one after another, typically in order of priority, and each path is recorded in a shared
+ * {@link ReservationTable}. The search runs in space-time: a state is a node at a given time step, every connection takes exactly
+ * one time step and an agent can also wait on its node for one time step at the given {@link #setWaitCost(float) wait cost}. A
+ * state is skipped if its node is reserved by another agent at that time step, as well as a move swapping two agents. This way
+ * the agents queue at the chokepoints instead of all picking the same nodes and fighting each other through collision avoidance.
+ * <p>
+ * The search only looks {@code windowDepth} time steps ahead: the path ends at the goal node, if it can be reached and held
+ * within the window, or at the state of the window depth with the lowest estimated total cost, so that the cost of each search
+ * is bounded. Even when the goal node can't be reached at all, a path up to the window depth is found, and
+ * {@link #isGoalReached()} tells the two cases apart. The agents are expected to follow only part of their paths, typically half
+ * the window, and then plan again; use {@link ReservationTable#releaseBefore(int)} to drop the past reservations as the time
+ * advances. The heuristic drives the search beyond the window, so the more accurate, the better.
+ * <p>
+ * The agent and the start time step are not part of the {@link PathFinder} interface, so they must be set through
+ * {@link #setAgent(int, int)} before each search. Node paths hold one node per time step, the start node included, hence a node
+ * is repeated when the agent waits. Connection paths hold one connection per time step, where waits are {@link WaitConnection}
+ * instances created on demand.
+ *
+ * @param <N> Type of node */
+public class CooperativeAStarPathFinder<N> implements PathFinder<N> {
+	IndexedGraph<N> graph;
+	ReservationTable reservations;
+	int windowDepth;
+	float waitCost = 1;
+	boolean reservePaths = true;
+
+	int agent;
+	int startTime;
+	boolean goalReached;
+
+	/** The slot of each state met by the current search, keyed by {@code time * nodeCount + nodeIndex}. */
+	final IntIntMap stateSlots;
+
+	/** The number of states met by the current search. */
+	int stateCount;
+
+	/** The node of the state, indexed by state slot. */
+	N[] stateNode;
+
+	/** The index of the node of the state, indexed by state slot. */
+	int[] stateNodeIndex;
+
+	/** The time step of the state relative to the start time, indexed by state slot. */
+	int[] stateTime;
+
+	/** The slot of the parent state or {@code -1} for the start state, indexed by state slot. */
+	int[] stateParent;
+
+	/** The connection leading to the state or {@code null} for a wait, indexed by state slot. */
+	Connection<N>[] stateConnection;
+
+	/** The actual cost from the start state, indexed by state slot. */
+	float[] costSoFar;
+
+	/** The heuristic estimate of the state, indexed by state slot. */
+	float[] heuristicCost;
+
+	/** The state category: {@link #UNVISITED}, {@link #OPEN} or {@link #CLOSED}, indexed by state slot. */
+	byte[] category;
+
+	IntBinaryHeap openList;
+	int current;
+
+	public Metrics metrics;
+
+	private static final byte UNVISITED = 0;
+	private static final byte OPEN = 1;
+	private static final byte CLOSED = 2;
+
+	/** Creates a {@code CooperativeAStarPathFinder} that doesn't calculate metrics.
+	 * @param graph the graph
+	 * @param reservations the reservation table shared by the agents
+	 * @param windowDepth the number of time steps the search looks ahead */
+	public CooperativeAStarPathFinder (IndexedGraph<N> graph, ReservationTable reservations, int windowDepth) {
+		this(graph, reservations, windowDepth, false);
+	}
+
+	/** Creates a {@code CooperativeAStarPathFinder}.
+	 * @param graph the graph
+	 * @param reservations the reservation table shared by the agents
+	 * @param windowDepth the number of time steps the search looks ahead
+	 * @param calculateMetrics whether metrics are calculated
+	 * @throws IllegalArgumentException if the window depth is not positive or too large for the graph */
+	@SuppressWarnings("unchecked")
+	public CooperativeAStarPathFinder (IndexedGraph<N> graph, ReservationTable reservations, int windowDepth,
+		boolean calculateMetrics) {
+		if (windowDepth <= 0) throw new IllegalArgumentException("windowDepth must be positive");
+		if ((long)(windowDepth + 1) * graph.getNodeCount() > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("windowDepth too large for the graph");
+		this.graph = graph;
+		this.reservations = reservations;
+		this.windowDepth = windowDepth;
+		int capacity = 64;
+		this.stateSlots = new IntIntMap(capacity);
+		this.stateNode = (N[])new Object[capacity];
+		this.stateNodeIndex = new int[capacity];
+		this.stateTime = new int[capacity];
+		this.stateParent = new int[capacity];
+		this.stateConnection = new Connection[capacity];
+		this.costSoFar = new float[capacity];
+		this.heuristicCost = new float[capacity];
+		this.category = new byte[capacity];
+		this.openList = new IntBinaryHeap(capacity);
+		if (calculateMetrics) this.metrics = new Metrics();
+	}
+
+	/** Returns the reservation table shared by the agents. */
+	public ReservationTable getReservations () {
+		return reservations;
+	}
+
+	/** Returns the number of time steps the search looks ahead. */
+	public int getWindowDepth () {
+		return windowDepth;
+	}
+
+	/** Returns the cost of waiting on a node for one time step. */
+	public float getWaitCost () {
+		return waitCost;
+	}
+
+	/** Sets the cost of waiting on a node for one time step. It should be comparable to the cost of the connections; the default is
+	 * 1.
+	 * @param waitCost the cost of waiting */
+	public void setWaitCost (float waitCost) {
+		this.waitCost = waitCost;
+	}
+
+	/** Returns whether the paths found are recorded in the reservation table. */
+	public boolean isReservePaths () {
+		return reservePaths;
+	}
+
+	/** Sets whether the paths found are recorded in the reservation table, replacing the previous reservations of the agent. The
+	 * default is {@code true}.
+	 * @param reservePaths whether to reserve the paths */
+	public void setReservePaths (boolean reservePaths) {
+		this.reservePaths = reservePaths;
+	}
+
+	/** Returns the agent the next search is run for. */
+	public int getAgent () {
+		return agent;
+	}
+
+	/** Returns the time step the next search starts at. */
+	public int getStartTime () {
+		return startTime;
+	}
+
+	/** Sets the agent and the time step the next search is run for.
+	 * @param agent the agent, a non-negative integer
+	 * @param startTime the time step the agent is on the start node */
+	public void setAgent (int agent, int startTime) {
+		if (agent < 0) throw new IllegalArgumentException("agent must be >= 0");
+		this.agent = agent;
+		this.startTime = startTime;
+	}
+
+	/** Returns {@code true} if the last path found ends at the goal node; {@code false} if it ends at the window depth, in which case
+	 * the agent has to plan again before reaching the end of the path. */
+	public boolean isGoalReached () {
+		return goalReached;
+	}
+
+	@Override
+	public boolean searchConnectionPath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<Connection<N>> outPath) {
+
+		// Perform cooperative A*
+		boolean found = search(startNode, endNode, heuristic);
+
+		if (found) {
+			// Create a path made of connections
+			generateConnectionPath(outPath);
+		}
+
+		return found;
+	}
+
+	@Override
+	public boolean searchNodePath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<N> outPath) {
+
+		// Perform cooperative A*
+		boolean found = search(startNode, endNode, heuristic);
+
+		if (found) {
+			// Create a path made of nodes
+			generateNodePath(outPath);
+		}
+
+		return found;
+	}
+
+	protected boolean search (N startNode, N endNode, Heuristic<N> heuristic) {
+
+		initSearch(startNode, endNode, heuristic);
+
+		// Iterate through processing each state
+		do {
+			// Retrieve the state with smallest estimated total cost from the open list
+			expandNext();
+
+			// Terminate if we reached the goal or the window depth
+			if (isEndState(endNode)) {
+				reservePath();
+				return true;
+			}
+
+			visitChildren(endNode, heuristic);
+
+		} while (openList.size > 0);
+
+		// We've run out of states without reaching the goal or the window depth, so there's no solution
+		return false;
+	}
+
+	@Override
+	public boolean search (PathFinderRequest<N> request, long timeToRun) {
+
+		long lastTime = TimeUtils.nanoTime();
+
+		// We have to initialize the search if the status has just changed
+		if (request.statusChanged) {
+			initSearch(request.startNode, request.endNode, request.heuristic);
+			request.statusChanged = false;
+		}
+
+		// Iterate through processing each state
+		do {
+
+			// Check the available time
+			long currentTime = TimeUtils.nanoTime();
+			timeToRun -= currentTime - lastTime;
+			if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return false;
+
+			// Retrieve the state with smallest estimated total cost from the open list
+			expandNext();
+
+			// Terminate if we reached the goal or the window depth; we've found a path.
+			if (isEndState(request.endNode)) {
+				request.pathFound = true;
+
+				reservePath();
+				generateNodePath(request.resultPath);
+
+				return true;
+			}
+
+			// Visit current state's children
+			visitChildren(request.endNode, request.heuristic);
+
+			// Store the current time
+			lastTime = currentTime;
+
+		} while (openList.size > 0);
+
+		// The open list is empty and we've not found a path.
+		request.pathFound = false;
+		return true;
+	}
+
+	protected void initSearch (N startNode, N endNode, Heuristic<N> heuristic) {
+		if (metrics != null) metrics.reset();
+
+		// Forget the states of the previous search
+		stateSlots.clear();
+		stateCount = 0;
+		openList.clear();
+		goalReached = false;
+
+		// Initialize the start state and add it to the open list
+		int startSlot = touchState(startNode, graph.getIndex(startNode), 0, heuristic, endNode);
+		stateParent[startSlot] = -1;
+		stateConnection[startSlot] = null;
+		costSoFar[startSlot] = 0;
+		addToOpenList(startSlot, heuristicCost[startSlot]);
+
+		current = -1;
+	}
+
+	/** Pops the state with the smallest estimated total cost from the open list and closes it. */
+	protected void expandNext () {
+		current = openList.pop();
+		category[current] = CLOSED;
+	}
+
+	/** Returns {@code true} if the current state ends the path, i.e. it's the goal node and the agent can stay there until the end
+	 * of the window, or it's at the window depth. */
+	protected boolean isEndState (N endNode) {
+		int time = stateTime[current];
+		if (stateNode[current] == endNode) {
+			int nodeIndex = stateNodeIndex[current];
+			for (int t = time + 1; t <= windowDepth; t++)
+				if (!reservations.isFree(nodeIndex, startTime + t, agent)) return time == windowDepth;
+			goalReached = true;
+			return true;
+		}
+		return time == windowDepth;
+	}
+
+	protected void visitChildren (N endNode, Heuristic<N> heuristic) {
+		N node = stateNode[current];
+		int nodeIndex = stateNodeIndex[current];
+		int time = startTime + stateTime[current];
+
+		// Wait on the current node
+		if (reservations.canMove(nodeIndex, nodeIndex, time, agent)) visitState(node, nodeIndex, null, waitCost, endNode, heuristic);
+
+		// Get current node's outgoing connections
+		Array<Connection<N>> connections = graph.getConnections(node);
+
+		// Loop through each connection in turn
+		for (int i = 0; i < connections.size; i++) {
+			Connection<N> connection = connections.get(i);
+			N toNode = connection.getToNode();
+			int toNodeIndex = graph.getIndex(toNode);
+			if (reservations.canMove(nodeIndex, toNodeIndex, time, agent))
+				visitState(toNode, toNodeIndex, connection, connection.getCost(), endNode, heuristic);
+		}
+	}
+
+	private void visitState (N node, int nodeIndex, Connection<N> connection, float cost, N endNode, Heuristic<N> heuristic) {
+		if (metrics != null) metrics.visitedNodes++;
+
+		int slot = touchState(node, nodeIndex, stateTime[current] + 1, heuristic, endNode);
+		byte stateCategory = category[slot];
+
+		// Closed states are never reopened
+		if (stateCategory == CLOSED) return;
+
+		// If our route is no better, then skip
+		float stateCost = costSoFar[current] + cost;
+		if (stateCategory == OPEN && costSoFar[slot] <= stateCost) return;
+
+		// Update state's cost and parent
+		costSoFar[slot] = stateCost;
+		stateParent[slot] = current;
+		stateConnection[slot] = connection;
+
+		// Add it to the open list with the estimated total cost, or update it
+		if (stateCategory == OPEN) {
+			openList.setValue(slot, stateCost + heuristicCost[slot]);
+		} else {
+			addToOpenList(slot, stateCost + heuristicCost[slot]);
+		}
+	}
+
+	/** Records the path to the current state in the reservation table, replacing the previous reservations of the agent. If the
+	 * path ends at the goal node, the goal node is also reserved until the end of the window. */
+	protected void reservePath () {
+		if (!reservePaths) return;
+		reservations.releaseAgent(agent);
+		for (int slot = current; slot >= 0; slot = stateParent[slot])
+			reservations.reserve(stateNodeIndex[slot], startTime + stateTime[slot], agent);
+		if (goalReached) {
+			for (int t = stateTime[current] + 1; t <= windowDepth; t++)
+				reservations.reserve(stateNodeIndex[current], startTime + t, agent);
+		}
+	}
+
+	protected void generateConnectionPath (GraphPath<Connection<N>> outPath) {
+
+		// Work back along the path, accumulating connections
+		// outPath.clear();
+		for (int slot = current; stateParent[slot] >= 0; slot = stateParent[slot]) {
+			Connection<N> connection = stateConnection[slot];
+			outPath.add(connection != null ? connection : new WaitConnection<N>(stateNode[slot], waitCost));
+		}
+
+		// Reverse the path
+		outPath.reverse();
+	}
+
+	protected void generateNodePath (GraphPath<N> outPath) {
+
+		// Work back along the path, accumulating nodes
+		// outPath.clear();
+		for (int slot = current; slot >= 0; slot = stateParent[slot])
+			outPath.add(stateNode[slot]);
+
+		// Reverse the path
+		outPath.reverse();
+	}
+
+	protected void addToOpenList (int slot, float estimatedTotalCost) {
+		openList.add(slot, estimatedTotalCost);
+		category[slot] = OPEN;
+		if (metrics != null) {
+			metrics.openListAdditions++;
+			metrics.openListPeak = Math.max(metrics.openListPeak, openList.size);
+		}
+	}
+
+	/** Returns the slot of the given state, creating it if it has not been met by the current search yet.
+	 * @param node the node
+	 * @param nodeIndex the index of the node
+	 * @param time the time step relative to the start time
+	 * @param heuristic the heuristic used to estimate the cost of a new state
+	 * @param endNode the end node
+	 * @return the slot of the state */
+	protected int touchState (N node, int nodeIndex, int time, Heuristic<N> heuristic, N endNode) {
+		int key = time * graph.getNodeCount() + nodeIndex;
+		int slot = stateSlots.get(key, -1);
+		if (slot >= 0) return slot;
+		slot = stateCount++;
+		if (slot == category.length) growStates(slot << 1);
+		stateSlots.put(key, slot);
+		stateNode[slot] = node;
+		stateNodeIndex[slot] = nodeIndex;
+		stateTime[slot] = time;
+		heuristicCost[slot] = heuristic.estimate(node, endNode);
+		category[slot] = UNVISITED;
+		return slot;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void growStates (int capacity) {
+		N[] newStateNode = (N[])new Object[capacity];
+		System.arraycopy(stateNode, 0, newStateNode, 0, stateCount - 1);
+		stateNode = newStateNode;
+		Connection<N>[] newStateConnection = new Connection[capacity];
+		System.arraycopy(stateConnection, 0, newStateConnection, 0, stateCount - 1);
+		stateConnection = newStateConnection;
+		stateNodeIndex = copyOf(stateNodeIndex, capacity);
+		stateTime = copyOf(stateTime, capacity);
+		stateParent = copyOf(stateParent, capacity);
+		float[] newCostSoFar = new float[capacity];
+		System.arraycopy(costSoFar, 0, newCostSoFar, 0, stateCount - 1);
+		costSoFar = newCostSoFar;
+		float[] newHeuristicCost = new float[capacity];
+		System.arraycopy(heuristicCost, 0, newHeuristicCost, 0, stateCount - 1);
+		heuristicCost = newHeuristicCost;
+		byte[] newCategory = new byte[capacity];
+		System.arraycopy(category, 0, newCategory, 0, stateCount - 1);
+		category = newCategory;
+		openList.ensureCapacity(capacity);
+	}
+
+	private int[] copyOf (int[] array, int capacity) {
+		int[] newArray = new int[capacity];
+		System.arraycopy(array, 0, newArray, 0, stateCount - 1);
+		return newArray;
+	}
+
+	/** A {@link Connection} from a node to itself, standing for an agent waiting one time step, created on demand by a
+	 * {@link CooperativeAStarPathFinder}.
+	 *
+	 * @param <N> Type of node */
+	public static class WaitConnection<N> implements Connection<N> {
+		protected N node;
+		protected float cost;
+
+		public WaitConnection (N node, float cost) {
+			this.node = node;
+			this.cost = cost;
+		}
+
+		@Override
+		public float getCost () {
+			return cost;
+		}
+
+		@Override
+		public N getFromNode () {
+			return node;
+		}
+
+		@Override
+		public N getToNode () {
+			return node;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.utils.Array;
+
+/** An immutable {@link IndexedGraph} in compressed sparse row (CSR) format.
+ * <p>
+ * The outgoing connections of the node with index {@code i} are the edges in the range
+ * [{@code edgeOffsets[i]}, {@code edgeOffsets[i + 1]}); for each edge {@code e} the index of the target node is
+ * {@code edgeTargets[e]} and its cost is {@code edgeCosts[e]}. The whole topology is held by three primitive arrays, so no
+ * {@link Connection} object is kept in memory and visiting the neighbors of a node just means scanning a contiguous range of
+ * those arrays.
+ * <p>
+ * A {@code CsrIndexedGraph} is typically built once from any other {@link IndexedGraph} whose topology and costs don't change
+ * anymore, like a static navigation graph. Like any {@link EdgeIndexedGraph}, it's recognized by the
+ * {@link CompactIndexedAStarPathFinder}, which runs a specialized search that never touches {@link Connection} objects. Notice
+ * that {@link #getConnections(Object)} is still supported for compatibility with other path finders, but it creates a new array
+ * of connections at each call.
+ *
+ * @param <N> Type of node */
+public class CsrIndexedGraph<N> implements EdgeIndexedGraph<N> {
+
+	final IndexedGraph<N> indexer;
+	final N[] nodes;
+	final int[] edgeOffsets;
+	final int[] edgeTargets;
+	final float[] edgeCosts;
+
+	/** Creates a {@code CsrIndexedGraph} from the given graph. The current connections and their costs are copied, so subsequent
+	 * changes to the given graph are not reflected by this graph. The given graph is only used to get the index of the nodes.
+	 * @param graph the source graph
+	 * @param nodes the nodes of the source graph in any order; nodes not included here have no outgoing connections. */
+	@SuppressWarnings("unchecked")
+	public CsrIndexedGraph (IndexedGraph<N> graph, Array<N> nodes) {
+		int nodeCount = graph.getNodeCount();
+		this.indexer = graph;
+		this.nodes = (N[])new Object[nodeCount];
+		this.edgeOffsets = new int[nodeCount + 1];
+
+		// Count the outgoing connections of each node
+		for (int i = 0; i < nodes.size; i++) {
+			N node = nodes.get(i);
+			int index = graph.getIndex(node);
+			this.nodes[index] = node;
+			edgeOffsets[index + 1] = graph.getConnections(node).size;
+		}
+		for (int i = 0; i < nodeCount; i++)
+			edgeOffsets[i + 1] += edgeOffsets[i];
+
+		// Copy the connections
+		int edgeCount = edgeOffsets[nodeCount];
+		this.edgeTargets = new int[edgeCount];
+		this.edgeCosts = new float[edgeCount];
+		for (int i = 0; i < nodes.size; i++) {
+			N node = nodes.get(i);
+			int edge = edgeOffsets[graph.getIndex(node)];
+			Array<Connection<N>> connections = graph.getConnections(node);
+			for (int j = 0; j < connections.size; j++, edge++) {
+				Connection<N> connection = connections.get(j);
+				N toNode = connection.getToNode();
+				int toIndex = graph.getIndex(toNode);
+				if (this.nodes[toIndex] == null) this.nodes[toIndex] = toNode;
+				edgeTargets[edge] = toIndex;
+				edgeCosts[edge] = connection.getCost();
+			}
+		}
+	}
+
+	/** Creates a {@code CsrIndexedGraph} sharing the given arrays, which must not be modified afterwards. */
+	CsrIndexedGraph (IndexedGraph<N> indexer, N[] nodes, int[] edgeOffsets, int[] edgeTargets, float[] edgeCosts) {
+		this.indexer = indexer;
+		this.nodes = nodes;
+		this.edgeOffsets = edgeOffsets;
+		this.edgeTargets = edgeTargets;
+		this.edgeCosts = edgeCosts;
+	}
+
+	@Override
+	public int getIndex (N node) {
+		return indexer.getIndex(node);
+	}
+
+	@Override
+	public int getNodeCount () {
+		return nodes.length;
+	}
+
+	/** Returns the node with the given index or {@code null} if such a node has never been met while building this graph. */
+	@Override
+	public N getNode (int index) {
+		return nodes[index];
+	}
+
+	/** Returns the total number of edges, i.e. connections, of this graph. */
+	@Override
+	public int getEdgeCount () {
+		return edgeTargets.length;
+	}
+
+	/** Returns the first edge outgoing from the node with the given index. */
+	@Override
+	public int getEdgeStart (int nodeIndex) {
+		return edgeOffsets[nodeIndex];
+	}
+
+	/** Returns the edge following the last edge outgoing from the node with the given index. */
+	@Override
+	public int getEdgeEnd (int nodeIndex) {
+		return edgeOffsets[nodeIndex + 1];
+	}
+
+	/** Returns the index of the node the given edge leads to. */
+	@Override
+	public int getEdgeTarget (int edge) {
+		return edgeTargets[edge];
+	}
+
+	/** Returns the cost of the given edge. */
+	@Override
+	public float getEdgeCost (int edge) {
+		return edgeCosts[edge];
+	}
+
+	/** Returns a new {@code CsrIndexedGraph} with the same nodes of this graph and the same edges in the opposite direction. The
+	 * outgoing connections of a node in the returned graph are the incoming connections of the same node in this graph, which is
+	 * what a backward search needs.
+	 * <p>
+	 * The returned graph shares the nodes of this graph and uses the same indices. */
+	public CsrIndexedGraph<N> reverse () {
+		int nodeCount = nodes.length;
+		int edgeCount = edgeTargets.length;
+
+		// Count the incoming edges of each node
+		int[] reverseOffsets = new int[nodeCount + 1];
+		for (int edge = 0; edge < edgeCount; edge++)
+			reverseOffsets[edgeTargets[edge] + 1]++;
+		for (int i = 0; i < nodeCount; i++)
+			reverseOffsets[i + 1] += reverseOffsets[i];
+
+		// Fill the reversed edges keeping them sorted by source node
+		int[] next = new int[nodeCount];
+		System.arraycopy(reverseOffsets, 0, next, 0, nodeCount);
+		int[] reverseTargets = new int[edgeCount];
+		float[] reverseCosts = new float[edgeCount];
+		for (int from = 0; from < nodeCount; from++) {
+			for (int edge = edgeOffsets[from], end = edgeOffsets[from + 1]; edge < end; edge++) {
+				int position = next[edgeTargets[edge]]++;
+				reverseTargets[position] = from;
+				reverseCosts[position] = edgeCosts[edge];
+			}
+		}
+		return new CsrIndexedGraph<N>(indexer, nodes, reverseOffsets, reverseTargets, reverseCosts);
+	}
+
+	/** Creates a new {@link Connection} for the given edge.
+	 * @param fromIndex the index of the node the edge comes from
+	 * @param edge the edge */
+	@Override
+	public Connection<N> newConnection (int fromIndex, int edge) {
+		return new EdgeConnection<N>(nodes[fromIndex], nodes[edgeTargets[edge]], edgeCosts[edge]);
+	}
+
+	/** Returns a new array containing a new {@link Connection} for each edge outgoing from the given node. */
+	@Override
+	public Array<Connection<N>> getConnections (N fromNode) {
+		int fromIndex = indexer.getIndex(fromNode);
+		int start = edgeOffsets[fromIndex];
+		int end = edgeOffsets[fromIndex + 1];
+		Array<Connection<N>> connections = new Array<Connection<N>>(Math.max(1, end - start));
+		for (int edge = start; edge < end; edge++)
+			connections.add(newConnection(fromIndex, edge));
+		return connections;
+	}
+
+	/** A {@link Connection} created on demand from an edge of a {@link CsrIndexedGraph}.
+	 *
+	 * @param <N> Type of node */
+	public static class EdgeConnection<N> implements Connection<N> {
+		protected N fromNode;
+		protected N toNode;
+		protected float cost;
+
+		public EdgeConnection (N fromNode, N toNode, float cost) {
+			this.fromNode = fromNode;
+			this.toNode = toNode;
+			this.cost = cost;
+		}
+
+		@Override
+		public float getCost () {
+			return cost;
+		}
+
+		@Override
+		public N getFromNode () {
+			return fromNode;
+		}
+
+		@Override
+		public N getToNode () {
+			return toNode;
+		}
+	}
+}
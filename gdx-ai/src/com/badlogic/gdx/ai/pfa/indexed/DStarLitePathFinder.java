@@ -0,0 +1,534 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder.Metrics;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** An incremental {@link PathFinder} implementing D* Lite, which repairs the previous search instead of starting from scratch
+ * when the costs of some connections change or the start node moves along the path.
+ * <p>
+ * D* Lite searches backward from the end node, so the costs to the end node computed by a search remain valid when the agent
+ * moves, and only the nodes whose cost is affected by a change of the graph have to be processed again. Whenever the cost of a
+ * connection changes, or a connection is added or removed, the graph or its owner must call
+ * {@link #connectionChanged(Object, Object)}; the next search for the same end node with the same heuristic will only repair the
+ * affected part of the search tree. A search for a different end node or with a different heuristic starts from scratch.
+ * <p>
+ * Since the state of the last search is kept between requests, each agent needing incremental replanning should own its path
+ * finder. The heuristic must be consistent and is evaluated from the start node toward the other nodes, i.e.
+ * {@code heuristic.estimate(startNode, node)}. Connection costs can be {@link Float#POSITIVE_INFINITY infinite}, which is a
+ * convenient way to temporarily block a connection.
+ * <p>
+ * A backward search needs the incoming connections of each node, which {@link IndexedGraph} does not provide. They are collected
+ * from the nodes given to the constructor and from the connections notified through {@link #connectionChanged(Object, Object)}.
+ *
+ * @param <N> Type of node */
+public class DStarLitePathFinder<N> implements PathFinder<N> {
+	IndexedGraph<N> graph;
+
+	/** The nodes met so far, indexed by node index. */
+	N[] nodes;
+
+	/** The indices of the nodes having a connection to the node, indexed by node index. */
+	int[][] predecessors;
+
+	/** The number of predecessors of the node, indexed by node index. */
+	int[] predecessorCounts;
+
+	/** The cost to the end node, indexed by node index. */
+	float[] g;
+
+	/** The one-step lookahead cost to the end node, indexed by node index. */
+	float[] rhs;
+
+	/** The ID of the search that last touched the node, indexed by node index. */
+	int[] searchIds;
+
+	KeyHeap openList;
+
+	/** Whether the state of the last search can be repaired. */
+	boolean initialized;
+
+	N startNode;
+	N endNode;
+	Heuristic<N> heuristic;
+	int startIndex;
+	int endIndex;
+
+	/** The accumulated heuristic distance the start node moved since the search began. */
+	float keyModifier;
+
+	public Metrics metrics;
+
+	/** The unique ID for each search run. Used to mark nodes. */
+	private int searchId;
+
+	/** The primary and secondary key computed by the last call to {@link #calculateKey(int)}. */
+	private float key1, key2;
+
+	/** Creates a {@code DStarLitePathFinder} for the given graph.
+	 * @param graph the graph
+	 * @param nodes the nodes of the graph in any order; they are scanned to find the incoming connections of each node. */
+	public DStarLitePathFinder (IndexedGraph<N> graph, Array<N> nodes) {
+		this(graph, nodes, false);
+	}
+
+	/** Creates a {@code DStarLitePathFinder} for the given graph.
+	 * @param graph the graph
+	 * @param nodes the nodes of the graph in any order; they are scanned to find the incoming connections of each node.
+	 * @param calculateMetrics whether metrics are calculated */
+	@SuppressWarnings("unchecked")
+	public DStarLitePathFinder (IndexedGraph<N> graph, Array<N> nodes, boolean calculateMetrics) {
+		this.graph = graph;
+		int nodeCount = graph.getNodeCount();
+		this.nodes = (N[])new Object[nodeCount];
+		this.predecessors = new int[nodeCount][];
+		this.predecessorCounts = new int[nodeCount];
+		this.g = new float[nodeCount];
+		this.rhs = new float[nodeCount];
+		this.searchIds = new int[nodeCount];
+		this.openList = new KeyHeap(nodeCount);
+		if (calculateMetrics) this.metrics = new Metrics();
+
+		// Collect the incoming connections of each node
+		for (int i = 0; i < nodes.size; i++) {
+			N node = nodes.get(i);
+			int index = graph.getIndex(node);
+			this.nodes[index] = node;
+			Array<Connection<N>> connections = graph.getConnections(node);
+			for (int j = 0; j < connections.size; j++) {
+				N toNode = connections.get(j).getToNode();
+				int toIndex = graph.getIndex(toNode);
+				if (this.nodes[toIndex] == null) this.nodes[toIndex] = toNode;
+				addPredecessor(toIndex, index);
+			}
+		}
+	}
+
+	/** Notifies this path finder that the cost of the connection from {@code fromNode} to {@code toNode} has changed, or that
+	 * such a connection has been added or removed. The graph must already reflect the change when this method is called.
+	 * @param fromNode the node the connection comes from
+	 * @param toNode the node the connection leads to */
+	public void connectionChanged (N fromNode, N toNode) {
+		int fromIndex = graph.getIndex(fromNode);
+		int toIndex = graph.getIndex(toNode);
+		nodes[fromIndex] = fromNode;
+		nodes[toIndex] = toNode;
+		addPredecessor(toIndex, fromIndex);
+
+		// Nothing to repair if no search has been performed yet
+		if (!initialized) return;
+
+		touchNode(fromIndex);
+		if (fromIndex != endIndex) {
+			rhs[fromIndex] = minSuccessorCost(fromIndex);
+			updateNode(fromIndex);
+		}
+	}
+
+	/** Discards the state of the last search, so that the next search starts from scratch. */
+	public void reset () {
+		initialized = false;
+		openList.clear();
+	}
+
+	@Override
+	public boolean searchConnectionPath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<Connection<N>> outPath) {
+
+		// Perform D* Lite
+		boolean found = search(startNode, endNode, heuristic);
+
+		if (found) {
+			// Create a path made of connections
+			generateConnectionPath(outPath);
+		}
+
+		return found;
+	}
+
+	@Override
+	public boolean searchNodePath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<N> outPath) {
+
+		// Perform D* Lite
+		boolean found = search(startNode, endNode, heuristic);
+
+		if (found) {
+			// Create a path made of nodes
+			generateNodePath(outPath);
+		}
+
+		return found;
+	}
+
+	protected boolean search (N startNode, N endNode, Heuristic<N> heuristic) {
+		initSearch(startNode, endNode, heuristic);
+		computeShortestPath(Long.MAX_VALUE);
+		return g[startIndex] != Float.POSITIVE_INFINITY;
+	}
+
+	@Override
+	public boolean search (PathFinderRequest<N> request, long timeToRun) {
+
+		// We have to initialize the search if the status has just changed
+		if (request.statusChanged) {
+			initSearch(request.startNode, request.endNode, request.heuristic);
+			request.statusChanged = false;
+		}
+
+		if (!computeShortestPath(timeToRun)) return false;
+
+		request.pathFound = g[startIndex] != Float.POSITIVE_INFINITY;
+		if (request.pathFound) generateNodePath(request.resultPath);
+		return true;
+	}
+
+	/** Prepares a search from the given start node, repairing the state of the last search when the end node and the heuristic
+	 * have not changed. */
+	protected void initSearch (N startNode, N endNode, Heuristic<N> heuristic) {
+		if (metrics != null) metrics.reset();
+
+		int startIndex = graph.getIndex(startNode);
+		nodes[startIndex] = startNode;
+		if (initialized && endNode == this.endNode && heuristic == this.heuristic) {
+			// The start node may have moved: the keys already in the open list are still lower bounds once increased by the
+			// heuristic distance covered
+			keyModifier += heuristic.estimate(this.startNode, startNode);
+		} else {
+			// Increment the search id
+			if (++searchId < 0) searchId = 1;
+
+			openList.clear();
+			keyModifier = 0;
+			this.endNode = endNode;
+			this.heuristic = heuristic;
+			this.endIndex = touchNode(graph.getIndex(endNode));
+			nodes[endIndex] = endNode;
+			rhs[endIndex] = 0;
+			initialized = true;
+		}
+		this.startNode = startNode;
+		this.startIndex = touchNode(startIndex);
+		updateNode(endIndex);
+	}
+
+	/** Processes the inconsistent nodes until the cost of the start node is known.
+	 * @param timeToRun the time in nanoseconds that can be used
+	 * @return {@code true} if the cost of the start node is known; {@code false} if the time has run out. */
+	protected boolean computeShortestPath (long timeToRun) {
+		long lastTime = TimeUtils.nanoTime();
+		KeyHeap openList = this.openList;
+		float[] g = this.g;
+		float[] rhs = this.rhs;
+
+		while (openList.size > 0) {
+			int current = openList.peek();
+			float oldKey1 = openList.getKey1(current);
+			float oldKey2 = openList.getKey2(current);
+
+			// Terminate when the start node is consistent and no node in the open list can improve it
+			calculateKey(startIndex);
+			if (!KeyHeap.lessThan(oldKey1, oldKey2, key1, key2) && rhs[startIndex] == g[startIndex]) break;
+
+			// Check the available time
+			if (timeToRun != Long.MAX_VALUE) {
+				long currentTime = TimeUtils.nanoTime();
+				timeToRun -= currentTime - lastTime;
+				if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return false;
+				lastTime = currentTime;
+			}
+
+			calculateKey(current);
+			if (KeyHeap.lessThan(oldKey1, oldKey2, key1, key2)) {
+				// The key is outdated because the start node has moved
+				openList.setKeys(current, key1, key2);
+			} else if (g[current] > rhs[current]) {
+				// Overconsistent: the node gets cheaper and so may do its predecessors
+				g[current] = rhs[current];
+				openList.remove(current);
+				int[] currentPredecessors = predecessors[current];
+				for (int i = 0, n = predecessorCounts[current]; i < n; i++) {
+					int predecessor = touchNode(currentPredecessors[i]);
+					if (predecessor != endIndex) {
+						float cost = connectionCost(predecessor, current) + g[current];
+						if (cost < rhs[predecessor]) rhs[predecessor] = cost;
+					}
+					updateNode(predecessor);
+				}
+			} else {
+				// Underconsistent: the predecessors whose best successor was this node must look for another one
+				float oldG = g[current];
+				g[current] = Float.POSITIVE_INFINITY;
+				int[] currentPredecessors = predecessors[current];
+				for (int i = 0, n = predecessorCounts[current]; i < n; i++) {
+					int predecessor = touchNode(currentPredecessors[i]);
+					if (predecessor != endIndex && rhs[predecessor] == connectionCost(predecessor, current) + oldG)
+						rhs[predecessor] = minSuccessorCost(predecessor);
+					updateNode(predecessor);
+				}
+				if (current != endIndex) rhs[current] = minSuccessorCost(current);
+				updateNode(current);
+			}
+		}
+		return true;
+	}
+
+	protected void generateConnectionPath (GraphPath<Connection<N>> outPath) {
+
+		// Follow the cheapest connections from the start node
+		int current = startIndex;
+		for (int steps = nodes.length; current != endIndex && steps > 0; steps--) {
+			Connection<N> connection = bestConnection(current);
+			if (connection == null) break;
+			outPath.add(connection);
+			current = graph.getIndex(connection.getToNode());
+		}
+	}
+
+	protected void generateNodePath (GraphPath<N> outPath) {
+
+		// Follow the cheapest connections from the start node
+		int current = startIndex;
+		outPath.add(startNode);
+		for (int steps = nodes.length; current != endIndex && steps > 0; steps--) {
+			Connection<N> connection = bestConnection(current);
+			if (connection == null) break;
+			N node = connection.getToNode();
+			outPath.add(node);
+			current = graph.getIndex(node);
+		}
+	}
+
+	/** Returns the outgoing connection of the given node leading to the cheapest path to the end node or {@code null} if there's
+	 * no such a connection. */
+	Connection<N> bestConnection (int nodeIndex) {
+		Array<Connection<N>> connections = graph.getConnections(nodes[nodeIndex]);
+		Connection<N> best = null;
+		float bestCost = Float.POSITIVE_INFINITY;
+		for (int i = 0; i < connections.size; i++) {
+			Connection<N> connection = connections.get(i);
+			int toIndex = touchNode(graph.getIndex(connection.getToNode()));
+			float cost = connection.getCost() + g[toIndex];
+			if (cost < bestCost) {
+				bestCost = cost;
+				best = connection;
+			}
+		}
+		return best;
+	}
+
+	/** Returns the minimum cost to the end node through the outgoing connections of the given node. */
+	float minSuccessorCost (int nodeIndex) {
+		Array<Connection<N>> connections = graph.getConnections(nodes[nodeIndex]);
+		float min = Float.POSITIVE_INFINITY;
+		for (int i = 0; i < connections.size; i++) {
+			if (metrics != null) metrics.visitedNodes++;
+			Connection<N> connection = connections.get(i);
+			N toNode = connection.getToNode();
+			int toIndex = touchNode(graph.getIndex(toNode));
+			if (nodes[toIndex] == null) nodes[toIndex] = toNode;
+			float cost = connection.getCost() + g[toIndex];
+			if (cost < min) min = cost;
+		}
+		return min;
+	}
+
+	/** Returns the cost of the cheapest connection from the first node to the second one or {@link Float#POSITIVE_INFINITY} if
+	 * there's no such a connection. */
+	float connectionCost (int fromIndex, int toIndex) {
+		if (metrics != null) metrics.visitedNodes++;
+		Array<Connection<N>> connections = graph.getConnections(nodes[fromIndex]);
+		float min = Float.POSITIVE_INFINITY;
+		for (int i = 0; i < connections.size; i++) {
+			Connection<N> connection = connections.get(i);
+			if (graph.getIndex(connection.getToNode()) == toIndex && connection.getCost() < min) min = connection.getCost();
+		}
+		return min;
+	}
+
+	/** Adds, updates or removes the given node to or from the open list depending on whether it's inconsistent. */
+	void updateNode (int nodeIndex) {
+		if (g[nodeIndex] != rhs[nodeIndex]) {
+			calculateKey(nodeIndex);
+			if (openList.contains(nodeIndex)) {
+				openList.setKeys(nodeIndex, key1, key2);
+			} else {
+				openList.add(nodeIndex, key1, key2);
+				if (metrics != null) {
+					metrics.openListAdditions++;
+					metrics.openListPeak = Math.max(metrics.openListPeak, openList.size);
+				}
+			}
+		} else {
+			openList.remove(nodeIndex);
+		}
+	}
+
+	/** Calculates the key of the given node into {@link #key1} and {@link #key2}. */
+	void calculateKey (int nodeIndex) {
+		float cost = Math.min(g[nodeIndex], rhs[nodeIndex]);
+		key1 = cost == Float.POSITIVE_INFINITY ? cost : cost + heuristic.estimate(startNode, nodes[nodeIndex]) + keyModifier;
+		key2 = cost;
+	}
+
+	/** Resets the state of the node with the given index if it has not been touched by the current search yet.
+	 * @param nodeIndex the node index
+	 * @return the node index */
+	int touchNode (int nodeIndex) {
+		if (searchIds[nodeIndex] != searchId) {
+			g[nodeIndex] = Float.POSITIVE_INFINITY;
+			rhs[nodeIndex] = Float.POSITIVE_INFINITY;
+			searchIds[nodeIndex] = searchId;
+		}
+		return nodeIndex;
+	}
+
+	private void addPredecessor (int nodeIndex, int predecessor) {
+		int[] nodePredecessors = predecessors[nodeIndex];
+		int count = predecessorCounts[nodeIndex];
+		if (nodePredecessors == null) {
+			nodePredecessors = predecessors[nodeIndex] = new int[4];
+		} else {
+			for (int i = 0; i < count; i++)
+				if (nodePredecessors[i] == predecessor) return;
+			if (count == nodePredecessors.length) {
+				int[] newPredecessors = new int[count << 1];
+				System.arraycopy(nodePredecessors, 0, newPredecessors, 0, count);
+				nodePredecessors = predecessors[nodeIndex] = newPredecessors;
+			}
+		}
+		nodePredecessors[count] = predecessor;
+		predecessorCounts[nodeIndex] = count + 1;
+	}
+
+	/** A binary min-heap of node indices ordered lexicographically by two {@code float} keys. */
+	static class KeyHeap {
+		int size;
+		private final int[] heap;
+		private final int[] positions;
+		private final float[] keys1;
+		private final float[] keys2;
+
+		KeyHeap (int capacity) {
+			this.heap = new int[capacity];
+			this.positions = new int[capacity];
+			this.keys1 = new float[capacity];
+			this.keys2 = new float[capacity];
+			for (int i = 0; i < capacity; i++)
+				positions[i] = -1;
+		}
+
+		static boolean lessThan (float a1, float a2, float b1, float b2) {
+			return a1 < b1 || (a1 == b1 && a2 < b2);
+		}
+
+		void add (int element, float key1, float key2) {
+			keys1[element] = key1;
+			keys2[element] = key2;
+			heap[size] = element;
+			positions[element] = size;
+			up(size++);
+		}
+
+		int peek () {
+			return heap[0];
+		}
+
+		float getKey1 (int element) {
+			return keys1[element];
+		}
+
+		float getKey2 (int element) {
+			return keys2[element];
+		}
+
+		boolean contains (int element) {
+			return positions[element] >= 0;
+		}
+
+		void remove (int element) {
+			int index = positions[element];
+			if (index < 0) return;
+			positions[element] = -1;
+			if (--size > index) {
+				int last = heap[size];
+				heap[index] = last;
+				positions[last] = index;
+				up(index);
+				down(positions[last]);
+			}
+		}
+
+		void setKeys (int element, float key1, float key2) {
+			keys1[element] = key1;
+			keys2[element] = key2;
+			int index = positions[element];
+			up(index);
+			down(positions[element]);
+		}
+
+		void clear () {
+			for (int i = 0; i < size; i++)
+				positions[heap[i]] = -1;
+			size = 0;
+		}
+
+		private boolean less (int a, int b) {
+			return lessThan(keys1[a], keys2[a], keys1[b], keys2[b]);
+		}
+
+		private void up (int index) {
+			int element = heap[index];
+			while (index > 0) {
+				int parentIndex = (index - 1) >> 1;
+				int parent = heap[parentIndex];
+				if (!less(element, parent)) break;
+				heap[index] = parent;
+				positions[parent] = index;
+				index = parentIndex;
+			}
+			heap[index] = element;
+			positions[element] = index;
+		}
+
+		private void down (int index) {
+			int element = heap[index];
+			while (true) {
+				int childIndex = 1 + (index << 1);
+				if (childIndex >= size) break;
+				int child = heap[childIndex];
+				int rightIndex = childIndex + 1;
+				if (rightIndex < size && less(heap[rightIndex], child)) {
+					childIndex = rightIndex;
+					child = heap[rightIndex];
+				}
+				if (!less(child, element)) break;
+				heap[index] = child;
+				positions[child] = index;
+				index = childIndex;
+			}
+			heap[index] = element;
+			positions[element] = index;
+		}
+	}
+}
@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder.Metrics;
+import com.badlogic.gdx.ai.utils.IntBinaryHeap;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+/** A Dijkstra search over an {@link IndexedGraph} answering the queries that involve many candidate end nodes at once, like
+ * "the nearest health pack" or "the 3 closest of these 40 cover points", with a single search instead of a path finder search
+ * per candidate:
+ * <ul>
+ * <li>{@link #searchNearest(Object, Array)} stops at the first goal node reached;</li>
+ * <li>{@link #searchNearest(Object, Array, int, Array)} collects the k nearest goal nodes;</li>
+ * <li>{@link #searchWithinBudget(Object, float, IntArray, FloatArray)} computes the cost to every node reachable within a given
+ * cost.</li>
+ * </ul>
+ * After a search, {@link #getCost(Object)} returns the cost from the start node to any node settled by the search, i.e. any node
+ * whose cost is not higher than the cost of the last goal found, and the path to such a node can be generated through
+ * {@link #generateNodePath(Object, GraphPath)} or {@link #generateConnectionPath(Object, GraphPath)}.
+ * <p>
+ * Like the {@link CompactIndexedAStarPathFinder}, the search state is kept in primitive arrays indexed by node index, so nothing
+ * is allocated during the searches. Also, the incoming connection of a node is not stored, so the graph is expected to return
+ * the connections of a node in the same order until the connection path has been generated.
+ *
+ * @param <N> Type of node */
+public class DijkstraSearch<N> {
+	IndexedGraph<N> graph;
+
+	/** The actual cost from the start node, indexed by node index. */
+	float[] costSoFar;
+
+	/** The index of the parent node or {@code -1} for the start node, indexed by node index. */
+	int[] parent;
+
+	/** The position of the incoming connection in the connection array of the parent node, indexed by node index. */
+	int[] parentConnection;
+
+	/** The node category: {@link #UNVISITED}, {@link #OPEN} or {@link #CLOSED}, indexed by node index. */
+	byte[] category;
+
+	/** The ID of the search that last touched the node, indexed by node index. */
+	int[] searchIds;
+
+	/** The ID of the search the node is a goal of, indexed by node index. */
+	int[] goalIds;
+
+	/** The nodes met so far, indexed by node index. */
+	N[] nodes;
+
+	IntBinaryHeap openList;
+
+	public Metrics metrics;
+
+	/** The unique ID for each search run. Used to mark nodes. */
+	private int searchId;
+
+	private static final byte UNVISITED = 0;
+	private static final byte OPEN = 1;
+	private static final byte CLOSED = 2;
+
+	public DijkstraSearch (IndexedGraph<N> graph) {
+		this(graph, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	public DijkstraSearch (IndexedGraph<N> graph, boolean calculateMetrics) {
+		this.graph = graph;
+		int nodeCount = graph.getNodeCount();
+		this.costSoFar = new float[nodeCount];
+		this.parent = new int[nodeCount];
+		this.parentConnection = new int[nodeCount];
+		this.category = new byte[nodeCount];
+		this.searchIds = new int[nodeCount];
+		this.goalIds = new int[nodeCount];
+		this.nodes = (N[])new Object[nodeCount];
+		this.openList = new IntBinaryHeap(nodeCount);
+		if (calculateMetrics) this.metrics = new Metrics();
+	}
+
+	/** Searches the goal node nearest to the given start node.
+	 * @param startNode the start node
+	 * @param goalNodes the goal nodes
+	 * @return the nearest goal node or {@code null} if no goal node can be reached. */
+	public N searchNearest (N startNode, Array<N> goalNodes) {
+		initSearch(startNode, goalNodes, Float.POSITIVE_INFINITY);
+
+		// Settle the nodes in order of cost until a goal is met
+		while (openList.size > 0) {
+			int current = openList.pop();
+			category[current] = CLOSED;
+			if (goalIds[current] == searchId) return nodes[current];
+			visitChildren(current, Float.POSITIVE_INFINITY);
+		}
+		return null;
+	}
+
+	/** Searches the k goal nodes nearest to the given start node.
+	 * @param startNode the start node
+	 * @param goalNodes the goal nodes
+	 * @param k the maximum number of goal nodes to find
+	 * @param outGoals the output array the goal nodes found are added to, in order of increasing cost
+	 * @return the number of goal nodes found, which is lower than {@code k} if fewer goal nodes can be reached. */
+	public int searchNearest (N startNode, Array<N> goalNodes, int k, Array<N> outGoals) {
+		initSearch(startNode, goalNodes, Float.POSITIVE_INFINITY);
+
+		// Settle the nodes in order of cost until k goals are met
+		int found = 0;
+		while (found < k && openList.size > 0) {
+			int current = openList.pop();
+			category[current] = CLOSED;
+			if (goalIds[current] == searchId) {
+				outGoals.add(nodes[current]);
+				if (++found == k) break;
+			}
+			visitChildren(current, Float.POSITIVE_INFINITY);
+		}
+		return found;
+	}
+
+	/** Computes the cost from the given start node to every node that can be reached within the given cost.
+	 * @param startNode the start node
+	 * @param maxCost the maximum cost
+	 * @param outNodeIndices the output array the indices of the nodes reached are added to, in order of increasing cost; can be
+	 *           {@code null}
+	 * @param outCosts the output array the costs of the nodes reached are added to, in the same order; can be {@code null}
+	 * @return the number of nodes reached, including the start node. */
+	public int searchWithinBudget (N startNode, float maxCost, IntArray outNodeIndices, FloatArray outCosts) {
+		initSearch(startNode, null, maxCost);
+
+		// Settle all the nodes within budget, since the nodes beyond it are never added to the open list
+		int reached = 0;
+		while (openList.size > 0) {
+			int current = openList.pop();
+			category[current] = CLOSED;
+			if (outNodeIndices != null) outNodeIndices.add(current);
+			if (outCosts != null) outCosts.add(costSoFar[current]);
+			reached++;
+			visitChildren(current, maxCost);
+		}
+		return reached;
+	}
+
+	/** Returns the cost from the start node of the last search to the given node, or {@link Float#POSITIVE_INFINITY} if the node
+	 * has not been settled by the last search. */
+	public float getCost (N node) {
+		int nodeIndex = graph.getIndex(node);
+		return isSettled(nodeIndex) ? costSoFar[nodeIndex] : Float.POSITIVE_INFINITY;
+	}
+
+	/** Adds to the given path, which is expected to be empty, the nodes from the start node of the last search to the given node.
+	 * @return {@code true} if the node has been settled by the last search; {@code false} otherwise, in which case the path is
+	 *         left untouched. */
+	public boolean generateNodePath (N node, GraphPath<N> outPath) {
+		int current = graph.getIndex(node);
+		if (!isSettled(current)) return false;
+
+		// Work back along the path, accumulating nodes
+		for (; current >= 0; current = parent[current])
+			outPath.add(nodes[current]);
+
+		// Reverse the path
+		outPath.reverse();
+		return true;
+	}
+
+	/** Adds to the given path, which is expected to be empty, the connections from the start node of the last search to the given
+	 * node.
+	 * @return {@code true} if the node has been settled by the last search; {@code false} otherwise, in which case the path is
+	 *         left untouched. */
+	public boolean generateConnectionPath (N node, GraphPath<Connection<N>> outPath) {
+		int current = graph.getIndex(node);
+		if (!isSettled(current)) return false;
+
+		// Work back along the path, accumulating connections
+		for (; parent[current] >= 0; current = parent[current])
+			outPath.add(graph.getConnections(nodes[parent[current]]).get(parentConnection[current]));
+
+		// Reverse the path
+		outPath.reverse();
+		return true;
+	}
+
+	protected void initSearch (N startNode, Array<N> goalNodes, float maxCost) {
+		if (metrics != null) metrics.reset();
+
+		// Increment the search id
+		if (++searchId < 0) searchId = 1;
+
+		// Initialize the open list
+		openList.clear();
+
+		// Mark the goal nodes
+		if (goalNodes != null) {
+			for (int i = 0; i < goalNodes.size; i++)
+				goalIds[graph.getIndex(goalNodes.get(i))] = searchId;
+		}
+
+		// Initialize the start node and add it to the open list
+		int startIndex = touchNode(graph.getIndex(startNode), startNode);
+		parent[startIndex] = -1;
+		costSoFar[startIndex] = 0;
+		if (maxCost >= 0) addToOpenList(startIndex, 0);
+	}
+
+	protected void visitChildren (int current, float maxCost) {
+
+		// Get current node's outgoing connections
+		Array<Connection<N>> connections = graph.getConnections(nodes[current]);
+		float currentCostSoFar = costSoFar[current];
+
+		// Loop through each connection in turn
+		for (int i = 0; i < connections.size; i++) {
+			if (metrics != null) metrics.visitedNodes++;
+
+			Connection<N> connection = connections.get(i);
+			N node = connection.getToNode();
+			float nodeCost = currentCostSoFar + connection.getCost();
+
+			// Nodes beyond the budget are never settled
+			if (nodeCost > maxCost) continue;
+
+			int nodeIndex = touchNode(graph.getIndex(node), node);
+			byte nodeCategory = category[nodeIndex];
+
+			// Settled nodes already have their lowest cost
+			if (nodeCategory == CLOSED) continue;
+
+			if (nodeCategory == OPEN) {
+				// If our route is no better, then skip
+				if (costSoFar[nodeIndex] <= nodeCost) continue;
+				openList.setValue(nodeIndex, nodeCost);
+			} else {
+				addToOpenList(nodeIndex, nodeCost);
+			}
+
+			// Update node's cost and parent
+			costSoFar[nodeIndex] = nodeCost;
+			parent[nodeIndex] = current;
+			parentConnection[nodeIndex] = i;
+		}
+	}
+
+	protected void addToOpenList (int nodeIndex, float cost) {
+		openList.add(nodeIndex, cost);
+		category[nodeIndex] = OPEN;
+		if (metrics != null) {
+			metrics.openListAdditions++;
+			metrics.openListPeak = Math.max(metrics.openListPeak, openList.size);
+		}
+	}
+
+	private boolean isSettled (int nodeIndex) {
+		return searchIds[nodeIndex] == searchId && category[nodeIndex] == CLOSED;
+	}
+
+	/** Resets the state of the given node if it has not been touched by the current search yet.
+	 * @param nodeIndex the index of the node
+	 * @param node the node
+	 * @return the index of the node */
+	protected int touchNode (int nodeIndex, N node) {
+		if (searchIds[nodeIndex] != searchId) {
+			category[nodeIndex] = UNVISITED;
+			searchIds[nodeIndex] = searchId;
+			nodes[nodeIndex] = node;
+		}
+		return nodeIndex;
+	}
+}
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+
+/** An {@link IndexedGraph} exposing its connections as edges identified by an index, so that a path finder can visit the
+ * neighbors of a node without creating any {@link Connection}.
+ * <p>
+ * The outgoing edges of the node with index {@code i} are the ones in the range [{@link #getEdgeStart(int) getEdgeStart(i)},
+ * {@link #getEdgeEnd(int) getEdgeEnd(i)}). The {@link CompactIndexedAStarPathFinder}, the
+ * {@link BidirectionalIndexedAStarPathFinder} and the {@link ContractionHierarchyPathFinder} read the edges of such a graph
+ * directly.
+ *
+ * @param <N> Type of node */
+public interface EdgeIndexedGraph<N> extends IndexedGraph<N> {
+
+	/** Returns the node with the given index. */
+	public N getNode (int index);
+
+	/** Returns the total number of edges, i.e. connections, of this graph. */
+	public int getEdgeCount ();
+
+	/** Returns the first edge outgoing from the node with the given index. */
+	public int getEdgeStart (int nodeIndex);
+
+	/** Returns the edge following the last edge outgoing from the node with the given index. */
+	public int getEdgeEnd (int nodeIndex);
+
+	/** Returns the index of the node the given edge leads to. */
+	public int getEdgeTarget (int edge);
+
+	/** Returns the cost of the given edge. */
+	public float getEdgeCost (int edge);
+
+	/** Creates a new {@link Connection} for the given edge.
+	 * @param fromIndex the index of the node the edge comes from
+	 * @param edge the edge */
+	public Connection<N> newConnection (int fromIndex, int edge);
+
+}
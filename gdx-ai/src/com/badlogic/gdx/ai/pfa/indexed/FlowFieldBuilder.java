@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.steer.behaviors.FollowFlowField;
+import com.badlogic.gdx.ai.steer.behaviors.FollowFlowField.FlowField;
+import com.badlogic.gdx.math.Vector;
+import com.badlogic.gdx.utils.Array;
+
+/** A {@code FlowFieldBuilder} produces the {@link IndexedFlowField flow fields} leading to given goal nodes of an
+ * {@link IndexedGraph}, so that any number of agents can move toward the same goal through a {@link FollowFlowField} behavior.
+ * Each flow field is computed by a single Dijkstra search from its goal node over the reversed graph, which is far cheaper than a
+ * path finder search per agent.
+ * <p>
+ * The builder keeps the most recently used flow fields, up to a given capacity. A flow field requested for a goal node that is not
+ * in the cache is a new object replacing the least recently used one, which is {@link IndexedFlowField#isValid() invalidated} so
+ * that the behaviors still holding it stop steering instead of following the new goal; only its arrays are reused. The new flow
+ * field is returned incomplete so that it can be built over multiple frames by a {@link com.badlogic.gdx.ai.sched.Scheduler
+ * Scheduler}, or at once by {@link IndexedFlowField#build()}.
+ * <p>
+ * The topology and the costs of the graph are copied when the first flow field is requested. Whenever the graph changes,
+ * {@link #incrementGraphVersion()} must be called to copy them again and discard the cached flow fields.
+ *
+ * @param <N> Type of node
+ * @param <T> Type of vector, either 2D or 3D, implementing the {@link Vector} interface */
+public class FlowFieldBuilder<N, T extends Vector<T>> {
+
+	IndexedGraph<N> graph;
+	Array<N> nodes;
+	Locator<N, T> locator;
+	int capacity;
+
+	/** The reversed copy of the graph or {@code null} if it has to be created. */
+	CsrIndexedGraph<N> reverseGraph;
+
+	/** The cached flow fields from the most recently used to the least recently used. */
+	final Array<IndexedFlowField<N, T>> flowFields;
+
+	/** The number of requests satisfied by a cached flow field. */
+	public int hits;
+
+	/** The number of requests that created a new flow field. */
+	public int misses;
+
+	/** The number of flow fields evicted to make room for new ones. */
+	public int evictions;
+
+	/** Creates a {@code FlowFieldBuilder}.
+	 * @param graph the graph
+	 * @param nodes the nodes of the graph in any order; nodes not included here are never part of a flow field
+	 * @param locator the locator mapping positions to nodes and back
+	 * @param capacity the maximum number of cached flow fields */
+	public FlowFieldBuilder (IndexedGraph<N> graph, Array<N> nodes, Locator<N, T> locator, int capacity) {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+		this.graph = graph;
+		this.nodes = nodes;
+		this.locator = locator;
+		this.capacity = capacity;
+		this.flowFields = new Array<IndexedFlowField<N, T>>(capacity);
+	}
+
+	/** Returns the maximum number of cached flow fields. */
+	public int getCapacity () {
+		return capacity;
+	}
+
+	/** Discards the cached flow fields and the copy of the graph. This method must be called whenever the graph changes. */
+	public void incrementGraphVersion () {
+		reverseGraph = null;
+		for (int i = 0; i < flowFields.size; i++)
+			flowFields.get(i).invalidate();
+	}
+
+	/** Resets the hit and miss counters. */
+	public void resetStatistics () {
+		hits = misses = evictions = 0;
+	}
+
+	/** Returns the flow field leading to the given goal node. If the flow field is not in the cache, a new one is returned that is
+	 * not complete yet: it can be built at once by {@link IndexedFlowField#build()} or over multiple frames by a scheduler.
+	 * @param goalNode the goal node */
+	public IndexedFlowField<N, T> getFlowField (N goalNode) {
+		// Look for the flow field in the cache, most recently used first
+		for (int i = 0; i < flowFields.size; i++) {
+			IndexedFlowField<N, T> flowField = flowFields.get(i);
+			if (flowField.goalNode == goalNode && flowField.valid) {
+				hits++;
+				if (i > 0) flowFields.insert(0, flowFields.removeIndex(i));
+				return flowField;
+			}
+		}
+		misses++;
+
+		// Copy the graph if needed
+		if (reverseGraph == null) reverseGraph = new CsrIndexedGraph<N>(graph, nodes).reverse();
+
+		// Recycle the arrays of an invalid flow field or of the least recently used one, if the cache is full
+		IndexedFlowField<N, T> recycled = null;
+		for (int i = flowFields.size - 1; i >= 0; i--) {
+			if (!flowFields.get(i).valid) {
+				recycled = flowFields.removeIndex(i);
+				break;
+			}
+		}
+		if (recycled == null && flowFields.size == capacity) {
+			recycled = flowFields.pop();
+			recycled.invalidate();
+			evictions++;
+		}
+		int nodeCount = graph.getNodeCount();
+		IndexedFlowField<N, T> flowField = recycled != null && recycled.costs.length == nodeCount
+			? new IndexedFlowField<N, T>(recycled) : new IndexedFlowField<N, T>(locator, nodeCount);
+		flowField.reset(reverseGraph, goalNode);
+		flowFields.insert(0, flowField);
+		return flowField;
+	}
+
+	/** Returns the complete flow field leading to the given goal node, building it at once if it's not in the cache.
+	 * @param goalNode the goal node */
+	public IndexedFlowField<N, T> buildFlowField (N goalNode) {
+		IndexedFlowField<N, T> flowField = getFlowField(goalNode);
+		flowField.build();
+		return flowField;
+	}
+
+	/** A {@code Locator} maps the positions in space to the nodes of the graph and back.
+	 *
+	 * @param <N> Type of node
+	 * @param <T> Type of vector, either 2D or 3D, implementing the {@link Vector} interface */
+	public interface Locator<N, T extends Vector<T>> {
+
+		/** Returns the node the given position falls into, or {@code null} if there's no such a node.
+		 * @param position the position */
+		public N getNode (T position);
+
+		/** Returns the position of the given node. The returned vector is never modified by the flow field.
+		 * @param node the node */
+		public T getPosition (N node);
+	}
+}
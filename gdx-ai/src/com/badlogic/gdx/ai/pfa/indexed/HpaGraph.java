@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.HierarchicalPathFinder;
+import com.badlogic.gdx.ai.utils.IntBinaryHeap;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/** A two-level {@link IndexedHierarchicalGraph} built by HPA* (Hierarchical Path-Finding A*) on top of any {@link IndexedGraph};
+ * use an {@link HpaGraphBuilder} to create it.
+ * <p>
+ * The nodes of the underlying graph are partitioned into clusters. A node with a connection to or from another cluster is an
+ * entrance. Level 0 is the underlying graph itself, while level 1 is the abstract graph of the entrances: each entrance keeps
+ * its connections to other clusters and gets an abstract connection to each entrance of its own cluster it can reach without
+ * leaving the cluster, whose cost is precomputed by a Dijkstra search restricted to the cluster. Since the entrances are nodes of
+ * the underlying graph, both levels share the same nodes, indices and heuristics.
+ * <p>
+ * Converting an entrance from level 0 to level 1 returns the entrance itself, while converting any other node returns the
+ * representative entrance of its cluster, i.e. the entrance with the most abstract connections inside the cluster, so that a
+ * {@link HierarchicalPathFinder} plans between the clusters of the start and end nodes at level 1 and refines the first move at
+ * level 0. Converting a node from level 1 to level 0 returns the node itself.
+ * <p>
+ * When the map changes, {@link #rebuildClusters(Array)} only recomputes the abstract connections of the clusters touched by the
+ * change. The partition into clusters is kept as is; build a new graph if the change is big enough to require a new partition.
+ *
+ * @param <N> Type of node */
+public class HpaGraph<N> extends IndexedHierarchicalGraph<N> {
+
+	final IndexedGraph<N> graph;
+
+	/** The nodes of the underlying graph, indexed by node index. */
+	final N[] nodes;
+
+	/** The cluster of each node or {@code -1} for unknown nodes, indexed by node index. */
+	final int[] clusters;
+
+	/** The indices of the nodes of each cluster, indexed by cluster. */
+	final int[][] clusterNodes;
+
+	/** The representative entrance of each cluster, or its first node if it has no entrance, indexed by cluster. */
+	final int[] representatives;
+
+	/** The number of connections to or from other clusters, indexed by node index. */
+	final int[] crossDegrees;
+
+	/** Whether the node was an entrance when the abstract connections of its cluster were last computed, indexed by node index. */
+	final boolean[] entrances;
+
+	/** The connections of each node at level 1 or {@code null} if the node has none, indexed by node index. */
+	final Array<Connection<N>>[] abstractConnections;
+
+	final Array<Connection<N>> noConnections = new Array<Connection<N>>(0);
+
+	// Scratch data of the Dijkstra searches restricted to a cluster
+	private final IntBinaryHeap openList;
+	private final float[] costs;
+	private final int[] searchIds;
+	private int searchId;
+	private final IntArray clusterEntrances = new IntArray();
+	private final IntArray dirtyClusters = new IntArray();
+	private final boolean[] dirty;
+	private final IntArray touchedNodes = new IntArray();
+
+	/** Creates an {@code HpaGraph} with the given partition and builds its abstract level.
+	 * @param graph the underlying graph
+	 * @param nodes the nodes of the underlying graph, indexed by node index
+	 * @param clusters the cluster of each node, indexed by node index; clusters are numbered from 0 to {@code clusterCount - 1}
+	 * @param clusterCount the number of clusters */
+	@SuppressWarnings("unchecked")
+	HpaGraph (IndexedGraph<N> graph, N[] nodes, int[] clusters, int clusterCount) {
+		super(2);
+		this.graph = graph;
+		this.nodes = nodes;
+		this.clusters = clusters;
+		int nodeCount = nodes.length;
+
+		// Collect the nodes of each cluster
+		int[] clusterSizes = new int[clusterCount];
+		for (int i = 0; i < nodeCount; i++)
+			if (clusters[i] >= 0) clusterSizes[clusters[i]]++;
+		this.clusterNodes = new int[clusterCount][];
+		for (int c = 0; c < clusterCount; c++)
+			clusterNodes[c] = new int[clusterSizes[c]];
+		for (int i = nodeCount - 1; i >= 0; i--) {
+			int c = clusters[i];
+			if (c >= 0) clusterNodes[c][--clusterSizes[c]] = i;
+		}
+
+		this.representatives = new int[clusterCount];
+		this.crossDegrees = new int[nodeCount];
+		this.entrances = new boolean[nodeCount];
+		this.abstractConnections = new Array[nodeCount];
+		this.openList = new IntBinaryHeap(nodeCount);
+		this.costs = new float[nodeCount];
+		this.searchIds = new int[nodeCount];
+		this.dirty = new boolean[clusterCount];
+
+		// Find the entrances and connect the clusters
+		for (int i = 0; i < nodeCount; i++)
+			if (clusters[i] >= 0) addInterClusterConnections(i);
+
+		// Connect the entrances of each cluster
+		for (int c = 0; c < clusterCount; c++)
+			computeIntraClusterConnections(c);
+		touchedNodes.clear();
+	}
+
+	/** Returns the underlying graph, i.e. level 0. */
+	public IndexedGraph<N> getGraph () {
+		return graph;
+	}
+
+	/** Returns the number of clusters. */
+	public int getClusterCount () {
+		return clusterNodes.length;
+	}
+
+	/** Returns the cluster of the given node. */
+	public int getCluster (N node) {
+		return clusters[graph.getIndex(node)];
+	}
+
+	/** Returns {@code true} if the given node is a node of level 1, i.e. it has a connection to or from another cluster. */
+	public boolean isEntrance (N node) {
+		return entrances[graph.getIndex(node)];
+	}
+
+	/** Returns the representative node of the given cluster at level 1. */
+	public N getRepresentative (int cluster) {
+		return nodes[representatives[cluster]];
+	}
+
+	@Override
+	public int getIndex (N node) {
+		return graph.getIndex(node);
+	}
+
+	@Override
+	public int getNodeCount () {
+		return graph.getNodeCount();
+	}
+
+	@Override
+	public Array<Connection<N>> getConnections (N fromNode) {
+		if (level == 0) return graph.getConnections(fromNode);
+		Array<Connection<N>> connections = abstractConnections[graph.getIndex(fromNode)];
+		return connections == null ? noConnections : connections;
+	}
+
+	@Override
+	public N convertNodeBetweenLevels (int inputLevel, N node, int outputLevel) {
+		if (inputLevel < outputLevel) {
+			int index = graph.getIndex(node);
+			if (crossDegrees[index] == 0) return nodes[representatives[clusters[index]]];
+		}
+		return node;
+	}
+
+	/** Updates the abstract level after a change of the underlying graph. Only the clusters of the given nodes and the clusters
+	 * whose entrances are affected by the change are processed.
+	 * @param changedNodes the nodes whose outgoing connections have been added, removed or have changed cost
+	 * @return the number of clusters whose abstract connections have been recomputed. */
+	public int rebuildClusters (Array<N> changedNodes) {
+		// Mark the clusters of the changed nodes
+		for (int i = 0; i < changedNodes.size; i++) {
+			int cluster = clusters[graph.getIndex(changedNodes.get(i))];
+			if (cluster >= 0) markDirty(cluster);
+		}
+
+		// Replace the connections to other clusters of all the nodes of the marked clusters
+		int changedClusterCount = dirtyClusters.size;
+		for (int i = 0; i < changedClusterCount; i++) {
+			int[] nodeIndices = clusterNodes[dirtyClusters.get(i)];
+			for (int j = 0; j < nodeIndices.length; j++)
+				removeInterClusterConnections(nodeIndices[j]);
+		}
+		for (int i = 0; i < changedClusterCount; i++) {
+			int[] nodeIndices = clusterNodes[dirtyClusters.get(i)];
+			for (int j = 0; j < nodeIndices.length; j++)
+				addInterClusterConnections(nodeIndices[j]);
+		}
+
+		// Mark the neighbor clusters that have gained or lost an entrance
+		for (int i = 0; i < touchedNodes.size; i++) {
+			int nodeIndex = touchedNodes.get(i);
+			if ((crossDegrees[nodeIndex] > 0) != entrances[nodeIndex]) markDirty(clusters[nodeIndex]);
+		}
+		touchedNodes.clear();
+
+		// Reconnect the entrances of the marked clusters
+		int rebuiltClusterCount = dirtyClusters.size;
+		for (int i = 0; i < rebuiltClusterCount; i++) {
+			int cluster = dirtyClusters.get(i);
+			computeIntraClusterConnections(cluster);
+			dirty[cluster] = false;
+		}
+		dirtyClusters.clear();
+		return rebuiltClusterCount;
+	}
+
+	private void markDirty (int cluster) {
+		if (!dirty[cluster]) {
+			dirty[cluster] = true;
+			dirtyClusters.add(cluster);
+		}
+	}
+
+	/** Adds the level 0 connections of the given node leading to other clusters to its level 1 connections. */
+	private void addInterClusterConnections (int nodeIndex) {
+		int cluster = clusters[nodeIndex];
+		Array<Connection<N>> connections = graph.getConnections(nodes[nodeIndex]);
+		for (int i = 0; i < connections.size; i++) {
+			Connection<N> connection = connections.get(i);
+			int toIndex = graph.getIndex(connection.getToNode());
+			int toCluster = clusters[toIndex];
+			if (toCluster == cluster || toCluster < 0) continue;
+			getAbstractConnections(nodeIndex).add(connection);
+			crossDegrees[nodeIndex]++;
+			crossDegrees[toIndex]++;
+			touchedNodes.add(toIndex);
+		}
+	}
+
+	/** Removes the connections to other clusters from the level 1 connections of the given node. */
+	private void removeInterClusterConnections (int nodeIndex) {
+		Array<Connection<N>> connections = abstractConnections[nodeIndex];
+		if (connections == null) return;
+		for (int i = connections.size - 1; i >= 0; i--) {
+			Connection<N> connection = connections.get(i);
+			if (connection instanceof IntraClusterConnection) continue;
+			connections.removeIndex(i);
+			int toIndex = graph.getIndex(connection.getToNode());
+			crossDegrees[nodeIndex]--;
+			crossDegrees[toIndex]--;
+			touchedNodes.add(toIndex);
+		}
+	}
+
+	/** Recomputes the abstract connections between the entrances of the given cluster and selects its representative. */
+	private void computeIntraClusterConnections (int cluster) {
+		int[] nodeIndices = clusterNodes[cluster];
+
+		// Remove the old connections and collect the entrances
+		IntArray clusterEntrances = this.clusterEntrances;
+		clusterEntrances.clear();
+		for (int i = 0; i < nodeIndices.length; i++) {
+			int nodeIndex = nodeIndices[i];
+			Array<Connection<N>> connections = abstractConnections[nodeIndex];
+			if (connections != null) {
+				for (int j = connections.size - 1; j >= 0; j--)
+					if (connections.get(j) instanceof IntraClusterConnection) connections.removeIndex(j);
+			}
+			entrances[nodeIndex] = crossDegrees[nodeIndex] > 0;
+			if (entrances[nodeIndex]) clusterEntrances.add(nodeIndex);
+		}
+
+		// Connect each entrance to the entrances it can reach inside the cluster
+		int representative = nodeIndices.length > 0 ? nodeIndices[0] : -1;
+		int bestDegree = -1;
+		int[] degrees = new int[clusterEntrances.size];
+		for (int i = 0; i < clusterEntrances.size; i++) {
+			int fromIndex = clusterEntrances.get(i);
+			dijkstra(fromIndex, cluster);
+			for (int j = 0; j < clusterEntrances.size; j++) {
+				int toIndex = clusterEntrances.get(j);
+				if (toIndex == fromIndex || searchIds[toIndex] != searchId || costs[toIndex] == Float.POSITIVE_INFINITY) continue;
+				getAbstractConnections(fromIndex).add(new IntraClusterConnection<N>(nodes[fromIndex], nodes[toIndex], costs[toIndex]));
+				degrees[i]++;
+				degrees[j]++;
+			}
+		}
+		for (int i = 0; i < clusterEntrances.size; i++) {
+			if (degrees[i] > bestDegree) {
+				bestDegree = degrees[i];
+				representative = clusterEntrances.get(i);
+			}
+		}
+		representatives[cluster] = representative;
+	}
+
+	/** Computes the costs from the given node to the nodes of the given cluster without leaving the cluster. The cost of a node is
+	 * valid only if its search id is the current one. */
+	private void dijkstra (int source, int cluster) {
+		if (++searchId < 0) searchId = 1;
+		openList.clear();
+		costs[source] = 0;
+		searchIds[source] = searchId;
+		openList.add(source, 0);
+		while (!openList.isEmpty()) {
+			int current = openList.pop();
+			float currentCost = costs[current];
+			Array<Connection<N>> connections = graph.getConnections(nodes[current]);
+			for (int i = 0; i < connections.size; i++) {
+				Connection<N> connection = connections.get(i);
+				int toIndex = graph.getIndex(connection.getToNode());
+				if (clusters[toIndex] != cluster) continue;
+				float cost = currentCost + connection.getCost();
+				if (searchIds[toIndex] != searchId) {
+					searchIds[toIndex] = searchId;
+					costs[toIndex] = cost;
+					openList.add(toIndex, cost);
+				} else if (cost < costs[toIndex] && openList.contains(toIndex)) {
+					costs[toIndex] = cost;
+					openList.setValue(toIndex, cost);
+				}
+			}
+		}
+	}
+
+	private Array<Connection<N>> getAbstractConnections (int nodeIndex) {
+		Array<Connection<N>> connections = abstractConnections[nodeIndex];
+		if (connections == null) connections = abstractConnections[nodeIndex] = new Array<Connection<N>>(4);
+		return connections;
+	}
+
+	/** A connection of level 1 between two entrances of the same cluster, whose cost is the cost of the cheapest path between them
+	 * inside the cluster.
+	 *
+	 * @param <N> Type of node */
+	public static class IntraClusterConnection<N> implements Connection<N> {
+		protected N fromNode;
+		protected N toNode;
+		protected float cost;
+
+		public IntraClusterConnection (N fromNode, N toNode, float cost) {
+			this.fromNode = fromNode;
+			this.toNode = toNode;
+			this.cost = cost;
+		}
+
+		@Override
+		public float getCost () {
+			return cost;
+		}
+
+		@Override
+		public N getFromNode () {
+			return fromNode;
+		}
+
+		@Override
+		public N getToNode () {
+			return toNode;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntIntMap;
+
+/** An {@code HpaGraphBuilder} partitions an {@link IndexedGraph} into clusters and builds the corresponding {@link HpaGraph}.
+ * <p>
+ * By default clusters are flood-filled: starting from each node not yet assigned, a breadth-first visit of the connections
+ * collects up to {@link #setMaxClusterSize(int) maxClusterSize} nodes, so that every cluster is connected. Alternatively, a
+ * {@link ClusterAssigner} can impose any partition, like the fixed-size rectangles of the
+ * {@link com.badlogic.gdx.ai.pfa.grid.GridClusterAssigner GridClusterAssigner}.
+ *
+ * @param <N> Type of node */
+public class HpaGraphBuilder<N> {
+
+	IndexedGraph<N> graph;
+	Array<N> nodes;
+	int maxClusterSize;
+	ClusterAssigner<N> clusterAssigner;
+
+	/** Creates an {@code HpaGraphBuilder} for the given graph flood-filling clusters of up to 64 nodes.
+	 * @param graph the graph
+	 * @param nodes all the nodes of the graph in any order */
+	public HpaGraphBuilder (IndexedGraph<N> graph, Array<N> nodes) {
+		this.graph = graph;
+		this.nodes = nodes;
+		this.maxClusterSize = 64;
+		this.clusterAssigner = null;
+	}
+
+	/** Returns the maximum number of nodes of a flood-filled cluster. */
+	public int getMaxClusterSize () {
+		return maxClusterSize;
+	}
+
+	/** Sets the maximum number of nodes of a flood-filled cluster. This is ignored if a cluster assigner is set.
+	 * @return this builder for chaining. */
+	public HpaGraphBuilder<N> setMaxClusterSize (int maxClusterSize) {
+		if (maxClusterSize <= 0) throw new IllegalArgumentException("maxClusterSize must be positive");
+		this.maxClusterSize = maxClusterSize;
+		return this;
+	}
+
+	/** Returns the cluster assigner or {@code null} if clusters are flood-filled. */
+	public ClusterAssigner<N> getClusterAssigner () {
+		return clusterAssigner;
+	}
+
+	/** Sets the cluster assigner; {@code null} means that clusters are flood-filled.
+	 * @return this builder for chaining. */
+	public HpaGraphBuilder<N> setClusterAssigner (ClusterAssigner<N> clusterAssigner) {
+		this.clusterAssigner = clusterAssigner;
+		return this;
+	}
+
+	/** Partitions the graph and builds the abstract level of the returned {@link HpaGraph}. */
+	@SuppressWarnings("unchecked")
+	public HpaGraph<N> build () {
+		int nodeCount = graph.getNodeCount();
+		N[] nodesByIndex = (N[])new Object[nodeCount];
+		for (int i = 0; i < nodes.size; i++) {
+			N node = nodes.get(i);
+			nodesByIndex[graph.getIndex(node)] = node;
+		}
+		int[] clusters = new int[nodeCount];
+		for (int i = 0; i < nodeCount; i++)
+			clusters[i] = -1;
+		int clusterCount = clusterAssigner != null ? assignClusters(nodesByIndex, clusters) : floodFill(nodesByIndex, clusters);
+		return new HpaGraph<N>(graph, nodesByIndex, clusters, clusterCount);
+	}
+
+	/** Assigns the clusters given by the cluster assigner, renumbered consecutively, and returns the number of clusters. */
+	private int assignClusters (N[] nodesByIndex, int[] clusters) {
+		IntIntMap clusterIds = new IntIntMap();
+		for (int i = 0; i < nodesByIndex.length; i++) {
+			if (nodesByIndex[i] == null) continue;
+			int cluster = clusterAssigner.getCluster(nodesByIndex[i]);
+			int id = clusterIds.get(cluster, -1);
+			if (id < 0) {
+				id = clusterIds.size;
+				clusterIds.put(cluster, id);
+			}
+			clusters[i] = id;
+		}
+		return clusterIds.size;
+	}
+
+	/** Flood-fills the clusters and returns the number of clusters. */
+	private int floodFill (N[] nodesByIndex, int[] clusters) {
+		int clusterCount = 0;
+		IntArray queue = new IntArray();
+		for (int seed = 0; seed < nodesByIndex.length; seed++) {
+			if (nodesByIndex[seed] == null || clusters[seed] >= 0) continue;
+			int cluster = clusterCount++;
+			queue.clear();
+			queue.add(seed);
+			clusters[seed] = cluster;
+			int size = 1;
+			for (int head = 0; head < queue.size; head++) {
+				Array<Connection<N>> connections = graph.getConnections(nodesByIndex[queue.get(head)]);
+				for (int i = 0; i < connections.size && size < maxClusterSize; i++) {
+					int toIndex = graph.getIndex(connections.get(i).getToNode());
+					if (nodesByIndex[toIndex] == null || clusters[toIndex] >= 0) continue;
+					clusters[toIndex] = cluster;
+					queue.add(toIndex);
+					size++;
+				}
+			}
+		}
+		return clusterCount;
+	}
+}
@@ -19,6 +19,7 @@ package com.badlogic.gdx.ai.pfa.indexed;
 import com.badlogic.gdx.ai.pfa.Connection;
 import com.badlogic.gdx.ai.pfa.GraphPath;
 import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PartialPathFinder;
 import com.badlogic.gdx.ai.pfa.PathFinder;
 import com.badlogic.gdx.ai.pfa.PathFinderQueue;
 import com.badlogic.gdx.ai.pfa.PathFinderRequest;
@@ -53,11 +54,14 @@ import com.badlogic.gdx.utils.TimeUtils;
  * @param <N> Type of node
  * 
  * @author davebaol */
-public class IndexedAStarPathFinder<N> implements PathFinder<N> {
+public class IndexedAStarPathFinder<N> implements PartialPathFinder<N> {
 	IndexedGraph<N> graph;
 	NodeRecord<N>[] nodeRecords;
 	BinaryHeap<NodeRecord<N>> openList;
 	NodeRecord<N> current;
+
+	/** The closed node closest to the end node according to the heuristic, tracked by interruptible searches. */
+	NodeRecord<N> closestRecord;
 	/**
 	 * A {@link StopCondition} with the same node type as this IndexedAStarPathFinder;
 	 * defaults to a {@link EqualsByReferenceStopCondition} if unspecified. This is used
@@ -67,6 +71,10 @@ public class IndexedAStarPathFinder<N> implements PathFinder<N> {
 	public StopCondition<N> stopCondition;
 	public Metrics metrics;
 
+	/** An optional {@link ReachabilityIndex} consulted before each search to fail immediately when the end node can't be
+	 * reached. It assumes the search stops at the end node, so don't use it with a custom {@link #stopCondition}. */
+	public ReachabilityIndex<N> reachabilityIndex;
+
 	/** The unique ID for each search run. Used to mark nodes. */
 	private int searchId;
 
@@ -122,6 +130,9 @@ public class IndexedAStarPathFinder<N> implements PathFinder<N> {
 
 	protected boolean search (N startNode, N endNode, Heuristic<N> heuristic) {
 
+		// Fail fast if the end node can't be reached
+		if (isUnreachable(startNode, endNode)) return false;
+
 		initSearch(startNode, endNode, heuristic);
 
 		// Iterate through processing each node
@@ -148,8 +159,16 @@ public class IndexedAStarPathFinder<N> implements PathFinder<N> {
 
 		// We have to initialize the search if the status has just changed
 		if (request.statusChanged) {
-			initSearch(request.startNode, request.endNode, request.heuristic);
 			request.statusChanged = false;
+			closestRecord = null;
+
+			// Fail fast if the end node can't be reached
+			if (isUnreachable(request.startNode, request.endNode)) {
+				request.pathFound = false;
+				return true;
+			}
+
+			initSearch(request.startNode, request.endNode, request.heuristic);
 		}
 
 		// Iterate through processing each node
@@ -173,6 +192,10 @@ public class IndexedAStarPathFinder<N> implements PathFinder<N> {
 				return true;
 			}
 
+			// Keep track of the node closest to the end node for partial paths
+			if (closestRecord == null || current.getEstimatedTotalCost() - current.costSoFar < closestRecord.getEstimatedTotalCost()
+				- closestRecord.costSoFar) closestRecord = current;
+
 			// Visit current node's children
 			visitChildren(request.endNode, request.heuristic);
 
@@ -186,6 +209,25 @@ public class IndexedAStarPathFinder<N> implements PathFinder<N> {
 		return true;
 	}
 
+	/** Returns {@code true} if the {@link #reachabilityIndex} proves that there's no path from the start node to the end node;
+	 * {@code false} otherwise. */
+	protected boolean isUnreachable (N startNode, N endNode) {
+		if (reachabilityIndex == null || reachabilityIndex.isReachable(startNode, endNode)) return false;
+		if (metrics != null) metrics.reset();
+		return true;
+	}
+
+	/** Generates the path to the closed node closest to the end node met so far by the interruptible search of the given request.
+	 * The search can't be resumed afterwards. */
+	@Override
+	public boolean generatePartialPath (PathFinderRequest<N> request) {
+		if (closestRecord == null) return false;
+		current = closestRecord;
+		closestRecord = null;
+		generateNodePath(request.startNode, request.resultPath);
+		return true;
+	}
+
 	protected void initSearch (N startNode, N endNode, Heuristic<N> heuristic) {
 		if (metrics != null) metrics.reset();
 
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.indexed.FlowFieldBuilder.Locator;
+import com.badlogic.gdx.ai.sched.Schedulable;
+import com.badlogic.gdx.ai.steer.behaviors.FollowFlowField.FlowField;
+import com.badlogic.gdx.ai.utils.IntBinaryHeap;
+import com.badlogic.gdx.math.Vector;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** A {@link FlowField} leading to a goal node of an {@link IndexedGraph}, created by a {@link FlowFieldBuilder}.
+ * <p>
+ * The flow field holds, for each node, the cost of the cheapest path to the goal node and the next node along that path. The flow
+ * vector of a position is the normalized direction from the node the position falls into to its next node, or {@code null} if
+ * the node is the goal node, can't reach the goal node or has not been reached yet by an incomplete flow field.
+ * <p>
+ * A flow field is built by a Dijkstra search from the goal node over the reversed graph, which can be run at once by
+ * {@link #build()} or over multiple frames through the {@link Schedulable} interface. Since the nodes are settled in order of cost,
+ * an incomplete flow field already leads correctly toward the goal all the nodes settled so far, i.e. the ones closest to the goal.
+ *
+ * @param <N> Type of node
+ * @param <T> Type of vector, either 2D or 3D, implementing the {@link Vector} interface */
+public class IndexedFlowField<N, T extends Vector<T>> implements FlowField<T>, Schedulable {
+
+	Locator<N, T> locator;
+	CsrIndexedGraph<N> reverseGraph;
+	N goalNode;
+
+	/** Whether this flow field is still valid for the current version of the graph. */
+	boolean valid;
+
+	/** The cost of the cheapest path to the goal node, indexed by node index. */
+	final float[] costs;
+
+	/** The index of the next node toward the goal node or {@code -1}, indexed by node index. */
+	final int[] next;
+
+	/** Whether the cost of the node is final, indexed by node index. */
+	final boolean[] settled;
+
+	final IntBinaryHeap openList;
+
+	/** The flow vector returned by {@link #lookup(Vector)}. */
+	T flowVector;
+
+	IndexedFlowField (Locator<N, T> locator, int nodeCount) {
+		this.locator = locator;
+		this.costs = new float[nodeCount];
+		this.next = new int[nodeCount];
+		this.settled = new boolean[nodeCount];
+		this.openList = new IntBinaryHeap(nodeCount);
+	}
+
+	/** Creates a flow field taking over the arrays of the given flow field, which must have been invalidated and is never used
+	 * again by the builder. */
+	IndexedFlowField (IndexedFlowField<N, T> recycled) {
+		this.locator = recycled.locator;
+		this.costs = recycled.costs;
+		this.next = recycled.next;
+		this.settled = recycled.settled;
+		this.openList = recycled.openList;
+	}
+
+	/** Prepares this flow field to be built for the given goal node. */
+	void reset (CsrIndexedGraph<N> reverseGraph, N goalNode) {
+		this.reverseGraph = reverseGraph;
+		this.goalNode = goalNode;
+		this.valid = true;
+		for (int i = 0; i < costs.length; i++) {
+			costs[i] = Float.POSITIVE_INFINITY;
+			next[i] = -1;
+			settled[i] = false;
+		}
+		openList.clear();
+		int goalIndex = reverseGraph.getIndex(goalNode);
+		costs[goalIndex] = 0;
+		openList.add(goalIndex, 0);
+	}
+
+	void invalidate () {
+		valid = false;
+		reverseGraph = null;
+		openList.clear();
+	}
+
+	/** Returns the goal node of this flow field. */
+	public N getGoalNode () {
+		return goalNode;
+	}
+
+	/** Returns {@code true} if this flow field is still valid for the current version of the graph; {@code false} otherwise. */
+	public boolean isValid () {
+		return valid;
+	}
+
+	/** Returns {@code true} if every node that can reach the goal node has been settled; {@code false} otherwise. */
+	public boolean isComplete () {
+		return openList.size == 0;
+	}
+
+	/** Builds the rest of this flow field at once. */
+	public void build () {
+		while (openList.size > 0)
+			settleNext();
+	}
+
+	/** Builds this flow field for at most the given time.
+	 * @param nanoTimeToRun the maximum time in nanoseconds this flow field should be built on the current frame */
+	@Override
+	public void run (long nanoTimeToRun) {
+		long lastTime = TimeUtils.nanoTime();
+		while (openList.size > 0) {
+			// Check the available time
+			long currentTime = TimeUtils.nanoTime();
+			nanoTimeToRun -= currentTime - lastTime;
+			if (nanoTimeToRun <= PathFinderQueue.TIME_TOLERANCE) return;
+
+			settleNext();
+
+			// Store the current time
+			lastTime = currentTime;
+		}
+	}
+
+	/** Settles the node with the lowest cost and relaxes its incoming connections. */
+	private void settleNext () {
+		int current = openList.pop();
+		settled[current] = true;
+		float currentCost = costs[current];
+
+		// The outgoing edges of the reversed graph are the incoming connections of the original graph
+		CsrIndexedGraph<N> graph = reverseGraph;
+		for (int edge = graph.getEdgeStart(current), end = graph.getEdgeEnd(current); edge < end; edge++) {
+			int node = graph.getEdgeTarget(edge);
+			if (settled[node]) continue;
+			float cost = currentCost + graph.getEdgeCost(edge);
+			if (cost < costs[node]) {
+				if (openList.contains(node))
+					openList.setValue(node, cost);
+				else
+					openList.add(node, cost);
+				costs[node] = cost;
+				next[node] = current;
+			}
+		}
+	}
+
+	/** Returns the cost of the cheapest path from the given node to the goal node, or {@link Float#POSITIVE_INFINITY} if the node
+	 * has not been settled yet, can't reach the goal node or this flow field is no longer valid. */
+	public float getCost (N node) {
+		if (!valid) return Float.POSITIVE_INFINITY;
+		int nodeIndex = reverseGraph.getIndex(node);
+		return settled[nodeIndex] ? costs[nodeIndex] : Float.POSITIVE_INFINITY;
+	}
+
+	/** Returns the next node along the cheapest path from the given node to the goal node, or {@code null} if the node is the goal
+	 * node, has not been settled yet, can't reach the goal node or this flow field is no longer valid. */
+	public N getNextNode (N node) {
+		if (!valid) return null;
+		int nodeIndex = reverseGraph.getIndex(node);
+		return settled[nodeIndex] && next[nodeIndex] >= 0 ? reverseGraph.getNode(next[nodeIndex]) : null;
+	}
+
+	/** Returns the normalized direction from the node the given position falls into toward the next node along the cheapest path
+	 * to the goal node, or {@code null} if there's no such a direction. The returned vector is reused by subsequent calls. */
+	@Override
+	public T lookup (T position) {
+		if (!valid) return null;
+		N node = locator.getNode(position);
+		if (node == null) return null;
+		N nextNode = getNextNode(node);
+		if (nextNode == null) return null;
+		T nodePosition = locator.getPosition(node);
+		if (flowVector == null) flowVector = nodePosition.cpy();
+		return flowVector.set(locator.getPosition(nextNode)).sub(nodePosition).nor();
+	}
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.SerializationException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/** A {@link Heuristic} based on precomputed distances from and to a small set of landmark nodes, also known as ALT (A*,
+ * Landmarks, Triangle inequality).
+ * <p>
+ * For any landmark {@code L}, the triangle inequality gives two lower bounds on the cost from node {@code n} to node {@code t}:
+ * {@code d(L, t) - d(L, n)} and {@code d(n, L) - d(t, L)}. This heuristic returns the maximum of these bounds over all the
+ * landmarks, which is admissible and consistent, and on maze-like maps is usually far more accurate than geometric heuristics
+ * because it takes the walls into account.
+ * <p>
+ * The distance tables are built by a {@link LandmarkHeuristicBuilder} and take {@code 4 * K * N} bytes each, where {@code K} is
+ * the number of landmarks and {@code N} the number of nodes. Only one table is needed if the graph is symmetric, meaning that
+ * every connection has a reverse connection with the same cost. Since building the tables takes one Dijkstra search per landmark,
+ * they can be {@link #write(FileHandle) written} to a file and {@link #read(IndexedGraph, FileHandle) read} back later, as long as
+ * the graph doesn't change.
+ *
+ * @param <N> Type of node */
+public class LandmarkHeuristic<N> implements Heuristic<N> {
+
+	private static final int MAGIC = 0x414c5431; // "ALT1"
+
+	final IndexedGraph<N> graph;
+	final int landmarkCount;
+	final int[] landmarks;
+
+	/** The cost from each landmark to each node, indexed by {@code nodeIndex * landmarkCount + landmark}. */
+	final float[] fromLandmarks;
+
+	/** The cost from each node to each landmark, indexed by {@code nodeIndex * landmarkCount + landmark}. It's the same array as
+	 * {@link #fromLandmarks} if the graph is symmetric. */
+	final float[] toLandmarks;
+
+	LandmarkHeuristic (IndexedGraph<N> graph, int[] landmarks, float[] fromLandmarks, float[] toLandmarks) {
+		this.graph = graph;
+		this.landmarkCount = landmarks.length;
+		this.landmarks = landmarks;
+		this.fromLandmarks = fromLandmarks;
+		this.toLandmarks = toLandmarks;
+	}
+
+	@Override
+	public float estimate (N node, N endNode) {
+		int k = landmarkCount;
+		int nodeOffset = graph.getIndex(node) * k;
+		int endOffset = graph.getIndex(endNode) * k;
+		float[] fromLandmarks = this.fromLandmarks;
+		float[] toLandmarks = this.toLandmarks;
+		float estimate = 0;
+		for (int i = 0; i < k; i++) {
+			// Bounds involving unreachable nodes are either NaN, which never exceeds the estimate, or infinite; infinite bounds are
+			// ignored because path finders can't handle infinite costs
+			float forward = fromLandmarks[endOffset + i] - fromLandmarks[nodeOffset + i];
+			if (forward > estimate && forward != Float.POSITIVE_INFINITY) estimate = forward;
+			float backward = toLandmarks[nodeOffset + i] - toLandmarks[endOffset + i];
+			if (backward > estimate && backward != Float.POSITIVE_INFINITY) estimate = backward;
+		}
+		return estimate;
+	}
+
+	/** Returns the number of landmarks. */
+	public int getLandmarkCount () {
+		return landmarkCount;
+	}
+
+	/** Returns the index of the given landmark node.
+	 * @param landmark the landmark, from 0 to {@link #getLandmarkCount()} - 1 */
+	public int getLandmarkIndex (int landmark) {
+		return landmarks[landmark];
+	}
+
+	/** Returns the cost from the given landmark to the node with the given index, or infinity if the node is unreachable. */
+	public float getCostFromLandmark (int landmark, int nodeIndex) {
+		return fromLandmarks[nodeIndex * landmarkCount + landmark];
+	}
+
+	/** Returns the cost from the node with the given index to the given landmark, or infinity if the landmark is unreachable. */
+	public float getCostToLandmark (int landmark, int nodeIndex) {
+		return toLandmarks[nodeIndex * landmarkCount + landmark];
+	}
+
+	/** Returns {@code true} if the distance tables have been built for a symmetric graph; {@code false} otherwise. */
+	public boolean isSymmetric () {
+		return fromLandmarks == toLandmarks;
+	}
+
+	/** Writes the landmarks and the distance tables to the given file.
+	 * @throws SerializationException if an I/O error occurs. */
+	public void write (FileHandle file) {
+		write(file.write(false));
+	}
+
+	/** Writes the landmarks and the distance tables to the given stream, which is closed by this method.
+	 * @throws SerializationException if an I/O error occurs. */
+	public void write (OutputStream output) {
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(output));
+			boolean symmetric = isSymmetric();
+			out.writeInt(MAGIC);
+			out.writeInt(fromLandmarks.length / landmarkCount);
+			out.writeInt(landmarkCount);
+			out.writeBoolean(symmetric);
+			for (int i = 0; i < landmarkCount; i++)
+				out.writeInt(landmarks[i]);
+			writeTable(out, fromLandmarks);
+			if (!symmetric) writeTable(out, toLandmarks);
+			out.flush();
+		} catch (IOException ex) {
+			throw new SerializationException(ex);
+		} finally {
+			StreamUtils.closeQuietly(out != null ? out : output);
+		}
+	}
+
+	/** Reads the landmarks and the distance tables of the given graph from the given file.
+	 * @throws SerializationException if an I/O error occurs or the file is corrupted or doesn't match the graph. */
+	public static <N> LandmarkHeuristic<N> read (IndexedGraph<N> graph, FileHandle file) {
+		return read(graph, file.read());
+	}
+
+	/** Reads the landmarks and the distance tables of the given graph from the given stream, which is closed by this method.
+	 * @throws SerializationException if an I/O error occurs or the stream is corrupted or doesn't match the graph. */
+	public static <N> LandmarkHeuristic<N> read (IndexedGraph<N> graph, InputStream input) {
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(input));
+			if (in.readInt() != MAGIC) throw new SerializationException("Not a landmark table");
+			int nodeCount = in.readInt();
+			if (nodeCount != graph.getNodeCount())
+				throw new SerializationException("Expected " + graph.getNodeCount() + " nodes but found " + nodeCount);
+			int landmarkCount = in.readInt();
+			if (landmarkCount <= 0 || (long)nodeCount * landmarkCount > Integer.MAX_VALUE)
+				throw new SerializationException("Corrupted landmark table");
+			boolean symmetric = in.readBoolean();
+			int[] landmarks = new int[landmarkCount];
+			for (int i = 0; i < landmarkCount; i++) {
+				landmarks[i] = in.readInt();
+				if (landmarks[i] < 0 || landmarks[i] >= nodeCount) throw new SerializationException("Corrupted landmark table");
+			}
+			float[] fromLandmarks = readTable(in, nodeCount * landmarkCount);
+			float[] toLandmarks = symmetric ? fromLandmarks : readTable(in, nodeCount * landmarkCount);
+			return new LandmarkHeuristic<N>(graph, landmarks, fromLandmarks, toLandmarks);
+		} catch (IOException ex) {
+			throw new SerializationException(ex);
+		} finally {
+			StreamUtils.closeQuietly(in != null ? in : input);
+		}
+	}
+
+	private static void writeTable (DataOutputStream out, float[] table) throws IOException {
+		for (int i = 0; i < table.length; i++)
+			out.writeFloat(table[i]);
+	}
+
+	private static float[] readTable (DataInputStream in, int length) throws IOException {
+		float[] table = new float[length];
+		for (int i = 0; i < length; i++)
+			table[i] = in.readFloat();
+		return table;
+	}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.utils.IntBinaryHeap;
+
+/** A {@code LandmarkHeuristicBuilder} selects the landmarks of a graph and computes the distance tables of a
+ * {@link LandmarkHeuristic}.
+ * <p>
+ * Landmarks are selected by farthest-point sampling: the first landmark is the node farthest from a seed node and each following
+ * landmark is the node farthest from all the landmarks already selected. This spreads the landmarks along the boundary of the
+ * map, which is where they give the best bounds. Only the nodes reachable from the seed node are considered. For each landmark,
+ * a Dijkstra search computes the costs from the landmark to all the nodes and, unless the graph is symmetric, a second Dijkstra
+ * search on the {@link CsrIndexedGraph#reverse() reverse graph} computes the costs from all the nodes to the landmark.
+ *
+ * @param <N> Type of node */
+public class LandmarkHeuristicBuilder<N> {
+
+	CsrIndexedGraph<N> graph;
+	int landmarkCount;
+	boolean symmetric;
+	N seedNode;
+
+	/** Creates a {@code LandmarkHeuristicBuilder} for the given graph selecting 16 landmarks. Notice that any {@link IndexedGraph}
+	 * can be turned into a {@link CsrIndexedGraph}. */
+	public LandmarkHeuristicBuilder (CsrIndexedGraph<N> graph) {
+		this.graph = graph;
+		this.landmarkCount = 16;
+		this.symmetric = false;
+		this.seedNode = null;
+	}
+
+	/** Returns the number of landmarks to select. */
+	public int getLandmarkCount () {
+		return landmarkCount;
+	}
+
+	/** Sets the number of landmarks to select.
+	 * @return this builder for chaining. */
+	public LandmarkHeuristicBuilder<N> setLandmarkCount (int landmarkCount) {
+		if (landmarkCount <= 0) throw new IllegalArgumentException("landmarkCount must be positive");
+		this.landmarkCount = landmarkCount;
+		return this;
+	}
+
+	/** Returns whether the graph is symmetric. */
+	public boolean isSymmetric () {
+		return symmetric;
+	}
+
+	/** Sets whether the graph is symmetric, i.e. every connection has a reverse connection with the same cost. A symmetric graph
+	 * needs half the memory and half the build time.
+	 * @return this builder for chaining. */
+	public LandmarkHeuristicBuilder<N> setSymmetric (boolean symmetric) {
+		this.symmetric = symmetric;
+		return this;
+	}
+
+	/** Returns the node landmark selection starts from. */
+	public N getSeedNode () {
+		return seedNode;
+	}
+
+	/** Sets the node landmark selection starts from. If {@code null} the node with the lowest index having outgoing connections is
+	 * used.
+	 * @return this builder for chaining. */
+	public LandmarkHeuristicBuilder<N> setSeedNode (N seedNode) {
+		this.seedNode = seedNode;
+		return this;
+	}
+
+	/** Selects the landmarks and computes the distance tables. */
+	public LandmarkHeuristic<N> build () {
+		CsrIndexedGraph<N> graph = this.graph;
+		CsrIndexedGraph<N> reverseGraph = symmetric ? null : graph.reverse();
+		int nodeCount = graph.getNodeCount();
+		int k = landmarkCount;
+		IntBinaryHeap openList = new IntBinaryHeap(nodeCount);
+		float[] costs = new float[nodeCount];
+		float[] minCosts = new float[nodeCount];
+
+		// Find the nodes reachable from the seed node
+		int seed = seedNode != null ? graph.getIndex(seedNode) : findSeed(graph);
+		dijkstra(graph, seed, openList, costs);
+		for (int i = 0; i < nodeCount; i++)
+			minCosts[i] = costs[i] == Float.POSITIVE_INFINITY ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+
+		int[] landmarks = new int[k];
+		float[] fromLandmarks = new float[nodeCount * k];
+		float[] toLandmarks = symmetric ? fromLandmarks : new float[nodeCount * k];
+		for (int landmark = 0; landmark < k; landmark++) {
+			// Select the reachable node farthest from the seed node or from the landmarks selected so far
+			int next = farthest(landmark == 0 ? costs : minCosts);
+			landmarks[landmark] = next;
+
+			dijkstra(graph, next, openList, costs);
+			for (int i = 0; i < nodeCount; i++) {
+				fromLandmarks[i * k + landmark] = costs[i];
+				if (costs[i] < minCosts[i]) minCosts[i] = costs[i];
+			}
+
+			if (!symmetric) {
+				dijkstra(reverseGraph, next, openList, costs);
+				for (int i = 0; i < nodeCount; i++)
+					toLandmarks[i * k + landmark] = costs[i];
+			}
+		}
+
+		return new LandmarkHeuristic<N>(graph, landmarks, fromLandmarks, toLandmarks);
+	}
+
+	private static int findSeed (CsrIndexedGraph<?> graph) {
+		for (int i = 0, n = graph.getNodeCount(); i < n; i++)
+			if (graph.edgeOffsets[i + 1] > graph.edgeOffsets[i]) return i;
+		return 0;
+	}
+
+	/** Returns the index of the node with the highest finite cost. */
+	private static int farthest (float[] costs) {
+		int farthest = 0;
+		float maxCost = Float.NEGATIVE_INFINITY;
+		for (int i = 0; i < costs.length; i++) {
+			float cost = costs[i];
+			if (cost > maxCost && cost != Float.POSITIVE_INFINITY) {
+				maxCost = cost;
+				farthest = i;
+			}
+		}
+		return farthest;
+	}
+
+	/** Computes the cost from the given source node to every node of the given graph; unreachable nodes get infinity. */
+	static void dijkstra (CsrIndexedGraph<?> graph, int source, IntBinaryHeap openList, float[] costs) {
+		int[] edgeOffsets = graph.edgeOffsets;
+		int[] edgeTargets = graph.edgeTargets;
+		float[] edgeCosts = graph.edgeCosts;
+		for (int i = 0; i < costs.length; i++)
+			costs[i] = Float.POSITIVE_INFINITY;
+		openList.clear();
+		costs[source] = 0;
+		openList.add(source, 0);
+		while (openList.size > 0) {
+			int current = openList.pop();
+			float currentCost = costs[current];
+			for (int edge = edgeOffsets[current], end = edgeOffsets[current + 1]; edge < end; edge++) {
+				int node = edgeTargets[edge];
+				float cost = currentCost + edgeCosts[edge];
+				if (cost < costs[node]) {
+					if (openList.contains(node))
+						openList.setValue(node, cost);
+					else
+						openList.add(node, cost);
+					costs[node] = cost;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.indexed.CsrIndexedGraph.EdgeConnection;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.SerializationException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/** A read-only {@link EdgeIndexedGraph} backed by a graph file in binary format, typically memory-mapped through
+ * {@link #map(FileHandle, NodeMapper)}. Opening the graph only checks the edge offsets and targets in a single pass: nothing is
+ * parsed or copied and no object is created per node or per connection, so even huge graphs are ready as soon as the file is
+ * mapped, which makes server startup much faster than rebuilding the graphs from the map data.
+ * <p>
+ * Like a {@link CsrIndexedGraph}, the edges can be read through {@link #getEdgeStart(int)}, {@link #getEdgeEnd(int)},
+ * {@link #getEdgeTarget(int)} and {@link #getEdgeCost(int)} without allocating anything, so the path finders reading the edges of
+ * an {@link EdgeIndexedGraph} directly search the mapped file without creating any connection, while
+ * {@link #getConnections(Object)} creates the connections on demand for the other path finders. The tools that need a
+ * {@link CsrIndexedGraph}, for instance to build the reverse graph, can use the copy returned by {@link #toCsrIndexedGraph()},
+ * which only takes a few bulk copies. The file can also hold the coordinates of the nodes, for instance to compute heuristics.
+ * <p>
+ * Graph files are written by {@link #write(CsrIndexedGraph, float[], int, FileHandle)}. The format is a header of five big-endian
+ * ints (the magic number {@code 0x47444752}, the format version, the number of nodes, the number of edges and the number of
+ * coordinates per node) followed by the edge offsets, the edge targets, the edge costs and the coordinates of the nodes.
+ *
+ * @param <N> Type of node */
+public class MappedIndexedGraph<N> implements EdgeIndexedGraph<N> {
+
+	/** The magic number at the beginning of the binary format, i.e. "GDGR". */
+	public static final int MAGIC = 0x47444752;
+
+	/** The version of the binary format. */
+	public static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 5 * 4;
+
+	final NodeMapper<N> nodeMapper;
+	final int nodeCount;
+	final int dimensions;
+	final IntBuffer edgeOffsets;
+	final IntBuffer edgeTargets;
+	final FloatBuffer edgeCosts;
+	final FloatBuffer coordinates;
+
+	/** Creates a {@code MappedIndexedGraph} backed by the given buffer, which is not copied and must not be modified afterwards.
+	 * @param buffer the buffer holding the graph in binary format from its current position
+	 * @param nodeMapper the mapper between the nodes and their indices
+	 * @throws SerializationException if the buffer doesn't hold a graph in a supported format or an edge offset or target is out
+	 *            of range */
+	public MappedIndexedGraph (ByteBuffer buffer, NodeMapper<N> nodeMapper) {
+		ByteBuffer data = buffer.slice();
+		data.order(ByteOrder.BIG_ENDIAN);
+		if (data.remaining() < HEADER_SIZE || data.getInt(0) != MAGIC) throw new SerializationException("Not a graph file");
+		if (data.getInt(4) != VERSION) throw new SerializationException("Unsupported format version: " + data.getInt(4));
+		this.nodeMapper = nodeMapper;
+		this.nodeCount = data.getInt(8);
+		int edgeCount = data.getInt(12);
+		this.dimensions = data.getInt(16);
+		if (nodeCount < 0 || edgeCount < 0 || dimensions < 0) throw new SerializationException("Corrupted graph file");
+		if (data.remaining() < getSizeInBytes(nodeCount, edgeCount, dimensions))
+			throw new SerializationException("Truncated graph file");
+
+		int position = HEADER_SIZE;
+		edgeOffsets = slice(data, position, nodeCount + 1).asIntBuffer();
+		position += (nodeCount + 1) * 4;
+		edgeTargets = slice(data, position, edgeCount).asIntBuffer();
+		position += edgeCount * 4;
+		edgeCosts = slice(data, position, edgeCount).asFloatBuffer();
+		position += edgeCount * 4;
+		coordinates = slice(data, position, nodeCount * dimensions).asFloatBuffer();
+
+		// Reject out of range offsets and targets here rather than failing later in the path finders
+		if (edgeOffsets.get(0) != 0 || edgeOffsets.get(nodeCount) != edgeCount)
+			throw new SerializationException("Corrupted graph file");
+		for (int i = 0; i < nodeCount; i++)
+			if (edgeOffsets.get(i) > edgeOffsets.get(i + 1)) throw new SerializationException("Corrupted graph file");
+		for (int i = 0; i < edgeCount; i++) {
+			int target = edgeTargets.get(i);
+			if (target < 0 || target >= nodeCount) throw new SerializationException("Corrupted graph file");
+		}
+	}
+
+	/** Returns the bytes of the given buffer holding the given number of 4-byte values from the given position. */
+	private static ByteBuffer slice (ByteBuffer data, int position, int length) {
+		data.limit(position + length * 4).position(position);
+		ByteBuffer slice = data.slice().order(ByteOrder.BIG_ENDIAN);
+		data.clear();
+		return slice;
+	}
+
+	/** Returns the number of bytes of a graph file with the given number of nodes, edges and coordinates per node. */
+	public static long getSizeInBytes (int nodeCount, int edgeCount, int dimensions) {
+		return HEADER_SIZE + 4L * (nodeCount + 1L + 2L * edgeCount + (long)nodeCount * dimensions);
+	}
+
+	/** Maps the given graph file in memory.
+	 * @param file the graph file
+	 * @param nodeMapper the mapper between the nodes and their indices
+	 * @throws SerializationException if the file doesn't hold a graph in a supported format
+	 * @throws com.badlogic.gdx.utils.GdxRuntimeException if the file can't be mapped, for instance on platforms not supporting
+	 *            memory-mapped files */
+	public static <N> MappedIndexedGraph<N> map (FileHandle file, NodeMapper<N> nodeMapper) {
+		return new MappedIndexedGraph<N>(file.map(), nodeMapper);
+	}
+
+	/** Writes the given graph to the given file in binary format.
+	 * @param graph the graph
+	 * @param coordinates the coordinates of the nodes, indexed by {@code nodeIndex * dimensions + axis}, or {@code null}
+	 * @param dimensions the number of coordinates per node, which must be 0 if there are no coordinates
+	 * @param file the file
+	 * @throws SerializationException if an I/O error occurs. */
+	public static void write (CsrIndexedGraph<?> graph, float[] coordinates, int dimensions, FileHandle file) {
+		write(graph, coordinates, dimensions, file.write(false));
+	}
+
+	/** Writes the given graph to the given stream in binary format. The stream is closed by this method.
+	 * @param graph the graph
+	 * @param coordinates the coordinates of the nodes, indexed by {@code nodeIndex * dimensions + axis}, or {@code null}
+	 * @param dimensions the number of coordinates per node, which must be 0 if there are no coordinates
+	 * @param output the stream
+	 * @throws SerializationException if an I/O error occurs. */
+	public static void write (CsrIndexedGraph<?> graph, float[] coordinates, int dimensions, OutputStream output) {
+		int nodeCount = graph.getNodeCount();
+		if (dimensions < 0 || (coordinates == null ? dimensions != 0 : coordinates.length != nodeCount * dimensions))
+			throw new IllegalArgumentException("The coordinates don't match the nodes");
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(output));
+			int edgeCount = graph.getEdgeCount();
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(nodeCount);
+			out.writeInt(edgeCount);
+			out.writeInt(dimensions);
+			for (int i = 0; i <= nodeCount; i++)
+				out.writeInt(graph.edgeOffsets[i]);
+			for (int i = 0; i < edgeCount; i++)
+				out.writeInt(graph.edgeTargets[i]);
+			for (int i = 0; i < edgeCount; i++)
+				out.writeFloat(graph.edgeCosts[i]);
+			for (int i = 0; i < nodeCount * dimensions; i++)
+				out.writeFloat(coordinates[i]);
+			out.flush();
+		} catch (IOException ex) {
+			throw new SerializationException(ex);
+		} finally {
+			StreamUtils.closeQuietly(out != null ? out : output);
+		}
+	}
+
+	@Override
+	public int getIndex (N node) {
+		return nodeMapper.getIndex(node);
+	}
+
+	@Override
+	public int getNodeCount () {
+		return nodeCount;
+	}
+
+	/** Returns the node with the given index. */
+	@Override
+	public N getNode (int index) {
+		return nodeMapper.getNode(index);
+	}
+
+	/** Returns the total number of edges, i.e. connections, of this graph. */
+	@Override
+	public int getEdgeCount () {
+		return edgeTargets.capacity();
+	}
+
+	/** Returns the first edge outgoing from the node with the given index. */
+	@Override
+	public int getEdgeStart (int nodeIndex) {
+		return edgeOffsets.get(nodeIndex);
+	}
+
+	/** Returns the edge following the last edge outgoing from the node with the given index. */
+	@Override
+	public int getEdgeEnd (int nodeIndex) {
+		return edgeOffsets.get(nodeIndex + 1);
+	}
+
+	/** Returns the index of the node the given edge leads to. */
+	@Override
+	public int getEdgeTarget (int edge) {
+		return edgeTargets.get(edge);
+	}
+
+	/** Returns the cost of the given edge. */
+	@Override
+	public float getEdgeCost (int edge) {
+		return edgeCosts.get(edge);
+	}
+
+	/** Returns the number of coordinates of each node, which is 0 if the graph file holds no coordinates. */
+	public int getDimensions () {
+		return dimensions;
+	}
+
+	/** Returns the given coordinate of the node with the given index.
+	 * @param nodeIndex the index of the node
+	 * @param axis the coordinate, from 0 to {@link #getDimensions()} excluded */
+	public float getCoordinate (int nodeIndex, int axis) {
+		return coordinates.get(nodeIndex * dimensions + axis);
+	}
+
+	/** Creates a new {@link Connection} for the given edge.
+	 * @param fromIndex the index of the node the edge comes from
+	 * @param edge the edge */
+	@Override
+	public Connection<N> newConnection (int fromIndex, int edge) {
+		return new EdgeConnection<N>(nodeMapper.getNode(fromIndex), nodeMapper.getNode(edgeTargets.get(edge)), edgeCosts.get(edge));
+	}
+
+	/** Returns a new array containing a new {@link Connection} for each edge outgoing from the given node. */
+	@Override
+	public Array<Connection<N>> getConnections (N fromNode) {
+		int fromIndex = nodeMapper.getIndex(fromNode);
+		int start = edgeOffsets.get(fromIndex);
+		int end = edgeOffsets.get(fromIndex + 1);
+		Array<Connection<N>> connections = new Array<Connection<N>>(Math.max(1, end - start));
+		for (int edge = start; edge < end; edge++)
+			connections.add(new EdgeConnection<N>(fromNode, nodeMapper.getNode(edgeTargets.get(edge)), edgeCosts.get(edge)));
+		return connections;
+	}
+
+	/** Returns a {@link CsrIndexedGraph} holding a copy of the edges of this graph, for the tools that need a
+	 * {@code CsrIndexedGraph}, like {@link CsrIndexedGraph#reverse()}. */
+	@SuppressWarnings("unchecked")
+	public CsrIndexedGraph<N> toCsrIndexedGraph () {
+		N[] nodes = (N[])new Object[nodeCount];
+		for (int i = 0; i < nodeCount; i++)
+			nodes[i] = nodeMapper.getNode(i);
+		int[] offsets = new int[nodeCount + 1];
+		int[] targets = new int[getEdgeCount()];
+		float[] costs = new float[getEdgeCount()];
+		edgeOffsets.duplicate().get(offsets);
+		edgeTargets.duplicate().get(targets);
+		edgeCosts.duplicate().get(costs);
+		return new CsrIndexedGraph<N>(this, nodes, offsets, targets, costs);
+	}
+
+	/** A {@code NodeMapper} maps the nodes of a {@link MappedIndexedGraph} to their indices and back. Since the graph file only
+	 * holds indices, the nodes are usually lightweight objects created or looked up on demand, for instance the tiles of a map.
+	 *
+	 * @param <N> Type of node */
+	public interface NodeMapper<N> {
+
+		/** Returns the index of the given node. */
+		public int getIndex (N node);
+
+		/** Returns the node with the given index. */
+		public N getNode (int index);
+	}
+}
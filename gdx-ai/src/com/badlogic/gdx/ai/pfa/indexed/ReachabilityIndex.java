@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/** A {@code ReachabilityIndex} labels the connected components of an {@link IndexedGraph} so that a path finder can reject a
+ * request whose end node can't be reached in constant time, instead of exploring the whole component of the start node before
+ * giving up. Set it as the {@code reachabilityIndex} of an {@link IndexedAStarPathFinder} or a
+ * {@link CompactIndexedAStarPathFinder} to make them consult it before each search.
+ * <p>
+ * Components are tracked by a union-find structure where connections are treated as undirected. Therefore, two nodes in
+ * different components are never connected by a path, but on graphs with one-way connections two nodes in the same component
+ * might still be unreachable from one another; in that case the path finder just performs the search as usual.
+ * <p>
+ * The index must be kept in sync with the graph. {@link #connectionAdded(Object, Object)} merges two components in almost
+ * constant time. {@link #connectionRemoved(Object, Object)} may split a component, which a union-find structure can't do, so the
+ * component of the removed connection is relabeled from the connections of its nodes; the other components are left untouched.
+ * When many connections are removed at once, for instance when a large area of the map changes, it's cheaper to update the graph
+ * and call {@link #rebuild()} once instead of notifying each removal. Nodes added to the graph are picked up automatically as
+ * isolated nodes until their connections are notified.
+ *
+ * @param <N> Type of node */
+public class ReachabilityIndex<N> {
+	IndexedGraph<N> graph;
+	Array<N> nodes;
+
+	/** The number of nodes covered by this index. */
+	int nodeCount;
+
+	/** The parent in the union-find forest, indexed by node index; roots are their own parent. */
+	int[] parents;
+
+	/** An upper bound of the height of the tree rooted at the node, indexed by node index. */
+	byte[] ranks;
+
+	/** The next node of the same component, indexed by node index. The nodes of each component form a circular list. */
+	int[] nextMembers;
+
+	/** The node of each index, or {@code null} if the node has not been seen yet, indexed by node index. */
+	Object[] indexedNodes;
+
+	int componentCount;
+
+	/** The nodes of the component being relabeled. */
+	private final IntArray members = new IntArray();
+
+	/** Creates a {@code ReachabilityIndex} for the given graph.
+	 * @param graph the graph
+	 * @param nodes the nodes of the graph in any order; this array is scanned again at each rebuild, so nodes added to it later
+	 *           are taken into account. */
+	public ReachabilityIndex (IndexedGraph<N> graph, Array<N> nodes) {
+		this.graph = graph;
+		this.nodes = nodes;
+		allocate(graph.getNodeCount());
+		rebuild();
+	}
+
+	/** Rebuilds the components from the current connections of the graph. */
+	public void rebuild () {
+		int nodeCount = graph.getNodeCount();
+		if (parents.length < nodeCount) allocate(nodeCount);
+		for (int i = 0; i < nodeCount; i++) {
+			parents[i] = i;
+			ranks[i] = 0;
+			nextMembers[i] = i;
+			indexedNodes[i] = null;
+		}
+		this.nodeCount = nodeCount;
+		componentCount = nodeCount;
+		for (int i = 0; i < nodes.size; i++) {
+			N node = nodes.get(i);
+			int index = graph.getIndex(node);
+			indexedNodes[index] = node;
+			unionConnections(node, index);
+		}
+	}
+
+	/** Returns {@code false} if there's certainly no path between the given nodes; {@code true} otherwise. */
+	public boolean isReachable (N fromNode, N toNode) {
+		grow();
+		return find(graph.getIndex(fromNode)) == find(graph.getIndex(toNode));
+	}
+
+	/** Returns the label of the component of the given node. Nodes in the same component have the same label; labels are only
+	 * valid until the index is updated. */
+	public int getComponent (N node) {
+		grow();
+		return find(graph.getIndex(node));
+	}
+
+	/** Returns the number of components, counting isolated nodes as components of their own. */
+	public int getComponentCount () {
+		grow();
+		return componentCount;
+	}
+
+	/** Notifies this index that a connection between the given nodes has been added to the graph. */
+	public void connectionAdded (N fromNode, N toNode) {
+		grow();
+		int fromIndex = graph.getIndex(fromNode);
+		int toIndex = graph.getIndex(toNode);
+		indexedNodes[fromIndex] = fromNode;
+		indexedNodes[toIndex] = toNode;
+		union(fromIndex, toIndex);
+	}
+
+	/** Notifies this index that a connection between the given nodes has been removed from the graph. The component of the
+	 * nodes is relabeled, which takes time proportional to its number of nodes and connections. */
+	public void connectionRemoved (N fromNode, N toNode) {
+		grow();
+		int root = find(graph.getIndex(fromNode));
+		if (root != find(graph.getIndex(toNode))) return;
+
+		// Collect the nodes of the component before splitting it into isolated nodes
+		IntArray members = this.members;
+		int member = root;
+		do {
+			members.add(member);
+			member = nextMembers[member];
+		} while (member != root);
+		for (int i = 0; i < members.size; i++) {
+			member = members.get(i);
+			parents[member] = member;
+			ranks[member] = 0;
+			nextMembers[member] = member;
+		}
+		componentCount += members.size - 1;
+
+		// Merge them again through their remaining connections, which can't lead outside the component
+		for (int i = 0; i < members.size; i++) {
+			member = members.get(i);
+			@SuppressWarnings("unchecked")
+			N node = (N)indexedNodes[member];
+			if (node != null) unionConnections(node, member);
+		}
+		members.clear();
+	}
+
+	private void unionConnections (N node, int nodeIndex) {
+		Array<Connection<N>> connections = graph.getConnections(node);
+		for (int j = 0; j < connections.size; j++)
+			union(nodeIndex, graph.getIndex(connections.get(j).getToNode()));
+	}
+
+	/** Adds the nodes added to the graph since the last update as isolated nodes. */
+	private void grow () {
+		int newNodeCount = graph.getNodeCount();
+		if (newNodeCount <= nodeCount) return;
+		if (parents.length < newNodeCount) allocate(Math.max(newNodeCount, parents.length + (parents.length >> 1)));
+		for (int i = nodeCount; i < newNodeCount; i++) {
+			parents[i] = i;
+			ranks[i] = 0;
+			nextMembers[i] = i;
+			indexedNodes[i] = null;
+		}
+		componentCount += newNodeCount - nodeCount;
+		nodeCount = newNodeCount;
+	}
+
+	/** Resizes the arrays to the given capacity, keeping the entries of the nodes covered so far. */
+	private void allocate (int capacity) {
+		int[] newParents = new int[capacity];
+		byte[] newRanks = new byte[capacity];
+		int[] newNextMembers = new int[capacity];
+		Object[] newIndexedNodes = new Object[capacity];
+		if (parents != null) {
+			System.arraycopy(parents, 0, newParents, 0, nodeCount);
+			System.arraycopy(ranks, 0, newRanks, 0, nodeCount);
+			System.arraycopy(nextMembers, 0, newNextMembers, 0, nodeCount);
+			System.arraycopy(indexedNodes, 0, newIndexedNodes, 0, nodeCount);
+		}
+		parents = newParents;
+		ranks = newRanks;
+		nextMembers = newNextMembers;
+		indexedNodes = newIndexedNodes;
+	}
+
+	int find (int nodeIndex) {
+		int[] parents = this.parents;
+		while (parents[nodeIndex] != nodeIndex) {
+			// Path halving
+			int grandparent = parents[parents[nodeIndex]];
+			parents[nodeIndex] = grandparent;
+			nodeIndex = grandparent;
+		}
+		return nodeIndex;
+	}
+
+	void union (int a, int b) {
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA == rootB) return;
+		if (ranks[rootA] < ranks[rootB]) {
+			parents[rootA] = rootB;
+		} else {
+			parents[rootB] = rootA;
+			if (ranks[rootA] == ranks[rootB]) ranks[rootA]++;
+		}
+
+		// Splice the circular lists of the members of the two components
+		int next = nextMembers[rootA];
+		nextMembers[rootA] = nextMembers[rootB];
+		nextMembers[rootB] = next;
+		componentCount--;
+	}
+}
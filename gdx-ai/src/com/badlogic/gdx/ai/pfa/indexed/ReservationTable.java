@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.LongArray;
+
+/** A {@code ReservationTable} records which agent occupies which node of an {@link IndexedGraph} at which time step, so that
+ * agents planning their paths one after another through a {@link CooperativeAStarPathFinder} avoid the nodes already claimed by
+ * the others.
+ * <p>
+ * Each reservation is stored as a single {@code long} key packing the time step and the node index, in an open addressing hash
+ * table with linear probing. No object is allocated per reservation, and the table only grows when it becomes half full. The
+ * keys are also listed per agent, so that releasing the reservations of an agent only touches its own slots.
+ * <p>
+ * Time steps and node indices must be non-negative. Agents are identified by non-negative integers. */
+public class ReservationTable {
+
+	/** The key of an empty slot. Valid keys are never negative. */
+	private static final long EMPTY = -1;
+
+	/** The number of reservations in this table. */
+	public int size;
+
+	/** The packed time step and node index of each slot, or {@link #EMPTY}. */
+	private long[] keys;
+
+	/** The agent holding the reservation of each slot. */
+	private int[] agents;
+
+	private int mask;
+	private int shift;
+
+	/** The keys reserved by each agent, in no particular order. The arrays are kept when emptied to be reused. */
+	private final IntMap<LongArray> agentKeys = new IntMap<LongArray>();
+
+	/** Creates a {@code ReservationTable} able to hold 64 reservations without being resized. */
+	public ReservationTable () {
+		this(64);
+	}
+
+	/** Creates a {@code ReservationTable}.
+	 * @param initialCapacity the number of reservations this table can hold without being resized */
+	public ReservationTable (int initialCapacity) {
+		if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity must be >= 0: " + initialCapacity);
+		allocate(Math.max(8, MathUtils.nextPowerOfTwo(initialCapacity * 2)));
+	}
+
+	/** Reserves the given node at the given time step for the given agent.
+	 * @param nodeIndex the index of the node
+	 * @param time the time step
+	 * @param agent the agent
+	 * @return {@code true} if the node is now reserved for the agent; {@code false} if it was already reserved for another agent, in
+	 *         which case the table is not modified. */
+	public boolean reserve (int nodeIndex, int time, int agent) {
+		long key = key(nodeIndex, time);
+		int slot = find(key);
+		if (slot >= 0) return agents[slot] == agent;
+		if (size * 2 >= keys.length) {
+			resize(keys.length << 1);
+		}
+		slot = place(key);
+		keys[slot] = key;
+		agents[slot] = agent;
+		size++;
+		LongArray reserved = agentKeys.get(agent);
+		if (reserved == null) agentKeys.put(agent, reserved = new LongArray(false, 16));
+		reserved.add(key);
+		return true;
+	}
+
+	/** Returns the agent that reserved the given node at the given time step, or {@code -1} if the node is free.
+	 * @param nodeIndex the index of the node
+	 * @param time the time step */
+	public int getAgent (int nodeIndex, int time) {
+		int slot = find(key(nodeIndex, time));
+		return slot < 0 ? -1 : agents[slot];
+	}
+
+	/** Returns {@code true} if the given node is free or reserved for the given agent at the given time step; {@code false}
+	 * otherwise.
+	 * @param nodeIndex the index of the node
+	 * @param time the time step
+	 * @param agent the agent */
+	public boolean isFree (int nodeIndex, int time, int agent) {
+		int slot = find(key(nodeIndex, time));
+		return slot < 0 || agents[slot] == agent;
+	}
+
+	/** Returns {@code true} if the given agent can move from a node to another from the given time step to the next one, i.e. the
+	 * destination node is free at the next time step and no other agent moves the opposite way at the same time.
+	 * @param fromNodeIndex the index of the node the move starts from
+	 * @param toNodeIndex the index of the node the move ends to
+	 * @param time the time step the move starts at
+	 * @param agent the agent */
+	public boolean canMove (int fromNodeIndex, int toNodeIndex, int time, int agent) {
+		int other = getAgent(toNodeIndex, time + 1);
+		if (other >= 0 && other != agent) return false;
+		if (fromNodeIndex == toNodeIndex) return true;
+		other = getAgent(toNodeIndex, time);
+		return other < 0 || other == agent || getAgent(fromNodeIndex, time + 1) != other;
+	}
+
+	/** Cancels the reservation of the given node at the given time step.
+	 * @param nodeIndex the index of the node
+	 * @param time the time step
+	 * @return the agent that reserved the node, or {@code -1} if the node was free. */
+	public int release (int nodeIndex, int time) {
+		long key = key(nodeIndex, time);
+		int slot = find(key);
+		if (slot < 0) return -1;
+		int agent = agents[slot];
+		removeSlot(slot);
+		LongArray reserved = agentKeys.get(agent);
+		long[] items = reserved.items;
+		for (int i = 0; i < reserved.size; i++) {
+			if (items[i] == key) {
+				items[i] = items[--reserved.size];
+				break;
+			}
+		}
+		return agent;
+	}
+
+	/** Cancels all the reservations of the given agent.
+	 * @param agent the agent
+	 * @return the number of cancelled reservations. */
+	public int releaseAgent (int agent) {
+		LongArray reserved = agentKeys.get(agent);
+		if (reserved == null) return 0;
+		int removed = reserved.size;
+		long[] items = reserved.items;
+		for (int i = 0; i < removed; i++)
+			removeSlot(find(items[i]));
+		reserved.clear();
+		return removed;
+	}
+
+	/** Cancels all the reservations at the time steps before the given one. This is typically called when the time advances, so
+	 * that the table only holds the reservations of the current window.
+	 * @param time the time step
+	 * @return the number of cancelled reservations. */
+	public int releaseBefore (int time) {
+		int removed = 0;
+		for (LongArray reserved : agentKeys.values()) {
+			long[] items = reserved.items;
+			for (int i = 0; i < reserved.size;) {
+				if ((int)(items[i] >>> 32) < time) {
+					removeSlot(find(items[i]));
+					// Check the same index again since the last key has been moved there
+					items[i] = items[--reserved.size];
+					removed++;
+				} else {
+					i++;
+				}
+			}
+		}
+		return removed;
+	}
+
+	/** Cancels all the reservations. */
+	public void clear () {
+		if (size == 0) return;
+		long[] keys = this.keys;
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = EMPTY;
+		for (LongArray reserved : agentKeys.values())
+			reserved.clear();
+		size = 0;
+	}
+
+	private static long key (int nodeIndex, int time) {
+		if (nodeIndex < 0 || time < 0) throw new IllegalArgumentException("Negative node index or time step");
+		return (long)time << 32 | nodeIndex;
+	}
+
+	/** Returns the home slot of the given key using Fibonacci hashing, which spreads the consecutive node indices and time
+	 * steps well. */
+	private int hash (long key) {
+		return (int)((key * 0x9E3779B97F4A7C15L) >>> shift);
+	}
+
+	/** Returns the slot holding the given key or {@code -1} if the key is not in the table. */
+	private int find (long key) {
+		long[] keys = this.keys;
+		for (int i = hash(key);; i = (i + 1) & mask) {
+			long k = keys[i];
+			if (k == key) return i;
+			if (k == EMPTY) return -1;
+		}
+	}
+
+	/** Returns the first empty slot for the given key, which must not be in the table. */
+	private int place (long key) {
+		long[] keys = this.keys;
+		int i = hash(key);
+		while (keys[i] != EMPTY)
+			i = (i + 1) & mask;
+		return i;
+	}
+
+	/** Empties the given slot and moves back the following keys of the same cluster, so that no tombstone is needed. */
+	private void removeSlot (int slot) {
+		long[] keys = this.keys;
+		int[] agents = this.agents;
+		int mask = this.mask;
+		int hole = slot;
+		for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+			// Move the key into the hole if its home slot is not between the hole and its current slot
+			int home = hash(keys[i]);
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				keys[hole] = keys[i];
+				agents[hole] = agents[i];
+				hole = i;
+			}
+		}
+		keys[hole] = EMPTY;
+		size--;
+	}
+
+	private void allocate (int capacity) {
+		keys = new long[capacity];
+		agents = new int[capacity];
+		for (int i = 0; i < capacity; i++)
+			keys[i] = EMPTY;
+		mask = capacity - 1;
+		shift = Long.numberOfLeadingZeros(capacity) + 1;
+	}
+
+	private void resize (int newCapacity) {
+		long[] oldKeys = keys;
+		int[] oldAgents = agents;
+		allocate(newCapacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			long key = oldKeys[i];
+			if (key != EMPTY) {
+				int slot = place(key);
+				keys[slot] = key;
+				agents[slot] = oldAgents[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,431 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.LineOfSight;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.PathSmoother;
+import com.badlogic.gdx.ai.utils.IntBinaryHeap;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** A {@link PathFinder} implementing the Theta* family of any-angle path finding algorithms on an {@link IndexedGraph}.
+ * <p>
+ * Theta* is an A* variant that, when it reaches a node through a connection, also tries to reach it straight from the parent of
+ * the current node, as long as the {@link LineOfSight} says that's possible. The parent of a node is therefore not necessarily
+ * adjacent to the node, and the resulting paths are made of few long segments heading in any direction rather than a sequence of
+ * moves along the connections of the graph. Compared to an A* search followed by a {@link PathSmoother} pass, the paths are
+ * found in a single pass and are usually shorter, since the shortcuts are taken into account while searching.
+ * <p>
+ * The lazy variant, i.e. Lazy Theta*, optimistically assumes that the line of sight exists when a node is reached and checks it
+ * only once, when the node is expanded; if the check fails, the node falls back to the best parent among the expanded nodes that
+ * are connected to it. This greatly reduces the number of line of sight checks, which are usually far more expensive than the
+ * rest of the search, for paths of almost the same length. You can compare the variants through {@link Metrics}.
+ * <p>
+ * Node paths only contain the start node, the end node and the nodes where the path changes direction. Connection paths are made
+ * of {@link SegmentConnection} instances created on demand, whose costs are given by the {@link LineOfSight}. The heuristic
+ * should be the same distance returned by the {@link LineOfSight}, typically the euclidean distance. This path finder can also be
+ * used by a {@link PathFinderQueue} to run time-sliced searches.
+ *
+ * @param <N> Type of node */
+public class ThetaStarPathFinder<N> implements PathFinder<N> {
+	IndexedGraph<N> graph;
+	LineOfSight<N> lineOfSight;
+	boolean lazy;
+
+	/** The actual cost from the start node, indexed by node index. */
+	float[] costSoFar;
+
+	/** The estimated total cost, indexed by node index. */
+	float[] estimatedTotalCost;
+
+	/** The index of the parent node or {@code -1} for the start node, indexed by node index. */
+	int[] parent;
+
+	/** The best parent among the expanded nodes connected to the node, used by Lazy Theta* when the line of sight to the assumed
+	 * parent is missing, indexed by node index. */
+	int[] fallbackParent;
+
+	/** The cost from the start node through the fallback parent, indexed by node index. */
+	float[] fallbackCost;
+
+	/** Whether the line of sight between the node and its parent is known to exist, indexed by node index. */
+	boolean[] lineOfSightKnown;
+
+	/** The node category: {@link #UNVISITED}, {@link #OPEN} or {@link #CLOSED}, indexed by node index. */
+	byte[] category;
+
+	/** The ID of the search that last touched the node, indexed by node index. */
+	int[] searchIds;
+
+	/** The nodes met so far, indexed by node index. */
+	N[] nodes;
+
+	IntBinaryHeap openList;
+	int current;
+
+	public Metrics metrics;
+
+	/** The unique ID for each search run. Used to mark nodes. */
+	private int searchId;
+
+	private static final byte UNVISITED = 0;
+	private static final byte OPEN = 1;
+	private static final byte CLOSED = 2;
+
+	/** Creates a Lazy Theta* path finder. */
+	public ThetaStarPathFinder (IndexedGraph<N> graph, LineOfSight<N> lineOfSight) {
+		this(graph, lineOfSight, true, false);
+	}
+
+	/** Creates a {@code ThetaStarPathFinder}.
+	 * @param graph the graph
+	 * @param lineOfSight the line of sight between the nodes of the graph
+	 * @param lazy whether Lazy Theta* or Theta* is performed
+	 * @param calculateMetrics whether metrics are calculated */
+	@SuppressWarnings("unchecked")
+	public ThetaStarPathFinder (IndexedGraph<N> graph, LineOfSight<N> lineOfSight, boolean lazy, boolean calculateMetrics) {
+		this.graph = graph;
+		this.lineOfSight = lineOfSight;
+		this.lazy = lazy;
+		int nodeCount = graph.getNodeCount();
+		this.costSoFar = new float[nodeCount];
+		this.estimatedTotalCost = new float[nodeCount];
+		this.parent = new int[nodeCount];
+		this.fallbackParent = new int[nodeCount];
+		this.fallbackCost = new float[nodeCount];
+		this.lineOfSightKnown = new boolean[nodeCount];
+		this.category = new byte[nodeCount];
+		this.searchIds = new int[nodeCount];
+		this.nodes = (N[])new Object[nodeCount];
+		this.openList = new IntBinaryHeap(nodeCount);
+		if (calculateMetrics) this.metrics = new Metrics();
+	}
+
+	/** Returns whether Lazy Theta* or Theta* is performed. */
+	public boolean isLazy () {
+		return lazy;
+	}
+
+	@Override
+	public boolean searchConnectionPath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<Connection<N>> outPath) {
+
+		// Perform Theta*
+		boolean found = search(startNode, endNode, heuristic);
+
+		if (found) {
+			// Create a path made of connections
+			generateConnectionPath(outPath);
+		}
+
+		return found;
+	}
+
+	@Override
+	public boolean searchNodePath (N startNode, N endNode, Heuristic<N> heuristic, GraphPath<N> outPath) {
+
+		// Perform Theta*
+		boolean found = search(startNode, endNode, heuristic);
+
+		if (found) {
+			// Create a path made of nodes
+			generateNodePath(outPath);
+		}
+
+		return found;
+	}
+
+	protected boolean search (N startNode, N endNode, Heuristic<N> heuristic) {
+
+		initSearch(startNode, endNode, heuristic);
+
+		// Iterate through processing each node
+		do {
+			// Retrieve the node with smallest estimated total cost from the open list
+			expandNext();
+
+			// Terminate if we reached the goal
+			if (nodes[current] == endNode) return true;
+
+			visitChildren(endNode, heuristic);
+
+		} while (openList.size > 0);
+
+		// We've run out of nodes without finding the goal, so there's no solution
+		return false;
+	}
+
+	@Override
+	public boolean search (PathFinderRequest<N> request, long timeToRun) {
+
+		long lastTime = TimeUtils.nanoTime();
+
+		// We have to initialize the search if the status has just changed
+		if (request.statusChanged) {
+			initSearch(request.startNode, request.endNode, request.heuristic);
+			request.statusChanged = false;
+		}
+
+		// Iterate through processing each node
+		do {
+
+			// Check the available time
+			long currentTime = TimeUtils.nanoTime();
+			timeToRun -= currentTime - lastTime;
+			if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return false;
+
+			// Retrieve the node with smallest estimated total cost from the open list
+			expandNext();
+
+			// Terminate if we reached the goal; we've found a path.
+			if (nodes[current] == request.endNode) {
+				request.pathFound = true;
+
+				generateNodePath(request.resultPath);
+
+				return true;
+			}
+
+			// Visit current node's children
+			visitChildren(request.endNode, request.heuristic);
+
+			// Store the current time
+			lastTime = currentTime;
+
+		} while (openList.size > 0);
+
+		// The open list is empty and we've not found a path.
+		request.pathFound = false;
+		return true;
+	}
+
+	protected void initSearch (N startNode, N endNode, Heuristic<N> heuristic) {
+		if (metrics != null) metrics.reset();
+
+		// Increment the search id
+		if (++searchId < 0) searchId = 1;
+
+		// Initialize the open list
+		openList.clear();
+
+		// Initialize the start node and add it to the open list
+		int startIndex = touchNode(graph.getIndex(startNode), startNode);
+		parent[startIndex] = -1;
+		lineOfSightKnown[startIndex] = true;
+		costSoFar[startIndex] = 0;
+		addToOpenList(startIndex, heuristic.estimate(startNode, endNode));
+
+		current = -1;
+	}
+
+	/** Pops the node with the smallest estimated total cost from the open list and closes it. With Lazy Theta*, the line of sight
+	 * to its parent is checked here and the node falls back to its best expanded neighbor if the check fails. */
+	protected void expandNext () {
+		current = openList.pop();
+		category[current] = CLOSED;
+		if (!lineOfSightKnown[current]) {
+			lineOfSightKnown[current] = true;
+			if (!hasLineOfSight(parent[current], current)) {
+				parent[current] = fallbackParent[current];
+				costSoFar[current] = fallbackCost[current];
+			}
+		}
+	}
+
+	protected void visitChildren (N endNode, Heuristic<N> heuristic) {
+
+		// Get current node's outgoing connections
+		Array<Connection<N>> connections = graph.getConnections(nodes[current]);
+		float currentCostSoFar = costSoFar[current];
+		int currentParent = parent[current];
+
+		// Loop through each connection in turn
+		for (int i = 0; i < connections.size; i++) {
+			if (metrics != null) metrics.visitedNodes++;
+
+			Connection<N> connection = connections.get(i);
+			N node = connection.getToNode();
+			int nodeIndex = touchNode(graph.getIndex(node), node);
+			byte nodeCategory = category[nodeIndex];
+
+			// Closed nodes are never reopened
+			if (nodeCategory == CLOSED) continue;
+
+			// The cost of reaching the node through the current node
+			float connectionCost = currentCostSoFar + connection.getCost();
+
+			float nodeHeuristic;
+			if (nodeCategory == OPEN) {
+				nodeHeuristic = estimatedTotalCost[nodeIndex] - costSoFar[nodeIndex];
+			} else {
+				nodeHeuristic = heuristic.estimate(node, endNode);
+				costSoFar[nodeIndex] = Float.POSITIVE_INFINITY;
+				fallbackCost[nodeIndex] = Float.POSITIVE_INFINITY;
+			}
+
+			int nodeParent;
+			float nodeCost;
+			boolean known;
+			if (lazy) {
+				// Keep track of the best expanded neighbor in case the line of sight turns out to be missing
+				if (connectionCost < fallbackCost[nodeIndex]) {
+					fallbackCost[nodeIndex] = connectionCost;
+					fallbackParent[nodeIndex] = current;
+				}
+
+				// Optimistically assume the line of sight from the parent of the current node
+				if (currentParent >= 0) {
+					nodeParent = currentParent;
+					nodeCost = costSoFar[currentParent] + lineOfSight.getDistance(nodes[currentParent], node);
+					known = false;
+				} else {
+					nodeParent = current;
+					nodeCost = connectionCost;
+					known = true;
+				}
+			} else if (currentParent >= 0 && hasLineOfSight(currentParent, nodeIndex)) {
+				// Go straight from the parent of the current node
+				nodeParent = currentParent;
+				nodeCost = costSoFar[currentParent] + lineOfSight.getDistance(nodes[currentParent], node);
+				known = true;
+			} else {
+				// Go through the current node
+				nodeParent = current;
+				nodeCost = connectionCost;
+				known = true;
+			}
+
+			// If our route is no better, then skip
+			if (costSoFar[nodeIndex] <= nodeCost) continue;
+
+			// Remove it from the open list (it will be re-added with the new cost)
+			if (nodeCategory == OPEN) openList.remove(nodeIndex);
+
+			// Update node's cost and parent
+			costSoFar[nodeIndex] = nodeCost;
+			parent[nodeIndex] = nodeParent;
+			lineOfSightKnown[nodeIndex] = known;
+
+			// Add it to the open list with the estimated total cost
+			addToOpenList(nodeIndex, nodeCost + nodeHeuristic);
+		}
+	}
+
+	private boolean hasLineOfSight (int fromIndex, int toIndex) {
+		if (metrics != null) metrics.lineOfSightChecks++;
+		return lineOfSight.hasLineOfSight(nodes[fromIndex], nodes[toIndex]);
+	}
+
+	protected void generateConnectionPath (GraphPath<Connection<N>> outPath) {
+
+		// Work back along the path, accumulating connections
+		// outPath.clear();
+		while (parent[current] >= 0) {
+			int p = parent[current];
+			outPath.add(new SegmentConnection<N>(nodes[p], nodes[current], costSoFar[current] - costSoFar[p]));
+			current = p;
+		}
+
+		// Reverse the path
+		outPath.reverse();
+	}
+
+	protected void generateNodePath (GraphPath<N> outPath) {
+
+		// Work back along the path, accumulating nodes
+		// outPath.clear();
+		while (current >= 0) {
+			outPath.add(nodes[current]);
+			current = parent[current];
+		}
+
+		// Reverse the path
+		outPath.reverse();
+	}
+
+	protected void addToOpenList (int nodeIndex, float estimatedTotalCost) {
+		openList.add(nodeIndex, estimatedTotalCost);
+		this.estimatedTotalCost[nodeIndex] = estimatedTotalCost;
+		category[nodeIndex] = OPEN;
+		if (metrics != null) {
+			metrics.openListAdditions++;
+			metrics.openListPeak = Math.max(metrics.openListPeak, openList.size);
+		}
+	}
+
+	/** Resets the state of the given node if it has not been touched by the current search yet.
+	 * @param nodeIndex the index of the node
+	 * @param node the node
+	 * @return the index of the node */
+	protected int touchNode (int nodeIndex, N node) {
+		if (searchIds[nodeIndex] != searchId) {
+			category[nodeIndex] = UNVISITED;
+			searchIds[nodeIndex] = searchId;
+			nodes[nodeIndex] = node;
+		}
+		return nodeIndex;
+	}
+
+	/** The metrics of a {@link ThetaStarPathFinder}, which also count the line of sight checks. */
+	public static class Metrics extends IndexedAStarPathFinder.Metrics {
+		public int lineOfSightChecks;
+
+		public Metrics () {
+		}
+
+		@Override
+		public void reset () {
+			super.reset();
+			lineOfSightChecks = 0;
+		}
+	}
+
+	/** A {@link Connection} between two nodes in line of sight of each other, created on demand by a {@link ThetaStarPathFinder}.
+	 *
+	 * @param <N> Type of node */
+	public static class SegmentConnection<N> implements Connection<N> {
+		protected N fromNode;
+		protected N toNode;
+		protected float cost;
+
+		public SegmentConnection (N fromNode, N toNode, float cost) {
+			this.fromNode = fromNode;
+			this.toNode = toNode;
+			this.cost = cost;
+		}
+
+		@Override
+		public float getCost () {
+			return cost;
+		}
+
+		@Override
+		public N getFromNode () {
+			return fromNode;
+		}
+
+		@Override
+		public N getToNode () {
+			return toNode;
+		}
+	}
+}
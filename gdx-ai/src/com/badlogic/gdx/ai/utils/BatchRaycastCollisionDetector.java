@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.utils;
+
+import com.badlogic.gdx.math.Vector;
+import com.badlogic.gdx.utils.Array;
+
+/** A {@link RaycastCollisionDetector} able to test many rays in a single call, so that the broadphase work of the underlying
+ * physics engine, like querying the bodies overlapping the bounding box of all the rays, can be shared among them.
+ * 
+ * @param <T> Type of vector, either 2D or 3D, implementing the {@link Vector} interface */
+public interface BatchRaycastCollisionDetector<T extends Vector<T>> extends RaycastCollisionDetector<T> {
+
+	/** Casts the given rays to test if they collide with any objects in the game world.
+	 * @param rays the rays to cast
+	 * @param outCollisions the output array, at least as long as the number of rays; the element at index {@code i} is set to
+	 *           {@code true} if the ray at index {@code i} collides; {@code false} otherwise. */
+	public void collides (Array<Ray<T>> rays, boolean[] outCollisions);
+}
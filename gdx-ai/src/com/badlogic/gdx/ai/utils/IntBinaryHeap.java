@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.utils;
+
+/** A binary min-heap of {@code int} elements ordered by a {@code float} value.
+ * <p>
+ * Elements must be non-negative integers lower than the capacity of the heap, typically the indices of the nodes of a graph.
+ * Unlike libgdx's {@code BinaryHeap}, no object is allocated per element: values and heap positions are stored in parallel
+ * primitive arrays indexed by the element itself. This allows {@link #contains(int)} in constant time and
+ * {@link #setValue(int, float) decrease/increase key} in O(log(n)) time without searching the element in the heap.
+ * <p>
+ * Ties are broken exactly like libgdx's {@code BinaryHeap} does, so that an algorithm ported from one heap to the other
+ * processes the elements in the same order. */
+public class IntBinaryHeap implements IntPriorityQueue {
+
+	/** The number of elements in this heap. */
+	public int size;
+
+	/** The heap itself: {@code heap[0]} is the element with the lowest value. */
+	private int[] heap;
+
+	/** The value of each element, indexed by element. */
+	private float[] values;
+
+	/** The position in the heap of each element, indexed by element; it's {@code -1} if the element is not in the heap. */
+	private int[] positions;
+
+	/** Creates an {@code IntBinaryHeap} able to hold the elements in the range [0, 16). */
+	public IntBinaryHeap () {
+		this(16);
+	}
+
+	/** Creates an {@code IntBinaryHeap} able to hold the elements in the range [0, capacity).
+	 * @param capacity the number of distinct elements this heap can hold without being resized */
+	public IntBinaryHeap (int capacity) {
+		this.heap = new int[capacity];
+		this.values = new float[capacity];
+		this.positions = new int[capacity];
+		for (int i = 0; i < capacity; i++)
+			positions[i] = -1;
+	}
+
+	@Override
+	public int size () {
+		return size;
+	}
+
+	/** Returns the number of distinct elements this heap can hold without being resized. */
+	public int getCapacity () {
+		return positions.length;
+	}
+
+	/** Makes sure this heap is able to hold the elements in the range [0, capacity).
+	 * @param capacity the required capacity */
+	@Override
+	public void ensureCapacity (int capacity) {
+		int oldCapacity = positions.length;
+		if (capacity <= oldCapacity) return;
+		int[] newHeap = new int[capacity];
+		float[] newValues = new float[capacity];
+		int[] newPositions = new int[capacity];
+		System.arraycopy(heap, 0, newHeap, 0, size);
+		System.arraycopy(values, 0, newValues, 0, oldCapacity);
+		System.arraycopy(positions, 0, newPositions, 0, oldCapacity);
+		for (int i = oldCapacity; i < capacity; i++)
+			newPositions[i] = -1;
+		heap = newHeap;
+		values = newValues;
+		positions = newPositions;
+	}
+
+	/** Adds the given element with the given value. The element must not be already in the heap.
+	 * @param element the element to add
+	 * @param value the value of the element
+	 * @throws IllegalArgumentException if the element is already in the heap */
+	@Override
+	public void add (int element, float value) {
+		if (positions[element] >= 0) throw new IllegalArgumentException("Element already in the heap: " + element);
+		values[element] = value;
+		positions[element] = size;
+		heap[size] = element;
+		up(size++);
+	}
+
+	/** Returns the element with the lowest value without removing it.
+	 * @throws IllegalStateException if the heap is empty */
+	@Override
+	public int peek () {
+		if (size == 0) throw new IllegalStateException("The heap is empty.");
+		return heap[0];
+	}
+
+	/** Removes and returns the element with the lowest value.
+	 * @throws IllegalStateException if the heap is empty */
+	@Override
+	public int pop () {
+		if (size == 0) throw new IllegalStateException("The heap is empty.");
+		int removed = heap[0];
+		positions[removed] = -1;
+		if (--size > 0) {
+			int last = heap[size];
+			heap[0] = last;
+			positions[last] = 0;
+			down(0);
+		}
+		return removed;
+	}
+
+	/** Removes the given element from the heap, if present.
+	 * @param element the element to remove
+	 * @return {@code true} if the element was in the heap; {@code false} otherwise. */
+	@Override
+	public boolean remove (int element) {
+		int index = positions[element];
+		if (index < 0) return false;
+		positions[element] = -1;
+		if (--size > index) {
+			int last = heap[size];
+			heap[index] = last;
+			positions[last] = index;
+			if (values[last] < values[element])
+				up(index);
+			else
+				down(index);
+		}
+		return true;
+	}
+
+	/** Changes the value of the given element, which must be in the heap, and restores the heap order.
+	 * @param element the element
+	 * @param value the new value */
+	@Override
+	public void setValue (int element, float value) {
+		float oldValue = values[element];
+		values[element] = value;
+		if (value < oldValue)
+			up(positions[element]);
+		else
+			down(positions[element]);
+	}
+
+	/** Returns the value of the given element. The result is undefined if the element has never been added to the heap. */
+	@Override
+	public float getValue (int element) {
+		return values[element];
+	}
+
+	/** Returns {@code true} if the given element is in the heap; {@code false} otherwise. */
+	@Override
+	public boolean contains (int element) {
+		return positions[element] >= 0;
+	}
+
+	/** Returns {@code true} if the heap is empty; {@code false} otherwise. */
+	@Override
+	public boolean isEmpty () {
+		return size == 0;
+	}
+
+	/** Removes all the elements from the heap. This takes time proportional to the current size, not to the capacity. */
+	@Override
+	public void clear () {
+		for (int i = 0; i < size; i++)
+			positions[heap[i]] = -1;
+		size = 0;
+	}
+
+	private void up (int index) {
+		int[] heap = this.heap;
+		int[] positions = this.positions;
+		int element = heap[index];
+		float value = values[element];
+		while (index > 0) {
+			int parentIndex = (index - 1) >> 1;
+			int parent = heap[parentIndex];
+			if (value >= values[parent]) break;
+			heap[index] = parent;
+			positions[parent] = index;
+			index = parentIndex;
+		}
+		heap[index] = element;
+		positions[element] = index;
+	}
+
+	private void down (int index) {
+		int[] heap = this.heap;
+		int[] positions = this.positions;
+		float[] values = this.values;
+		int size = this.size;
+		int element = heap[index];
+		float value = values[element];
+		while (true) {
+			int childIndex = 1 + (index << 1);
+			if (childIndex >= size) break;
+			int child = heap[childIndex];
+			float childValue = values[child];
+			int rightIndex = childIndex + 1;
+			if (rightIndex < size) {
+				int right = heap[rightIndex];
+				float rightValue = values[right];
+				if (rightValue <= childValue) {
+					childIndex = rightIndex;
+					child = right;
+					childValue = rightValue;
+				}
+			}
+			if (childValue >= value) break;
+			heap[index] = child;
+			positions[child] = index;
+			index = childIndex;
+		}
+		heap[index] = element;
+		positions[element] = index;
+	}
+}
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.utils;
+
+/** A bucket queue, also known as Dial's queue, of {@code int} elements ordered by a {@code float} value.
+ * <p>
+ * Values are split into buckets of fixed {@link #getBucketWidth() width} and each element is kept in a doubly linked list with
+ * the other elements of its bucket. Adding, removing and changing the value of an element take constant time, while retrieving
+ * the element with the lowest value takes amortized constant time when, as in A* with a consistent heuristic or Dijkstra, the
+ * lowest value in the queue never decreases by much. This beats a binary heap when the queue is large and the values are small
+ * integers or fixed-point numbers, like the costs of a tile graph.
+ * <p>
+ * The order is exact only when the values in the same bucket are equal, which is the case when the bucket width divides all the
+ * values, e.g. a width of 1 for integer values. Elements in the same bucket are retrieved in last-in first-out order; with
+ * larger buckets the order is approximate and an A* search may return a path slightly more expensive than the optimal one, by at
+ * most the bucket width for each expanded node.
+ * <p>
+ * Buckets are stored in a circular array covering the range between the lowest and the highest value in the queue, which is
+ * doubled as needed; values must be finite and their range must be small compared to the bucket width. Like the other
+ * implementations of {@link IntPriorityQueue}, elements must be non-negative integers lower than the capacity of the queue. */
+public class IntBucketQueue implements IntPriorityQueue {
+
+	/** The number of elements in this queue. */
+	public int size;
+
+	private final float bucketWidth;
+	private final float inverseBucketWidth;
+
+	/** The first element of each bucket or {@code -1}, indexed by bucket modulo the bucket count. */
+	private int[] heads;
+
+	/** The value of each element, indexed by element. */
+	private float[] values;
+
+	/** The bucket of each element, indexed by element. */
+	private int[] buckets;
+
+	/** The next element in the same bucket or {@code -1}, indexed by element. */
+	private int[] next;
+
+	/** The previous element in the same bucket, {@code -1} for the first one, or {@link #ABSENT} if the element is not in the
+	 * queue, indexed by element. */
+	private int[] prev;
+
+	/** A lower bound of the lowest bucket in use. */
+	private int minBucket;
+
+	/** An upper bound of the highest bucket in use. */
+	private int maxBucket;
+
+	private static final int ABSENT = -2;
+
+	/** Creates an {@code IntBucketQueue} with buckets of width 1, able to hold the elements in the range [0, capacity).
+	 * @param capacity the number of distinct elements this queue can hold without being resized */
+	public IntBucketQueue (int capacity) {
+		this(capacity, 1, 64);
+	}
+
+	/** Creates an {@code IntBucketQueue} able to hold the elements in the range [0, capacity).
+	 * @param capacity the number of distinct elements this queue can hold without being resized
+	 * @param bucketWidth the width of the range of values of each bucket
+	 * @param bucketCount the initial number of buckets, rounded up to a power of two */
+	public IntBucketQueue (int capacity, float bucketWidth, int bucketCount) {
+		if (bucketWidth <= 0) throw new IllegalArgumentException("bucketWidth must be positive");
+		this.bucketWidth = bucketWidth;
+		this.inverseBucketWidth = 1 / bucketWidth;
+		this.heads = new int[nextPowerOfTwo(Math.max(bucketCount, 2))];
+		for (int i = 0; i < heads.length; i++)
+			heads[i] = -1;
+		this.values = new float[capacity];
+		this.buckets = new int[capacity];
+		this.next = new int[capacity];
+		this.prev = new int[capacity];
+		for (int i = 0; i < capacity; i++)
+			prev[i] = ABSENT;
+	}
+
+	/** Returns the width of the range of values of each bucket. */
+	public float getBucketWidth () {
+		return bucketWidth;
+	}
+
+	/** Returns the current number of buckets. */
+	public int getBucketCount () {
+		return heads.length;
+	}
+
+	@Override
+	public int size () {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty () {
+		return size == 0;
+	}
+
+	@Override
+	public void ensureCapacity (int capacity) {
+		int oldCapacity = prev.length;
+		if (capacity <= oldCapacity) return;
+		float[] newValues = new float[capacity];
+		int[] newBuckets = new int[capacity];
+		int[] newNext = new int[capacity];
+		int[] newPrev = new int[capacity];
+		System.arraycopy(values, 0, newValues, 0, oldCapacity);
+		System.arraycopy(buckets, 0, newBuckets, 0, oldCapacity);
+		System.arraycopy(next, 0, newNext, 0, oldCapacity);
+		System.arraycopy(prev, 0, newPrev, 0, oldCapacity);
+		for (int i = oldCapacity; i < capacity; i++)
+			newPrev[i] = ABSENT;
+		values = newValues;
+		buckets = newBuckets;
+		next = newNext;
+		prev = newPrev;
+	}
+
+	/** Adds the given element with the given value. The element must not be already in the queue.
+	 * @param element the element to add
+	 * @param value the value of the element, which must be finite
+	 * @throws IllegalArgumentException if the element is already in the queue */
+	@Override
+	public void add (int element, float value) {
+		if (prev[element] != ABSENT) throw new IllegalArgumentException("Element already in the queue: " + element);
+		int bucket = (int)Math.floor(value * inverseBucketWidth);
+		if (size == 0) {
+			minBucket = maxBucket = bucket;
+		} else {
+			if (bucket < minBucket) minBucket = bucket;
+			if (bucket > maxBucket) maxBucket = bucket;
+			if (maxBucket - minBucket >= heads.length) grow(maxBucket - minBucket + 1);
+		}
+		values[element] = value;
+		link(element, bucket);
+		size++;
+	}
+
+	@Override
+	public int peek () {
+		if (size == 0) throw new IllegalStateException("The queue is empty.");
+		return heads[findMinBucket() & (heads.length - 1)];
+	}
+
+	@Override
+	public int pop () {
+		if (size == 0) throw new IllegalStateException("The queue is empty.");
+		int element = heads[findMinBucket() & (heads.length - 1)];
+		unlink(element);
+		size--;
+		return element;
+	}
+
+	@Override
+	public boolean remove (int element) {
+		if (prev[element] == ABSENT) return false;
+		unlink(element);
+		size--;
+		return true;
+	}
+
+	@Override
+	public void setValue (int element, float value) {
+		remove(element);
+		add(element, value);
+	}
+
+	@Override
+	public float getValue (int element) {
+		return values[element];
+	}
+
+	@Override
+	public boolean contains (int element) {
+		return prev[element] != ABSENT;
+	}
+
+	/** Removes all the elements from the queue. This takes time proportional to the number of buckets plus the current size. */
+	@Override
+	public void clear () {
+		int[] heads = this.heads;
+		for (int i = 0; i < heads.length; i++) {
+			for (int element = heads[i]; element >= 0; element = next[element])
+				prev[element] = ABSENT;
+			heads[i] = -1;
+		}
+		size = 0;
+	}
+
+	/** Advances {@link #minBucket} to the first non-empty bucket and returns it. The queue must not be empty. */
+	private int findMinBucket () {
+		int[] heads = this.heads;
+		int mask = heads.length - 1;
+		while (heads[minBucket & mask] < 0)
+			minBucket++;
+		return minBucket;
+	}
+
+	private void link (int element, int bucket) {
+		int slot = bucket & (heads.length - 1);
+		int head = heads[slot];
+		buckets[element] = bucket;
+		next[element] = head;
+		prev[element] = -1;
+		if (head >= 0) prev[head] = element;
+		heads[slot] = element;
+	}
+
+	private void unlink (int element) {
+		int previous = prev[element];
+		int following = next[element];
+		if (previous >= 0)
+			next[previous] = following;
+		else
+			heads[buckets[element] & (heads.length - 1)] = following;
+		if (following >= 0) prev[following] = previous;
+		prev[element] = ABSENT;
+	}
+
+	/** Resizes the circular array of buckets so that it can hold at least the given number of consecutive buckets. */
+	private void grow (int bucketCount) {
+		int[] oldHeads = heads;
+		int newLength = oldHeads.length;
+		while (newLength < bucketCount)
+			newLength <<= 1;
+		heads = new int[newLength];
+		for (int i = 0; i < newLength; i++)
+			heads[i] = -1;
+
+		// Move every element to its slot in the new array
+		for (int i = 0; i < oldHeads.length; i++) {
+			int element = oldHeads[i];
+			while (element >= 0) {
+				int following = next[element];
+				link(element, buckets[element]);
+				element = following;
+			}
+		}
+	}
+
+	private static int nextPowerOfTwo (int value) {
+		int power = 1;
+		while (power < value)
+			power <<= 1;
+		return power;
+	}
+}
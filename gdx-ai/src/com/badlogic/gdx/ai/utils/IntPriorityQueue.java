@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.utils;
+
+/** A priority queue of {@code int} elements ordered by a {@code float} value, where the element with the lowest value is
+ * retrieved first.
+ * <p>
+ * Elements must be non-negative integers lower than the capacity of the queue, typically the indices of the nodes of a graph,
+ * and each element can be in the queue at most once. This allows implementations to keep their bookkeeping in primitive arrays
+ * indexed by the element itself. */
+public interface IntPriorityQueue {
+
+	/** Returns the number of elements in this queue. */
+	public int size ();
+
+	/** Returns {@code true} if the queue is empty; {@code false} otherwise. */
+	public boolean isEmpty ();
+
+	/** Adds the given element with the given value. The element must not be already in the queue.
+	 * @param element the element to add
+	 * @param value the value of the element */
+	public void add (int element, float value);
+
+	/** Returns the element with the lowest value without removing it.
+	 * @throws IllegalStateException if the queue is empty */
+	public int peek ();
+
+	/** Removes and returns the element with the lowest value.
+	 * @throws IllegalStateException if the queue is empty */
+	public int pop ();
+
+	/** Removes the given element from the queue, if present.
+	 * @param element the element to remove
+	 * @return {@code true} if the element was in the queue; {@code false} otherwise. */
+	public boolean remove (int element);
+
+	/** Changes the value of the given element, which must be in the queue.
+	 * @param element the element
+	 * @param value the new value */
+	public void setValue (int element, float value);
+
+	/** Returns the value of the given element. The result is undefined if the element has never been added to the queue. */
+	public float getValue (int element);
+
+	/** Returns {@code true} if the given element is in the queue; {@code false} otherwise. */
+	public boolean contains (int element);
+
+	/** Makes sure this queue is able to hold the elements in the range [0, capacity).
+	 * @param capacity the required capacity */
+	public void ensureCapacity (int capacity);
+
+	/** Removes all the elements from the queue. */
+	public void clear ();
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.utils;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/** An unordered set of {@code long} keys implemented as an open addressing hash table with linear probing.
+ * <p>
+ * No object is allocated per key: keys are stored in a primitive array, removal moves back the following keys of the same cluster
+ * so that no tombstone is left behind, and the table only grows when it becomes half full. Any {@code long} value is a valid
+ * key. */
+public class LongHashSet {
+
+	/** The number of keys in this set. */
+	public int size;
+
+	/** The key of each slot; 0 marks an empty slot, the key 0 itself is tracked by {@link #hasZeroKey}. */
+	private long[] keys;
+
+	private boolean hasZeroKey;
+
+	private int mask;
+	private int shift;
+
+	/** Creates a {@code LongHashSet} able to hold 32 keys without being resized. */
+	public LongHashSet () {
+		this(32);
+	}
+
+	/** Creates a {@code LongHashSet}.
+	 * @param initialCapacity the number of keys this set can hold without being resized */
+	public LongHashSet (int initialCapacity) {
+		if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity must be >= 0: " + initialCapacity);
+		allocate(Math.max(8, MathUtils.nextPowerOfTwo(initialCapacity * 2)));
+	}
+
+	/** Adds the given key to this set.
+	 * @param key the key
+	 * @return {@code true} if the key was not already in the set; {@code false} otherwise. */
+	public boolean add (long key) {
+		if (key == 0) {
+			if (hasZeroKey) return false;
+			hasZeroKey = true;
+			size++;
+			return true;
+		}
+		long[] keys = this.keys;
+		int i = hash(key);
+		for (long k; (k = keys[i]) != 0; i = (i + 1) & mask)
+			if (k == key) return false;
+		keys[i] = key;
+		if (++size * 2 > keys.length) resize(keys.length << 1);
+		return true;
+	}
+
+	/** Removes the given key from this set.
+	 * @param key the key
+	 * @return {@code true} if the key was in the set; {@code false} otherwise. */
+	public boolean remove (long key) {
+		if (key == 0) {
+			if (!hasZeroKey) return false;
+			hasZeroKey = false;
+			size--;
+			return true;
+		}
+		long[] keys = this.keys;
+		int mask = this.mask;
+		int hole = hash(key);
+		for (long k; (k = keys[hole]) != key; hole = (hole + 1) & mask)
+			if (k == 0) return false;
+
+		// Move back the following keys of the cluster whose home slot is not between the hole and their current slot
+		for (int i = (hole + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+			int home = hash(keys[i]);
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				keys[hole] = keys[i];
+				hole = i;
+			}
+		}
+		keys[hole] = 0;
+		size--;
+		return true;
+	}
+
+	/** Returns {@code true} if this set contains the given key; {@code false} otherwise. */
+	public boolean contains (long key) {
+		if (key == 0) return hasZeroKey;
+		long[] keys = this.keys;
+		for (int i = hash(key);; i = (i + 1) & mask) {
+			long k = keys[i];
+			if (k == key) return true;
+			if (k == 0) return false;
+		}
+	}
+
+	/** Returns {@code true} if this set is empty; {@code false} otherwise. */
+	public boolean isEmpty () {
+		return size == 0;
+	}
+
+	/** Removes all the keys from this set without shrinking it. */
+	public void clear () {
+		if (size == 0) return;
+		long[] keys = this.keys;
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = 0;
+		hasZeroKey = false;
+		size = 0;
+	}
+
+	/** Returns the home slot of the given key using Fibonacci hashing, which spreads well the keys packing small integers. */
+	private int hash (long key) {
+		return (int)((key * 0x9E3779B97F4A7C15L) >>> shift);
+	}
+
+	private void allocate (int capacity) {
+		keys = new long[capacity];
+		mask = capacity - 1;
+		shift = Long.numberOfLeadingZeros(capacity) + 1;
+	}
+
+	private void resize (int newCapacity) {
+		long[] oldKeys = keys;
+		allocate(newCapacity);
+		long[] keys = this.keys;
+		for (int j = 0; j < oldKeys.length; j++) {
+			long key = oldKeys[j];
+			if (key != 0) {
+				int i = hash(key);
+				while (keys[i] != 0)
+					i = (i + 1) & mask;
+				keys[i] = key;
+			}
+		}
+	}
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.msg;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.DefaultTimepiece;
+import com.badlogic.gdx.ai.GdxAI;
+import com.badlogic.gdx.ai.Timepiece;
+import com.badlogic.gdx.utils.Pool;
+
+public class MessageDispatcherTest {
+
+	private static final int MSG = 1;
+
+	private Timepiece oldTimepiece;
+	private DefaultTimepiece timepiece;
+
+	@Before
+	public void setUp () {
+		oldTimepiece = GdxAI.getTimepiece();
+		timepiece = new DefaultTimepiece();
+		GdxAI.setTimepiece(timepiece);
+	}
+
+	@After
+	public void tearDown () {
+		GdxAI.setTimepiece(oldTimepiece);
+	}
+
+	@Test
+	public void cancel_WithPendingTelegram_ExpectedNotDispatchedAndReleasedToPool () {
+		for (TelegramQueue queue : createQueues()) {
+			TelegramPool pool = new TelegramPool();
+			MessageDispatcher dispatcher = new MessageDispatcher(pool, queue);
+			Receiver receiver = new Receiver();
+			long first = dispatcher.dispatchMessage(1f, null, receiver, MSG);
+			long second = dispatcher.dispatchMessage(2f, null, receiver, MSG);
+			Assert.assertTrue("Invalid handle", first != MessageDispatcher.NO_HANDLE && first != second);
+
+			Assert.assertTrue("Telegram not cancelled", dispatcher.cancel(first));
+			Assert.assertFalse("Telegram cancelled twice", dispatcher.cancel(first));
+			Assert.assertEquals("Telegram not released to the pool", 1, pool.getFree());
+			Assert.assertEquals("Unexpected queue size", 1, queue.size());
+
+			timepiece.update(3f);
+			dispatcher.update();
+			Assert.assertEquals("Unexpected number of telegrams received", 1, receiver.received);
+			Assert.assertFalse("Dispatched telegram cancelled", dispatcher.cancel(second));
+			Assert.assertEquals("Unexpected handle for immediate telegram", MessageDispatcher.NO_HANDLE,
+				dispatcher.dispatchMessage(0f, null, receiver, MSG));
+		}
+	}
+
+	@Test
+	public void cancelAllFor_WithSeveralReceivers_ExpectedOnlyTelegramsForReceiverCancelled () {
+		for (TelegramQueue queue : createQueues()) {
+			TelegramPool pool = new TelegramPool();
+			MessageDispatcher dispatcher = new MessageDispatcher(pool, queue);
+			Receiver dead = new Receiver();
+			Receiver alive = new Receiver();
+			long[] handles = new long[3];
+			for (int i = 0; i < handles.length; i++) {
+				handles[i] = dispatcher.dispatchMessage(1f + i, null, dead, MSG);
+				dispatcher.dispatchMessage(1.5f + i, null, alive, MSG);
+			}
+
+			// Cancel one telegram from the middle of the list first
+			Assert.assertTrue("Telegram not cancelled", dispatcher.cancel(handles[1]));
+			Assert.assertEquals("Unexpected number of telegrams cancelled", 2, dispatcher.cancelAllFor(dead));
+			Assert.assertEquals("Unexpected number of telegrams cancelled", 0, dispatcher.cancelAllFor(dead));
+			Assert.assertFalse("Telegram cancelled twice", dispatcher.cancel(handles[0]));
+			Assert.assertEquals("Telegrams not released to the pool", 3, pool.getFree());
+
+			timepiece.update(10f);
+			dispatcher.update();
+			Assert.assertEquals("Cancelled telegrams dispatched", 0, dead.received);
+			Assert.assertEquals("Unexpected number of telegrams received", 3, alive.received);
+			Assert.assertEquals("Unexpected queue size", 0, queue.size());
+		}
+	}
+
+	@Test
+	public void cancel_FromReceiverDuringUpdate_ExpectedCancelledTelegramNotDispatched () {
+		for (TelegramQueue queue : createQueues()) {
+			final MessageDispatcher dispatcher = new MessageDispatcher(new TelegramPool(), queue);
+			final Receiver victim = new Receiver();
+			Telegraph killer = new Telegraph() {
+				@Override
+				public boolean handleMessage (Telegram msg) {
+					dispatcher.cancelAllFor(victim);
+					return true;
+				}
+			};
+			// Both telegrams expire in the same update
+			dispatcher.dispatchMessage(1f, null, killer, MSG);
+			dispatcher.dispatchMessage(1.0001f, null, victim, MSG);
+			timepiece.update(2f);
+			dispatcher.update();
+			Assert.assertEquals("Cancelled telegram dispatched", 0, victim.received);
+			Assert.assertEquals("Unexpected queue size", 0, queue.size());
+		}
+	}
+
+	@Test
+	public void dispatchMessage_WhenListenersChangeDuringDenseBroadcast_ExpectedSnapshotReached () {
+		final MessageDispatcher dispatcher = new MessageDispatcher();
+		dispatcher.setDenseMessageCodes(8);
+		final Receiver late = new Receiver();
+		final Receiver removed = new Receiver();
+		Telegraph first = new Telegraph() {
+			@Override
+			public boolean handleMessage (Telegram msg) {
+				dispatcher.removeListener(this, MSG);
+				dispatcher.removeListener(removed, MSG);
+				dispatcher.addListener(late, MSG);
+				return true;
+			}
+		};
+		Receiver last = new Receiver();
+		dispatcher.addListener(first, MSG);
+		dispatcher.addListener(removed, MSG);
+		dispatcher.addListener(last, MSG);
+
+		dispatcher.dispatchMessage(MSG);
+		Assert.assertEquals("Removed listener not reached by the broadcast in progress", 1, removed.received);
+		Assert.assertEquals("Listener not reached", 1, last.received);
+		Assert.assertEquals("Added listener reached by the broadcast in progress", 0, late.received);
+
+		dispatcher.dispatchMessage(MSG);
+		Assert.assertEquals("Removed listener reached", 1, removed.received);
+		Assert.assertEquals("Listener not reached", 2, last.received);
+		Assert.assertEquals("Added listener not reached", 1, late.received);
+	}
+
+	@Test
+	public void setDenseMessageCodes_WithRegisteredListeners_ExpectedListenersKept () {
+		MessageDispatcher dispatcher = new MessageDispatcher();
+		Receiver low = new Receiver();
+		Receiver high = new Receiver();
+		Receiver negative = new Receiver();
+		dispatcher.addListener(low, 3);
+		dispatcher.addListener(high, 300);
+		dispatcher.addListener(negative, -1);
+
+		dispatcher.setDenseMessageCodes(256);
+		Assert.assertEquals("Unexpected dense message codes", 256, dispatcher.getDenseMessageCodes());
+		dispatcher.dispatchMessage(3);
+		dispatcher.dispatchMessage(300);
+		dispatcher.dispatchMessage(-1);
+
+		dispatcher.setDenseMessageCodes(2);
+		dispatcher.dispatchMessage(3);
+		dispatcher.setDenseMessageCodes(0);
+		dispatcher.dispatchMessage(3);
+		Assert.assertEquals("Unexpected number of messages received", 3, low.received);
+		Assert.assertEquals("Unexpected number of messages received", 1, high.received);
+		Assert.assertEquals("Unexpected number of messages received", 1, negative.received);
+
+		dispatcher.setDenseMessageCodes(16);
+		dispatcher.clearListeners(3);
+		dispatcher.dispatchMessage(3);
+		Assert.assertEquals("Cleared listener reached", 3, low.received);
+	}
+
+	private static TelegramQueue[] createQueues () {
+		return new TelegramQueue[] {new PriorityTelegramQueue(), new TimingWheelTelegramQueue(0.1f)};
+	}
+
+	static class TelegramPool extends Pool<Telegram> {
+		@Override
+		protected Telegram newObject () {
+			return new Telegram();
+		}
+	}
+
+	static class Receiver implements Telegraph {
+		int received;
+
+		@Override
+		public boolean handleMessage (Telegram msg) {
+			received++;
+			return true;
+		}
+	}
+}
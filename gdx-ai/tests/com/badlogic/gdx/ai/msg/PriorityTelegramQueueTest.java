@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.msg;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.msg.PriorityTelegramQueue.KeyExtractor;
+
+public class PriorityTelegramQueueTest {
+
+	/** Packs the identity of the receiver and the message code of a telegram. */
+	static final KeyExtractor RECEIVER_AND_MESSAGE = new KeyExtractor() {
+		@Override
+		public long getKey (Telegram telegram) {
+			return (long)System.identityHashCode(telegram.receiver) << 32 | telegram.message;
+		}
+	};
+
+	@Test
+	public void add_WithKeyExtractor_ExpectedDuplicatesCoalescedUntilRemovedOrPolled () {
+		PriorityTelegramQueue queue = new PriorityTelegramQueue();
+		queue.setKeyExtractor(RECEIVER_AND_MESSAGE);
+		Telegraph receiver = new Receiver();
+		Telegram first = newTelegram(receiver, 1, 1f);
+		Assert.assertTrue("Telegram rejected", queue.add(first));
+		Assert.assertFalse("Duplicate telegram added", queue.add(newTelegram(receiver, 1, 2f)));
+		Assert.assertTrue("Telegram not removed", queue.remove(first));
+		Telegram second = newTelegram(receiver, 1, 3f);
+		Assert.assertTrue("Telegram rejected after removal", queue.add(second));
+		Assert.assertSame("Unexpected telegram", second, queue.poll(3f));
+		Assert.assertTrue("Telegram rejected after poll", queue.add(newTelegram(receiver, 1, 4f)));
+	}
+
+	private static Telegram newTelegram (Telegraph receiver, int message, float timestamp) {
+		Telegram telegram = new Telegram();
+		telegram.receiver = receiver;
+		telegram.message = message;
+		telegram.setTimestamp(timestamp);
+		return telegram;
+	}
+
+	static class Receiver implements Telegraph {
+		@Override
+		public boolean handleMessage (Telegram msg) {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.msg;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TelegramIngressTest {
+
+	@Test
+	public void post_WhenFull_ExpectedRejectedUntilDrained () {
+		TelegramIngress ingress = new TelegramIngress(3);
+		Assert.assertEquals("Unexpected capacity", 4, ingress.getCapacity());
+		MessageDispatcher dispatcher = new MessageDispatcher();
+		dispatcher.setIngress(ingress);
+		OrderedReceiver receiver = new OrderedReceiver();
+		for (int i = 0; i < 4; i++)
+			Assert.assertTrue("Message rejected", ingress.post(null, receiver, i));
+		Assert.assertFalse("Message posted to a full ingress", ingress.post(null, receiver, 4));
+		Assert.assertEquals("Unexpected size", 4, ingress.size());
+
+		dispatcher.update();
+		Assert.assertEquals("Unexpected number of messages received", 4, receiver.received);
+		Assert.assertEquals("Unexpected size", 0, ingress.size());
+		for (int i = 4; i < 8; i++)
+			Assert.assertTrue("Message rejected after drain", ingress.post(null, receiver, i));
+		dispatcher.update();
+		Assert.assertEquals("Unexpected number of messages received", 8, receiver.received);
+		Assert.assertFalse("Messages received out of order", receiver.outOfOrder);
+	}
+
+	@Test
+	public void post_FromConcurrentProducers_ExpectedAllMessagesDispatchedInOrderPerProducer () throws InterruptedException {
+		final int producers = 8;
+		final int messagesPerProducer = 20000;
+		final TelegramIngress ingress = new TelegramIngress(256);
+		MessageDispatcher dispatcher = new MessageDispatcher();
+		dispatcher.setIngress(ingress);
+		final OrderedReceiver[] receivers = new OrderedReceiver[producers];
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			final OrderedReceiver receiver = receivers[p] = new OrderedReceiver();
+			threads[p] = new Thread(new Runnable() {
+				@Override
+				public void run () {
+					for (int i = 0; i < messagesPerProducer; i++)
+						while (!ingress.post(null, receiver, i))
+							Thread.yield();
+				}
+			});
+			threads[p].start();
+		}
+
+		long deadline = System.currentTimeMillis() + 30000;
+		int total = 0;
+		while (total < producers * messagesPerProducer && System.currentTimeMillis() < deadline) {
+			dispatcher.update();
+			total = 0;
+			for (OrderedReceiver receiver : receivers)
+				total += receiver.received;
+		}
+		for (Thread thread : threads)
+			thread.join();
+
+		for (OrderedReceiver receiver : receivers) {
+			Assert.assertEquals("Unexpected number of messages received", messagesPerProducer, receiver.received);
+			Assert.assertFalse("Messages received out of order", receiver.outOfOrder);
+		}
+	}
+
+	/** A receiver checking that the message codes it receives are consecutive integers starting from 0. */
+	static class OrderedReceiver implements Telegraph {
+		int received;
+		boolean outOfOrder;
+
+		@Override
+		public boolean handleMessage (Telegram msg) {
+			if (msg.message != received) outOfOrder = true;
+			received++;
+			return true;
+		}
+	}
+}
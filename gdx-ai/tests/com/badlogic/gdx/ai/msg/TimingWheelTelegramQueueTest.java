@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.msg;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+
+public class TimingWheelTelegramQueueTest {
+
+	@Test
+	public void poll_WithRandomTimestampsAndRemovals_ExpectedSameTelegramsAsPriorityQueue () {
+		Random random = new Random(42);
+		for (int levels = 1; levels <= TimingWheelTelegramQueue.DEFAULT_LEVELS; levels++) {
+			TimingWheelTelegramQueue wheel = new TimingWheelTelegramQueue(0.01f, levels);
+			PriorityTelegramQueue heap = new PriorityTelegramQueue();
+			// Each telegram can be in one queue only, so the wheel gets equal copies of the telegrams of the heap
+			ObjectMap<Telegram, Telegram> copies = new ObjectMap<Telegram, Telegram>();
+			float time = 0;
+			int message = 0;
+			for (int frame = 0; frame < 2000; frame++) {
+				int count = random.nextInt(20);
+				for (int i = 0; i < count; i++) {
+					Telegram telegram = new Telegram();
+					telegram.message = message++;
+					// Mostly short delays, some long enough to reach the upper levels and the overflow list
+					float delay = random.nextInt(10) == 0 ? random.nextFloat() * 3000 : random.nextFloat() * 2;
+					telegram.setTimestamp(time + delay);
+					Telegram copy = new Telegram();
+					copy.message = telegram.message;
+					copy.setTimestamp(telegram.getTimestamp());
+					copies.put(telegram, copy);
+					heap.add(telegram);
+					Assert.assertTrue("Telegram rejected", wheel.add(copy));
+				}
+				// Remove a few random telegrams
+				for (int i = random.nextInt(3); i > 0 && heap.size() > 0; i--) {
+					Telegram telegram = heap.get(random.nextInt(heap.size()));
+					Telegram copy = copies.remove(telegram);
+					Assert.assertTrue("Telegram not removed", heap.remove(telegram));
+					Assert.assertTrue("Telegram not removed", wheel.remove(copy));
+					Assert.assertFalse("Telegram removed twice", wheel.remove(copy));
+				}
+				// Mostly regular frames, sometimes a long pause
+				time += random.nextInt(100) == 0 ? random.nextFloat() * 1000 : random.nextFloat() * 0.05f;
+				assertSameExpiredTelegrams(time, heap, wheel, copies);
+				Assert.assertEquals("Unexpected size", heap.size(), wheel.size());
+			}
+		}
+	}
+
+	@Test
+	public void poll_WhenTimestampInsideCurrentTick_ExpectedNotDispatchedEarly () {
+		TimingWheelTelegramQueue wheel = new TimingWheelTelegramQueue(1f);
+		Telegram telegram = new Telegram();
+		telegram.setTimestamp(10.75f);
+		wheel.add(telegram);
+		Assert.assertNull("Telegram dispatched early", wheel.poll(10.5f));
+		Assert.assertSame("Telegram not dispatched", telegram, wheel.poll(10.75f));
+		Assert.assertNull("Unexpected telegram", wheel.poll(20f));
+		Assert.assertEquals("Unexpected size", 0, wheel.size());
+	}
+
+	@Test
+	public void poll_WithinTheSameTick_ExpectedSchedulingOrder () {
+		TimingWheelTelegramQueue wheel = new TimingWheelTelegramQueue(1f);
+		Array<Telegram> telegrams = new Array<Telegram>();
+		float[] timestamps = {5.9f, 5.1f, 5.5f, 4.2f};
+		for (float timestamp : timestamps) {
+			Telegram telegram = new Telegram();
+			telegram.setTimestamp(timestamp);
+			telegrams.add(telegram);
+			wheel.add(telegram);
+		}
+		Assert.assertSame("Unexpected telegram", telegrams.get(3), wheel.poll(6));
+		Assert.assertSame("Unexpected telegram", telegrams.get(0), wheel.poll(6));
+		Assert.assertSame("Unexpected telegram", telegrams.get(1), wheel.poll(6));
+		Assert.assertSame("Unexpected telegram", telegrams.get(2), wheel.poll(6));
+	}
+
+	@Test
+	public void clear_WithPendingTelegrams_ExpectedEmptyAndReusable () {
+		TimingWheelTelegramQueue wheel = new TimingWheelTelegramQueue(0.1f);
+		for (int i = 0; i < 100; i++) {
+			Telegram telegram = new Telegram();
+			telegram.setTimestamp(i);
+			wheel.add(telegram);
+		}
+		Assert.assertNotNull("Telegram not dispatched", wheel.poll(50));
+		wheel.clear();
+		Assert.assertEquals("Unexpected size", 0, wheel.size());
+		Assert.assertNull("Unexpected telegram", wheel.get(0));
+		Assert.assertNull("Unexpected telegram", wheel.poll(200));
+
+		Telegram telegram = new Telegram();
+		telegram.setTimestamp(300);
+		wheel.add(telegram);
+		Assert.assertSame("Unexpected telegram", telegram, wheel.get(0));
+		Assert.assertSame("Telegram not dispatched", telegram, wheel.poll(300));
+	}
+
+	private static void assertSameExpiredTelegrams (float time, TelegramQueue expected, TelegramQueue actual,
+		ObjectMap<Telegram, Telegram> copies) {
+		ObjectSet<Telegram> expectedTelegrams = new ObjectSet<Telegram>();
+		Telegram telegram;
+		while ((telegram = expected.poll(time)) != null)
+			expectedTelegrams.add(copies.remove(telegram));
+		int count = 0;
+		while ((telegram = actual.poll(time)) != null) {
+			Assert.assertTrue("Unexpected telegram dispatched", expectedTelegrams.contains(telegram));
+			Assert.assertTrue("Telegram dispatched early", telegram.getTimestamp() <= time);
+			count++;
+		}
+		Assert.assertEquals("Unexpected number of expired telegrams", expectedTelegrams.size, count);
+	}
+}
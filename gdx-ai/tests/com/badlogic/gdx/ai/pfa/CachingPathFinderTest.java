@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedGraph;
+import com.badlogic.gdx.utils.Array;
+
+public class CachingPathFinderTest {
+
+	private static final int WIDTH = 10;
+	private static final int HEIGHT = 10;
+
+	@Test
+	public void searchNodePath_WhenRepeated_ExpectedCacheHit () {
+		MyGraph graph = new MyGraph();
+		CachingPathFinder<MyNode> pathFinder = new CachingPathFinder<>(new IndexedAStarPathFinder<>(graph), 8);
+		ManhattanDistance heuristic = new ManhattanDistance();
+		GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+		GraphPath<MyNode> actualPath = new DefaultGraphPath<>();
+		Assert.assertTrue(pathFinder.searchNodePath(graph.getNode(0, 0), graph.getNode(9, 9), heuristic, expectedPath));
+		Assert.assertTrue(pathFinder.searchNodePath(graph.getNode(0, 0), graph.getNode(9, 9), heuristic, actualPath));
+		Assert.assertEquals("Unexpected misses", 1, pathFinder.misses);
+		Assert.assertEquals("Unexpected hits", 1, pathFinder.hits);
+		assertSamePath(expectedPath, actualPath);
+	}
+
+	@Test
+	public void searchNodePath_WhenStartIsOnCachedPath_ExpectedSuffixHit () {
+		MyGraph graph = new MyGraph();
+		CachingPathFinder<MyNode> pathFinder = new CachingPathFinder<>(new IndexedAStarPathFinder<>(graph), 8);
+		ManhattanDistance heuristic = new ManhattanDistance();
+		GraphPath<MyNode> cachedPath = new DefaultGraphPath<>();
+		pathFinder.searchNodePath(graph.getNode(0, 0), graph.getNode(9, 9), heuristic, cachedPath);
+		MyNode startNode = cachedPath.get(5);
+		GraphPath<MyNode> actualPath = new DefaultGraphPath<>();
+		Assert.assertTrue(pathFinder.searchNodePath(startNode, graph.getNode(9, 9), heuristic, actualPath));
+		Assert.assertEquals("Unexpected suffix hits", 1, pathFinder.suffixHits);
+		Assert.assertEquals("Unexpected number of nodes in path", cachedPath.getCount() - 5, actualPath.getCount());
+		for (int i = 0; i < actualPath.getCount(); i++)
+			Assert.assertSame("Unexpected node in path", cachedPath.get(i + 5), actualPath.get(i));
+	}
+
+	@Test
+	public void searchNodePath_WhenStartIsOnPathCachedWithOtherHeuristic_ExpectedMiss () {
+		MyGraph graph = new MyGraph();
+		CachingPathFinder<MyNode> pathFinder = new CachingPathFinder<>(new IndexedAStarPathFinder<>(graph), 8);
+		GraphPath<MyNode> cachedPath = new DefaultGraphPath<>();
+		pathFinder.searchNodePath(graph.getNode(0, 0), graph.getNode(9, 9), new ManhattanDistance(), cachedPath);
+		GraphPath<MyNode> actualPath = new DefaultGraphPath<>();
+		Assert.assertTrue(pathFinder.searchNodePath(cachedPath.get(5), graph.getNode(9, 9), new ManhattanDistance(), actualPath));
+		Assert.assertEquals("Unexpected suffix hits", 0, pathFinder.suffixHits);
+		Assert.assertEquals("Unexpected misses", 2, pathFinder.misses);
+	}
+
+	@Test
+	public void searchConnectionPath_AfterGraphVersionIncrement_ExpectedNewSearch () {
+		MyGraph graph = new MyGraph();
+		CachingPathFinder<MyNode> pathFinder = new CachingPathFinder<>(new IndexedAStarPathFinder<>(graph), 8);
+		ManhattanDistance heuristic = new ManhattanDistance();
+		GraphPath<Connection<MyNode>> path = new DefaultGraphPath<>();
+		pathFinder.searchConnectionPath(graph.getNode(0, 0), graph.getNode(9, 0), heuristic, path);
+		Assert.assertEquals("Unexpected number of connections in path", 9, path.getCount());
+
+		// Wall off the middle of the first row
+		graph.getNode(5, 0).connections.clear();
+		for (int i = 0; i < graph.nodes.size; i++) {
+			Array<Connection<MyNode>> connections = graph.nodes.get(i).connections;
+			for (int j = connections.size - 1; j >= 0; j--)
+				if (connections.get(j).getToNode() == graph.getNode(5, 0)) connections.removeIndex(j);
+		}
+		pathFinder.incrementGraphVersion();
+
+		path.clear();
+		pathFinder.searchConnectionPath(graph.getNode(0, 0), graph.getNode(9, 0), heuristic, path);
+		Assert.assertEquals("Unexpected misses", 2, pathFinder.misses);
+		Assert.assertEquals("Unexpected number of connections in path", 11, path.getCount());
+	}
+
+	@Test
+	public void searchConnectionPath_WhenUnreachableEndRepeated_ExpectedCachedFailure () {
+		MyGraph graph = new MyGraph();
+		CachingPathFinder<MyNode> pathFinder = new CachingPathFinder<>(new IndexedAStarPathFinder<>(graph), 8);
+		ManhattanDistance heuristic = new ManhattanDistance();
+
+		// Cut the end node off the rest of the graph
+		MyNode endNode = graph.getNode(9, 9);
+		for (int i = 0; i < graph.nodes.size; i++) {
+			Array<Connection<MyNode>> connections = graph.nodes.get(i).connections;
+			for (int j = connections.size - 1; j >= 0; j--)
+				if (connections.get(j).getToNode() == endNode) connections.removeIndex(j);
+		}
+
+		GraphPath<Connection<MyNode>> path = new DefaultGraphPath<>();
+		Assert.assertFalse("Unexpected path found", pathFinder.searchConnectionPath(graph.getNode(0, 0), endNode, heuristic, path));
+		Assert.assertFalse("Unexpected path found", pathFinder.searchConnectionPath(graph.getNode(0, 0), endNode, heuristic, path));
+		Assert.assertEquals("Unexpected misses", 1, pathFinder.misses);
+		Assert.assertEquals("Unexpected hits", 1, pathFinder.hits);
+		Assert.assertEquals("Unexpected number of connections in path", 0, path.getCount());
+	}
+
+	@Test
+	public void search_WhenCapacityExceeded_ExpectedLeastRecentlyUsedEvicted () {
+		MyGraph graph = new MyGraph();
+		CachingPathFinder<MyNode> pathFinder = new CachingPathFinder<>(new IndexedAStarPathFinder<>(graph), 2);
+		ManhattanDistance heuristic = new ManhattanDistance();
+		search(pathFinder, graph.getNode(0, 0), graph.getNode(1, 0), heuristic);
+		search(pathFinder, graph.getNode(0, 0), graph.getNode(2, 0), heuristic);
+		search(pathFinder, graph.getNode(0, 0), graph.getNode(1, 0), heuristic);
+		search(pathFinder, graph.getNode(0, 0), graph.getNode(3, 0), heuristic);
+		Assert.assertEquals("Unexpected evictions", 1, pathFinder.evictions);
+		Assert.assertEquals("Unexpected size", 2, pathFinder.size());
+
+		search(pathFinder, graph.getNode(0, 0), graph.getNode(1, 0), heuristic);
+		Assert.assertEquals("Unexpected hits", 2, pathFinder.hits);
+		search(pathFinder, graph.getNode(0, 0), graph.getNode(2, 0), heuristic);
+		Assert.assertEquals("Unexpected misses", 4, pathFinder.misses);
+	}
+
+	private static void search (PathFinder<MyNode> pathFinder, MyNode startNode, MyNode endNode, Heuristic<MyNode> heuristic) {
+		PathFinderRequest<MyNode> request = new PathFinderRequest<>(startNode, endNode, heuristic, new DefaultGraphPath<MyNode>(),
+			null);
+		request.statusChanged = true;
+		while (!pathFinder.search(request, Long.MAX_VALUE)) {
+		}
+		Assert.assertTrue("Path not found", request.pathFound);
+		Assert.assertSame("Unexpected last node", endNode, request.resultPath.get(request.resultPath.getCount() - 1));
+	}
+
+	private static void assertSamePath (GraphPath<MyNode> expectedPath, GraphPath<MyNode> actualPath) {
+		Assert.assertEquals("Unexpected number of nodes in path", expectedPath.getCount(), actualPath.getCount());
+		for (int i = 0; i < expectedPath.getCount(); i++)
+			Assert.assertSame("Unexpected node in path", expectedPath.get(i), actualPath.get(i));
+	}
+
+	static class MyNode {
+		final int index;
+		final int x;
+		final int y;
+		final Array<Connection<MyNode>> connections = new Array<>(4);
+
+		MyNode (int index, int x, int y) {
+			this.index = index;
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	/** A 4-connected grid with unit costs. */
+	static class MyGraph implements IndexedGraph<MyNode> {
+		final Array<MyNode> nodes = new Array<>(WIDTH * HEIGHT);
+
+		MyGraph () {
+			for (int y = 0; y < HEIGHT; y++)
+				for (int x = 0; x < WIDTH; x++)
+					nodes.add(new MyNode(nodes.size, x, y));
+			for (int y = 0; y < HEIGHT; y++) {
+				for (int x = 0; x < WIDTH; x++) {
+					MyNode node = getNode(x, y);
+					if (x > 0) node.connections.add(new DefaultConnection<MyNode>(node, getNode(x - 1, y)));
+					if (x < WIDTH - 1) node.connections.add(new DefaultConnection<MyNode>(node, getNode(x + 1, y)));
+					if (y > 0) node.connections.add(new DefaultConnection<MyNode>(node, getNode(x, y - 1)));
+					if (y < HEIGHT - 1) node.connections.add(new DefaultConnection<MyNode>(node, getNode(x, y + 1)));
+				}
+			}
+		}
+
+		MyNode getNode (int x, int y) {
+			return nodes.get(y * WIDTH + x);
+		}
+
+		@Override
+		public int getIndex (MyNode node) {
+			return node.index;
+		}
+
+		@Override
+		public int getNodeCount () {
+			return nodes.size;
+		}
+
+		@Override
+		public Array<Connection<MyNode>> getConnections (MyNode fromNode) {
+			return fromNode.connections;
+		}
+	}
+
+	static class ManhattanDistance implements Heuristic<MyNode> {
+		@Override
+		public float estimate (MyNode node, MyNode endNode) {
+			return Math.abs(endNode.x - node.x) + Math.abs(endNode.y - node.y);
+		}
+	}
+}
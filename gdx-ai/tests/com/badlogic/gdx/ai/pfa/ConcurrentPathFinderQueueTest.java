@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.msg.MessageDispatcher;
+import com.badlogic.gdx.ai.msg.Telegram;
+import com.badlogic.gdx.ai.msg.Telegraph;
+import com.badlogic.gdx.ai.pfa.CachingPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.CachingPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.CachingPathFinderTest.MyNode;
+import com.badlogic.gdx.utils.Array;
+
+public class ConcurrentPathFinderQueueTest {
+
+	private static final int REQUEST = 1;
+	private static final int RESPONSE = 2;
+
+	@Test
+	public void run_WhenRequestResentFromResponseHandler_ExpectedRenewalServedOnce () throws InterruptedException {
+		Array<PathFinder<MyNode>> pathFinders = new Array<>();
+		final CountingPathFinder pathFinder = new CountingPathFinder();
+		pathFinders.add(pathFinder);
+		final ConcurrentPathFinderQueue<MyNode> queue = new ConcurrentPathFinderQueue<>(pathFinders);
+		final MessageDispatcher dispatcher = new MessageDispatcher();
+		MyGraph graph = new MyGraph();
+		final PathFinderRequest<MyNode> request = new PathFinderRequest<>(graph.getNode(0, 0), graph.getNode(9, 9),
+			new ManhattanDistance(), new DefaultGraphPath<MyNode>(), dispatcher);
+		request.responseMessageCode = RESPONSE;
+		final AtomicInteger responses = new AtomicInteger();
+		Telegraph client = new Telegraph() {
+			@Override
+			public boolean handleMessage (Telegram msg) {
+				// Renew the request once from the response handler
+				if (responses.incrementAndGet() == 1) dispatcher.dispatchMessage(this, queue, REQUEST, request);
+				return true;
+			}
+		};
+		try {
+			dispatcher.dispatchMessage(client, queue, REQUEST, request);
+			long end = System.currentTimeMillis() + 500;
+			while (System.currentTimeMillis() < end) {
+				queue.run(Long.MAX_VALUE);
+				Thread.sleep(1);
+			}
+			Assert.assertEquals("Unexpected number of responses", 2, responses.get());
+			Assert.assertEquals("Unexpected number of searches", 2, pathFinder.searches.get());
+			Assert.assertEquals("Unexpected status", PathFinderRequest.SEARCH_FINALIZED, request.status);
+		} finally {
+			queue.dispose();
+		}
+	}
+
+	/** A path finder counting the searches, which always complete at once. */
+	static class CountingPathFinder implements PathFinder<MyNode> {
+		final AtomicInteger searches = new AtomicInteger();
+
+		@Override
+		public boolean searchConnectionPath (MyNode startNode, MyNode endNode, Heuristic<MyNode> heuristic,
+			GraphPath<Connection<MyNode>> outPath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean searchNodePath (MyNode startNode, MyNode endNode, Heuristic<MyNode> heuristic, GraphPath<MyNode> outPath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean search (PathFinderRequest<MyNode> request, long timeToRun) {
+			searches.incrementAndGet();
+			request.pathFound = true;
+			return true;
+		}
+	}
+}
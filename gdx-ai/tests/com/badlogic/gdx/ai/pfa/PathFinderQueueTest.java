@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.msg.MessageDispatcher;
+import com.badlogic.gdx.ai.msg.Telegram;
+import com.badlogic.gdx.ai.pfa.CachingPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.CachingPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.CachingPathFinderTest.MyNode;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+public class PathFinderQueueTest {
+
+	@Test
+	public void run_WithPriorities_ExpectedHigherPriorityFirstThenArrivalOrder () {
+		RecordingPathFinder pathFinder = new RecordingPathFinder();
+		PathFinderQueue<MyNode> queue = new PathFinderQueue<>(pathFinder);
+		int[] priorities = {0, 5, 0, 5, 10, -1};
+		Array<PathFinderRequest<MyNode>> requests = new Array<>();
+		for (int i = 0; i < priorities.length; i++) {
+			PathFinderRequest<MyNode> request = newRequest();
+			request.priority = priorities[i];
+			requests.add(request);
+			send(queue, request);
+		}
+		queue.run(Long.MAX_VALUE);
+
+		int[] expectedOrder = {4, 1, 3, 0, 2, 5};
+		Assert.assertEquals("Unexpected number of searches", expectedOrder.length, pathFinder.searched.size);
+		for (int i = 0; i < expectedOrder.length; i++)
+			Assert.assertSame("Unexpected request order", requests.get(expectedOrder[i]), pathFinder.searched.get(i));
+		Assert.assertEquals("Unexpected served requests", priorities.length, queue.servedRequests);
+		Assert.assertTrue("Unexpected wait time", queue.maxWaitTime >= queue.getAverageWaitTime());
+	}
+
+	@Test
+	public void run_WithCancelledRequests_ExpectedCancelledRequestsDropped () {
+		RecordingPathFinder pathFinder = new RecordingPathFinder();
+		PathFinderQueue<MyNode> queue = new PathFinderQueue<>(pathFinder);
+		PathFinderRequest<MyNode> first = newRequest();
+		PathFinderRequest<MyNode> second = newRequest();
+		PathFinderRequest<MyNode> third = newRequest();
+		send(queue, first);
+		send(queue, second);
+		send(queue, third);
+
+		Assert.assertTrue("Request not cancelled", queue.cancel(first));
+		Assert.assertEquals("Unexpected queue size", 2, queue.size());
+		third.cancel();
+		queue.run(Long.MAX_VALUE);
+
+		Assert.assertEquals("Unexpected number of searches", 1, pathFinder.searched.size);
+		Assert.assertSame("Unexpected request", second, pathFinder.searched.get(0));
+		Assert.assertEquals("Unexpected cancelled requests", 2, queue.cancelledRequests);
+		Assert.assertFalse("Request cancelled twice", queue.cancel(first));
+	}
+
+	@Test
+	public void handleMessage_WhenRequestBeingServed_ExpectedSearchRestartedAndNotQueued () {
+		RecordingPathFinder pathFinder = new RecordingPathFinder();
+		PathFinderQueue<MyNode> queue = new PathFinderQueue<>(pathFinder);
+		pathFinder.completeSearches = false;
+		PathFinderRequest<MyNode> request = newRequest();
+		send(queue, request);
+		queue.run(Long.MAX_VALUE);
+		Assert.assertEquals("Unexpected status", PathFinderRequest.SEARCH_INITIALIZED, request.status);
+
+		send(queue, request);
+		Assert.assertEquals("Request queued twice", 0, queue.size());
+		pathFinder.completeSearches = true;
+		queue.run(Long.MAX_VALUE);
+		queue.run(Long.MAX_VALUE);
+		Assert.assertEquals("Unexpected number of searches", 2, pathFinder.searched.size);
+		Assert.assertEquals("Unexpected status", PathFinderRequest.SEARCH_FINALIZED, request.status);
+		Assert.assertEquals("Unexpected served requests", 1, queue.servedRequests);
+	}
+
+	@Test
+	public void run_WhenDeadlineExpired_ExpectedRequestDroppedOrPartialPath () {
+		RecordingPathFinder pathFinder = new RecordingPathFinder();
+		PathFinderQueue<MyNode> queue = new PathFinderQueue<>(pathFinder);
+
+		// An expired request is answered without searching
+		PathFinderRequest<MyNode> expired = newRequest();
+		expired.deadline = TimeUtils.nanoTime() - 1;
+		send(queue, expired);
+		queue.run(Long.MAX_VALUE);
+		Assert.assertEquals("Unexpected number of searches", 0, pathFinder.searched.size);
+		Assert.assertTrue("Deadline not expired", expired.deadlineExpired);
+		Assert.assertFalse("Unexpected path found", expired.pathFound);
+		Assert.assertEquals("Unexpected status", PathFinderRequest.SEARCH_FINALIZED, expired.status);
+
+		// A request expiring while searching gets the best path so far
+		pathFinder.completeSearches = false;
+		PathFinderRequest<MyNode> partial = newRequest();
+		partial.partialPathAllowed = true;
+		send(queue, partial);
+		queue.run(Long.MAX_VALUE);
+		Assert.assertEquals("Unexpected status", PathFinderRequest.SEARCH_INITIALIZED, partial.status);
+		partial.deadline = TimeUtils.nanoTime() - 1;
+		queue.run(Long.MAX_VALUE);
+		Assert.assertTrue("Deadline not expired", partial.deadlineExpired);
+		Assert.assertTrue("Partial path not found", partial.pathFound);
+		Assert.assertEquals("Unexpected partial path", 1, partial.resultPath.getCount());
+		Assert.assertEquals("Unexpected expired requests", 2, queue.expiredRequests);
+	}
+
+	@Test
+	public void generatePartialPath_WhenSearchInterrupted_ExpectedPathTowardEndNode () {
+		MyGraph graph = new MyGraph();
+		IndexedAStarPathFinder<MyNode> pathFinder = new IndexedAStarPathFinder<>(graph);
+		final ManhattanDistance distance = new ManhattanDistance();
+		Heuristic<MyNode> slowHeuristic = new Heuristic<MyNode>() {
+			@Override
+			public float estimate (MyNode node, MyNode endNode) {
+				long end = TimeUtils.nanoTime() + 200000;
+				while (TimeUtils.nanoTime() < end) {
+				}
+				return distance.estimate(node, endNode);
+			}
+		};
+		MyNode startNode = graph.getNode(0, 0);
+		MyNode endNode = graph.getNode(9, 9);
+		PathFinderRequest<MyNode> request = new PathFinderRequest<>(startNode, endNode, slowHeuristic,
+			new DefaultGraphPath<MyNode>(), null);
+		request.statusChanged = true;
+		for (int i = 0; i < 5; i++)
+			Assert.assertFalse("Search not interrupted", pathFinder.search(request, 250000));
+		Assert.assertTrue("Partial path not generated", pathFinder.generatePartialPath(request));
+
+		GraphPath<MyNode> path = request.resultPath;
+		Assert.assertSame("Unexpected start node", startNode, path.get(0));
+		MyNode last = path.get(path.getCount() - 1);
+		Assert.assertTrue("Partial path not closer to the end node",
+			distance.estimate(last, endNode) < distance.estimate(startNode, endNode));
+		for (int i = 1; i < path.getCount(); i++)
+			Assert.assertEquals("Path not contiguous", 1, distance.estimate(path.get(i - 1), path.get(i)), 0);
+	}
+
+	private static PathFinderRequest<MyNode> newRequest () {
+		MyGraph graph = new MyGraph();
+		return new PathFinderRequest<>(graph.getNode(0, 0), graph.getNode(9, 9), new ManhattanDistance(),
+			new DefaultGraphPath<MyNode>(), new MessageDispatcher());
+	}
+
+	private static void send (PathFinderQueue<MyNode> queue, PathFinderRequest<MyNode> request) {
+		Telegram telegram = new Telegram();
+		telegram.extraInfo = request;
+		queue.handleMessage(telegram);
+	}
+
+	/** A path finder recording the requests it searches, which either complete at once or never complete. */
+	static class RecordingPathFinder implements PartialPathFinder<MyNode> {
+		final Array<PathFinderRequest<MyNode>> searched = new Array<>();
+		boolean completeSearches = true;
+
+		@Override
+		public boolean searchConnectionPath (MyNode startNode, MyNode endNode, Heuristic<MyNode> heuristic,
+			GraphPath<Connection<MyNode>> outPath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean searchNodePath (MyNode startNode, MyNode endNode, Heuristic<MyNode> heuristic, GraphPath<MyNode> outPath) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean search (PathFinderRequest<MyNode> request, long timeToRun) {
+			if (request.statusChanged) {
+				request.statusChanged = false;
+				searched.add(request);
+			}
+			request.pathFound = completeSearches;
+			return completeSearches;
+		}
+
+		@Override
+		public boolean generatePartialPath (PathFinderRequest<MyNode> request) {
+			request.resultPath.add(request.startNode);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.utils.BatchRaycastCollisionDetector;
+import com.badlogic.gdx.ai.utils.Collision;
+import com.badlogic.gdx.ai.utils.Ray;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+public class PathSmootherTest {
+
+	private static final int SIZE = 30;
+
+	@Test
+	public void smoothPath_WithCacheAndBatches_ExpectedSamePathsAsPlainSmoother () {
+		Random random = new Random(21);
+		MyMap map = new MyMap(random, 0.15f);
+		MyDetector detector = new MyDetector(map);
+		PathSmoother<MyNode, Vector2> plainSmoother = new PathSmoother<>(new MyDetector(map).single());
+		PathSmoother<MyNode, Vector2> cachingSmoother = new PathSmoother<>(new MyDetector(map).single(),
+			new LineOfSightCache<MyNode>(64));
+		PathSmoother<MyNode, Vector2> batchSmoother = new PathSmoother<>(detector, new LineOfSightCache<MyNode>(64));
+		batchSmoother.setBatchSize(5);
+		for (int i = 0; i < 100; i++) {
+			MyPath path = map.randomPath(random, 2 + random.nextInt(20));
+			MyPath expectedPath = path.copy();
+			int removed = plainSmoother.smoothPath(expectedPath);
+			MyPath cachedPath = path.copy();
+			Assert.assertEquals("Unexpected removed nodes", removed, cachingSmoother.smoothPath(cachedPath));
+			assertSamePath(expectedPath, cachedPath);
+			MyPath batchPath = path.copy();
+			Assert.assertEquals("Unexpected removed nodes", removed, batchSmoother.smoothPath(batchPath));
+			assertSamePath(expectedPath, batchPath);
+
+			// Smooth the same path again, so the cache is hit
+			cachedPath = path.copy();
+			cachingSmoother.smoothPath(cachedPath);
+			assertSamePath(expectedPath, cachedPath);
+		}
+		Assert.assertTrue("Expected batch calls", detector.calls > 0 && detector.calls < detector.rays);
+	}
+
+	@Test
+	public void smoothPath_WhenPathSmoothedAgain_ExpectedNoRaysUntilGraphVersionChanges () {
+		Random random = new Random(22);
+		MyMap map = new MyMap(random, 0.15f);
+		MyDetector detector = new MyDetector(map);
+		LineOfSightCache<MyNode> cache = new LineOfSightCache<>(1024);
+		PathSmoother<MyNode, Vector2> smoother = new PathSmoother<>(detector, cache);
+		MyPath path = map.randomPath(random, 20);
+		MyPath expectedPath = path.copy();
+		smoother.smoothPath(expectedPath);
+		int rays = detector.rays;
+		Assert.assertTrue("No rays cast", rays > 0);
+
+		MyPath actualPath = path.copy();
+		smoother.smoothPath(actualPath);
+		assertSamePath(expectedPath, actualPath);
+		Assert.assertEquals("Unexpected rays cast", rays, detector.rays);
+
+		cache.incrementGraphVersion();
+		for (int i = 0; i < cache.getCapacity(); i++)
+			Assert.assertNull("Stale node kept", cache.fromNodes[i]);
+		actualPath = path.copy();
+		smoother.smoothPath(actualPath);
+		assertSamePath(expectedPath, actualPath);
+		Assert.assertEquals("Unexpected rays cast", 2 * rays, detector.rays);
+	}
+
+	@Test
+	public void smoothPath_WhenInterruptible_ExpectedSamePathAsNonInterruptible () {
+		Random random = new Random(23);
+		MyMap map = new MyMap(random, 0.15f);
+		PathSmoother<MyNode, Vector2> plainSmoother = new PathSmoother<>(new MyDetector(map).single());
+		PathSmoother<MyNode, Vector2> batchSmoother = new PathSmoother<>(new MyDetector(map),
+			new LineOfSightCache<MyNode>(256));
+		PathSmootherRequest<MyNode, Vector2> request = new PathSmootherRequest<>();
+		for (int i = 0; i < 50; i++) {
+			MyPath path = map.randomPath(random, 2 + random.nextInt(20));
+			MyPath expectedPath = path.copy();
+			plainSmoother.smoothPath(expectedPath);
+			MyPath actualPath = path.copy();
+			request.refresh(actualPath);
+			while (!batchSmoother.smoothPath(request, Long.MAX_VALUE)) {
+			}
+			assertSamePath(expectedPath, actualPath);
+		}
+	}
+
+	private static void assertSamePath (MyPath expectedPath, MyPath actualPath) {
+		Assert.assertEquals("Unexpected number of nodes in path", expectedPath.getCount(), actualPath.getCount());
+		for (int j = 0; j < expectedPath.getCount(); j++)
+			Assert.assertSame("Unexpected node in path", expectedPath.get(j), actualPath.get(j));
+	}
+
+	static class MyNode {
+		final Vector2 position;
+
+		MyNode (int x, int y) {
+			this.position = new Vector2(x, y);
+		}
+	}
+
+	static class MyMap {
+		final boolean[] walls = new boolean[SIZE * SIZE];
+		final MyNode[] nodes = new MyNode[SIZE * SIZE];
+
+		MyMap (Random random, float wallProbability) {
+			for (int y = 0; y < SIZE; y++) {
+				for (int x = 0; x < SIZE; x++) {
+					nodes[y * SIZE + x] = new MyNode(x, y);
+					walls[y * SIZE + x] = random.nextFloat() < wallProbability;
+				}
+			}
+		}
+
+		/** Returns a path through random nodes, like the ones a path finder finds across the same few corridors. */
+		MyPath randomPath (Random random, int length) {
+			MyPath path = new MyPath();
+			int x = random.nextInt(SIZE / 3), y = random.nextInt(SIZE / 3);
+			for (int i = 0; i < length; i++) {
+				path.add(nodes[y * SIZE + x]);
+				if (random.nextBoolean())
+					x = Math.min(SIZE - 1, x + 1);
+				else
+					y = Math.min(SIZE - 1, y + 1);
+			}
+			return path;
+		}
+
+		boolean isWall (float x, float y) {
+			return walls[Math.round(y) * SIZE + Math.round(x)];
+		}
+	}
+
+	static class MyPath extends DefaultGraphPath<MyNode> implements SmoothableGraphPath<MyNode, Vector2> {
+		@Override
+		public Vector2 getNodePosition (int index) {
+			return nodes.get(index).position;
+		}
+
+		@Override
+		public void swapNodes (int index1, int index2) {
+			nodes.set(index1, nodes.get(index2));
+		}
+
+		@Override
+		public void truncatePath (int newLength) {
+			nodes.truncate(newLength);
+		}
+
+		MyPath copy () {
+			MyPath copy = new MyPath();
+			copy.nodes.addAll(nodes);
+			return copy;
+		}
+	}
+
+	/** A detector sampling the walls along the rays, which counts the rays and the calls. */
+	static class MyDetector implements BatchRaycastCollisionDetector<Vector2> {
+		final MyMap map;
+		int rays;
+		int calls;
+
+		MyDetector (MyMap map) {
+			this.map = map;
+		}
+
+		@Override
+		public boolean collides (Ray<Vector2> ray) {
+			rays++;
+			calls++;
+			float dx = ray.end.x - ray.start.x, dy = ray.end.y - ray.start.y;
+			int steps = (int)(Math.sqrt(dx * dx + dy * dy) * 10) + 1;
+			for (int i = 0; i <= steps; i++)
+				if (map.isWall(ray.start.x + dx * i / steps, ray.start.y + dy * i / steps)) return true;
+			return false;
+		}
+
+		@Override
+		public void collides (Array<Ray<Vector2>> rays, boolean[] outCollisions) {
+			calls -= rays.size - 1;
+			for (int i = 0; i < rays.size; i++)
+				outCollisions[i] = collides(rays.get(i));
+		}
+
+		@Override
+		public boolean findCollision (Collision<Vector2> outputCollision, Ray<Vector2> inputRay) {
+			throw new UnsupportedOperationException();
+		}
+
+		/** Returns a detector casting one ray per call. */
+		RaycastCollisionDetectorAdapter single () {
+			return new RaycastCollisionDetectorAdapter(this);
+		}
+	}
+
+	/** Hides the batch capability of a detector. */
+	static class RaycastCollisionDetectorAdapter implements com.badlogic.gdx.ai.utils.RaycastCollisionDetector<Vector2> {
+		final MyDetector detector;
+
+		RaycastCollisionDetectorAdapter (MyDetector detector) {
+			this.detector = detector;
+		}
+
+		@Override
+		public boolean collides (Ray<Vector2> ray) {
+			return detector.collides(ray);
+		}
+
+		@Override
+		public boolean findCollision (Collision<Vector2> outputCollision, Ray<Vector2> inputRay) {
+			return detector.findCollision(outputCollision, inputRay);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.grid;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.grid.JumpPointSearchPathFinderTest.MyGrid;
+import com.badlogic.gdx.ai.pfa.grid.JumpPointSearchPathFinderTest.MyNode;
+
+public class GridClusterAssignerTest {
+
+	@Test
+	public void getCluster_WhenSizeNotDividingGrid_ExpectedRectanglesWithPartialClustersAtEdges () {
+		MyGrid grid = new MyGrid(new Random(7), 50, 40, 0, false);
+		GridClusterAssigner<MyNode> assigner = new GridClusterAssigner<>(grid, 8, 6);
+
+		// 50 columns make 6 full clusters and one 2 columns wide, 40 rows make 6 full clusters and one 4 rows high
+		int clustersPerRow = 7, clusterCount = 49;
+		int[] minX = new int[clusterCount], maxX = new int[clusterCount];
+		int[] minY = new int[clusterCount], maxY = new int[clusterCount];
+		int[] sizes = new int[clusterCount];
+		for (int i = 0; i < clusterCount; i++) {
+			minX[i] = minY[i] = Integer.MAX_VALUE;
+			maxX[i] = maxY[i] = -1;
+		}
+		for (int y = 0; y < grid.getHeight(); y++) {
+			for (int x = 0; x < grid.getWidth(); x++) {
+				int cluster = assigner.getCluster(grid.getNode(x, y));
+				Assert.assertEquals("Unexpected cluster", y / 6 * clustersPerRow + x / 8, cluster);
+				minX[cluster] = Math.min(minX[cluster], x);
+				maxX[cluster] = Math.max(maxX[cluster], x);
+				minY[cluster] = Math.min(minY[cluster], y);
+				maxY[cluster] = Math.max(maxY[cluster], y);
+				sizes[cluster]++;
+			}
+		}
+
+		for (int cluster = 0; cluster < clusterCount; cluster++) {
+			int width = maxX[cluster] - minX[cluster] + 1, height = maxY[cluster] - minY[cluster] + 1;
+			Assert.assertEquals("Cluster not rectangular", width * height, sizes[cluster]);
+			boolean lastColumn = cluster % clustersPerRow == clustersPerRow - 1;
+			boolean lastRow = cluster / clustersPerRow == clusterCount / clustersPerRow - 1;
+			Assert.assertEquals("Unexpected cluster width", lastColumn ? 2 : 8, width);
+			Assert.assertEquals("Unexpected cluster height", lastRow ? 4 : 6, height);
+		}
+	}
+
+	@Test
+	public void constructor_WithNonPositiveSize_ExpectedException () {
+		MyGrid grid = new MyGrid(new Random(7), 10, 10, 0, false);
+		try {
+			new GridClusterAssigner<>(grid, 0, 4);
+			Assert.fail("Empty clusters accepted");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.grid;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.grid.JumpPointSearchPathFinderTest.MyGrid;
+import com.badlogic.gdx.ai.pfa.grid.JumpPointSearchPathFinderTest.MyNode;
+
+public class GridLineOfSightTest {
+
+	@Test
+	public void hasLineOfSight_OnRandomGrid_ExpectedSameResultAsSegmentIntersection () {
+		Random random = new Random(11);
+		MyGrid grid = new MyGrid(random, 50, 40, 0.15f, true);
+		GridLineOfSight<MyNode> lineOfSight = new GridLineOfSight<>(grid);
+		int visible = 0;
+		for (int i = 0; i < 2000; i++) {
+			MyNode from = grid.randomFloor(random);
+			MyNode to = grid.randomFloor(random);
+			boolean expected = !crossesWall(grid, from, to);
+			Assert.assertEquals("Unexpected line of sight", expected, lineOfSight.hasLineOfSight(from, to));
+			Assert.assertEquals("Line of sight not symmetric", expected, lineOfSight.hasLineOfSight(to, from));
+			if (expected) visible++;
+		}
+		Assert.assertTrue("Too few visible pairs", visible > 100);
+	}
+
+	/** Returns {@code true} if the segment between the centers of the given cells touches a wall, even at a single corner. */
+	public static boolean crossesWall (MyGrid grid, MyNode from, MyNode to) {
+		float epsilon = 1e-4f;
+		for (int y = Math.min(from.y, to.y); y <= Math.max(from.y, to.y); y++) {
+			for (int x = Math.min(from.x, to.x); x <= Math.max(from.x, to.x); x++) {
+				if (grid.isFloor(x, y)) continue;
+				// Clip the segment against the slightly enlarged square of the cell
+				float t0 = 0, t1 = 1;
+				float[] p = {from.x - to.x, to.x - from.x, from.y - to.y, to.y - from.y};
+				float[] q = {from.x - (x - 0.5f - epsilon), x + 0.5f + epsilon - from.x, from.y - (y - 0.5f - epsilon),
+					y + 0.5f + epsilon - from.y};
+				boolean inside = true;
+				for (int k = 0; k < 4 && inside; k++) {
+					if (p[k] == 0) {
+						if (q[k] < 0) inside = false;
+					} else if (p[k] < 0) {
+						t0 = Math.max(t0, q[k] / p[k]);
+					} else {
+						t1 = Math.min(t1, q[k] / p[k]);
+					}
+				}
+				if (inside && t0 <= t1) return true;
+			}
+		}
+		return false;
+	}
+}
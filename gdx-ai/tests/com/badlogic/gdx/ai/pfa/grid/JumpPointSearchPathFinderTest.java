@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.grid;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedGraph;
+import com.badlogic.gdx.utils.Array;
+
+public class JumpPointSearchPathFinderTest {
+
+	private static final float SQRT2 = 1.4142135f;
+
+	@Test
+	public void searchNodePath_On8ConnectedRandomGrids_ExpectedOptimalPaths () {
+		Random random = new Random(1);
+		for (int map = 0; map < 10; map++) {
+			MyGrid grid = new MyGrid(random, 50, 40, 0.05f * map, true);
+			assertOptimalPaths(random, grid, new OctileDistance());
+		}
+	}
+
+	@Test
+	public void searchNodePath_On4ConnectedRandomGrids_ExpectedOptimalPaths () {
+		Random random = new Random(2);
+		for (int map = 0; map < 10; map++) {
+			MyGrid grid = new MyGrid(random, 50, 40, 0.05f * map, false);
+			assertOptimalPaths(random, grid, new ManhattanDistance());
+		}
+	}
+
+	@Test
+	public void searchConnectionPath_ExpectedConnectionsMatchingNodePath () {
+		Random random = new Random(3);
+		MyGrid grid = new MyGrid(random, 50, 40, 0.2f, true);
+		JumpPointSearchPathFinder<MyNode> pathFinder = new JumpPointSearchPathFinder<>(grid);
+		for (int i = 0; i < 50; i++) {
+			MyNode startNode = grid.randomFloor(random);
+			MyNode endNode = grid.randomFloor(random);
+			GraphPath<MyNode> nodePath = new DefaultGraphPath<>();
+			GraphPath<Connection<MyNode>> connectionPath = new DefaultGraphPath<>();
+			boolean found = pathFinder.searchNodePath(startNode, endNode, new OctileDistance(), nodePath);
+			Assert.assertEquals("Unexpected search result", found,
+				pathFinder.searchConnectionPath(startNode, endNode, new OctileDistance(), connectionPath));
+			if (!found) continue;
+			Assert.assertEquals("Unexpected number of connections", nodePath.getCount() - 1, connectionPath.getCount());
+			for (int j = 0; j < connectionPath.getCount(); j++) {
+				Assert.assertSame("Unexpected from node", nodePath.get(j), connectionPath.get(j).getFromNode());
+				Assert.assertSame("Unexpected to node", nodePath.get(j + 1), connectionPath.get(j).getToNode());
+			}
+		}
+	}
+
+	@Test
+	public void search_WhenInterruptible_ExpectedSamePathAsNonInterruptible () {
+		Random random = new Random(4);
+		MyGrid grid = new MyGrid(random, 50, 40, 0.2f, true);
+		JumpPointSearchPathFinder<MyNode> pathFinder = new JumpPointSearchPathFinder<>(grid);
+		for (int i = 0; i < 20; i++) {
+			MyNode startNode = grid.randomFloor(random);
+			MyNode endNode = grid.randomFloor(random);
+			GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+			boolean expectedResult = pathFinder.searchNodePath(startNode, endNode, new OctileDistance(), expectedPath);
+
+			PathFinderRequest<MyNode> request = new PathFinderRequest<>(startNode, endNode, new OctileDistance(),
+				new DefaultGraphPath<MyNode>(), null);
+			request.statusChanged = true;
+			while (!pathFinder.search(request, Long.MAX_VALUE)) {
+			}
+			Assert.assertEquals("Unexpected search result", expectedResult, request.pathFound);
+			Assert.assertEquals("Unexpected number of nodes in path", expectedPath.getCount(), request.resultPath.getCount());
+			for (int j = 0; j < expectedPath.getCount(); j++)
+				Assert.assertSame("Unexpected node in path", expectedPath.get(j), request.resultPath.get(j));
+		}
+	}
+
+	@Test
+	public void searchNodePath_OnOpenGrid_ExpectedFarFewerOpenListAdditionsThanAStar () {
+		MyGrid grid = new MyGrid(new Random(5), 200, 200, 0, true);
+		IndexedAStarPathFinder<MyNode> aStar = new IndexedAStarPathFinder<>(grid, true);
+		JumpPointSearchPathFinder<MyNode> jps = new JumpPointSearchPathFinder<>(grid, true, true);
+		MyNode startNode = grid.getNode(0, 0);
+		MyNode endNode = grid.getNode(199, 150);
+		Assert.assertTrue(aStar.searchNodePath(startNode, endNode, new OctileDistance(), new DefaultGraphPath<MyNode>()));
+		Assert.assertTrue(jps.searchNodePath(startNode, endNode, new OctileDistance(), new DefaultGraphPath<MyNode>()));
+		Assert.assertTrue("Expected far fewer open list additions",
+			jps.metrics.openListAdditions * 10 < aStar.metrics.openListAdditions);
+	}
+
+	private static void assertOptimalPaths (Random random, MyGrid grid, Heuristic<MyNode> heuristic) {
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(grid);
+		JumpPointSearchPathFinder<MyNode> pathFinder = new JumpPointSearchPathFinder<>(grid, grid.diagonal, false);
+		for (int i = 0; i < 50; i++) {
+			MyNode startNode = grid.randomFloor(random);
+			MyNode endNode = grid.randomFloor(random);
+			GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+			GraphPath<MyNode> actualPath = new DefaultGraphPath<>();
+			boolean expectedResult = reference.searchNodePath(startNode, endNode, heuristic, expectedPath);
+			boolean actualResult = pathFinder.searchNodePath(startNode, endNode, heuristic, actualPath);
+			Assert.assertEquals("Unexpected search result", expectedResult, actualResult);
+			if (!expectedResult) continue;
+			Assert.assertSame("Unexpected first node", startNode, actualPath.get(0));
+			Assert.assertSame("Unexpected last node", endNode, actualPath.get(actualPath.getCount() - 1));
+			Assert.assertEquals("Unexpected path cost", grid.cost(expectedPath), grid.cost(actualPath), 0.001f);
+		}
+	}
+
+	public static class MyNode {
+		public final int x;
+		public final int y;
+		final Array<Connection<MyNode>> connections = new Array<>(8);
+
+		MyNode (int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	static class MyConnection implements Connection<MyNode> {
+		final MyNode fromNode;
+		final MyNode toNode;
+		final float cost;
+
+		MyConnection (MyNode fromNode, MyNode toNode, float cost) {
+			this.fromNode = fromNode;
+			this.toNode = toNode;
+			this.cost = cost;
+		}
+
+		@Override
+		public float getCost () {
+			return cost;
+		}
+
+		@Override
+		public MyNode getFromNode () {
+			return fromNode;
+		}
+
+		@Override
+		public MyNode getToNode () {
+			return toNode;
+		}
+	}
+
+	/** A grid with randomly placed walls that is both a {@link GridGraph} and an equivalent {@link IndexedGraph}. */
+	public static class MyGrid implements GridGraph<MyNode>, IndexedGraph<MyNode> {
+		final int width;
+		final int height;
+		final boolean diagonal;
+		final boolean[] walls;
+		final MyNode[] nodes;
+		final Array<MyNode> floor = new Array<>();
+
+		public MyGrid (Random random, int width, int height, float wallProbability, boolean diagonal) {
+			this.width = width;
+			this.height = height;
+			this.diagonal = diagonal;
+			this.walls = new boolean[width * height];
+			this.nodes = new MyNode[width * height];
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					nodes[y * width + x] = new MyNode(x, y);
+					walls[y * width + x] = random.nextFloat() < wallProbability;
+					if (!walls[y * width + x]) floor.add(nodes[y * width + x]);
+				}
+			}
+			for (MyNode node : floor) {
+				for (int dy = -1; dy <= 1; dy++) {
+					for (int dx = -1; dx <= 1; dx++) {
+						if (dx == 0 && dy == 0) continue;
+						if (dx != 0 && dy != 0 && (!diagonal || !isFloor(node.x + dx, node.y) || !isFloor(node.x, node.y + dy)))
+							continue;
+						if (isFloor(node.x + dx, node.y + dy)) node.connections
+							.add(new MyConnection(node, getNode(node.x + dx, node.y + dy), dx != 0 && dy != 0 ? SQRT2 : 1));
+					}
+				}
+			}
+		}
+
+		public boolean isFloor (int x, int y) {
+			return x >= 0 && y >= 0 && x < width && y < height && !walls[y * width + x];
+		}
+
+		public MyNode randomFloor (Random random) {
+			return floor.get(random.nextInt(floor.size));
+		}
+
+		public float cost (GraphPath<MyNode> path) {
+			float cost = 0;
+			for (int i = 1; i < path.getCount(); i++) {
+				MyNode from = path.get(i - 1), to = path.get(i);
+				int dx = Math.abs(to.x - from.x), dy = Math.abs(to.y - from.y);
+				Assert.assertTrue("Non adjacent nodes", dx <= 1 && dy <= 1 && dx + dy > 0);
+				Assert.assertTrue("Wall in path", isFloor(to.x, to.y));
+				if (dx + dy == 2) {
+					Assert.assertTrue("Unexpected diagonal move", diagonal);
+					Assert.assertTrue("Corner cutting", isFloor(to.x, from.y) && isFloor(from.x, to.y));
+				}
+				cost += dx + dy == 2 ? SQRT2 : 1;
+			}
+			return cost;
+		}
+
+		@Override
+		public int getWidth () {
+			return width;
+		}
+
+		@Override
+		public int getHeight () {
+			return height;
+		}
+
+		@Override
+		public boolean isWalkable (int x, int y) {
+			return !walls[y * width + x];
+		}
+
+		@Override
+		public MyNode getNode (int x, int y) {
+			return nodes[y * width + x];
+		}
+
+		@Override
+		public int getX (MyNode node) {
+			return node.x;
+		}
+
+		@Override
+		public int getY (MyNode node) {
+			return node.y;
+		}
+
+		@Override
+		public int getIndex (MyNode node) {
+			return node.y * width + node.x;
+		}
+
+		@Override
+		public int getNodeCount () {
+			return nodes.length;
+		}
+
+		@Override
+		public Array<Connection<MyNode>> getConnections (MyNode fromNode) {
+			return fromNode.connections;
+		}
+	}
+
+	public static class OctileDistance implements Heuristic<MyNode> {
+		@Override
+		public float estimate (MyNode node, MyNode endNode) {
+			int dx = Math.abs(endNode.x - node.x), dy = Math.abs(endNode.y - node.y);
+			return Math.max(dx, dy) + (SQRT2 - 1) * Math.min(dx, dy);
+		}
+	}
+
+	static class ManhattanDistance implements Heuristic<MyNode> {
+		@Override
+		public float estimate (MyNode node, MyNode endNode) {
+			return Math.abs(endNode.x - node.x) + Math.abs(endNode.y - node.y);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyNode;
+
+public class BidirectionalIndexedAStarPathFinderTest {
+
+	@Test
+	public void searchConnectionPath_OnRandomWeightedGrids_ExpectedOptimalPaths () {
+		Random random = new Random(21);
+		for (int map = 0; map < 5; map++) {
+			MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.3f);
+			CsrIndexedGraph<MyNode> csrGraph = new CsrIndexedGraph<>(graph, graph.nodes);
+			IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+			assertOptimalPaths(random, graph, reference, new BidirectionalIndexedAStarPathFinder<>(csrGraph));
+			assertOptimalPaths(random, graph, reference,
+				new BidirectionalIndexedAStarPathFinder<>(graph, csrGraph.reverse(), false));
+		}
+	}
+
+	@Test
+	public void searchNodePath_ExpectedSameNodesAsConnectionPath () {
+		Random random = new Random(22);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.25f);
+		BidirectionalIndexedAStarPathFinder<MyNode> pathFinder = new BidirectionalIndexedAStarPathFinder<>(graph,
+			new CsrIndexedGraph<>(graph, graph.nodes).reverse(), false);
+		for (int i = 0; i < 100; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = i == 0 ? startNode : graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<MyNode> nodePath = new DefaultGraphPath<>();
+			GraphPath<Connection<MyNode>> connectionPath = new DefaultGraphPath<>();
+			boolean found = pathFinder.searchNodePath(startNode, endNode, new ManhattanDistance(), nodePath);
+			Assert.assertEquals("Unexpected search result", found,
+				pathFinder.searchConnectionPath(startNode, endNode, new ManhattanDistance(), connectionPath));
+			if (!found) continue;
+			Assert.assertEquals("Unexpected number of nodes", connectionPath.getCount() + 1, nodePath.getCount());
+			Assert.assertSame("Unexpected first node", startNode, nodePath.get(0));
+			for (int j = 0; j < connectionPath.getCount(); j++)
+				Assert.assertSame("Unexpected node in path", connectionPath.get(j).getToNode(), nodePath.get(j + 1));
+		}
+	}
+
+	@Test
+	public void search_WhenInterruptible_ExpectedSamePathAsNonInterruptible () {
+		Random random = new Random(23);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		BidirectionalIndexedAStarPathFinder<MyNode> pathFinder = new BidirectionalIndexedAStarPathFinder<>(
+			new CsrIndexedGraph<>(graph, graph.nodes));
+		for (int i = 0; i < 20; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+			boolean expectedResult = pathFinder.searchNodePath(startNode, endNode, new ManhattanDistance(), expectedPath);
+
+			PathFinderRequest<MyNode> request = new PathFinderRequest<>(startNode, endNode, new ManhattanDistance(),
+				new DefaultGraphPath<MyNode>(), null);
+			request.statusChanged = true;
+			while (!pathFinder.search(request, Long.MAX_VALUE)) {
+			}
+			Assert.assertEquals("Unexpected search result", expectedResult, request.pathFound);
+			CompactIndexedAStarPathFinderTest.assertSamePath(expectedPath, request.resultPath);
+		}
+	}
+
+	private static void assertOptimalPaths (Random random, MyGraph graph, PathFinder<MyNode> reference,
+		PathFinder<MyNode> pathFinder) {
+		for (int i = 0; i < 50; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<Connection<MyNode>> expectedPath = new DefaultGraphPath<>();
+			GraphPath<Connection<MyNode>> actualPath = new DefaultGraphPath<>();
+			boolean expectedResult = reference.searchConnectionPath(startNode, endNode, new ManhattanDistance(), expectedPath);
+			boolean actualResult = pathFinder.searchConnectionPath(startNode, endNode, new ManhattanDistance(), actualPath);
+			Assert.assertEquals("Unexpected search result", expectedResult, actualResult);
+			if (!expectedResult) continue;
+			Assert.assertEquals("Unexpected path cost", cost(expectedPath, startNode, endNode), cost(actualPath, startNode, endNode),
+				0.0001f);
+		}
+	}
+
+	/** Returns the cost of the given path after checking that it actually leads from the start node to the end node. */
+	static float cost (GraphPath<Connection<MyNode>> path, MyNode startNode, MyNode endNode) {
+		float cost = 0;
+		MyNode node = startNode;
+		for (int i = 0; i < path.getCount(); i++) {
+			Connection<MyNode> connection = path.get(i);
+			Assert.assertSame("Disconnected path", node, connection.getFromNode());
+			Assert.assertTrue("Connection not in graph", node.connections.contains(connection, true)
+				|| connection instanceof CsrIndexedGraph.EdgeConnection);
+			node = connection.getToNode();
+			cost += connection.getCost();
+		}
+		Assert.assertSame("Unexpected last node", endNode, node);
+		return cost;
+	}
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.utils.IntBucketQueue;
+import com.badlogic.gdx.utils.Array;
+
+public class CompactIndexedAStarPathFinderTest {
+
+	private static final int WIDTH = 40;
+	private static final int HEIGHT = 30;
+
+	@Test
+	public void searchNodePath_OnRandomWeightedGrids_ExpectedSamePathsAsIndexedAStar () {
+		Random random = new Random(42);
+		for (int map = 0; map < 5; map++) {
+			MyGraph graph = createRandomGraph(random, 0.3f);
+			IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+			CompactIndexedAStarPathFinder<MyNode> pathFinder = new CompactIndexedAStarPathFinder<>(graph);
+			for (int i = 0; i < 50; i++) {
+				MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+				MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+				assertSameNodePath(graph, reference, pathFinder, startNode, endNode);
+			}
+		}
+	}
+
+	@Test
+	public void searchConnectionPath_OnRandomWeightedGrids_ExpectedSameConnectionsAsIndexedAStar () {
+		Random random = new Random(7);
+		MyGraph graph = createRandomGraph(random, 0.25f);
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+		CompactIndexedAStarPathFinder<MyNode> pathFinder = new CompactIndexedAStarPathFinder<>(graph);
+		for (int i = 0; i < 100; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<Connection<MyNode>> expectedPath = new DefaultGraphPath<>();
+			GraphPath<Connection<MyNode>> actualPath = new DefaultGraphPath<>();
+			boolean expectedResult = reference.searchConnectionPath(startNode, endNode, new ManhattanDistance(), expectedPath);
+			boolean actualResult = pathFinder.searchConnectionPath(startNode, endNode, new ManhattanDistance(), actualPath);
+			Assert.assertEquals("Unexpected search result", expectedResult, actualResult);
+			Assert.assertEquals("Unexpected number of connections in path", expectedPath.getCount(), actualPath.getCount());
+			for (int j = 0; j < expectedPath.getCount(); j++)
+				Assert.assertSame("Unexpected connection in path", expectedPath.get(j), actualPath.get(j));
+		}
+	}
+
+	@Test
+	public void search_WhenInterruptible_ExpectedSamePathAsNonInterruptible () {
+		Random random = new Random(3);
+		MyGraph graph = createRandomGraph(random, 0.2f);
+		CompactIndexedAStarPathFinder<MyNode> pathFinder = new CompactIndexedAStarPathFinder<>(graph);
+		for (int i = 0; i < 20; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+			boolean expectedResult = pathFinder.searchNodePath(startNode, endNode, new ManhattanDistance(), expectedPath);
+
+			PathFinderRequest<MyNode> request = new PathFinderRequest<>(startNode, endNode, new ManhattanDistance(),
+				new DefaultGraphPath<MyNode>(), null);
+			request.statusChanged = true;
+			while (!pathFinder.search(request, Long.MAX_VALUE)) {
+			}
+			Assert.assertEquals("Unexpected search result", expectedResult, request.pathFound);
+			assertSamePath(expectedPath, request.resultPath);
+		}
+	}
+
+	@Test
+	public void searchConnectionPath_WithBucketQueue_ExpectedSameCostsAsIndexedAStar () {
+		Random random = new Random(19);
+		MyGraph graph = createRandomGraph(random, 0.25f);
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+		CompactIndexedAStarPathFinder<MyNode> pathFinder = new CompactIndexedAStarPathFinder<>(graph, false,
+			new IndexedAStarPathFinder.EqualsByReferenceStopCondition<MyNode>(), new IntBucketQueue(16));
+		for (int i = 0; i < 100; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<Connection<MyNode>> expectedPath = new DefaultGraphPath<>();
+			GraphPath<Connection<MyNode>> actualPath = new DefaultGraphPath<>();
+			boolean expectedResult = reference.searchConnectionPath(startNode, endNode, new ManhattanDistance(), expectedPath);
+			boolean actualResult = pathFinder.searchConnectionPath(startNode, endNode, new ManhattanDistance(), actualPath);
+			Assert.assertEquals("Unexpected search result", expectedResult, actualResult);
+			Assert.assertEquals("Unexpected path cost", cost(expectedPath), cost(actualPath), 0);
+		}
+	}
+
+	static float cost (GraphPath<Connection<MyNode>> path) {
+		float cost = 0;
+		for (int i = 0; i < path.getCount(); i++)
+			cost += path.get(i).getCost();
+		return cost;
+	}
+
+	static void assertSameNodePath (MyGraph graph, PathFinder<MyNode> reference, PathFinder<MyNode> pathFinder, MyNode startNode,
+		MyNode endNode) {
+		GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+		GraphPath<MyNode> actualPath = new DefaultGraphPath<>();
+		boolean expectedResult = reference.searchNodePath(startNode, endNode, new ManhattanDistance(), expectedPath);
+		boolean actualResult = pathFinder.searchNodePath(startNode, endNode, new ManhattanDistance(), actualPath);
+		Assert.assertEquals("Unexpected search result", expectedResult, actualResult);
+		assertSamePath(expectedPath, actualPath);
+	}
+
+	static void assertSamePath (GraphPath<MyNode> expectedPath, GraphPath<MyNode> actualPath) {
+		Assert.assertEquals("Unexpected number of nodes in path", expectedPath.getCount(), actualPath.getCount());
+		for (int j = 0; j < expectedPath.getCount(); j++)
+			Assert.assertSame("Unexpected node in path", expectedPath.get(j), actualPath.get(j));
+	}
+
+	/** Creates a 4-connected grid with randomly placed walls and random connection costs in the range [1, 4]. */
+	static MyGraph createRandomGraph (Random random, float wallProbability) {
+		Array<MyNode> nodes = new Array<>(WIDTH * HEIGHT);
+		boolean[] walls = new boolean[WIDTH * HEIGHT];
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				nodes.add(new MyNode(nodes.size, x, y));
+				walls[y * WIDTH + x] = random.nextFloat() < wallProbability;
+			}
+		}
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				MyNode node = nodes.get(y * WIDTH + x);
+				if (x > 0) addConnection(random, nodes, walls, node, x - 1, y);
+				if (x < WIDTH - 1) addConnection(random, nodes, walls, node, x + 1, y);
+				if (y > 0) addConnection(random, nodes, walls, node, x, y - 1);
+				if (y < HEIGHT - 1) addConnection(random, nodes, walls, node, x, y + 1);
+			}
+		}
+		return new MyGraph(nodes);
+	}
+
+	private static void addConnection (Random random, Array<MyNode> nodes, boolean[] walls, MyNode node, int x, int y) {
+		int index = y * WIDTH + x;
+		if (!walls[index]) node.connections.add(new MyConnection(node, nodes.get(index), 1 + random.nextInt(4)));
+	}
+
+	static class MyNode {
+		final int index;
+		final int x;
+		final int y;
+		final Array<Connection<MyNode>> connections;
+
+		MyNode (int index, int x, int y) {
+			this.index = index;
+			this.x = x;
+			this.y = y;
+			this.connections = new Array<>(4);
+		}
+	}
+
+	static class MyConnection implements Connection<MyNode> {
+		final MyNode fromNode;
+		final MyNode toNode;
+		final float cost;
+
+		MyConnection (MyNode fromNode, MyNode toNode, float cost) {
+			this.fromNode = fromNode;
+			this.toNode = toNode;
+			this.cost = cost;
+		}
+
+		@Override
+		public float getCost () {
+			return cost;
+		}
+
+		@Override
+		public MyNode getFromNode () {
+			return fromNode;
+		}
+
+		@Override
+		public MyNode getToNode () {
+			return toNode;
+		}
+	}
+
+	static class MyGraph implements IndexedGraph<MyNode> {
+		final Array<MyNode> nodes;
+
+		MyGraph (Array<MyNode> nodes) {
+			this.nodes = nodes;
+		}
+
+		@Override
+		public int getIndex (MyNode node) {
+			return node.index;
+		}
+
+		@Override
+		public int getNodeCount () {
+			return nodes.size;
+		}
+
+		@Override
+		public Array<Connection<MyNode>> getConnections (MyNode fromNode) {
+			return fromNode.connections;
+		}
+	}
+
+	static class ManhattanDistance implements Heuristic<MyNode> {
+		@Override
+		public float estimate (MyNode node, MyNode endNode) {
+			return Math.abs(endNode.x - node.x) + Math.abs(endNode.y - node.y);
+		}
+	}
+}
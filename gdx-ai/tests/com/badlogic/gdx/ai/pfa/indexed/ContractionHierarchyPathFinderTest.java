@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyNode;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.SerializationException;
+
+public class ContractionHierarchyPathFinderTest {
+
+	@Test
+	public void searchConnectionPath_OnRandomGraphs_ExpectedSameCostsAsIndexedAStar () {
+		Random random = new Random(41);
+		for (int map = 0; map < 3; map++) {
+			MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.25f);
+			CsrIndexedGraph<MyNode> csrGraph = new CsrIndexedGraph<>(graph, graph.nodes);
+			ContractionHierarchyBuilder<MyNode> builder = new ContractionHierarchyBuilder<>(csrGraph);
+			ContractionHierarchy hierarchy = builder.build();
+			assertSameCosts(random, graph, new ContractionHierarchyPathFinder<>(csrGraph, hierarchy), 200);
+		}
+	}
+
+	@Test
+	public void searchConnectionPath_WithLowWitnessSearchLimit_ExpectedSameCostsAsIndexedAStar () {
+		Random random = new Random(43);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		CsrIndexedGraph<MyNode> csrGraph = new CsrIndexedGraph<>(graph, graph.nodes);
+		ContractionHierarchyBuilder<MyNode> builder = new ContractionHierarchyBuilder<>(csrGraph);
+		builder.setWitnessSearchLimit(3);
+		ContractionHierarchy hierarchy = builder.build();
+		assertSameCosts(random, graph, new ContractionHierarchyPathFinder<>(csrGraph, hierarchy), 200);
+	}
+
+	@Test
+	public void write_ThenRead_ExpectedSameHierarchy () {
+		Random random = new Random(47);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		CsrIndexedGraph<MyNode> csrGraph = new CsrIndexedGraph<>(graph, graph.nodes);
+		ContractionHierarchy hierarchy = new ContractionHierarchyBuilder<>(graph, graph.nodes).build();
+
+		// Write the hierarchy after some other data, like in a file holding more than the hierarchy
+		ByteBuffer buffer = ByteBuffer.allocateDirect(8 + hierarchy.getSizeInBytes());
+		buffer.putLong(42);
+		hierarchy.write(buffer);
+		Assert.assertEquals("Unexpected size", 0, buffer.remaining());
+		buffer.position(8);
+		ContractionHierarchy loaded = new ContractionHierarchy(buffer);
+		Assert.assertEquals("Unexpected node count", hierarchy.getNodeCount(), loaded.getNodeCount());
+		Assert.assertEquals("Unexpected up edge count", hierarchy.getUpEdgeCount(), loaded.getUpEdgeCount());
+		Assert.assertEquals("Unexpected down edge count", hierarchy.getDownEdgeCount(), loaded.getDownEdgeCount());
+		for (int i = 0; i < hierarchy.getNodeCount(); i++)
+			Assert.assertEquals("Unexpected rank", hierarchy.getRank(i), loaded.getRank(i));
+		assertSameCosts(random, graph, new ContractionHierarchyPathFinder<>(csrGraph, loaded), 100);
+
+		try {
+			buffer.position(0);
+			new ContractionHierarchy(buffer);
+			Assert.fail("Invalid hierarchy loaded");
+		} catch (SerializationException e) {
+			// Expected
+		}
+		try {
+			buffer.position(8).limit(buffer.capacity() - 4);
+			new ContractionHierarchy(buffer);
+			Assert.fail("Truncated hierarchy loaded");
+		} catch (SerializationException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void map_AfterWrite_ExpectedSameHierarchy () throws IOException {
+		Random random = new Random(49);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		CsrIndexedGraph<MyNode> csrGraph = new CsrIndexedGraph<>(graph, graph.nodes);
+		ContractionHierarchy hierarchy = new ContractionHierarchyBuilder<>(csrGraph).build();
+
+		File file = File.createTempFile("hierarchy", ".bin");
+		file.deleteOnExit();
+		hierarchy.write(new FileHandle(file));
+		Assert.assertEquals("Unexpected file size", hierarchy.getSizeInBytes(), file.length());
+		ContractionHierarchy mapped = ContractionHierarchy.map(new FileHandle(file));
+		Assert.assertEquals("Unexpected up edge count", hierarchy.getUpEdgeCount(), mapped.getUpEdgeCount());
+		Assert.assertEquals("Unexpected down edge count", hierarchy.getDownEdgeCount(), mapped.getDownEdgeCount());
+		for (int i = 0; i < hierarchy.getNodeCount(); i++)
+			Assert.assertEquals("Unexpected rank", hierarchy.getRank(i), mapped.getRank(i));
+		assertSameCosts(random, graph, new ContractionHierarchyPathFinder<>(csrGraph, mapped), 100);
+	}
+
+	@Test
+	public void search_WhenInterruptible_ExpectedSamePathAsNonInterruptible () {
+		Random random = new Random(53);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		CsrIndexedGraph<MyNode> csrGraph = new CsrIndexedGraph<>(graph, graph.nodes);
+		ContractionHierarchyPathFinder<MyNode> pathFinder = new ContractionHierarchyPathFinder<>(csrGraph,
+			new ContractionHierarchyBuilder<>(csrGraph).build());
+		for (int i = 0; i < 20; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+			boolean expectedResult = pathFinder.searchNodePath(startNode, endNode, null, expectedPath);
+
+			PathFinderRequest<MyNode> request = new PathFinderRequest<>(startNode, endNode, null, new DefaultGraphPath<MyNode>(),
+				null);
+			request.statusChanged = true;
+			while (!pathFinder.search(request, Long.MAX_VALUE)) {
+			}
+			Assert.assertEquals("Unexpected search result", expectedResult, request.pathFound);
+			CompactIndexedAStarPathFinderTest.assertSamePath(expectedPath, request.resultPath);
+		}
+	}
+
+	private static void assertSameCosts (Random random, MyGraph graph, ContractionHierarchyPathFinder<MyNode> pathFinder,
+		int queries) {
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+		for (int i = 0; i < queries; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<Connection<MyNode>> expectedPath = new DefaultGraphPath<>();
+			GraphPath<Connection<MyNode>> actualPath = new DefaultGraphPath<>();
+			boolean expectedResult = reference.searchConnectionPath(startNode, endNode, new ManhattanDistance(), expectedPath);
+			boolean actualResult = pathFinder.searchConnectionPath(startNode, endNode, null, actualPath);
+			Assert.assertEquals("Unexpected search result", expectedResult, actualResult);
+			if (!expectedResult) continue;
+			Assert.assertEquals("Unexpected path cost", CompactIndexedAStarPathFinderTest.cost(expectedPath),
+				CompactIndexedAStarPathFinderTest.cost(actualPath), 0);
+
+			// The connections must be contiguous from the start node to the end node
+			MyNode node = startNode;
+			for (int j = 0; j < actualPath.getCount(); j++) {
+				Assert.assertSame("Path not contiguous", node, actualPath.get(j).getFromNode());
+				node = actualPath.get(j).getToNode();
+			}
+			Assert.assertSame("Unexpected end node", endNode, node);
+		}
+	}
+}
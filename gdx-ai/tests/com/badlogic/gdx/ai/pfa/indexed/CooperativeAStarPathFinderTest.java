@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyNode;
+import com.badlogic.gdx.utils.Array;
+
+public class CooperativeAStarPathFinderTest {
+
+	@Test
+	public void searchConnectionPath_WithSingleAgent_ExpectedSameCostsAsIndexedAStar () {
+		Random random = new Random(17);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+		CooperativeAStarPathFinder<MyNode> pathFinder = new CooperativeAStarPathFinder<>(graph, new ReservationTable(), 300);
+		pathFinder.setReservePaths(false);
+		for (int i = 0; i < 50; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<Connection<MyNode>> expectedPath = new DefaultGraphPath<>();
+			GraphPath<Connection<MyNode>> actualPath = new DefaultGraphPath<>();
+			boolean expectedResult = reference.searchConnectionPath(startNode, endNode, new ManhattanDistance(), expectedPath);
+			boolean actualResult = pathFinder.searchConnectionPath(startNode, endNode, new ManhattanDistance(), actualPath);
+			// An unreachable goal still gives a path up to the window depth
+			Assert.assertTrue("Path not found", actualResult);
+			Assert.assertEquals("Unexpected goal reached", expectedResult, pathFinder.isGoalReached());
+			if (!expectedResult) continue;
+			Assert.assertEquals("Unexpected path cost", CompactIndexedAStarPathFinderTest.cost(expectedPath),
+				CompactIndexedAStarPathFinderTest.cost(actualPath), 0);
+		}
+	}
+
+	@Test
+	public void searchNodePath_WithManyAgents_ExpectedNoCollisions () {
+		Random random = new Random(29);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.15f);
+		int windowDepth = 32;
+		ReservationTable reservations = new ReservationTable();
+		CooperativeAStarPathFinder<MyNode> pathFinder = new CooperativeAStarPathFinder<>(graph, reservations, windowDepth);
+		Array<MyNode> starts = distinctNodes(random, graph, 60);
+		Array<MyNode> goals = distinctNodes(random, graph, 60);
+		Array<GraphPath<MyNode>> paths = new Array<>();
+		boolean[] goalReached = new boolean[starts.size];
+		for (int agent = 0; agent < starts.size; agent++) {
+			// Keep the start nodes of the agents still to plan free
+			for (int other = agent; other < starts.size; other++)
+				reservations.reserve(graph.getIndex(starts.get(other)), 0, other);
+			GraphPath<MyNode> path = new DefaultGraphPath<>();
+			pathFinder.setAgent(agent, 0);
+			if (pathFinder.searchNodePath(starts.get(agent), goals.get(agent), new ManhattanDistance(), path)) {
+				goalReached[agent] = pathFinder.isGoalReached();
+				Assert.assertSame("Unexpected start node", starts.get(agent), path.get(0));
+				if (goalReached[agent])
+					Assert.assertSame("Unexpected end node", goals.get(agent), path.get(path.getCount() - 1));
+				else
+					Assert.assertEquals("Unexpected path length", windowDepth + 1, path.getCount());
+			} else {
+				path.add(starts.get(agent));
+			}
+			paths.add(path);
+		}
+
+		// No two agents on the same node at the same time step and no swaps
+		for (int a = 0; a < paths.size; a++) {
+			for (int b = a + 1; b < paths.size; b++) {
+				for (int t = 0; t <= windowDepth; t++) {
+					MyNode nodeA = nodeAt(paths.get(a), t, goalReached[a]);
+					MyNode nodeB = nodeAt(paths.get(b), t, goalReached[b]);
+					if (nodeA == null || nodeB == null) continue;
+					Assert.assertNotSame("Collision", nodeA, nodeB);
+					MyNode nextA = nodeAt(paths.get(a), t + 1, goalReached[a]);
+					MyNode nextB = nodeAt(paths.get(b), t + 1, goalReached[b]);
+					Assert.assertFalse("Swap", nextA == nodeB && nextB == nodeA);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void search_WhenInterruptible_ExpectedSamePathAsNonInterruptible () {
+		Random random = new Random(37);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		CooperativeAStarPathFinder<MyNode> pathFinder = new CooperativeAStarPathFinder<>(graph, new ReservationTable(), 16);
+		pathFinder.setReservePaths(false);
+		for (int i = 0; i < 20; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+			boolean expectedResult = pathFinder.searchNodePath(startNode, endNode, new ManhattanDistance(), expectedPath);
+
+			PathFinderRequest<MyNode> request = new PathFinderRequest<>(startNode, endNode, new ManhattanDistance(),
+				new DefaultGraphPath<MyNode>(), null);
+			request.statusChanged = true;
+			while (!pathFinder.search(request, Long.MAX_VALUE)) {
+			}
+			Assert.assertEquals("Unexpected search result", expectedResult, request.pathFound);
+			CompactIndexedAStarPathFinderTest.assertSamePath(expectedPath, request.resultPath);
+		}
+	}
+
+	/** Returns the node of the given path at the given time step, the last node if the agent stays there, or {@code null}. */
+	private static MyNode nodeAt (GraphPath<MyNode> path, int time, boolean staysAtEnd) {
+		if (time < path.getCount()) return path.get(time);
+		return staysAtEnd || path.getCount() == 1 ? path.get(path.getCount() - 1) : null;
+	}
+
+	private static Array<MyNode> distinctNodes (Random random, MyGraph graph, int count) {
+		Array<MyNode> nodes = new Array<>();
+		while (nodes.size < count) {
+			MyNode node = graph.nodes.get(random.nextInt(graph.nodes.size));
+			if (!nodes.contains(node, true)) nodes.add(node);
+		}
+		return nodes;
+	}
+}
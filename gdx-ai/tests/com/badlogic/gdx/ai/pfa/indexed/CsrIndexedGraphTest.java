@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyNode;
+import com.badlogic.gdx.utils.Array;
+
+public class CsrIndexedGraphTest {
+
+	@Test
+	public void getConnections_ExpectedSameConnectionsAsSourceGraph () {
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(new Random(11), 0.3f);
+		CsrIndexedGraph<MyNode> csrGraph = new CsrIndexedGraph<>(graph, graph.nodes);
+		Assert.assertEquals("Unexpected node count", graph.getNodeCount(), csrGraph.getNodeCount());
+		for (MyNode node : graph.nodes) {
+			Array<Connection<MyNode>> expected = graph.getConnections(node);
+			Array<Connection<MyNode>> actual = csrGraph.getConnections(node);
+			Assert.assertEquals("Unexpected number of connections", expected.size, actual.size);
+			for (int i = 0; i < expected.size; i++)
+				assertSameConnection(expected.get(i), actual.get(i));
+		}
+	}
+
+	@Test
+	public void searchNodePath_OnCsrGraph_ExpectedSamePathsAsIndexedAStarOnSourceGraph () {
+		Random random = new Random(5);
+		for (int map = 0; map < 5; map++) {
+			MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.3f);
+			IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+			CompactIndexedAStarPathFinder<MyNode> pathFinder = new CompactIndexedAStarPathFinder<>(
+				new CsrIndexedGraph<>(graph, graph.nodes));
+			for (int i = 0; i < 50; i++) {
+				MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+				MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+				CompactIndexedAStarPathFinderTest.assertSameNodePath(graph, reference, pathFinder, startNode, endNode);
+			}
+		}
+	}
+
+	@Test
+	public void searchConnectionPath_OnCsrGraph_ExpectedEquivalentConnectionsAsIndexedAStarOnSourceGraph () {
+		Random random = new Random(17);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.25f);
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+		CompactIndexedAStarPathFinder<MyNode> pathFinder = new CompactIndexedAStarPathFinder<>(
+			new CsrIndexedGraph<>(graph, graph.nodes));
+		for (int i = 0; i < 100; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<Connection<MyNode>> expectedPath = new DefaultGraphPath<>();
+			GraphPath<Connection<MyNode>> actualPath = new DefaultGraphPath<>();
+			boolean expectedResult = reference.searchConnectionPath(startNode, endNode, new ManhattanDistance(), expectedPath);
+			boolean actualResult = pathFinder.searchConnectionPath(startNode, endNode, new ManhattanDistance(), actualPath);
+			Assert.assertEquals("Unexpected search result", expectedResult, actualResult);
+			Assert.assertEquals("Unexpected number of connections in path", expectedPath.getCount(), actualPath.getCount());
+			for (int j = 0; j < expectedPath.getCount(); j++)
+				assertSameConnection(expectedPath.get(j), actualPath.get(j));
+		}
+	}
+
+	private static void assertSameConnection (Connection<MyNode> expected, Connection<MyNode> actual) {
+		Assert.assertSame("Unexpected from node", expected.getFromNode(), actual.getFromNode());
+		Assert.assertSame("Unexpected to node", expected.getToNode(), actual.getToNode());
+		Assert.assertEquals("Unexpected cost", expected.getCost(), actual.getCost(), 0f);
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyConnection;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyNode;
+import com.badlogic.gdx.utils.Array;
+
+public class DStarLitePathFinderTest {
+
+	@Test
+	public void searchConnectionPath_AfterRandomCostChanges_ExpectedSameCostsAsIndexedAStar () {
+		Random random = new Random(11);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+		ManhattanDistance heuristic = new ManhattanDistance();
+		for (int run = 0; run < 10; run++) {
+			DStarLitePathFinder<MyNode> pathFinder = new DStarLitePathFinder<>(graph, graph.nodes);
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			for (int i = 0; i < 30; i++) {
+				GraphPath<Connection<MyNode>> expectedPath = new DefaultGraphPath<>();
+				GraphPath<Connection<MyNode>> actualPath = new DefaultGraphPath<>();
+				boolean expectedResult = reference.searchConnectionPath(startNode, endNode, heuristic, expectedPath);
+				boolean actualResult = pathFinder.searchConnectionPath(startNode, endNode, heuristic, actualPath);
+				Assert.assertEquals("Unexpected search result", expectedResult, actualResult);
+				Assert.assertEquals("Unexpected path cost", cost(expectedPath), cost(actualPath), 0.0001f);
+				if (actualResult && actualPath.getCount() > 0) {
+					Assert.assertSame("Unexpected first node", startNode, actualPath.get(0).getFromNode());
+					Assert.assertSame("Unexpected last node", endNode, actualPath.get(actualPath.getCount() - 1).getToNode());
+
+					// Move one step along the path
+					startNode = actualPath.get(0).getToNode();
+				}
+
+				// Change some connections, possibly removing them
+				for (int j = 0; j < 10; j++) {
+					MyNode node = graph.nodes.get(random.nextInt(graph.nodes.size));
+					if (node.connections.size == 0) continue;
+					int index = random.nextInt(node.connections.size);
+					Connection<MyNode> connection = node.connections.get(index);
+					if (random.nextInt(8) == 0)
+						node.connections.removeIndex(index);
+					else
+						node.connections.set(index, new MyConnection(node, connection.getToNode(), 1 + random.nextInt(8)));
+					pathFinder.connectionChanged(node, connection.getToNode());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void searchNodePath_AfterLocalChange_ExpectedFewerVisitedNodesThanFreshSearch () {
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(new Random(5), 0);
+		ManhattanDistance heuristic = new ManhattanDistance();
+		MyNode startNode = graph.nodes.get(0);
+		MyNode endNode = graph.nodes.get(graph.nodes.size - 1);
+		DStarLitePathFinder<MyNode> pathFinder = new DStarLitePathFinder<>(graph, graph.nodes, true);
+		GraphPath<MyNode> path = new DefaultGraphPath<>();
+		Assert.assertTrue(pathFinder.searchNodePath(startNode, endNode, heuristic, path));
+		int freshVisitedNodes = pathFinder.metrics.visitedNodes;
+
+		// Make a connection just ahead of the start node more expensive, as an agent discovering an obstacle would do
+		MyNode node = path.get(2);
+		MyNode nextNode = path.get(3);
+		Array<Connection<MyNode>> connections = node.connections;
+		for (int i = 0; i < connections.size; i++)
+			if (connections.get(i).getToNode() == nextNode) connections.set(i, new MyConnection(node, nextNode, 20));
+		pathFinder.connectionChanged(node, nextNode);
+
+		GraphPath<Connection<MyNode>> actualPath = new DefaultGraphPath<>();
+		GraphPath<Connection<MyNode>> expectedPath = new DefaultGraphPath<>();
+		Assert.assertTrue(pathFinder.searchConnectionPath(startNode, endNode, heuristic, actualPath));
+		int repairVisitedNodes = pathFinder.metrics.visitedNodes;
+		Assert.assertTrue(new IndexedAStarPathFinder<>(graph).searchConnectionPath(startNode, endNode, heuristic, expectedPath));
+		Assert.assertEquals("Unexpected path cost", cost(expectedPath), cost(actualPath), 0.0001f);
+		Assert.assertTrue("Repair visited " + repairVisitedNodes + " nodes, fresh search " + freshVisitedNodes,
+			repairVisitedNodes * 4 < freshVisitedNodes);
+	}
+
+	@Test
+	public void search_WhenInterruptible_ExpectedSamePathAsNonInterruptible () {
+		Random random = new Random(13);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		DStarLitePathFinder<MyNode> pathFinder = new DStarLitePathFinder<>(graph, graph.nodes);
+		DStarLitePathFinder<MyNode> interruptiblePathFinder = new DStarLitePathFinder<>(graph, graph.nodes);
+		for (int i = 0; i < 20; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+			boolean expectedResult = pathFinder.searchNodePath(startNode, endNode, new ManhattanDistance(), expectedPath);
+
+			PathFinderRequest<MyNode> request = new PathFinderRequest<>(startNode, endNode, new ManhattanDistance(),
+				new DefaultGraphPath<MyNode>(), null);
+			request.statusChanged = true;
+			while (!interruptiblePathFinder.search(request, Long.MAX_VALUE)) {
+			}
+			Assert.assertEquals("Unexpected search result", expectedResult, request.pathFound);
+			CompactIndexedAStarPathFinderTest.assertSamePath(expectedPath, request.resultPath);
+		}
+	}
+
+	private static float cost (GraphPath<Connection<MyNode>> path) {
+		float cost = 0;
+		for (int i = 0; i < path.getCount(); i++)
+			cost += path.get(i).getCost();
+		return cost;
+	}
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyNode;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+public class DijkstraSearchTest {
+
+	@Test
+	public void searchNearest_OnRandomGraph_ExpectedSameCostsAsOneAStarPerGoal () {
+		Random random = new Random(31);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+		DijkstraSearch<MyNode> search = new DijkstraSearch<>(graph);
+		Array<MyNode> goals = new Array<>();
+		Array<MyNode> nearestGoals = new Array<>();
+		for (int i = 0; i < 30; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			goals.clear();
+			while (goals.size < 40) {
+				MyNode goal = graph.nodes.get(random.nextInt(graph.nodes.size));
+				if (!goals.contains(goal, true)) goals.add(goal);
+			}
+
+			// Find the cost to each goal with a separate search
+			float[] expectedCosts = new float[goals.size];
+			for (int j = 0; j < goals.size; j++) {
+				GraphPath<Connection<MyNode>> path = new DefaultGraphPath<>();
+				expectedCosts[j] = reference.searchConnectionPath(startNode, goals.get(j), new ManhattanDistance(), path)
+					? CompactIndexedAStarPathFinderTest.cost(path) : Float.POSITIVE_INFINITY;
+			}
+			Arrays.sort(expectedCosts);
+
+			MyNode nearest = search.searchNearest(startNode, goals);
+			if (expectedCosts[0] == Float.POSITIVE_INFINITY) {
+				Assert.assertNull("Unexpected nearest goal", nearest);
+				continue;
+			}
+			Assert.assertTrue("Not a goal", goals.contains(nearest, true));
+			Assert.assertEquals("Unexpected nearest cost", expectedCosts[0], search.getCost(nearest), 0);
+			assertPath(search, startNode, nearest);
+
+			nearestGoals.clear();
+			int found = search.searchNearest(startNode, goals, 5, nearestGoals);
+			Assert.assertEquals("Unexpected number of goals found", found, nearestGoals.size);
+			for (int j = 0; j < found; j++) {
+				Assert.assertEquals("Unexpected cost", expectedCosts[j], search.getCost(nearestGoals.get(j)), 0);
+				assertPath(search, startNode, nearestGoals.get(j));
+			}
+			if (found < 5) Assert.assertEquals("Goal not found", Float.POSITIVE_INFINITY, expectedCosts[found], 0);
+		}
+	}
+
+	@Test
+	public void searchWithinBudget_OnRandomGraph_ExpectedAllNodesWithinBudget () {
+		Random random = new Random(32);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+		DijkstraSearch<MyNode> search = new DijkstraSearch<>(graph, true);
+		IntArray nodeIndices = new IntArray();
+		FloatArray costs = new FloatArray();
+		for (int i = 0; i < 5; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			float maxCost = 10 + random.nextInt(30);
+			nodeIndices.clear();
+			costs.clear();
+			int reached = search.searchWithinBudget(startNode, maxCost, nodeIndices, costs);
+			Assert.assertEquals("Unexpected number of indices", reached, nodeIndices.size);
+			Assert.assertEquals("Unexpected number of costs", reached, costs.size);
+			for (int j = 1; j < costs.size; j++)
+				Assert.assertTrue("Costs not sorted", costs.get(j - 1) <= costs.get(j));
+
+			int expectedReached = 0;
+			for (int j = 0; j < graph.nodes.size; j++) {
+				MyNode node = graph.nodes.get(j);
+				GraphPath<Connection<MyNode>> path = new DefaultGraphPath<>();
+				float expectedCost = reference.searchConnectionPath(startNode, node, new ManhattanDistance(), path)
+					? CompactIndexedAStarPathFinderTest.cost(path) : Float.POSITIVE_INFINITY;
+				if (node == startNode) expectedCost = 0;
+				if (expectedCost > maxCost) {
+					Assert.assertEquals("Node beyond budget reached", Float.POSITIVE_INFINITY, search.getCost(node), 0);
+					continue;
+				}
+				expectedReached++;
+				Assert.assertEquals("Unexpected cost", expectedCost, search.getCost(node), 0);
+				Assert.assertEquals("Unexpected output cost", expectedCost, costs.get(nodeIndices.indexOf(j)), 0);
+			}
+			Assert.assertEquals("Unexpected number of nodes reached", expectedReached, reached);
+		}
+	}
+
+	private static void assertPath (DijkstraSearch<MyNode> search, MyNode startNode, MyNode endNode) {
+		GraphPath<MyNode> nodePath = new DefaultGraphPath<>();
+		GraphPath<Connection<MyNode>> connectionPath = new DefaultGraphPath<>();
+		Assert.assertTrue("Path not generated", search.generateNodePath(endNode, nodePath));
+		Assert.assertTrue("Path not generated", search.generateConnectionPath(endNode, connectionPath));
+		Assert.assertSame("Unexpected first node", startNode, nodePath.get(0));
+		Assert.assertSame("Unexpected last node", endNode, nodePath.get(nodePath.getCount() - 1));
+		Assert.assertEquals("Unexpected number of connections", nodePath.getCount() - 1, connectionPath.getCount());
+		for (int i = 0; i < connectionPath.getCount(); i++) {
+			Assert.assertSame("Unexpected from node", nodePath.get(i), connectionPath.get(i).getFromNode());
+			Assert.assertSame("Unexpected to node", nodePath.get(i + 1), connectionPath.get(i).getToNode());
+		}
+		Assert.assertEquals("Unexpected path cost", search.getCost(endNode), CompactIndexedAStarPathFinderTest.cost(connectionPath),
+			0);
+	}
+}
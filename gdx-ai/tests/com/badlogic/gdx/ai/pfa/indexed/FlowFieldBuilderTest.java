@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyNode;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+public class FlowFieldBuilderTest {
+
+	@Test
+	public void buildFlowField_OnRandomGraph_ExpectedSameCostsAsAStarAndFlowLeadingToGoal () {
+		Random random = new Random(23);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+		FlowFieldBuilder<MyNode, Vector2> builder = new FlowFieldBuilder<>(graph, graph.nodes, new GridLocator(graph), 4);
+		for (int i = 0; i < 5; i++) {
+			MyNode goalNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			IndexedFlowField<MyNode, Vector2> flowField = builder.buildFlowField(goalNode);
+			Assert.assertTrue("Flow field not complete", flowField.isComplete());
+			for (int j = 0; j < 100; j++) {
+				MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+				GraphPath<Connection<MyNode>> path = new DefaultGraphPath<>();
+				float expectedCost = reference.searchConnectionPath(startNode, goalNode, new ManhattanDistance(), path)
+					? CompactIndexedAStarPathFinderTest.cost(path) : Float.POSITIVE_INFINITY;
+				Assert.assertEquals("Unexpected cost", expectedCost, flowField.getCost(startNode), 0);
+				if (expectedCost == Float.POSITIVE_INFINITY || startNode == goalNode) {
+					Assert.assertNull("Unexpected flow", flowField.lookup(new Vector2(startNode.x + 0.5f, startNode.y + 0.5f)));
+					continue;
+				}
+
+				// Follow the flow from cell to cell
+				MyNode node = startNode;
+				float cost = 0;
+				while (node != goalNode) {
+					Vector2 flow = flowField.lookup(new Vector2(node.x + 0.5f, node.y + 0.5f));
+					Assert.assertNotNull("Missing flow", flow);
+					MyNode nextNode = flowField.getNextNode(node);
+					Assert.assertEquals("Unexpected flow", nextNode.x - node.x, flow.x, 0);
+					Assert.assertEquals("Unexpected flow", nextNode.y - node.y, flow.y, 0);
+					cost += connectionCost(node, nextNode);
+					node = nextNode;
+				}
+				Assert.assertEquals("Unexpected cost of the flow", expectedCost, cost, 0);
+			}
+		}
+	}
+
+	@Test
+	public void run_WhenTimeSliced_ExpectedSameFlowFieldAsBuild () {
+		Random random = new Random(5);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		FlowFieldBuilder<MyNode, Vector2> builder = new FlowFieldBuilder<>(graph, graph.nodes, new GridLocator(graph), 2);
+		MyNode goalNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+		MyNode otherGoalNode = graph.nodes.get((graph.nodes.indexOf(goalNode, true) + 1) % graph.nodes.size);
+		IndexedFlowField<MyNode, Vector2> expected = builder.buildFlowField(goalNode);
+		IndexedFlowField<MyNode, Vector2> actual = builder.getFlowField(otherGoalNode);
+		builder.incrementGraphVersion();
+		Assert.assertFalse("Flow field still valid", expected.isValid());
+		Assert.assertFalse("Flow field still valid", actual.isValid());
+		expected = new FlowFieldBuilder<>(graph, graph.nodes, new GridLocator(graph), 1).buildFlowField(goalNode);
+
+		actual = builder.getFlowField(goalNode);
+		Assert.assertFalse("Flow field complete too early", actual.isComplete());
+		int runs = 0;
+		while (!actual.isComplete()) {
+			actual.run(200000);
+			runs++;
+		}
+		Assert.assertTrue("Unexpected number of runs", runs > 0);
+		for (int i = 0; i < graph.nodes.size; i++) {
+			MyNode node = graph.nodes.get(i);
+			Assert.assertEquals("Unexpected cost", expected.getCost(node), actual.getCost(node), 0);
+			Assert.assertSame("Unexpected next node", expected.getNextNode(node), actual.getNextNode(node));
+		}
+	}
+
+	@Test
+	public void getFlowField_WhenCacheIsFull_ExpectedLeastRecentlyUsedEvicted () {
+		Random random = new Random(11);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		FlowFieldBuilder<MyNode, Vector2> builder = new FlowFieldBuilder<>(graph, graph.nodes, new GridLocator(graph), 2);
+		MyNode a = graph.nodes.get(0), b = graph.nodes.get(1), c = graph.nodes.get(2);
+		IndexedFlowField<MyNode, Vector2> flowFieldA = builder.buildFlowField(a);
+		IndexedFlowField<MyNode, Vector2> flowFieldB = builder.buildFlowField(b);
+		Assert.assertSame("Flow field not cached", flowFieldA, builder.getFlowField(a));
+		Assert.assertEquals("Unexpected hits", 1, builder.hits);
+
+		// B is now the least recently used flow field, so C takes its place
+		IndexedFlowField<MyNode, Vector2> flowFieldC = builder.buildFlowField(c);
+		Assert.assertNotSame("Evicted flow field reused for another goal", flowFieldB, flowFieldC);
+		Assert.assertFalse("Evicted flow field still valid", flowFieldB.isValid());
+		Assert.assertSame("Unexpected goal node", b, flowFieldB.getGoalNode());
+		Assert.assertSame("Unexpected goal node", c, flowFieldC.getGoalNode());
+		Assert.assertTrue("New flow field not valid", flowFieldC.isValid());
+		Assert.assertEquals("Unexpected evictions", 1, builder.evictions);
+		Assert.assertSame("Flow field not cached", flowFieldA, builder.getFlowField(a));
+		Assert.assertEquals("Unexpected misses", 3, builder.misses);
+	}
+
+	@Test
+	public void getCostAndGetNextNode_WhenInvalidated_ExpectedNoFlow () {
+		Random random = new Random(13);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		FlowFieldBuilder<MyNode, Vector2> builder = new FlowFieldBuilder<>(graph, graph.nodes, new GridLocator(graph), 2);
+		// The first connection leads to a floor node, which is reachable from the node it comes from
+		MyNode goal = null, node = null;
+		for (int i = 0; i < graph.nodes.size && goal == null; i++) {
+			if (graph.nodes.get(i).connections.size > 0) {
+				node = graph.nodes.get(i);
+				goal = node.connections.first().getToNode();
+			}
+		}
+		IndexedFlowField<MyNode, Vector2> flowField = builder.buildFlowField(goal);
+		Assert.assertNotNull("Node not reaching the goal", flowField.getNextNode(node));
+
+		builder.incrementGraphVersion();
+		Assert.assertFalse("Flow field still valid", flowField.isValid());
+		Assert.assertEquals("Unexpected cost", Float.POSITIVE_INFINITY, flowField.getCost(node), 0);
+		Assert.assertNull("Unexpected next node", flowField.getNextNode(node));
+		Assert.assertNull("Unexpected flow", flowField.lookup(new Vector2(node.x + 0.5f, node.y + 0.5f)));
+		Assert.assertTrue("Invalid flow field not complete", flowField.isComplete());
+	}
+
+	static float connectionCost (MyNode fromNode, MyNode toNode) {
+		Array<Connection<MyNode>> connections = fromNode.connections;
+		float cost = Float.POSITIVE_INFINITY;
+		for (int i = 0; i < connections.size; i++)
+			if (connections.get(i).getToNode() == toNode) cost = Math.min(cost, connections.get(i).getCost());
+		return cost;
+	}
+
+	/** Maps each node to the unit square whose bottom-left corner is at the coordinates of the node. */
+	static class GridLocator implements FlowFieldBuilder.Locator<MyNode, Vector2> {
+		final MyGraph graph;
+		final int width;
+
+		GridLocator (MyGraph graph) {
+			this.graph = graph;
+			this.width = graph.nodes.peek().x + 1;
+		}
+
+		@Override
+		public MyNode getNode (Vector2 position) {
+			int x = (int)Math.floor(position.x), y = (int)Math.floor(position.y);
+			int index = y * width + x;
+			return x >= 0 && x < width && index >= 0 && index < graph.nodes.size ? graph.nodes.get(index) : null;
+		}
+
+		@Override
+		public Vector2 getPosition (MyNode node) {
+			return new Vector2(node.x + 0.5f, node.y + 0.5f);
+		}
+	}
+}
@@ -0,0 +1,369 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.HierarchicalPathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyConnection;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyNode;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+public class HpaGraphTest {
+
+	@Test
+	public void build_WithFixedSizeClusters_ExpectedAbstractConnectionsMatchingPaths () {
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(new Random(29), 0.2f);
+		HpaGraph<MyNode> hpaGraph = new HpaGraphBuilder<>(graph, graph.nodes).setClusterAssigner(new BlockAssigner(10)).build();
+		Assert.assertEquals("Unexpected number of clusters", 12, hpaGraph.getClusterCount());
+
+		IndexedAStarPathFinder<MyNode> pathFinder = new IndexedAStarPathFinder<>(graph);
+		int intraClusterConnections = 0;
+		hpaGraph.setLevel(1);
+		for (int i = 0; i < graph.nodes.size; i++) {
+			MyNode node = graph.nodes.get(i);
+			Array<Connection<MyNode>> connections = hpaGraph.getConnections(node);
+			if (connections.size > 0) Assert.assertTrue("Connected node is not an entrance", hpaGraph.isEntrance(node));
+			for (int j = 0; j < connections.size; j++) {
+				Connection<MyNode> connection = connections.get(j);
+				MyNode toNode = connection.getToNode();
+				if (connection instanceof HpaGraph.IntraClusterConnection) {
+					// The cost inside the cluster can't be lower than the optimal cost
+					intraClusterConnections++;
+					Assert.assertEquals(hpaGraph.getCluster(node), hpaGraph.getCluster(toNode));
+					GraphPath<Connection<MyNode>> path = new DefaultGraphPath<>();
+					Assert.assertTrue(pathFinder.searchConnectionPath(node, toNode, new ManhattanDistance(), path));
+					Assert.assertTrue("Abstract cost lower than optimal", connection.getCost() >= cost(path));
+				} else {
+					Assert.assertTrue(hpaGraph.getCluster(node) != hpaGraph.getCluster(toNode));
+				}
+			}
+		}
+		Assert.assertTrue("No intra-cluster connection", intraClusterConnections > 0);
+	}
+
+	@Test
+	public void searchNodePath_WithFloodFilledClusters_ExpectedPathFoundOnConnectedGrid () {
+		Random random = new Random(31);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0);
+		HpaGraph<MyNode> hpaGraph = new HpaGraphBuilder<>(graph, graph.nodes).setMaxClusterSize(50).build();
+		Assert.assertTrue("Too few clusters", hpaGraph.getClusterCount() >= graph.nodes.size / 50);
+		HierarchicalPathFinder<MyNode> pathFinder = new HierarchicalPathFinder<>(hpaGraph,
+			new IndexedAStarPathFinder<>(hpaGraph));
+		for (int i = 0; i < 50; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			if (startNode == endNode) continue;
+			GraphPath<MyNode> path = new DefaultGraphPath<>();
+			Assert.assertTrue("Path not found", pathFinder.searchNodePath(startNode, endNode, new ManhattanDistance(), path));
+			Assert.assertSame("Unexpected first node", startNode, path.get(0));
+			for (int j = 1; j < path.getCount(); j++)
+				Assert.assertTrue("Nodes not connected", connected(path.get(j - 1), path.get(j)));
+		}
+	}
+
+	@Test
+	public void rebuildClusters_AfterLocalChange_ExpectedSameAbstractGraphAsFullBuild () {
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(new Random(37), 0.1f);
+		BlockAssigner assigner = new BlockAssigner(5);
+		HpaGraph<MyNode> hpaGraph = new HpaGraphBuilder<>(graph, graph.nodes).setClusterAssigner(assigner).build();
+
+		// Turn a node into a wall, which changes the node itself and its neighbors
+		MyNode wall = graph.nodes.get(7 * 40 + 15);
+		Array<MyNode> changedNodes = new Array<>();
+		changedNodes.add(wall);
+		for (int i = 0; i < wall.connections.size; i++) {
+			MyNode neighbor = wall.connections.get(i).getToNode();
+			for (int j = neighbor.connections.size - 1; j >= 0; j--) {
+				if (neighbor.connections.get(j).getToNode() == wall) {
+					neighbor.connections.removeIndex(j);
+					changedNodes.add(neighbor);
+				}
+			}
+		}
+		// And make another connection cheaper
+		MyNode node = graph.nodes.get(20 * 40 + 30);
+		if (node.connections.size > 0) {
+			Connection<MyNode> connection = node.connections.get(0);
+			node.connections.set(0, new MyConnection(node, connection.getToNode(), 0.5f));
+			changedNodes.add(node);
+		}
+
+		int rebuiltClusters = hpaGraph.rebuildClusters(changedNodes);
+		Assert.assertTrue("Too many clusters rebuilt: " + rebuiltClusters, rebuiltClusters <= 10);
+
+		HpaGraph<MyNode> expected = new HpaGraphBuilder<>(graph, graph.nodes).setClusterAssigner(assigner).build();
+		expected.setLevel(1);
+		hpaGraph.setLevel(1);
+		for (int i = 0; i < graph.nodes.size; i++) {
+			MyNode n = graph.nodes.get(i);
+			Assert.assertEquals("Unexpected entrance", expected.isEntrance(n), hpaGraph.isEntrance(n));
+			Array<Connection<MyNode>> expectedConnections = expected.getConnections(n);
+			Array<Connection<MyNode>> actualConnections = hpaGraph.getConnections(n);
+			Assert.assertEquals("Unexpected number of connections", expectedConnections.size, actualConnections.size);
+			for (int j = 0; j < expectedConnections.size; j++) {
+				Connection<MyNode> expectedConnection = expectedConnections.get(j);
+				boolean found = false;
+				for (int k = 0; k < actualConnections.size && !found; k++) {
+					Connection<MyNode> actualConnection = actualConnections.get(k);
+					found = actualConnection.getToNode() == expectedConnection.getToNode()
+						&& actualConnection.getCost() == expectedConnection.getCost();
+				}
+				Assert.assertTrue("Missing connection", found);
+			}
+		}
+	}
+
+	@Test
+	public void searchNodePath_WhenFollowingLegs_ExpectedEndReached () {
+		Random random = new Random(41);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.1f);
+		HpaGraph<MyNode> hpaGraph = new HpaGraphBuilder<>(graph, graph.nodes).setMaxClusterSize(40).build();
+		HierarchicalPathFinder<MyNode> pathFinder = new HierarchicalPathFinder<>(hpaGraph,
+			new IndexedAStarPathFinder<>(hpaGraph), true);
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+		ManhattanDistance heuristic = new ManhattanDistance();
+		for (int i = 0; i < 20; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			if (!reference.searchNodePath(startNode, endNode, heuristic, new DefaultGraphPath<MyNode>())) continue;
+
+			// Follow each level 0 leg to its end, then replan
+			MyNode currentNode = startNode;
+			GraphPath<MyNode> path = new DefaultGraphPath<>();
+			for (int legs = 0; currentNode != endNode && legs < graph.nodes.size; legs++) {
+				Assert.assertTrue("Path not found", pathFinder.searchNodePath(currentNode, endNode, heuristic, path));
+				Assert.assertSame("Unexpected first node", currentNode, path.get(0));
+				for (int j = 1; j < path.getCount(); j++)
+					Assert.assertTrue("Nodes not connected", connected(path.get(j - 1), path.get(j)));
+				currentNode = path.get(path.getCount() - 1);
+			}
+			Assert.assertSame("End node not reached", endNode, currentNode);
+		}
+	}
+
+	@Test
+	public void searchNodePath_FromSameCluster_ExpectedLevelPathReused () {
+		Random random = new Random(47);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.1f);
+		HpaGraph<MyNode> hpaGraph = new HpaGraphBuilder<>(graph, graph.nodes)
+			.setClusterAssigner(new BlockAssigner(8)).build();
+		CountingPathFinder levelPathFinder = new CountingPathFinder(hpaGraph);
+		HierarchicalPathFinder<MyNode> pathFinder = new HierarchicalPathFinder<>(hpaGraph, levelPathFinder, true);
+		ManhattanDistance heuristic = new ManhattanDistance();
+		MyNode endNode = graph.nodes.get(graph.nodes.size - 1);
+		int searches = 0;
+		for (int i = 0; i < graph.nodes.size; i++) {
+			MyNode startNode = graph.nodes.get(i);
+			if (hpaGraph.getCluster(startNode) != 0 || hpaGraph.isEntrance(startNode)) continue;
+			if (pathFinder.searchNodePath(startNode, endNode, heuristic, new DefaultGraphPath<MyNode>())) searches++;
+		}
+		Assert.assertTrue("Too few searches", searches > 10);
+		Assert.assertEquals("Unexpected level 1 searches", 1, levelPathFinder.abstractSearches);
+
+		// Without reuse every search plans at level 1 again
+		pathFinder.setReuseLevelPaths(false);
+		levelPathFinder.abstractSearches = 0;
+		for (int i = 0; i < graph.nodes.size; i++) {
+			MyNode startNode = graph.nodes.get(i);
+			if (hpaGraph.getCluster(startNode) != 0 || hpaGraph.isEntrance(startNode)) continue;
+			pathFinder.searchNodePath(startNode, endNode, heuristic, new DefaultGraphPath<MyNode>());
+		}
+		Assert.assertTrue("Level path reused", levelPathFinder.abstractSearches > 10);
+	}
+
+	@Test
+	public void searchNodePath_FromAlternatingClusters_ExpectedLevelPathsReusedUpToCapacity () {
+		Random random = new Random(47);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.1f);
+		HpaGraph<MyNode> hpaGraph = new HpaGraphBuilder<>(graph, graph.nodes)
+			.setClusterAssigner(new BlockAssigner(8)).build();
+		ManhattanDistance heuristic = new ManhattanDistance();
+		MyNode endNode = graph.nodes.get(graph.nodes.size - 1);
+
+		// Two agents in different clusters, both far from the end node
+		MyNode firstStart = null, secondStart = null;
+		for (int i = 0; i < graph.nodes.size && secondStart == null; i++) {
+			MyNode node = graph.nodes.get(i);
+			if (hpaGraph.isEntrance(node) || hpaGraph.getCluster(node) == hpaGraph.getCluster(endNode)) continue;
+			if (!new IndexedAStarPathFinder<>(graph).searchNodePath(node, endNode, heuristic, new DefaultGraphPath<MyNode>()))
+				continue;
+			if (firstStart == null)
+				firstStart = node;
+			else if (hpaGraph.getCluster(node) != hpaGraph.getCluster(firstStart)) secondStart = node;
+		}
+		Assert.assertNotNull("No start nodes", secondStart);
+
+		// Both level 1 paths stay cached while the agents are served one after another
+		CountingPathFinder levelPathFinder = new CountingPathFinder(hpaGraph);
+		HierarchicalPathFinder<MyNode> pathFinder = new HierarchicalPathFinder<>(hpaGraph, levelPathFinder, true);
+		GraphPath<MyNode> path = new DefaultGraphPath<>();
+		for (int i = 0; i < 10; i++) {
+			Assert.assertTrue("Path not found", pathFinder.searchNodePath(firstStart, endNode, heuristic, path));
+			Assert.assertTrue("Path not found", pathFinder.searchNodePath(secondStart, endNode, heuristic, path));
+		}
+		Assert.assertEquals("Unexpected level 1 searches", 2, levelPathFinder.abstractSearches);
+
+		// With a single cached path per level each agent evicts the path of the other one
+		levelPathFinder = new CountingPathFinder(hpaGraph);
+		pathFinder = new HierarchicalPathFinder<>(hpaGraph, levelPathFinder, true, 1);
+		for (int i = 0; i < 10; i++) {
+			pathFinder.searchNodePath(firstStart, endNode, heuristic, path);
+			pathFinder.searchNodePath(secondStart, endNode, heuristic, path);
+		}
+		Assert.assertEquals("Unexpected level 1 searches", 20, levelPathFinder.abstractSearches);
+	}
+
+	@Test
+	public void search_WhenInterruptible_ExpectedSamePathAsNonInterruptible () {
+		Random random = new Random(43);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.1f);
+		HpaGraph<MyNode> hpaGraph = new HpaGraphBuilder<>(graph, graph.nodes).setMaxClusterSize(40).build();
+		HierarchicalPathFinder<MyNode> pathFinder = new HierarchicalPathFinder<>(hpaGraph,
+			new IndexedAStarPathFinder<>(hpaGraph));
+		HierarchicalPathFinder<MyNode> interruptiblePathFinder = new HierarchicalPathFinder<>(hpaGraph,
+			new IndexedAStarPathFinder<>(hpaGraph), true);
+		for (int i = 0; i < 30; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+			boolean expectedResult = pathFinder.searchNodePath(startNode, endNode, new ManhattanDistance(), expectedPath);
+
+			PathFinderRequest<MyNode> request = new PathFinderRequest<>(startNode, endNode, new ManhattanDistance(),
+				new DefaultGraphPath<MyNode>(), null);
+			request.statusChanged = true;
+			while (!interruptiblePathFinder.search(request, Long.MAX_VALUE)) {
+			}
+			Assert.assertEquals("Unexpected search result", expectedResult, request.pathFound);
+			CompactIndexedAStarPathFinderTest.assertSamePath(expectedPath, request.resultPath);
+		}
+	}
+
+	@Test
+	public void search_WhenInterruptedFromSameCluster_ExpectedLevelPathReusedAndSamePath () {
+		Random random = new Random(53);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.1f);
+		HpaGraph<MyNode> hpaGraph = new HpaGraphBuilder<>(graph, graph.nodes)
+			.setClusterAssigner(new BlockAssigner(8)).build();
+		HierarchicalPathFinder<MyNode> pathFinder = new HierarchicalPathFinder<>(hpaGraph,
+			new IndexedAStarPathFinder<>(hpaGraph));
+		CountingPathFinder levelPathFinder = new CountingPathFinder(hpaGraph);
+		HierarchicalPathFinder<MyNode> interruptiblePathFinder = new HierarchicalPathFinder<>(hpaGraph, levelPathFinder, true);
+		Heuristic<MyNode> slowHeuristic = new SlowHeuristic();
+		MyNode endNode = graph.nodes.get(graph.nodes.size - 1);
+		int searches = 0, interruptedSearches = 0;
+		for (int i = 0; i < graph.nodes.size && searches < 5; i++) {
+			MyNode startNode = graph.nodes.get(i);
+			if (hpaGraph.getCluster(startNode) != 0 || hpaGraph.isEntrance(startNode)) continue;
+			GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+			if (!pathFinder.searchNodePath(startNode, endNode, new ManhattanDistance(), expectedPath)) continue;
+			searches++;
+
+			// Each call must make progress with the time of its own frame, whatever the time spent between calls
+			PathFinderRequest<MyNode> request = new PathFinderRequest<>(startNode, endNode, slowHeuristic,
+				new DefaultGraphPath<MyNode>(), null);
+			request.statusChanged = true;
+			int calls = 1;
+			while (!interruptiblePathFinder.search(request, 300000)) {
+				Assert.assertTrue("Search not progressing", ++calls < 10000);
+			}
+			if (calls > 1) interruptedSearches++;
+			Assert.assertTrue("Path not found", request.pathFound);
+			CompactIndexedAStarPathFinderTest.assertSamePath(expectedPath, request.resultPath);
+		}
+		Assert.assertTrue("Too few searches", searches > 1);
+		Assert.assertTrue("No search interrupted", interruptedSearches > 0);
+		Assert.assertEquals("Unexpected level 1 searches", 1, levelPathFinder.abstractSearches);
+	}
+
+	private static boolean connected (MyNode fromNode, MyNode toNode) {
+		for (int i = 0; i < fromNode.connections.size; i++)
+			if (fromNode.connections.get(i).getToNode() == toNode) return true;
+		return false;
+	}
+
+	private static float cost (GraphPath<Connection<MyNode>> path) {
+		float cost = 0;
+		for (int i = 0; i < path.getCount(); i++)
+			cost += path.get(i).getCost();
+		return cost;
+	}
+
+	/** Counts the searches performed at each level of an {@link HpaGraph}. */
+	static class CountingPathFinder extends IndexedAStarPathFinder<MyNode> {
+		final HpaGraph<MyNode> hpaGraph;
+		int searches;
+		int abstractSearches;
+
+		CountingPathFinder (HpaGraph<MyNode> hpaGraph) {
+			super(hpaGraph);
+			this.hpaGraph = hpaGraph;
+		}
+
+		@Override
+		protected boolean search (MyNode startNode, MyNode endNode, Heuristic<MyNode> heuristic) {
+			searches++;
+			if (hpaGraph.level > 0) abstractSearches++;
+			return super.search(startNode, endNode, heuristic);
+		}
+
+		@Override
+		public boolean search (PathFinderRequest<MyNode> request, long timeToRun) {
+			if (request.statusChanged) {
+				searches++;
+				if (hpaGraph.level > 0) abstractSearches++;
+			}
+			return super.search(request, timeToRun);
+		}
+	}
+
+	/** A Manhattan distance taking some time to compute, so that interruptible searches need several frames. */
+	static class SlowHeuristic extends ManhattanDistance {
+		@Override
+		public float estimate (MyNode node, MyNode endNode) {
+			long end = TimeUtils.nanoTime() + 20000;
+			while (TimeUtils.nanoTime() < end) {
+			}
+			return super.estimate(node, endNode);
+		}
+	}
+
+	/** Assigns square blocks of nodes to the same cluster. */
+	static class BlockAssigner implements ClusterAssigner<MyNode> {
+		final int size;
+
+		BlockAssigner (int size) {
+			this.size = size;
+		}
+
+		@Override
+		public int getCluster (MyNode node) {
+			return node.y / size * 1000 + node.x / size;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyNode;
+import com.badlogic.gdx.utils.SerializationException;
+
+public class LandmarkHeuristicTest {
+
+	@Test
+	public void estimate_OnRandomWeightedGrid_ExpectedAdmissibleAndOptimalPaths () {
+		Random random = new Random(31);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.3f);
+		LandmarkHeuristic<MyNode> heuristic = new LandmarkHeuristicBuilder<>(new CsrIndexedGraph<>(graph, graph.nodes))
+			.setLandmarkCount(8).build();
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph, true);
+		IndexedAStarPathFinder<MyNode> pathFinder = new IndexedAStarPathFinder<>(graph, true);
+		int referenceAdditions = 0, additions = 0;
+		for (int i = 0; i < 100; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<Connection<MyNode>> expectedPath = new DefaultGraphPath<>();
+			GraphPath<Connection<MyNode>> actualPath = new DefaultGraphPath<>();
+			boolean expectedResult = reference.searchConnectionPath(startNode, endNode, new ManhattanDistance(), expectedPath);
+			boolean actualResult = pathFinder.searchConnectionPath(startNode, endNode, heuristic, actualPath);
+			Assert.assertEquals("Unexpected search result", expectedResult, actualResult);
+			if (!expectedResult) continue;
+			float cost = cost(expectedPath);
+			Assert.assertTrue("Inadmissible estimate", heuristic.estimate(startNode, endNode) <= cost + 0.0001f);
+			Assert.assertEquals("Unexpected path cost", cost, cost(actualPath), 0.0001f);
+			referenceAdditions += reference.metrics.openListAdditions;
+			additions += pathFinder.metrics.openListAdditions;
+		}
+		Assert.assertTrue("Expected fewer open list additions", additions < referenceAdditions);
+	}
+
+	@Test
+	public void read_AfterWrite_ExpectedSameEstimates () {
+		Random random = new Random(32);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.3f);
+		LandmarkHeuristic<MyNode> heuristic = new LandmarkHeuristicBuilder<>(new CsrIndexedGraph<>(graph, graph.nodes))
+			.setLandmarkCount(4).build();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		heuristic.write(out);
+		LandmarkHeuristic<MyNode> readHeuristic = LandmarkHeuristic.read(graph, new ByteArrayInputStream(out.toByteArray()));
+		Assert.assertEquals("Unexpected landmark count", heuristic.getLandmarkCount(), readHeuristic.getLandmarkCount());
+		for (int i = 0; i < 200; i++) {
+			MyNode node = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			Assert.assertEquals("Unexpected estimate", heuristic.estimate(node, endNode), readHeuristic.estimate(node, endNode), 0f);
+		}
+	}
+
+	@Test
+	public void read_WithInvalidLandmarkCountOrIndex_ExpectedSerializationException () {
+		Random random = new Random(33);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.3f);
+		LandmarkHeuristic<MyNode> heuristic = new LandmarkHeuristicBuilder<>(new CsrIndexedGraph<>(graph, graph.nodes))
+			.setLandmarkCount(4).build();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		heuristic.write(out);
+		byte[] bytes = out.toByteArray();
+
+		// The header holds the magic number, the node count, the landmark count and the symmetry flag, then the landmarks
+		int landmarkCountPosition = 8;
+		int landmarksPosition = 13;
+		assertCorrupted(graph, bytes, landmarkCountPosition, 0);
+		assertCorrupted(graph, bytes, landmarkCountPosition, -1);
+		assertCorrupted(graph, bytes, landmarkCountPosition, Integer.MAX_VALUE);
+		assertCorrupted(graph, bytes, landmarksPosition, -1);
+		assertCorrupted(graph, bytes, landmarksPosition + 3 * 4, graph.nodes.size);
+	}
+
+	/** Asserts that the given landmark table is rejected once the int at the given position is replaced by the given value. */
+	private static void assertCorrupted (MyGraph graph, byte[] bytes, int position, int value) {
+		byte[] corrupted = bytes.clone();
+		ByteBuffer.wrap(corrupted).putInt(position, value);
+		try {
+			LandmarkHeuristic.read(graph, new ByteArrayInputStream(corrupted));
+			Assert.fail("Corrupted landmark table loaded");
+		} catch (SerializationException e) {
+			// Expected
+		}
+	}
+
+	private static float cost (GraphPath<Connection<MyNode>> path) {
+		float cost = 0;
+		for (int i = 0; i < path.getCount(); i++)
+			cost += path.get(i).getCost();
+		return cost;
+	}
+}
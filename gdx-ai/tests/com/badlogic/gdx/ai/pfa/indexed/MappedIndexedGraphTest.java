@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyNode;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.SerializationException;
+
+public class MappedIndexedGraphTest {
+
+	@Test
+	public void map_AfterWrite_ExpectedSameEdgesAndCoordinates () throws IOException {
+		Random random = new Random(59);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		CsrIndexedGraph<MyNode> csrGraph = new CsrIndexedGraph<>(graph, graph.nodes);
+		float[] coordinates = coordinates(graph);
+
+		File file = File.createTempFile("graph", ".bin");
+		file.deleteOnExit();
+		MappedIndexedGraph.write(csrGraph, coordinates, 2, new FileHandle(file));
+		MappedIndexedGraph<MyNode> mappedGraph = MappedIndexedGraph.map(new FileHandle(file), new MyNodeMapper(graph));
+
+		Assert.assertEquals("Unexpected node count", csrGraph.getNodeCount(), mappedGraph.getNodeCount());
+		Assert.assertEquals("Unexpected edge count", csrGraph.getEdgeCount(), mappedGraph.getEdgeCount());
+		Assert.assertEquals("Unexpected dimensions", 2, mappedGraph.getDimensions());
+		for (int i = 0; i < csrGraph.getNodeCount(); i++) {
+			Assert.assertEquals("Unexpected edge start", csrGraph.getEdgeStart(i), mappedGraph.getEdgeStart(i));
+			Assert.assertEquals("Unexpected edge end", csrGraph.getEdgeEnd(i), mappedGraph.getEdgeEnd(i));
+			for (int edge = csrGraph.getEdgeStart(i); edge < csrGraph.getEdgeEnd(i); edge++) {
+				Assert.assertEquals("Unexpected edge target", csrGraph.getEdgeTarget(edge), mappedGraph.getEdgeTarget(edge));
+				Assert.assertEquals("Unexpected edge cost", csrGraph.getEdgeCost(edge), mappedGraph.getEdgeCost(edge), 0);
+			}
+			Assert.assertEquals("Unexpected x", graph.nodes.get(i).x, mappedGraph.getCoordinate(i, 0), 0);
+			Assert.assertEquals("Unexpected y", graph.nodes.get(i).y, mappedGraph.getCoordinate(i, 1), 0);
+		}
+	}
+
+	@Test
+	public void searchConnectionPath_OnMappedGraph_ExpectedSameCostsAsOriginalGraph () {
+		Random random = new Random(61);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.2f);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MappedIndexedGraph.write(new CsrIndexedGraph<>(graph, graph.nodes), null, 0, out);
+		MappedIndexedGraph<MyNode> mappedGraph = new MappedIndexedGraph<>(ByteBuffer.wrap(out.toByteArray()), new MyNodeMapper(graph));
+		// The path finders reading the edges directly must never ask for the connections
+		MappedIndexedGraph<MyNode> edgeGraph = new MappedIndexedGraph<MyNode>(ByteBuffer.wrap(out.toByteArray()),
+			new MyNodeMapper(graph)) {
+			@Override
+			public Array<Connection<MyNode>> getConnections (MyNode fromNode) {
+				throw new UnsupportedOperationException();
+			}
+		};
+
+		IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(graph);
+		IndexedAStarPathFinder<MyNode> mappedPathFinder = new IndexedAStarPathFinder<>(mappedGraph);
+		CompactIndexedAStarPathFinder<MyNode> csrPathFinder = new CompactIndexedAStarPathFinder<>(mappedGraph.toCsrIndexedGraph());
+		CompactIndexedAStarPathFinder<MyNode> compactPathFinder = new CompactIndexedAStarPathFinder<>(edgeGraph);
+		BidirectionalIndexedAStarPathFinder<MyNode> bidirectionalPathFinder = new BidirectionalIndexedAStarPathFinder<>(edgeGraph,
+			mappedGraph.toCsrIndexedGraph().reverse(), false);
+		for (int i = 0; i < 50; i++) {
+			MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+			GraphPath<Connection<MyNode>> expectedPath = new DefaultGraphPath<>();
+			boolean expectedResult = reference.searchConnectionPath(startNode, endNode, new ManhattanDistance(), expectedPath);
+			float expectedCost = CompactIndexedAStarPathFinderTest.cost(expectedPath);
+			GraphPath<Connection<MyNode>> mappedPath = new DefaultGraphPath<>();
+			Assert.assertEquals("Unexpected search result", expectedResult,
+				mappedPathFinder.searchConnectionPath(startNode, endNode, new ManhattanDistance(), mappedPath));
+			Assert.assertEquals("Unexpected path cost", expectedCost, CompactIndexedAStarPathFinderTest.cost(mappedPath), 0);
+			GraphPath<Connection<MyNode>> csrPath = new DefaultGraphPath<>();
+			Assert.assertEquals("Unexpected search result", expectedResult,
+				csrPathFinder.searchConnectionPath(startNode, endNode, new ManhattanDistance(), csrPath));
+			Assert.assertEquals("Unexpected path cost", expectedCost, CompactIndexedAStarPathFinderTest.cost(csrPath), 0);
+			GraphPath<Connection<MyNode>> compactPath = new DefaultGraphPath<>();
+			Assert.assertEquals("Unexpected search result", expectedResult,
+				compactPathFinder.searchConnectionPath(startNode, endNode, new ManhattanDistance(), compactPath));
+			Assert.assertEquals("Unexpected path cost", expectedCost, CompactIndexedAStarPathFinderTest.cost(compactPath), 0);
+			GraphPath<Connection<MyNode>> bidirectionalPath = new DefaultGraphPath<>();
+			Assert.assertEquals("Unexpected search result", expectedResult,
+				bidirectionalPathFinder.searchConnectionPath(startNode, endNode, new ManhattanDistance(), bidirectionalPath));
+			Assert.assertEquals("Unexpected path cost", expectedCost, CompactIndexedAStarPathFinderTest.cost(bidirectionalPath),
+				0.001f);
+		}
+	}
+
+	@Test
+	public void new_WithWrongMagicNumber_ExpectedSerializationException () {
+		try {
+			new MappedIndexedGraph<>(ByteBuffer.wrap(new byte[64]), new MyNodeMapper(null));
+			Assert.fail("Invalid graph file loaded");
+		} catch (SerializationException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void new_WithOverflowingCounts_ExpectedSerializationException () {
+		// 4 * (nodeCount * dimensions) wraps around to 0 in int arithmetic
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		buffer.putInt(MappedIndexedGraph.MAGIC).putInt(MappedIndexedGraph.VERSION).putInt(0x40000000).putInt(0).putInt(4);
+		buffer.clear();
+		try {
+			new MappedIndexedGraph<>(buffer, new MyNodeMapper(null));
+			Assert.fail("Invalid graph file loaded");
+		} catch (SerializationException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void new_WithOutOfRangeOffsetOrTarget_ExpectedSerializationException () {
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(new Random(67), 0.2f);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MappedIndexedGraph.write(new CsrIndexedGraph<>(graph, graph.nodes), null, 0, out);
+		byte[] bytes = out.toByteArray();
+		int nodeCount = graph.nodes.size;
+		int edgeCount = ByteBuffer.wrap(bytes).getInt(12);
+		int offsetsPosition = 5 * 4;
+		int targetsPosition = offsetsPosition + (nodeCount + 1) * 4;
+
+		assertCorrupted(bytes, offsetsPosition, 1);
+		assertCorrupted(bytes, offsetsPosition + 4, edgeCount + 1);
+		assertCorrupted(bytes, offsetsPosition + 4, -1);
+		assertCorrupted(bytes, offsetsPosition + nodeCount * 4, edgeCount - 1);
+		assertCorrupted(bytes, targetsPosition, nodeCount);
+		assertCorrupted(bytes, targetsPosition + (edgeCount - 1) * 4, -1);
+	}
+
+	/** Asserts that the given graph file is rejected once the int at the given position is replaced by the given value. */
+	private static void assertCorrupted (byte[] bytes, int position, int value) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes.clone());
+		buffer.putInt(position, value);
+		try {
+			new MappedIndexedGraph<>(buffer, new MyNodeMapper(null));
+			Assert.fail("Corrupted graph file loaded");
+		} catch (SerializationException e) {
+			// Expected
+		}
+	}
+
+	private static float[] coordinates (MyGraph graph) {
+		float[] coordinates = new float[graph.nodes.size * 2];
+		for (int i = 0; i < graph.nodes.size; i++) {
+			coordinates[i * 2] = graph.nodes.get(i).x;
+			coordinates[i * 2 + 1] = graph.nodes.get(i).y;
+		}
+		return coordinates;
+	}
+
+	static class MyNodeMapper implements MappedIndexedGraph.NodeMapper<MyNode> {
+		final Array<MyNode> nodes;
+
+		MyNodeMapper (MyGraph graph) {
+			this.nodes = graph != null ? graph.nodes : null;
+		}
+
+		@Override
+		public int getIndex (MyNode node) {
+			return node.index;
+		}
+
+		@Override
+		public MyNode getNode (int index) {
+			return nodes.get(index);
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.ManhattanDistance;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyConnection;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyGraph;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinderTest.MyNode;
+import com.badlogic.gdx.utils.Array;
+
+public class ReachabilityIndexTest {
+
+	@Test
+	public void isReachable_OnRandomGrids_ExpectedNoPathWhenUnreachable () {
+		Random random = new Random(17);
+		int unreachableCount = 0;
+		for (int map = 0; map < 3; map++) {
+			MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.45f);
+			ReachabilityIndex<MyNode> index = new ReachabilityIndex<>(graph, graph.nodes);
+			IndexedAStarPathFinder<MyNode> pathFinder = new IndexedAStarPathFinder<>(graph);
+			for (int i = 0; i < 100; i++) {
+				MyNode startNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+				MyNode endNode = graph.nodes.get(random.nextInt(graph.nodes.size));
+				boolean expected = pathFinder.searchNodePath(startNode, endNode, new ManhattanDistance(),
+					new DefaultGraphPath<MyNode>());
+				if (!index.isReachable(startNode, endNode)) {
+					Assert.assertFalse("Path found between different components", expected);
+					unreachableCount++;
+				}
+			}
+		}
+		Assert.assertTrue("No unreachable node found", unreachableCount > 0);
+	}
+
+	@Test
+	public void isReachable_AfterConnectionsAddedAndRemoved_ExpectedUpdatedComponents () {
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(new Random(1), 0);
+		MyNode a = graph.nodes.get(0);
+		MyNode b = graph.nodes.get(1);
+
+		// Isolate the first node
+		Array<Connection<MyNode>> connections = new Array<>(a.connections);
+		a.connections.clear();
+		for (int i = 0; i < connections.size; i++) {
+			MyNode neighbor = connections.get(i).getToNode();
+			for (int j = neighbor.connections.size - 1; j >= 0; j--)
+				if (neighbor.connections.get(j).getToNode() == a) neighbor.connections.removeIndex(j);
+		}
+		ReachabilityIndex<MyNode> index = new ReachabilityIndex<>(graph, graph.nodes);
+		Assert.assertFalse(index.isReachable(a, b));
+		Assert.assertEquals("Unexpected number of components", 2, index.getComponentCount());
+
+		a.connections.add(new MyConnection(a, b, 1));
+		b.connections.add(new MyConnection(b, a, 1));
+		index.connectionAdded(a, b);
+		Assert.assertTrue(index.isReachable(a, b));
+		Assert.assertEquals("Unexpected number of components", 1, index.getComponentCount());
+
+		a.connections.clear();
+		b.connections.removeIndex(b.connections.size - 1);
+		index.connectionRemoved(a, b);
+		index.connectionRemoved(b, a);
+		Assert.assertFalse(index.isReachable(a, b));
+	}
+
+	@Test
+	public void connectionRemoved_WithRandomRemovals_ExpectedSameComponentsAsRebuild () {
+		Random random = new Random(19);
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(random, 0.1f);
+		ReachabilityIndex<MyNode> index = new ReachabilityIndex<>(graph, graph.nodes);
+		for (int i = 0; i < 300; i++) {
+			MyNode node = graph.nodes.get(random.nextInt(graph.nodes.size));
+			if (node.connections.size == 0) continue;
+			Connection<MyNode> connection = node.connections.removeIndex(random.nextInt(node.connections.size));
+			index.connectionRemoved(node, connection.getToNode());
+			if (i % 30 == 0) {
+				ReachabilityIndex<MyNode> expected = new ReachabilityIndex<>(graph, graph.nodes);
+				Assert.assertEquals("Unexpected number of components", expected.getComponentCount(), index.getComponentCount());
+				for (int j = 0; j < 100; j++) {
+					MyNode a = graph.nodes.get(random.nextInt(graph.nodes.size));
+					MyNode b = graph.nodes.get(random.nextInt(graph.nodes.size));
+					Assert.assertEquals("Unexpected reachability", expected.isReachable(a, b), index.isReachable(a, b));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void isReachable_WhenNodesAddedToGraph_ExpectedIndexGrown () {
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(new Random(3), 0);
+		ReachabilityIndex<MyNode> index = new ReachabilityIndex<>(graph, graph.nodes);
+		int componentCount = index.getComponentCount();
+		MyNode a = graph.nodes.first();
+		for (int i = 0; i < 100; i++) {
+			MyNode node = new MyNode(graph.nodes.size, -1, i);
+			graph.nodes.add(node);
+			Assert.assertFalse(index.isReachable(a, node));
+			node.connections.add(new MyConnection(node, a, 1));
+			index.connectionAdded(node, a);
+			Assert.assertTrue(index.isReachable(a, node));
+		}
+		Assert.assertEquals("Unexpected number of components", componentCount, index.getComponentCount());
+	}
+
+	@Test
+	public void search_WhenEndNodeUnreachable_ExpectedNoNodeVisited () {
+		MyGraph graph = CompactIndexedAStarPathFinderTest.createRandomGraph(new Random(2), 0);
+		MyNode endNode = graph.nodes.peek();
+		for (int i = 0; i < endNode.connections.size; i++) {
+			MyNode neighbor = endNode.connections.get(i).getToNode();
+			for (int j = neighbor.connections.size - 1; j >= 0; j--)
+				if (neighbor.connections.get(j).getToNode() == endNode) neighbor.connections.removeIndex(j);
+		}
+		endNode.connections.clear();
+
+		IndexedAStarPathFinder<MyNode> pathFinder = new IndexedAStarPathFinder<>(graph, true);
+		CompactIndexedAStarPathFinder<MyNode> compactPathFinder = new CompactIndexedAStarPathFinder<>(graph, true);
+		Assert.assertFalse(pathFinder.searchNodePath(graph.nodes.first(), endNode, new ManhattanDistance(),
+			new DefaultGraphPath<MyNode>()));
+		Assert.assertTrue(pathFinder.metrics.visitedNodes > 0);
+
+		pathFinder.reachabilityIndex = new ReachabilityIndex<>(graph, graph.nodes);
+		compactPathFinder.reachabilityIndex = pathFinder.reachabilityIndex;
+		Assert.assertFalse(pathFinder.searchNodePath(graph.nodes.first(), endNode, new ManhattanDistance(),
+			new DefaultGraphPath<MyNode>()));
+		Assert.assertFalse(compactPathFinder.searchNodePath(graph.nodes.first(), endNode, new ManhattanDistance(),
+			new DefaultGraphPath<MyNode>()));
+		Assert.assertEquals("Unexpected visited nodes", 0, pathFinder.metrics.visitedNodes);
+		Assert.assertEquals("Unexpected visited nodes", 0, compactPathFinder.metrics.visitedNodes);
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReservationTableTest {
+
+	@Test
+	public void reserveAndRelease_WithRandomOperations_ExpectedSameContentAsHashMap () {
+		Random random = new Random(13);
+		ReservationTable table = new ReservationTable(4);
+		Map<Long, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 20000; i++) {
+			int nodeIndex = random.nextInt(200);
+			int time = random.nextInt(50);
+			int agent = random.nextInt(10);
+			Long key = (long)time << 32 | nodeIndex;
+			int operation = random.nextInt(100);
+			if (operation < 60) {
+				Integer owner = expected.get(key);
+				Assert.assertEquals("Unexpected reservation result", owner == null || owner == agent,
+					table.reserve(nodeIndex, time, agent));
+				if (owner == null) expected.put(key, agent);
+			} else if (operation < 95) {
+				Integer owner = expected.remove(key);
+				Assert.assertEquals("Unexpected released agent", owner == null ? -1 : owner, table.release(nodeIndex, time));
+			} else if (operation < 98) {
+				int removed = 0;
+				for (Iterator<Integer> it = expected.values().iterator(); it.hasNext();)
+					if (it.next() == agent) {
+						it.remove();
+						removed++;
+					}
+				Assert.assertEquals("Unexpected number of released reservations", removed, table.releaseAgent(agent));
+			} else {
+				int removed = 0;
+				for (Iterator<Long> it = expected.keySet().iterator(); it.hasNext();)
+					if ((int)(it.next() >>> 32) < time) {
+						it.remove();
+						removed++;
+					}
+				Assert.assertEquals("Unexpected number of released reservations", removed, table.releaseBefore(time));
+			}
+			Assert.assertEquals("Unexpected size", expected.size(), table.size);
+		}
+		for (int nodeIndex = 0; nodeIndex < 200; nodeIndex++) {
+			for (int time = 0; time < 50; time++) {
+				Integer owner = expected.get((long)time << 32 | nodeIndex);
+				Assert.assertEquals("Unexpected agent", owner == null ? -1 : owner, table.getAgent(nodeIndex, time));
+			}
+		}
+		table.clear();
+		Assert.assertEquals("Unexpected size", 0, table.size);
+		Assert.assertEquals("Unexpected agent", -1, table.getAgent(0, 0));
+	}
+
+	@Test
+	public void canMove_WhenAgentsSwapNodes_ExpectedMoveForbidden () {
+		ReservationTable table = new ReservationTable();
+		table.reserve(1, 0, 7);
+		table.reserve(0, 1, 7);
+		Assert.assertFalse("Swap allowed", table.canMove(0, 1, 0, 3));
+		Assert.assertFalse("Move to a reserved node allowed", table.canMove(2, 0, 0, 3));
+		Assert.assertTrue("Move of the same agent forbidden", table.canMove(1, 0, 0, 7));
+		Assert.assertTrue("Free move forbidden", table.canMove(0, 2, 0, 3));
+	}
+}
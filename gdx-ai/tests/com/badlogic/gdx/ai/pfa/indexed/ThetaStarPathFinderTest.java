@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.pfa.indexed;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.grid.GridLineOfSight;
+import com.badlogic.gdx.ai.pfa.grid.GridLineOfSightTest;
+import com.badlogic.gdx.ai.pfa.grid.JumpPointSearchPathFinderTest.MyGrid;
+import com.badlogic.gdx.ai.pfa.grid.JumpPointSearchPathFinderTest.MyNode;
+import com.badlogic.gdx.ai.pfa.grid.JumpPointSearchPathFinderTest.OctileDistance;
+
+public class ThetaStarPathFinderTest {
+
+	@Test
+	public void searchNodePath_OnRandomGrids_ExpectedVisibleSegmentsAndShorterPathsThanAStar () {
+		Random random = new Random(12);
+		for (int map = 0; map < 5; map++) {
+			MyGrid grid = new MyGrid(random, 50, 40, 0.05f * map, true);
+			IndexedAStarPathFinder<MyNode> reference = new IndexedAStarPathFinder<>(grid);
+			GridLineOfSight<MyNode> lineOfSight = new GridLineOfSight<>(grid);
+			ThetaStarPathFinder<MyNode> thetaStar = new ThetaStarPathFinder<>(grid, lineOfSight, false, false);
+			ThetaStarPathFinder<MyNode> lazyThetaStar = new ThetaStarPathFinder<>(grid, lineOfSight, true, false);
+			for (int i = 0; i < 50; i++) {
+				MyNode startNode = grid.randomFloor(random);
+				MyNode endNode = grid.randomFloor(random);
+				GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+				boolean expectedResult = reference.searchNodePath(startNode, endNode, new OctileDistance(), expectedPath);
+				assertAnyAnglePath(grid, thetaStar, startNode, endNode, expectedResult, expectedPath);
+				assertAnyAnglePath(grid, lazyThetaStar, startNode, endNode, expectedResult, expectedPath);
+			}
+		}
+	}
+
+	@Test
+	public void searchNodePath_WhenLazy_ExpectedFewerLineOfSightChecks () {
+		Random random = new Random(13);
+		MyGrid grid = new MyGrid(random, 100, 100, 0.2f, true);
+		GridLineOfSight<MyNode> lineOfSight = new GridLineOfSight<>(grid);
+		ThetaStarPathFinder<MyNode> thetaStar = new ThetaStarPathFinder<>(grid, lineOfSight, false, true);
+		ThetaStarPathFinder<MyNode> lazyThetaStar = new ThetaStarPathFinder<>(grid, lineOfSight, true, true);
+		int checks = 0, lazyChecks = 0;
+		float cost = 0, lazyCost = 0;
+		for (int i = 0; i < 20; i++) {
+			MyNode startNode = grid.randomFloor(random);
+			MyNode endNode = grid.randomFloor(random);
+			GraphPath<MyNode> path = new DefaultGraphPath<>();
+			GraphPath<MyNode> lazyPath = new DefaultGraphPath<>();
+			Assert.assertEquals("Unexpected search result",
+				thetaStar.searchNodePath(startNode, endNode, new EuclideanDistance(), path),
+				lazyThetaStar.searchNodePath(startNode, endNode, new EuclideanDistance(), lazyPath));
+			checks += thetaStar.metrics.lineOfSightChecks;
+			lazyChecks += lazyThetaStar.metrics.lineOfSightChecks;
+			cost += length(path);
+			lazyCost += length(lazyPath);
+		}
+		Assert.assertTrue("Expected fewer line of sight checks: " + lazyChecks + " vs " + checks, lazyChecks * 2 < checks);
+		Assert.assertEquals("Unexpected total length", cost, lazyCost, cost * 0.02f);
+	}
+
+	@Test
+	public void searchConnectionPath_ExpectedConnectionsMatchingNodePath () {
+		Random random = new Random(14);
+		MyGrid grid = new MyGrid(random, 50, 40, 0.2f, true);
+		ThetaStarPathFinder<MyNode> pathFinder = new ThetaStarPathFinder<>(grid, new GridLineOfSight<>(grid));
+		for (int i = 0; i < 50; i++) {
+			MyNode startNode = grid.randomFloor(random);
+			MyNode endNode = grid.randomFloor(random);
+			GraphPath<MyNode> nodePath = new DefaultGraphPath<>();
+			GraphPath<Connection<MyNode>> connectionPath = new DefaultGraphPath<>();
+			boolean found = pathFinder.searchNodePath(startNode, endNode, new EuclideanDistance(), nodePath);
+			Assert.assertEquals("Unexpected search result", found,
+				pathFinder.searchConnectionPath(startNode, endNode, new EuclideanDistance(), connectionPath));
+			if (!found) continue;
+			Assert.assertEquals("Unexpected number of connections", nodePath.getCount() - 1, connectionPath.getCount());
+			float cost = 0;
+			for (int j = 0; j < connectionPath.getCount(); j++) {
+				Assert.assertSame("Unexpected from node", nodePath.get(j), connectionPath.get(j).getFromNode());
+				Assert.assertSame("Unexpected to node", nodePath.get(j + 1), connectionPath.get(j).getToNode());
+				cost += connectionPath.get(j).getCost();
+			}
+			Assert.assertEquals("Unexpected path cost", length(nodePath), cost, 0.001f);
+		}
+	}
+
+	@Test
+	public void search_WhenInterruptible_ExpectedSamePathAsNonInterruptible () {
+		Random random = new Random(15);
+		MyGrid grid = new MyGrid(random, 50, 40, 0.2f, true);
+		ThetaStarPathFinder<MyNode> pathFinder = new ThetaStarPathFinder<>(grid, new GridLineOfSight<>(grid));
+		for (int i = 0; i < 20; i++) {
+			MyNode startNode = grid.randomFloor(random);
+			MyNode endNode = grid.randomFloor(random);
+			GraphPath<MyNode> expectedPath = new DefaultGraphPath<>();
+			boolean expectedResult = pathFinder.searchNodePath(startNode, endNode, new EuclideanDistance(), expectedPath);
+
+			PathFinderRequest<MyNode> request = new PathFinderRequest<>(startNode, endNode, new EuclideanDistance(),
+				new DefaultGraphPath<MyNode>(), null);
+			request.statusChanged = true;
+			while (!pathFinder.search(request, Long.MAX_VALUE)) {
+			}
+			Assert.assertEquals("Unexpected search result", expectedResult, request.pathFound);
+			Assert.assertEquals("Unexpected number of nodes in path", expectedPath.getCount(), request.resultPath.getCount());
+			for (int j = 0; j < expectedPath.getCount(); j++)
+				Assert.assertSame("Unexpected node in path", expectedPath.get(j), request.resultPath.get(j));
+		}
+	}
+
+	private static void assertAnyAnglePath (MyGrid grid, ThetaStarPathFinder<MyNode> pathFinder, MyNode startNode,
+		MyNode endNode, boolean expectedResult, GraphPath<MyNode> expectedPath) {
+		GraphPath<MyNode> actualPath = new DefaultGraphPath<>();
+		boolean actualResult = pathFinder.searchNodePath(startNode, endNode, new EuclideanDistance(), actualPath);
+		Assert.assertEquals("Unexpected search result", expectedResult, actualResult);
+		if (!expectedResult) return;
+		Assert.assertSame("Unexpected first node", startNode, actualPath.get(0));
+		Assert.assertSame("Unexpected last node", endNode, actualPath.get(actualPath.getCount() - 1));
+		for (int j = 1; j < actualPath.getCount(); j++)
+			Assert.assertFalse("Wall crossed", GridLineOfSightTest.crossesWall(grid, actualPath.get(j - 1), actualPath.get(j)));
+		Assert.assertTrue("Path longer than A*", length(actualPath) <= grid.cost(expectedPath) + 0.001f);
+	}
+
+	private static float length (GraphPath<MyNode> path) {
+		float length = 0;
+		for (int i = 1; i < path.getCount(); i++) {
+			int dx = path.get(i).x - path.get(i - 1).x, dy = path.get(i).y - path.get(i - 1).y;
+			length += (float)Math.sqrt(dx * dx + dy * dy);
+		}
+		return length;
+	}
+
+	static class EuclideanDistance implements Heuristic<MyNode> {
+		@Override
+		public float estimate (MyNode node, MyNode endNode) {
+			int dx = endNode.x - node.x, dy = endNode.y - node.y;
+			return (float)Math.sqrt(dx * dx + dy * dy);
+		}
+	}
+}
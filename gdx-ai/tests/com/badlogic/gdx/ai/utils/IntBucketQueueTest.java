@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.utils;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntBucketQueueTest {
+
+	@Test
+	public void pop_WithIntegerValues_ExpectedSameValuesAsIntBinaryHeap () {
+		Random random = new Random(23);
+		IntBinaryHeap heap = new IntBinaryHeap(1000);
+		IntBucketQueue queue = new IntBucketQueue(1000, 1, 4);
+		float base = 0;
+		for (int i = 0; i < 20000; i++) {
+			int operation = random.nextInt(4);
+			int element = random.nextInt(1000);
+			if (operation < 2) {
+				// Add an element whose value is close to the lowest one, as A* does
+				float value = base + random.nextInt(50);
+				if (heap.contains(element)) {
+					heap.setValue(element, value);
+					queue.setValue(element, value);
+				} else {
+					heap.add(element, value);
+					queue.add(element, value);
+				}
+			} else if (operation == 2) {
+				Assert.assertEquals("Unexpected remove result", heap.remove(element), queue.remove(element));
+			} else if (!heap.isEmpty()) {
+				// Ties can be broken differently, so remove the element popped by the queue from the heap
+				float expected = heap.getValue(heap.peek());
+				int actual = queue.pop();
+				Assert.assertEquals("Unexpected lowest value", expected, queue.getValue(actual), 0);
+				Assert.assertFalse(queue.contains(actual));
+				Assert.assertTrue(heap.remove(actual));
+				base = expected;
+			}
+			Assert.assertEquals("Unexpected size", heap.size(), queue.size());
+		}
+	}
+
+	@Test
+	public void clear_AfterAdds_ExpectedEmptyAndReusable () {
+		IntBucketQueue queue = new IntBucketQueue(10, 0.5f, 2);
+		for (int i = 0; i < 10; i++)
+			queue.add(i, i * 10);
+		Assert.assertTrue("Buckets not grown", queue.getBucketCount() > 2);
+		queue.clear();
+		Assert.assertTrue(queue.isEmpty());
+		for (int i = 0; i < 10; i++)
+			Assert.assertFalse(queue.contains(i));
+		queue.add(3, 7);
+		queue.add(4, 2.25f);
+		Assert.assertEquals(4, queue.pop());
+		Assert.assertEquals(3, queue.pop());
+	}
+}
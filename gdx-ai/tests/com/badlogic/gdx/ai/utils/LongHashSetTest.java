@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.utils;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongHashSetTest {
+
+	@Test
+	public void addRemoveContains_WithRandomKeys_ExpectedSameAsHashSet () {
+		Random random = new Random(42);
+		LongHashSet set = new LongHashSet(4);
+		HashSet<Long> expected = new HashSet<>();
+		for (int i = 0; i < 100000; i++) {
+			// Small range so that keys collide, including 0 and negative keys
+			long key = random.nextInt(2000) - 1000;
+			if (random.nextInt(3) == 0) key <<= 32;
+			switch (random.nextInt(3)) {
+			case 0:
+				Assert.assertEquals("Unexpected add result", expected.add(key), set.add(key));
+				break;
+			case 1:
+				Assert.assertEquals("Unexpected remove result", expected.remove(key), set.remove(key));
+				break;
+			default:
+				Assert.assertEquals("Unexpected contains result", expected.contains(key), set.contains(key));
+			}
+			Assert.assertEquals("Unexpected size", expected.size(), set.size);
+		}
+		for (Long key : expected)
+			Assert.assertTrue("Key not found", set.contains(key));
+	}
+
+	@Test
+	public void clear_WithKeys_ExpectedEmpty () {
+		LongHashSet set = new LongHashSet();
+		for (long key = -50; key < 50; key++)
+			set.add(key);
+		set.clear();
+		Assert.assertTrue("Set not empty", set.isEmpty());
+		Assert.assertFalse("Unexpected key", set.contains(0));
+		Assert.assertFalse("Unexpected key", set.contains(7));
+		Assert.assertTrue("Key not added", set.add(7));
+	}
+}
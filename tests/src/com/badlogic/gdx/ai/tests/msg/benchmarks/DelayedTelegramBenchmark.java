@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.tests.msg.benchmarks;
+
+import java.util.Random;
+
+import com.badlogic.gdx.ai.DefaultTimepiece;
+import com.badlogic.gdx.ai.GdxAI;
+import com.badlogic.gdx.ai.msg.MessageDispatcher;
+import com.badlogic.gdx.ai.msg.PriorityTelegramQueue;
+import com.badlogic.gdx.ai.msg.Telegram;
+import com.badlogic.gdx.ai.msg.TelegramQueue;
+import com.badlogic.gdx.ai.msg.Telegraph;
+import com.badlogic.gdx.ai.msg.TimingWheelTelegramQueue;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** A headless benchmark comparing the {@link PriorityTelegramQueue} with the {@link TimingWheelTelegramQueue} as the delayed
+ * telegram queue of a {@link MessageDispatcher}. A large number of agents keep a timer pending at any time, like cooldowns,
+ * respawns or buff expiries: each agent re-arms its timer with a random delay as soon as it fires. The time reported is the
+ * average time per simulated frame spent in {@link MessageDispatcher#update()}, including the rescheduling of the fired
+ * timers. */
+public class DelayedTelegramBenchmark {
+
+	static final int TIMER_MESSAGE = 1;
+
+	static final float FRAME_TIME = 1f / 60f;
+	static final int FRAMES = 3600; // 1 minute of game time
+	static final float MAX_DELAY = 30f;
+
+	public static void main (String[] args) {
+		int[] timerCounts = {1000, 10000, 100000};
+
+		// Warm up
+		run(new PriorityTelegramQueue(), 10000);
+		run(new TimingWheelTelegramQueue(0.001f), 10000);
+
+		for (int timers : timerCounts) {
+			System.out.println("Pending timers: " + timers);
+			report("  PriorityTelegramQueue", run(new PriorityTelegramQueue(), timers));
+			report("  TimingWheelTelegramQueue (1 ms ticks)", run(new TimingWheelTelegramQueue(0.001f), timers));
+			report("  TimingWheelTelegramQueue (frame ticks)", run(new TimingWheelTelegramQueue(FRAME_TIME), timers));
+		}
+	}
+
+	static Result run (TelegramQueue queue, int timers) {
+		DefaultTimepiece timepiece = new DefaultTimepiece();
+		GdxAI.setTimepiece(timepiece);
+		MessageDispatcher dispatcher = new MessageDispatcher(queue);
+		Random random = new Random(42);
+		Agent[] agents = new Agent[timers];
+		for (int i = 0; i < timers; i++) {
+			agents[i] = new Agent(dispatcher, random);
+			agents[i].arm();
+		}
+
+		Result result = new Result();
+		for (int frame = 0; frame < FRAMES; frame++) {
+			timepiece.update(FRAME_TIME);
+			long start = TimeUtils.nanoTime();
+			dispatcher.update();
+			result.updateTime += TimeUtils.nanoTime() - start;
+		}
+		for (int i = 0; i < timers; i++)
+			result.firedTimers += agents[i].firedTimers;
+		dispatcher.clearQueue();
+		return result;
+	}
+
+	static void report (String name, Result result) {
+		System.out.println(name + ": " + (Math.round(result.updateTime / (FRAMES * 100.0)) / 10f) + " us/frame, " + result.firedTimers + " timers fired");
+	}
+
+	static class Result {
+		long updateTime;
+		long firedTimers;
+	}
+
+	static class Agent implements Telegraph {
+		final MessageDispatcher dispatcher;
+		final Random random;
+		int firedTimers;
+
+		Agent (MessageDispatcher dispatcher, Random random) {
+			this.dispatcher = dispatcher;
+			this.random = random;
+		}
+
+		void arm () {
+			dispatcher.dispatchMessage(0.1f + random.nextFloat() * MAX_DELAY, this, this, TIMER_MESSAGE);
+		}
+
+		@Override
+		public boolean handleMessage (Telegram msg) {
+			firedTimers++;
+			arm();
+			return true;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.tests.msg.benchmarks;
+
+import com.badlogic.gdx.ai.msg.MessageDispatcher;
+import com.badlogic.gdx.ai.msg.Telegram;
+import com.badlogic.gdx.ai.msg.TelegramIngress;
+import com.badlogic.gdx.ai.msg.Telegraph;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** A headless contention benchmark for the {@link TelegramIngress}. An increasing number of producer threads post immediate
+ * messages as fast as they can while the consumer thread keeps draining them through a {@link MessageDispatcher}, like a game
+ * thread would do in its update. The lock-free ingress is compared with a ring buffer of the same capacity guarded by a lock,
+ * i.e. the usual way to hand messages over to a single-threaded dispatcher. Producers spin (yielding) while the ring is full, so
+ * the throughput reported is the end-to-end one. */
+public class TelegramIngressBenchmark {
+
+	static final int MESSAGES = 4000000;
+	static final int CAPACITY = 4096;
+
+	public static void main (String[] args) throws InterruptedException {
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("Messages: " + MESSAGES + ", capacity: " + CAPACITY + ", cores: " + cores);
+
+		// Warm up
+		run(new LockFree(), 8);
+		run(new Locked(), 8);
+
+		for (int producers = 1; producers <= Math.max(16, cores * 2); producers *= 2) {
+			report("TelegramIngress, " + producers + " producers", run(new LockFree(), producers));
+			report("Locked ring, " + producers + " producers", run(new Locked(), producers));
+		}
+	}
+
+	static long run (final Ingress ingress, int producers) throws InterruptedException {
+		MessageDispatcher dispatcher = new MessageDispatcher();
+		final Counter counter = new Counter();
+		final int messagesPerProducer = MESSAGES / producers;
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			threads[p] = new Thread(new Runnable() {
+				@Override
+				public void run () {
+					for (int i = 0; i < messagesPerProducer; i++)
+						while (!ingress.post(counter, i))
+							Thread.yield();
+				}
+			});
+		}
+
+		long start = TimeUtils.nanoTime();
+		for (Thread thread : threads)
+			thread.start();
+		int total = messagesPerProducer * producers;
+		while (counter.received < total)
+			ingress.drain(dispatcher);
+		long time = TimeUtils.nanoTime() - start;
+		for (Thread thread : threads)
+			thread.join();
+		return (long)(total * 1e9 / time);
+	}
+
+	static void report (String name, long messagesPerSecond) {
+		System.out.println(name + ": " + messagesPerSecond / 1000 + "k messages/s");
+	}
+
+	static class Counter implements Telegraph {
+		int received;
+
+		@Override
+		public boolean handleMessage (Telegram msg) {
+			received++;
+			return true;
+		}
+	}
+
+	interface Ingress {
+		boolean post (Telegraph receiver, int msg);
+
+		void drain (MessageDispatcher dispatcher);
+	}
+
+	static class LockFree implements Ingress {
+		final TelegramIngress ingress = new TelegramIngress(CAPACITY);
+
+		@Override
+		public boolean post (Telegraph receiver, int msg) {
+			return ingress.post(null, receiver, msg);
+		}
+
+		@Override
+		public void drain (MessageDispatcher dispatcher) {
+			ingress.drain(dispatcher);
+		}
+	}
+
+	/** A ring buffer guarded by a lock, preallocated like the {@link TelegramIngress}. */
+	static class Locked implements Ingress {
+		final Telegraph[] receivers = new Telegraph[CAPACITY];
+		final int[] messages = new int[CAPACITY];
+		int head;
+		int size;
+
+		@Override
+		public synchronized boolean post (Telegraph receiver, int msg) {
+			if (size == CAPACITY) return false;
+			int i = (head + size++) % CAPACITY;
+			receivers[i] = receiver;
+			messages[i] = msg;
+			return true;
+		}
+
+		@Override
+		public void drain (MessageDispatcher dispatcher) {
+			for (int n = 0; n < CAPACITY; n++) {
+				Telegraph receiver;
+				int msg;
+				synchronized (this) {
+					if (size == 0) return;
+					receiver = receivers[head];
+					msg = messages[head];
+					receivers[head] = null;
+					head = (head + 1) % CAPACITY;
+					size--;
+				}
+				dispatcher.dispatchMessage(null, receiver, msg);
+			}
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.tests.pfa.benchmarks;
+
+import java.util.Random;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultConnection;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.indexed.CompactIndexedAStarPathFinder;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder.EqualsByReferenceStopCondition;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedGraph;
+import com.badlogic.gdx.ai.utils.IntBinaryHeap;
+import com.badlogic.gdx.ai.utils.IntBucketQueue;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** A headless benchmark comparing the open lists available to the path finders on 4-connected grids of increasing size with
+ * small integer costs: the libgdx {@code BinaryHeap} of the {@link IndexedAStarPathFinder}, and the {@link IntBinaryHeap} and
+ * {@link IntBucketQueue} plugged into the {@link CompactIndexedAStarPathFinder}. The bigger the grid, the bigger the open list,
+ * so the crossover point between the heaps and the bucket queue shows up as the size at which the bucket queue starts winning.
+ * 
+ * @author davebaol */
+public class OpenListBenchmark {
+
+	static final int[] SIZES = {16, 32, 64, 128, 256, 512};
+	static final int MAX_COST = 4;
+	static final float WALL_PROBABILITY = 0.2f;
+	static final long TIME_PER_RUN = 1000000000L; // 1 s
+
+	public static void main (String[] args) {
+		System.out.println("Costs in [1, " + MAX_COST + "], walls: " + (int)(WALL_PROBABILITY * 100) + "%");
+		System.out.println("size\tBinaryHeap (us)\tIntBinaryHeap (us)\tIntBucketQueue (us)");
+		for (int i = 0; i < SIZES.length; i++) {
+			int size = SIZES[i];
+			Random random = new Random(size);
+			GridGraph graph = new GridGraph(size, random);
+			Array<GridNode> queries = new Array<GridNode>();
+			for (int j = 0; j < 1000; j++) {
+				queries.add(graph.randomFloor(random));
+				queries.add(graph.randomFloor(random));
+			}
+
+			PathFinder<GridNode> binaryHeap = new IndexedAStarPathFinder<GridNode>(graph);
+			PathFinder<GridNode> intBinaryHeap = new CompactIndexedAStarPathFinder<GridNode>(graph);
+			PathFinder<GridNode> intBucketQueue = new CompactIndexedAStarPathFinder<GridNode>(graph, false,
+				new EqualsByReferenceStopCondition<GridNode>(), new IntBucketQueue(graph.getNodeCount()));
+
+			// Warm up
+			run(binaryHeap, queries, TIME_PER_RUN / 4);
+			run(intBinaryHeap, queries, TIME_PER_RUN / 4);
+			run(intBucketQueue, queries, TIME_PER_RUN / 4);
+
+			System.out.println(size + "x" + size + "\t" + run(binaryHeap, queries, TIME_PER_RUN) + "\t\t"
+				+ run(intBinaryHeap, queries, TIME_PER_RUN) + "\t\t\t" + run(intBucketQueue, queries, TIME_PER_RUN));
+		}
+	}
+
+	/** Runs the given queries repeatedly for about the given time and returns the average time per search in microseconds. */
+	static float run (PathFinder<GridNode> pathFinder, Array<GridNode> queries, long time) {
+		GraphPath<Connection<GridNode>> path = new DefaultGraphPath<Connection<GridNode>>();
+		ManhattanDistance heuristic = new ManhattanDistance();
+		int searches = 0;
+		long start = TimeUtils.nanoTime();
+		long elapsed;
+		do {
+			for (int i = 0; i < queries.size; i += 2) {
+				path.clear();
+				pathFinder.searchConnectionPath(queries.get(i), queries.get(i + 1), heuristic, path);
+				searches++;
+			}
+			elapsed = TimeUtils.nanoTime() - start;
+		} while (elapsed < time);
+		return (int)(elapsed / searches / 100) / 10f;
+	}
+
+	static class GridNode {
+		final int index;
+		final int x;
+		final int y;
+		final boolean wall;
+		final Array<Connection<GridNode>> connections = new Array<Connection<GridNode>>(4);
+
+		GridNode (int index, int x, int y, boolean wall) {
+			this.index = index;
+			this.x = x;
+			this.y = y;
+			this.wall = wall;
+		}
+	}
+
+	static class CostConnection extends DefaultConnection<GridNode> {
+		final float cost;
+
+		CostConnection (GridNode fromNode, GridNode toNode, float cost) {
+			super(fromNode, toNode);
+			this.cost = cost;
+		}
+
+		@Override
+		public float getCost () {
+			return cost;
+		}
+	}
+
+	static class GridGraph implements IndexedGraph<GridNode> {
+		final int size;
+		final Array<GridNode> nodes;
+
+		GridGraph (int size, Random random) {
+			this.size = size;
+			this.nodes = new Array<GridNode>(size * size);
+			for (int y = 0; y < size; y++)
+				for (int x = 0; x < size; x++)
+					nodes.add(new GridNode(nodes.size, x, y, random.nextFloat() < WALL_PROBABILITY));
+			for (int i = 0; i < nodes.size; i++) {
+				GridNode node = nodes.get(i);
+				if (node.wall) continue;
+				if (node.x > 0) connect(node, nodes.get(i - 1), random);
+				if (node.x < size - 1) connect(node, nodes.get(i + 1), random);
+				if (node.y > 0) connect(node, nodes.get(i - size), random);
+				if (node.y < size - 1) connect(node, nodes.get(i + size), random);
+			}
+		}
+
+		private void connect (GridNode node, GridNode neighbor, Random random) {
+			if (!neighbor.wall) node.connections.add(new CostConnection(node, neighbor, 1 + random.nextInt(MAX_COST)));
+		}
+
+		GridNode randomFloor (Random random) {
+			GridNode node;
+			do {
+				node = nodes.get(random.nextInt(nodes.size));
+			} while (node.wall);
+			return node;
+		}
+
+		@Override
+		public int getIndex (GridNode node) {
+			return node.index;
+		}
+
+		@Override
+		public int getNodeCount () {
+			return nodes.size;
+		}
+
+		@Override
+		public Array<Connection<GridNode>> getConnections (GridNode fromNode) {
+			return fromNode.connections;
+		}
+	}
+
+	static class ManhattanDistance implements Heuristic<GridNode> {
+		@Override
+		public float estimate (GridNode node, GridNode endNode) {
+			return Math.abs(endNode.x - node.x) + Math.abs(endNode.y - node.y);
+		}
+	}
+}
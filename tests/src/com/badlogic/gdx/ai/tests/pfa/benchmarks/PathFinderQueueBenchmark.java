@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright 2014 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.badlogic.gdx.ai.tests.pfa.benchmarks;
+
+import java.util.Random;
+
+import com.badlogic.gdx.ai.msg.MessageDispatcher;
+import com.badlogic.gdx.ai.msg.Telegram;
+import com.badlogic.gdx.ai.msg.Telegraph;
+import com.badlogic.gdx.ai.pfa.ConcurrentPathFinderQueue;
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
+import com.badlogic.gdx.ai.sched.Schedulable;
+import com.badlogic.gdx.ai.tests.pfa.tests.tiled.TiledManhattanDistance;
+import com.badlogic.gdx.ai.tests.pfa.tests.tiled.TiledNode;
+import com.badlogic.gdx.ai.tests.pfa.tests.tiled.flat.FlatTiledGraph;
+import com.badlogic.gdx.ai.tests.pfa.tests.tiled.flat.FlatTiledNode;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** A headless benchmark comparing the throughput of the single-threaded {@link PathFinderQueue} with the
+ * {@link ConcurrentPathFinderQueue} at increasing parallelism. Both queues are run on the same random dungeon with the same
+ * sequence of requests and the same time budget per simulated frame; the rest of each frame is spent sleeping, like a game
+ * thread waiting for vsync, which leaves the cores free for the workers.
+ * 
+ * @author davebaol */
+public class PathFinderQueueBenchmark {
+
+	static final int PF_REQUEST = 1;
+	static final int PF_RESPONSE = 2;
+
+	static final int REQUESTS = 5000;
+	static final long FRAME_TIME = 16000000L; // 16 ms
+	static final long FRAME_BUDGET = 2000000L; // 2 ms
+
+	public static void main (String[] args) {
+		FlatTiledGraph graph = new FlatTiledGraph();
+		graph.init(120, 3, 15, 100);
+		graph.diagonal = true; // Uniform costs, so the graph is read-only during the searches
+		Array<FlatTiledNode> floor = new Array<FlatTiledNode>();
+		for (int x = 0; x < FlatTiledGraph.sizeX; x++)
+			for (int y = 0; y < FlatTiledGraph.sizeY; y++)
+				if (graph.getNode(x, y).type == TiledNode.TILE_FLOOR) floor.add(graph.getNode(x, y));
+
+		Random random = new Random(42);
+		Array<PathFinderRequest<FlatTiledNode>> requests = new Array<PathFinderRequest<FlatTiledNode>>(REQUESTS);
+		for (int i = 0; i < REQUESTS; i++) {
+			FlatTiledNode startNode = floor.get(random.nextInt(floor.size));
+			FlatTiledNode endNode = floor.get(random.nextInt(floor.size));
+			PathFinderRequest<FlatTiledNode> request = new PathFinderRequest<FlatTiledNode>(startNode, endNode,
+				new TiledManhattanDistance<FlatTiledNode>(), new DefaultGraphPath<FlatTiledNode>(), new MessageDispatcher());
+			request.responseMessageCode = PF_RESPONSE;
+			requests.add(request);
+		}
+
+		// Warm up
+		runSingleThreaded(graph, requests);
+		runConcurrent(graph, requests, Runtime.getRuntime().availableProcessors());
+
+		System.out.println("Requests: " + REQUESTS + ", frame time: " + FRAME_TIME / 1000 + " us, frame budget: " + FRAME_BUDGET / 1000
+			+ " us");
+		report("PathFinderQueue", runSingleThreaded(graph, requests));
+		for (int parallelism = 1; parallelism <= Runtime.getRuntime().availableProcessors(); parallelism *= 2)
+			report("ConcurrentPathFinderQueue x" + parallelism, runConcurrent(graph, requests, parallelism));
+	}
+
+	static Result runSingleThreaded (FlatTiledGraph graph, Array<PathFinderRequest<FlatTiledNode>> requests) {
+		PathFinderQueue<FlatTiledNode> queue = new PathFinderQueue<FlatTiledNode>(
+			new IndexedAStarPathFinder<FlatTiledNode>(graph));
+		return run(queue, queue, requests);
+	}
+
+	static Result runConcurrent (FlatTiledGraph graph, Array<PathFinderRequest<FlatTiledNode>> requests, int parallelism) {
+		Array<PathFinder<FlatTiledNode>> pathFinders = new Array<PathFinder<FlatTiledNode>>(parallelism);
+		for (int i = 0; i < parallelism; i++)
+			pathFinders.add(new IndexedAStarPathFinder<FlatTiledNode>(graph));
+		ConcurrentPathFinderQueue<FlatTiledNode> queue = new ConcurrentPathFinderQueue<FlatTiledNode>(pathFinders);
+		try {
+			return run(queue, queue, requests);
+		} finally {
+			queue.dispose();
+		}
+	}
+
+	static Result run (Schedulable schedulable, Telegraph queue, Array<PathFinderRequest<FlatTiledNode>> requests) {
+		MessageDispatcher dispatcher = new MessageDispatcher();
+		dispatcher.addListener(queue, PF_REQUEST);
+		Client client = new Client();
+		for (int i = 0; i < requests.size; i++) {
+			PathFinderRequest<FlatTiledNode> request = requests.get(i);
+			request.resultPath.clear();
+			request.pathFound = false;
+			dispatcher.dispatchMessage(client, PF_REQUEST, request);
+		}
+
+		Result result = new Result();
+		long start = TimeUtils.nanoTime();
+		while (client.responses < requests.size) {
+			long frameStart = TimeUtils.nanoTime();
+			schedulable.run(FRAME_BUDGET);
+			long frameEnd = TimeUtils.nanoTime();
+			result.gameThreadTime += frameEnd - frameStart;
+			result.frames++;
+			sleep(FRAME_TIME - (frameEnd - frameStart));
+		}
+		result.wallTime = TimeUtils.nanoTime() - start;
+		result.pathsFound = client.pathsFound;
+		return result;
+	}
+
+	static void sleep (long nanos) {
+		try {
+			Thread.sleep(nanos / 1000000, (int)(nanos % 1000000));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	static void report (String name, Result result) {
+		System.out.println(name + ": " + (result.wallTime / 1000000) + " ms, " + (long)(REQUESTS * 1e9 / result.wallTime)
+			 + " requests/s, " + result.frames + " frames, " + (REQUESTS / result.frames) + " requests/frame, " + (result.gameThreadTime / 1000000) + " ms on game thread, "
+			+ result.pathsFound + " paths found");
+	}
+
+	static class Result {
+		long wallTime;
+		long gameThreadTime;
+		int frames;
+		int pathsFound;
+	}
+
+	static class Client implements Telegraph {
+		int responses;
+		int pathsFound;
+
+		@Override
+		public boolean handleMessage (Telegram msg) {
+			@SuppressWarnings("unchecked")
+			PathFinderRequest<FlatTiledNode> request = (PathFinderRequest<FlatTiledNode>)msg.extraInfo;
+			responses++;
+			if (request.pathFound) pathsFound++;
+			return true;
+		}
+	}
+}